@@ -0,0 +1,58 @@
+package com.wangguangwu.cachebenchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * 基准测试入口。
+ * <p>
+ * 不带参数运行时，按 1、2、4 …… 直到 CPU 核数的线程数依次运行全部基准测试，并开启 GC 分析器输出分配速率；
+ * 带参数运行时参数原样交给 JMH 命令行，例如：
+ * <pre>
+ * java -jar cache-benchmark/target/benchmarks.jar LocalCacheBenchmark.access -p engine=CAFFEINE,MAP_TINY_LFU -t 8 -prof gc
+ * java -jar cache-benchmark/target/benchmarks.jar DistributedCacheBenchmark -t 16
+ * java -jar cache-benchmark/target/benchmarks.jar CodecBenchmark -p fieldCount=128 -prof gc
+ * </pre>
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        if (args.length > 0) {
+            Main.main(args);
+            return;
+        }
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            Options options = new OptionsBuilder()
+                    .include(LocalCacheBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .result("cache-benchmark-" + threads + "t.json")
+                    .resultFormat(ResultFormatType.JSON)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+    // 线程数按 2 的幂递增，最后一轮使用全部 CPU 核数
+    private static int nextThreadCount(int threads, int maxThreads) {
+        if (threads == maxThreads) {
+            return maxThreads + 1;
+        }
+        return Math.min(threads * 2, maxThreads);
+    }
+}
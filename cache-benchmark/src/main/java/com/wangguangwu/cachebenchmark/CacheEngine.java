@@ -0,0 +1,65 @@
+package com.wangguangwu.cachebenchmark;
+
+import com.wangguangwu.cachelocal.constants.EvictionPolicyType;
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.serializer.StringCacheSerializer;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.CaffeineLocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.GuavaLocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.MapLocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.OffHeapLocalCacheService;
+
+/**
+ * 参与基准测试的本地缓存实现，与 local.cache.type 的可选值一一对应，Map 缓存按淘汰策略拆分为两项。
+ *
+ * @author wangguangwu
+ */
+public enum CacheEngine {
+
+    GUAVA {
+        @Override
+        LocalCacheService<String, String> create(LocalCacheProperties properties) {
+            return new GuavaLocalCacheService<>(properties);
+        }
+    },
+
+    CAFFEINE {
+        @Override
+        LocalCacheService<String, String> create(LocalCacheProperties properties) {
+            return new CaffeineLocalCacheService<>(properties);
+        }
+    },
+
+    MAP_LRU {
+        @Override
+        LocalCacheService<String, String> create(LocalCacheProperties properties) {
+            properties.setEvictionPolicy(EvictionPolicyType.LRU);
+            return new MapLocalCacheService<>(properties);
+        }
+    },
+
+    MAP_TINY_LFU {
+        @Override
+        LocalCacheService<String, String> create(LocalCacheProperties properties) {
+            properties.setEvictionPolicy(EvictionPolicyType.TINY_LFU);
+            return new MapLocalCacheService<>(properties);
+        }
+    },
+
+    OFF_HEAP {
+        @Override
+        LocalCacheService<String, String> create(LocalCacheProperties properties) {
+            // 按每个缓存项约 128 字节估算堆外容量，使可容纳的条目数与其他实现的 maximumSize 相当
+            properties.getOffHeap().setMaximumBytes((long) properties.getMaximumSize() * 128);
+            return new OffHeapLocalCacheService<>(properties, new StringCacheSerializer(), new StringCacheSerializer());
+        }
+    };
+
+    /**
+     * 按配置创建缓存实例
+     *
+     * @param properties 缓存配置，部分实现会调整其中的淘汰策略或堆外容量
+     * @return 缓存实例
+     */
+    abstract LocalCacheService<String, String> create(LocalCacheProperties properties);
+}
@@ -0,0 +1,155 @@
+package com.wangguangwu.cachebenchmark;
+
+import com.wangguangwu.cachedistributed.codec.CacheSerializers;
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachelocal.serializer.CacheSerializer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式缓存值编解码的基准测试，比较不同编解码类型与压缩阈值下的编码、解码开销与写入网络的字节数。
+ * <p>
+ * 不需要启动 Redis 或 Memcached。编码后的字节数作为 encode 的辅助计数器 encodedBytes 与耗时一起出现在结果中，
+ * 配合 -prof gc 可以同时看到每次编解码的分配量，例如：
+ * <pre>
+ * java -jar cache-benchmark/target/benchmarks.jar CodecBenchmark -prof gc
+ * </pre>
+ * </p>
+ *
+ * @author wangguangwu
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    /**
+     * 所有线程共享的序列化实现与测试数据
+     */
+    @State(Scope.Benchmark)
+    public static class CodecState {
+
+        /**
+         * 编解码类型，与 distributed.cache.codec.type 的可选值一致
+         */
+        @Param({"jdk", "kryo"})
+        public String codec;
+
+        /**
+         * 压缩阈值，0 表示不压缩
+         */
+        @Param({"0", "1024"})
+        public int compressionThreshold;
+
+        /**
+         * 缓存对象中标签与属性的数量：8 约为几百字节，128 约为几 KB
+         */
+        @Param({"8", "128"})
+        public int fieldCount;
+
+        CacheSerializer<Object> serializer;
+
+        UserProfile value;
+
+        byte[] bytes;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            DistributedCacheProperties.Codec properties = new DistributedCacheProperties.Codec();
+            properties.setType(codec);
+            properties.setCompressionThreshold(compressionThreshold);
+            serializer = CacheSerializers.create(properties);
+            value = UserProfile.random(fieldCount, new SplittableRandom(fieldCount));
+            bytes = serializer.serialize(value);
+        }
+    }
+
+    /**
+     * 由 JMH 随结果输出的编码字节数。
+     * <p>
+     * EVENTS 类型的计数器按线程求和，默认单线程运行时即一次编码写入网络的字节数。
+     * </p>
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+
+        public long encodedBytes;
+
+        @Setup(Level.Iteration)
+        public void setUp(CodecState state) {
+            encodedBytes = state.bytes.length;
+        }
+    }
+
+    @Benchmark
+    public byte[] encode(CodecState state, EncodedSize size) {
+        return state.serializer.serialize(state.value);
+    }
+
+    @Benchmark
+    public Object decode(CodecState state) {
+        return state.serializer.deserialize(state.bytes);
+    }
+
+    /**
+     * 模拟业务中缓存的 DTO，包含数字、短字符串与集合
+     */
+    public static class UserProfile implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private long id;
+
+        private String name;
+
+        private String email;
+
+        private int level;
+
+        private long createdAt;
+
+        private List<String> tags;
+
+        private Map<String, String> attributes;
+
+        static UserProfile random(int fieldCount, SplittableRandom random) {
+            UserProfile profile = new UserProfile();
+            profile.id = random.nextLong();
+            profile.name = "user-" + random.nextInt(1_000_000);
+            profile.email = profile.name + "@example.com";
+            profile.level = random.nextInt(100);
+            profile.createdAt = System.currentTimeMillis() - random.nextInt(Integer.MAX_VALUE);
+            profile.tags = new ArrayList<>(fieldCount);
+            profile.attributes = new HashMap<>();
+            for (int i = 0; i < fieldCount; i++) {
+                profile.tags.add("tag-" + random.nextInt(64));
+                profile.attributes.put("attribute-" + i, "value-" + random.nextInt(1024));
+            }
+            return profile;
+        }
+    }
+}
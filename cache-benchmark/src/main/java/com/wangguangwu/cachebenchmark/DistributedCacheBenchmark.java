@@ -0,0 +1,198 @@
+package com.wangguangwu.cachebenchmark;
+
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式缓存实现的吞吐量与延迟基准测试，Redis 与 Memcached 使用相同的 key 空间、访问序列与读写比例。
+ * <p>
+ * 需要先通过 docker/docker-compose.yaml 在本机启动 Redis 与 Memcached，地址可通过 -p redisAddress 与
+ * -p memcachedServers 修改。测试结果包含网络往返，与 {@link LocalCacheBenchmark} 的结果不在同一个数量级。
+ * </p>
+ * <p>
+ * 每轮测试前写入全部 key，单个 key 的读写测量一次往返的开销，批量读取测量 Redis 流水线与 Memcached multi-get 的开销。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistributedCacheBenchmark {
+
+    // key 空间大小
+    static final int KEY_COUNT = 1 << 14;
+
+    // 每个线程预先生成的访问序列长度，必须为 2 的幂
+    static final int SEQUENCE_LENGTH = 1 << 16;
+
+    static final int SEQUENCE_MASK = SEQUENCE_LENGTH - 1;
+
+    // 固定长度的缓存值，所有写入共用同一个实例
+    static final String VALUE = "v".repeat(64);
+
+    /**
+     * 所有线程共享的缓存实例与 key 空间
+     */
+    @State(Scope.Benchmark)
+    public static class CacheState {
+
+        @Param({"REDISSON", "MEMCACHED"})
+        public DistributedCacheEngine engine;
+
+        @Param({"ZIPFIAN", "UNIFORM"})
+        public KeyDistribution distribution;
+
+        @Param("redis://127.0.0.1:6379")
+        public String redisAddress;
+
+        @Param("127.0.0.1:11211")
+        public String memcachedServers;
+
+        DistributedCacheService<String, String> cache;
+
+        String[] keys;
+
+        private final List<AutoCloseable> resources = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            DistributedCacheProperties properties = new DistributedCacheProperties();
+            properties.setKeyPrefix("benchmark:");
+            properties.getRedis().setAddress(redisAddress);
+            properties.getMemcached().setServers(memcachedServers);
+            cache = engine.create(properties, resources);
+
+            keys = new String[KEY_COUNT];
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < KEY_COUNT; i++) {
+                keys[i] = "key-" + i;
+                values.put(keys[i], VALUE);
+            }
+            cache.putAll(values);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            for (AutoCloseable resource : resources) {
+                resource.close();
+            }
+        }
+    }
+
+    /**
+     * 每个线程独立的 key 访问序列
+     */
+    @State(Scope.Thread)
+    public static class KeyState {
+
+        int[] indexes;
+
+        int cursor;
+
+        long seed;
+
+        @Setup(Level.Trial)
+        public void setUpKeys(CacheState cacheState, BenchmarkParams benchmarkParams, ThreadParams threadParams) {
+            seed = 31L * threadParams.getThreadIndex() + benchmarkParams.getThreads();
+            indexes = cacheState.distribution.indexes(KEY_COUNT, SEQUENCE_LENGTH, seed);
+        }
+
+        final String nextKey(CacheState cacheState) {
+            return cacheState.keys[indexes[cursor++ & SEQUENCE_MASK]];
+        }
+    }
+
+    /**
+     * 在 key 访问序列的基础上，增加每个线程独立的读写操作序列
+     */
+    @State(Scope.Thread)
+    public static class AccessState extends KeyState {
+
+        /**
+         * 写操作所占的百分比：5 为读多写少，50 为读写混合
+         */
+        @Param({"5", "50"})
+        public int writePercent;
+
+        boolean[] writes;
+
+        @Setup(Level.Trial)
+        public void setUpWrites() {
+            writes = new boolean[SEQUENCE_LENGTH];
+            SplittableRandom random = new SplittableRandom(~seed);
+            for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+                writes[i] = random.nextInt(100) < writePercent;
+            }
+        }
+    }
+
+    /**
+     * 每个线程独立的批量读取 key 列表
+     */
+    @State(Scope.Thread)
+    public static class BatchState extends KeyState {
+
+        /**
+         * 每次批量读取的 key 数量
+         */
+        @Param({"16", "128"})
+        public int batchSize;
+
+        final List<String> nextBatch(CacheState cacheState) {
+            List<String> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(nextKey(cacheState));
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * 按预先生成的序列执行一次读取或写入
+     */
+    @Benchmark
+    public void access(CacheState cacheState, AccessState accessState, Blackhole blackhole) {
+        boolean write = accessState.writes[accessState.cursor & SEQUENCE_MASK];
+        String key = accessState.nextKey(cacheState);
+        if (write) {
+            cacheState.cache.put(key, VALUE);
+        } else {
+            blackhole.consume(cacheState.cache.getIfPresent(key));
+        }
+    }
+
+    /**
+     * 一次批量读取
+     */
+    @Benchmark
+    public Map<String, String> getAllPresent(CacheState cacheState, BatchState batchState) {
+        return cacheState.cache.getAllPresent(batchState.nextBatch(cacheState));
+    }
+}
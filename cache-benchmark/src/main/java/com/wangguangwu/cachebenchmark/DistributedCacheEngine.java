@@ -0,0 +1,51 @@
+package com.wangguangwu.cachebenchmark;
+
+import com.wangguangwu.cachedistributed.config.DistributedCacheConfig;
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import com.wangguangwu.cachedistributed.service.impl.MemcachedDistributedCacheService;
+import com.wangguangwu.cachedistributed.service.impl.RedissonDistributedCacheService;
+import net.rubyeye.xmemcached.MemcachedClient;
+import org.redisson.api.RedissonClient;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 参与基准测试的分布式缓存实现，与 distributed.cache.type 的可选值一一对应。
+ *
+ * @author wangguangwu
+ */
+public enum DistributedCacheEngine {
+
+    REDISSON {
+        @Override
+        DistributedCacheService<String, String> create(DistributedCacheProperties properties,
+                                                       List<AutoCloseable> resources) {
+            RedissonClient redissonClient = new DistributedCacheConfig(properties).redissonClient();
+            resources.add(redissonClient::shutdown);
+            return new RedissonDistributedCacheService<>(redissonClient, properties);
+        }
+    },
+
+    MEMCACHED {
+        @Override
+        DistributedCacheService<String, String> create(DistributedCacheProperties properties,
+                                                       List<AutoCloseable> resources) throws IOException {
+            MemcachedClient memcachedClient = new DistributedCacheConfig(properties).memcachedClient();
+            resources.add(memcachedClient::shutdown);
+            return new MemcachedDistributedCacheService<>(memcachedClient, properties);
+        }
+    };
+
+    /**
+     * 按配置创建缓存实例
+     *
+     * @param properties 缓存配置
+     * @param resources  创建的客户端，测试结束后关闭
+     * @return 缓存实例
+     * @throws IOException 如果无法建立连接
+     */
+    abstract DistributedCacheService<String, String> create(DistributedCacheProperties properties,
+                                                            List<AutoCloseable> resources) throws IOException;
+}
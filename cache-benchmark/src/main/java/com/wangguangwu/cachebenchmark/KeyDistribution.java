@@ -0,0 +1,69 @@
+package com.wangguangwu.cachebenchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * 基准测试的 key 访问分布。
+ *
+ * @author wangguangwu
+ */
+public enum KeyDistribution {
+
+    /**
+     * 均匀分布，所有 key 的访问概率相同，命中率约等于缓存容量与 key 空间之比
+     */
+    UNIFORM {
+        @Override
+        int[] indexes(int keyCount, int length, long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            int[] indexes = new int[length];
+            for (int i = 0; i < length; i++) {
+                indexes[i] = random.nextInt(keyCount);
+            }
+            return indexes;
+        }
+    },
+
+    /**
+     * Zipfian 分布，少量热点 key 占据大部分访问，接近线上缓存的真实流量
+     */
+    ZIPFIAN {
+        @Override
+        int[] indexes(int keyCount, int length, long seed) {
+            ZipfianGenerator generator = new ZipfianGenerator(keyCount, ZipfianGenerator.DEFAULT_THETA, seed);
+            // 打散热点 key 的下标，避免热点集中在 key 空间的开头
+            int[] permutation = permutation(keyCount);
+            int[] indexes = new int[length];
+            for (int i = 0; i < length; i++) {
+                indexes[i] = permutation[(int) generator.next()];
+            }
+            return indexes;
+        }
+    };
+
+    /**
+     * 预先生成访问序列，基准测试的热点路径上只读取数组，不生成随机数
+     *
+     * @param keyCount key 空间大小
+     * @param length   序列长度
+     * @param seed     随机种子，不同线程使用不同的种子
+     * @return key 下标序列
+     */
+    abstract int[] indexes(int keyCount, int length, long seed);
+
+    // 置换只取决于 key 空间大小，保证热点 key 在各个线程之间一致
+    private static int[] permutation(int keyCount) {
+        int[] permutation = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            permutation[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(keyCount);
+        for (int i = keyCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = tmp;
+        }
+        return permutation;
+    }
+}
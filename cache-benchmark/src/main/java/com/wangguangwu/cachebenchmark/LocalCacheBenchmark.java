@@ -0,0 +1,164 @@
+package com.wangguangwu.cachebenchmark;
+
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地缓存实现的吞吐量与延迟基准测试。
+ * <p>
+ * 参数矩阵：缓存实现 × key 分布 × 读写比例（只对 access 生效），线程数通过 JMH 的 -t 参数或 {@link BenchmarkRunner} 指定。
+ * key 空间是缓存容量的两倍，均匀分布下约一半的读取未命中；未命中的读取不回源，只计入一次 getIfPresent。
+ * 缓存在每轮测试前预热到满，过期时间足够长，测试期间只发生容量淘汰。
+ * </p>
+ * <p>
+ * 访问序列与读写操作序列在初始化时预先生成，热点路径上只有数组读取与缓存调用，
+ * 配合 -prof gc 得到的分配速率反映的是缓存实现本身的分配。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalCacheBenchmark {
+
+    // 缓存容量
+    static final int MAXIMUM_SIZE = 1 << 16;
+
+    // key 空间大小
+    static final int KEY_COUNT = MAXIMUM_SIZE * 2;
+
+    // 每个线程预先生成的访问序列长度，必须为 2 的幂
+    static final int SEQUENCE_LENGTH = 1 << 20;
+
+    static final int SEQUENCE_MASK = SEQUENCE_LENGTH - 1;
+
+    // 固定长度的缓存值，所有写入共用同一个实例
+    static final String VALUE = "v".repeat(64);
+
+    /**
+     * 所有线程共享的缓存实例与 key 空间
+     */
+    @State(Scope.Benchmark)
+    public static class CacheState {
+
+        @Param({"GUAVA", "CAFFEINE", "MAP_LRU", "MAP_TINY_LFU", "OFF_HEAP"})
+        public CacheEngine engine;
+
+        @Param({"ZIPFIAN", "UNIFORM"})
+        public KeyDistribution distribution;
+
+        LocalCacheService<String, String> cache;
+
+        String[] keys;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            LocalCacheProperties properties = new LocalCacheProperties();
+            properties.setMaximumSize(MAXIMUM_SIZE);
+            properties.setExpireAfterWrite((int) TimeUnit.HOURS.toSeconds(1));
+            properties.setExpireAfterAccess((int) TimeUnit.HOURS.toSeconds(1));
+            properties.setConcurrencyLevel(Runtime.getRuntime().availableProcessors() * 4);
+            cache = engine.create(properties);
+
+            keys = new String[KEY_COUNT];
+            for (int i = 0; i < KEY_COUNT; i++) {
+                keys[i] = "key-" + i;
+            }
+            // 按访问分布写满缓存，使热点 key 在测试开始前已经驻留
+            int[] warmup = distribution.indexes(KEY_COUNT, MAXIMUM_SIZE * 4, 0);
+            for (int index : warmup) {
+                cache.put(keys[index], VALUE);
+            }
+        }
+    }
+
+    /**
+     * 每个线程独立的 key 访问序列
+     */
+    @State(Scope.Thread)
+    public static class KeyState {
+
+        int[] indexes;
+
+        int cursor;
+
+        long seed;
+
+        @Setup(Level.Trial)
+        public void setUpKeys(CacheState cacheState, BenchmarkParams benchmarkParams, ThreadParams threadParams) {
+            seed = 31L * threadParams.getThreadIndex() + benchmarkParams.getThreads();
+            indexes = cacheState.distribution.indexes(KEY_COUNT, SEQUENCE_LENGTH, seed);
+        }
+
+        final String nextKey(CacheState cacheState) {
+            return cacheState.keys[indexes[cursor++ & SEQUENCE_MASK]];
+        }
+    }
+
+    /**
+     * 在 key 访问序列的基础上，增加每个线程独立的读写操作序列
+     */
+    @State(Scope.Thread)
+    public static class AccessState extends KeyState {
+
+        /**
+         * 写操作所占的百分比：5 为读多写少，50 为读写混合，90 为写多读少
+         */
+        @Param({"5", "50", "90"})
+        public int writePercent;
+
+        boolean[] writes;
+
+        @Setup(Level.Trial)
+        public void setUpWrites() {
+            writes = new boolean[SEQUENCE_LENGTH];
+            SplittableRandom random = new SplittableRandom(~seed);
+            for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+                writes[i] = random.nextInt(100) < writePercent;
+            }
+        }
+    }
+
+    /**
+     * 按预先生成的序列执行一次读取或写入
+     */
+    @Benchmark
+    public void access(CacheState cacheState, AccessState accessState, Blackhole blackhole) {
+        boolean write = accessState.writes[accessState.cursor & SEQUENCE_MASK];
+        String key = accessState.nextKey(cacheState);
+        if (write) {
+            cacheState.cache.put(key, VALUE);
+        } else {
+            blackhole.consume(cacheState.cache.getIfPresent(key));
+        }
+    }
+
+    /**
+     * 带加载函数的读取，未命中时加载函数直接返回固定值，测量命中路径与加载合并的开销
+     */
+    @Benchmark
+    public String getWithLoader(CacheState cacheState, KeyState keyState) {
+        return cacheState.cache.get(keyState.nextKey(cacheState), key -> VALUE);
+    }
+}
@@ -0,0 +1,64 @@
+package com.wangguangwu.cachebenchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zipfian 分布的整数生成器，生成 [0, itemCount) 内的下标，下标越小出现的概率越高。
+ * <p>
+ * 使用 Gray 等人在 "Quickly Generating Billion-Record Synthetic Databases" 中的算法，与 YCSB 的实现一致，
+ * 初始化时计算一次 zeta 常数，之后每次生成都是 O(1)。非线程安全，每个线程使用独立的实例。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+final class ZipfianGenerator {
+
+    // YCSB 默认的偏斜系数
+    static final double DEFAULT_THETA = 0.99;
+
+    private final long itemCount;
+
+    private final double theta;
+
+    private final double alpha;
+
+    private final double zetaN;
+
+    private final double eta;
+
+    private final SplittableRandom random;
+
+    ZipfianGenerator(long itemCount, double theta, long seed) {
+        if (itemCount <= 0) {
+            throw new IllegalArgumentException("Item count must be greater than 0");
+        }
+        this.itemCount = itemCount;
+        this.theta = theta;
+        this.alpha = 1.0 / (1.0 - theta);
+        this.zetaN = zeta(itemCount, theta);
+        double zeta2 = zeta(2, theta);
+        this.eta = (1 - Math.pow(2.0 / itemCount, 1 - theta)) / (1 - zeta2 / zetaN);
+        this.random = new SplittableRandom(seed);
+    }
+
+    long next() {
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < 1.0 + Math.pow(0.5, theta)) {
+            return 1;
+        }
+        long value = (long) (itemCount * Math.pow(eta * u - eta + 1, alpha));
+        return Math.min(value, itemCount - 1);
+    }
+
+    private static double zeta(long n, double theta) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,51 @@
+package com.wangguangwu.cachedistributed.codec;
+
+import com.wangguangwu.cachelocal.serializer.CacheSerializer;
+import io.netty.buffer.Unpooled;
+import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+
+import java.util.Objects;
+
+/**
+ * 将 {@link CacheSerializer} 适配为 Redisson 的编解码器，作为 Redisson 客户端的默认编解码器使用。
+ * <p>
+ * 编码结果直接包装为 ByteBuf，不再复制；解码时按可读字节数读出后交给序列化实现。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public class CacheSerializerCodec extends BaseCodec {
+
+    private final CacheSerializer<Object> serializer;
+
+    private final Encoder encoder;
+
+    private final Decoder<Object> decoder;
+
+    /**
+     * CacheSerializerCodec 构造方法。
+     *
+     * @param serializer 值的序列化实现
+     */
+    public CacheSerializerCodec(CacheSerializer<Object> serializer) {
+        this.serializer = Objects.requireNonNull(serializer);
+        this.encoder = value -> Unpooled.wrappedBuffer(this.serializer.serialize(value));
+        this.decoder = (buf, state) -> {
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.readBytes(bytes);
+            return this.serializer.deserialize(bytes);
+        };
+    }
+
+    @Override
+    public Decoder<Object> getValueDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public Encoder getValueEncoder() {
+        return encoder;
+    }
+}
@@ -0,0 +1,69 @@
+package com.wangguangwu.cachedistributed.codec;
+
+import com.wangguangwu.cachelocal.serializer.CacheSerializer;
+import net.rubyeye.xmemcached.transcoders.CachedData;
+import net.rubyeye.xmemcached.transcoders.CompressionMode;
+import net.rubyeye.xmemcached.transcoders.Transcoder;
+
+import java.util.Objects;
+
+/**
+ * 将 {@link CacheSerializer} 适配为 xmemcached 的编解码器，作为 xmemcached 客户端的默认编解码器使用。
+ * <p>
+ * 所有值都交给序列化实现处理，flags 固定为 0；压缩由序列化实现负责，xmemcached 的压缩与基本类型相关配置被忽略。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public class CacheSerializerTranscoder implements Transcoder<Object> {
+
+    // 写入 Memcached 的 flags
+    private static final int FLAGS = 0;
+
+    private final CacheSerializer<Object> serializer;
+
+    /**
+     * CacheSerializerTranscoder 构造方法。
+     *
+     * @param serializer 值的序列化实现
+     */
+    public CacheSerializerTranscoder(CacheSerializer<Object> serializer) {
+        this.serializer = Objects.requireNonNull(serializer);
+    }
+
+    @Override
+    public CachedData encode(Object value) {
+        return new CachedData(FLAGS, serializer.serialize(value));
+    }
+
+    @Override
+    public Object decode(CachedData data) {
+        return serializer.deserialize(data.getData());
+    }
+
+    @Override
+    public void setPrimitiveAsString(boolean primitiveAsString) {
+    }
+
+    @Override
+    public void setPackZeros(boolean packZeros) {
+    }
+
+    @Override
+    public void setCompressionThreshold(int compressionThreshold) {
+    }
+
+    @Override
+    public boolean isPrimitiveAsString() {
+        return false;
+    }
+
+    @Override
+    public boolean isPackZeros() {
+        return false;
+    }
+
+    @Override
+    public void setCompressionMode(CompressionMode compressionMode) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.wangguangwu.cachedistributed.codec;
+
+import com.wangguangwu.cachedistributed.constants.DistributedCacheTypeConstants;
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachelocal.serializer.CacheSerializer;
+import com.wangguangwu.cachelocal.serializer.JdkCacheSerializer;
+
+/**
+ * 按配置创建分布式缓存值的序列化实现。
+ * <p>
+ * 不允许实例化该类。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public final class CacheSerializers {
+
+    // 私有构造方法，防止实例化
+    private CacheSerializers() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * 按配置的编解码类型创建序列化实现，配置了压缩阈值时包装为 {@link CompressingCacheSerializer}。
+     *
+     * @param codec 编解码配置
+     * @return 值的序列化实现
+     * @throws IllegalArgumentException 如果编解码类型未知
+     */
+    public static CacheSerializer<Object> create(DistributedCacheProperties.Codec codec) {
+        CacheSerializer<Object> serializer = switch (codec.getType()) {
+            case DistributedCacheTypeConstants.CODEC_KRYO -> new KryoCacheSerializer<>();
+            case DistributedCacheTypeConstants.CODEC_JDK -> new JdkCacheSerializer<>();
+            default -> throw new IllegalArgumentException("Unknown distributed cache codec: " + codec.getType());
+        };
+        if (codec.getCompressionThreshold() > 0) {
+            return new CompressingCacheSerializer<>(serializer, codec.getCompressionThreshold());
+        }
+        return serializer;
+    }
+}
@@ -0,0 +1,238 @@
+package com.wangguangwu.cachedistributed.codec;
+
+import com.esotericsoftware.kryo.util.Pool;
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.serializer.CacheSerializer;
+
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 对序列化结果按大小压缩的装饰器，序列化后不小于阈值的字节使用 Deflate 最快级别压缩。
+ * <p>
+ * 输出的首字节标记编码方式：{@link #RAW} 表示其后是未压缩的字节；
+ * {@link #DEFLATE} 表示其后是变长编码的原始长度与不带 zlib 头的 Deflate 数据。
+ * 压缩后不比原始字节小的值按未压缩写入，随机数据、已压缩的图片等不会因此变大。
+ * </p>
+ * <p>
+ * Deflater、Inflater 持有堆外内存，创建开销较大，与压缩缓冲区一起通过池复用。
+ * 未压缩时由被装饰的序列化实现在开头预留编码头，结果数组一次分配到位；读取时按区间交给被装饰的实现，不复制负载。
+ * 解压时原始长度已知，结果数组一次分配到位。
+ * </p>
+ *
+ * @param <T> 序列化的对象类型
+ * @author wangguangwu
+ */
+public class CompressingCacheSerializer<T> implements CacheSerializer<T> {
+
+    /**
+     * 编码方式：未压缩
+     */
+    public static final byte RAW = 0;
+
+    /**
+     * 编码方式：Deflate 压缩
+     */
+    public static final byte DEFLATE = 1;
+
+    // 可放回池中的压缩缓冲区的最大大小
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    private final CacheSerializer<T> delegate;
+
+    // 触发压缩的最小字节数
+    private final int threshold;
+
+    private final Pool<Compressor> compressorPool;
+
+    private final Pool<Inflater> inflaterPool;
+
+    /**
+     * 使用默认池容量创建，池容量为 CPU 核数的两倍。
+     *
+     * @param delegate  被装饰的序列化实现
+     * @param threshold 触发压缩的最小字节数
+     */
+    public CompressingCacheSerializer(CacheSerializer<T> delegate, int threshold) {
+        this(delegate, threshold, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * CompressingCacheSerializer 构造方法。
+     *
+     * @param delegate     被装饰的序列化实现
+     * @param threshold    触发压缩的最小字节数
+     * @param poolCapacity 压缩器与解压器池最多保留的数量
+     */
+    public CompressingCacheSerializer(CacheSerializer<T> delegate, int threshold, int poolCapacity) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Compression threshold must be greater than 0: " + threshold);
+        }
+        if (poolCapacity <= 0) {
+            throw new IllegalArgumentException("Pool capacity must be greater than 0: " + poolCapacity);
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.threshold = threshold;
+        this.compressorPool = new Pool<>(true, false, poolCapacity) {
+            @Override
+            protected Compressor create() {
+                return new Compressor();
+            }
+
+            @Override
+            protected void reset(Compressor compressor) {
+                compressor.reset();
+            }
+        };
+        this.inflaterPool = new Pool<>(true, false, poolCapacity) {
+            @Override
+            protected Inflater create() {
+                return new Inflater(true);
+            }
+
+            @Override
+            protected void reset(Inflater inflater) {
+                inflater.reset();
+            }
+        };
+    }
+
+    @Override
+    public byte[] serialize(T value) {
+        // 第一个字节预留给编码头
+        byte[] bytes = delegate.serialize(value, 1);
+        int rawLength = bytes.length - 1;
+        if (rawLength >= threshold) {
+            Compressor compressor = compressorPool.obtain();
+            try {
+                byte[] compressed = compressor.compress(bytes, 1, rawLength);
+                if (compressed != null) {
+                    return compressed;
+                }
+            } finally {
+                compressorPool.free(compressor);
+            }
+        }
+        bytes[0] = RAW;
+        return bytes;
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) {
+        return deserialize(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public T deserialize(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            throw new CacheException("Error deserializing value: empty bytes");
+        }
+        return switch (bytes[offset]) {
+            case RAW -> delegate.deserialize(bytes, offset + 1, length - 1);
+            case DEFLATE -> delegate.deserialize(inflate(bytes, offset + 1, offset + length));
+            default -> throw new CacheException("Error deserializing value: unknown encoding " + bytes[offset]);
+        };
+    }
+
+    // 解压 [offset, end) 区间内的原始长度与压缩数据
+    private byte[] inflate(byte[] bytes, int offset, int end) {
+        // 读取变长编码的原始长度，每个字节低 7 位为数据，最高位表示后面还有字节
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (offset == end || shift > 28) {
+                throw new CacheException("Error deserializing value: corrupted length");
+            }
+            byte b = bytes[offset++];
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        if (length < 0) {
+            throw new CacheException("Error deserializing value: corrupted length");
+        }
+
+        byte[] raw = new byte[length];
+        Inflater inflater = inflaterPool.obtain();
+        try {
+            inflater.setInput(bytes, offset, end - offset);
+            int n = 0;
+            while (n < length) {
+                int inflated = inflater.inflate(raw, n, length - n);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary() || inflater.finished())) {
+                    throw new CacheException("Error deserializing value: truncated compressed data");
+                }
+                n += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new CacheException("Error deserializing value: corrupted compressed data", e);
+        } finally {
+            inflaterPool.free(inflater);
+        }
+        return raw;
+    }
+
+    /**
+     * 压缩器与复用的压缩缓冲区
+     */
+    private static final class Compressor {
+
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+
+        private byte[] buffer = new byte[1024];
+
+        /**
+         * 压缩字节并写入编码头
+         *
+         * @param raw    原始字节所在的数组
+         * @param offset 原始字节的起始位置
+         * @param length 原始字节数
+         * @return 带编码头的压缩结果，压缩后不比原始字节小时返回 null
+         */
+        byte[] compress(byte[] raw, int offset, int length) {
+            // 编码头：1 字节编码方式与最多 5 字节的原始长度
+            byte[] header = new byte[6];
+            header[0] = DEFLATE;
+            int headerLength = 1;
+            for (int remaining = length; ; remaining >>>= 7) {
+                if ((remaining & ~0x7F) == 0) {
+                    header[headerLength++] = (byte) remaining;
+                    break;
+                }
+                header[headerLength++] = (byte) ((remaining & 0x7F) | 0x80);
+            }
+
+            // 压缩数据加编码头达到原始长度时放弃压缩
+            int limit = length - headerLength;
+            if (limit <= 0) {
+                return null;
+            }
+            if (buffer.length < limit) {
+                buffer = new byte[limit];
+            }
+            deflater.setInput(raw, offset, length);
+            deflater.finish();
+            int n = 0;
+            while (!deflater.finished()) {
+                if (n == limit) {
+                    return null;
+                }
+                n += deflater.deflate(buffer, n, limit - n);
+            }
+
+            byte[] bytes = new byte[headerLength + n];
+            System.arraycopy(header, 0, bytes, 0, headerLength);
+            System.arraycopy(buffer, 0, bytes, headerLength, n);
+            return bytes;
+        }
+
+        void reset() {
+            deflater.reset();
+            if (buffer.length > MAX_POOLED_BUFFER_SIZE) {
+                buffer = new byte[1024];
+            }
+        }
+    }
+}
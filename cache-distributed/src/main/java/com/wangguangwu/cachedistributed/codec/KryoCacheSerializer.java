@@ -0,0 +1,149 @@
+package com.wangguangwu.cachedistributed.codec;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.ImmutableCollectionsSerializers;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.serializer.CacheSerializer;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+/**
+ * 基于 Kryo 的紧凑二进制序列化实现，不需要预先注册类型，也不要求对象实现 {@link java.io.Serializable}。
+ * <p>
+ * 字节中只记录类名与字段值，不包含 JDK 序列化的类描述信息，体积与编解码开销都明显小于 {@link com.wangguangwu.cachelocal.serializer.JdkCacheSerializer}。
+ * 字节中不包含字段名，增删字段后旧数据无法正确读取，修改缓存对象的结构时需要同时更换 key 前缀。
+ * </p>
+ * <p>
+ * Kryo 实例与读写缓冲区都不是线程安全的，通过池复用：每次编解码从池中取出，结束后归还，
+ * 除结果字节数组外几乎不产生额外分配。超过 {@link #MAX_POOLED_BUFFER_SIZE} 的输出缓冲区不放回池中，
+ * 避免偶尔出现的大对象长期占用内存。
+ * </p>
+ * <p>
+ * 支持 {@code List.of}、{@code Map.of} 等不可变集合与 record；{@code Collections.unmodifiableList} 等包装类型无法还原，需要复制后再写入缓存。
+ * </p>
+ *
+ * @param <T> 序列化的对象类型
+ * @author wangguangwu
+ */
+public class KryoCacheSerializer<T> implements CacheSerializer<T> {
+
+    // 输出缓冲区的初始大小
+    private static final int INITIAL_BUFFER_SIZE = 512;
+
+    // 可放回池中的输出缓冲区的最大大小
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    // 归还读取缓冲区时替换掉调用方的字节数组
+    private static final byte[] EMPTY_BUFFER = new byte[0];
+
+    private final Pool<Kryo> kryoPool;
+
+    private final Pool<Output> outputPool;
+
+    private final Pool<Input> inputPool;
+
+    /**
+     * 使用默认池容量创建，池容量为 CPU 核数的两倍。
+     */
+    public KryoCacheSerializer() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * KryoCacheSerializer 构造方法。
+     *
+     * @param poolCapacity 每种池化对象最多保留的数量，池为空时临时创建，超过容量的对象归还时丢弃
+     */
+    public KryoCacheSerializer(int poolCapacity) {
+        if (poolCapacity <= 0) {
+            throw new IllegalArgumentException("Pool capacity must be greater than 0: " + poolCapacity);
+        }
+        ClassLoader classLoader = getClass().getClassLoader();
+        this.kryoPool = new Pool<>(true, false, poolCapacity) {
+            @Override
+            protected Kryo create() {
+                return createKryo(classLoader);
+            }
+        };
+        this.outputPool = new Pool<>(true, false, poolCapacity) {
+            @Override
+            protected Output create() {
+                return new Output(INITIAL_BUFFER_SIZE, -1);
+            }
+        };
+        this.inputPool = new Pool<>(true, false, poolCapacity) {
+            @Override
+            protected Input create() {
+                return new Input();
+            }
+        };
+    }
+
+    @Override
+    public byte[] serialize(T value) {
+        return serialize(value, 0);
+    }
+
+    @Override
+    public byte[] serialize(T value, int headerLength) {
+        Kryo kryo = kryoPool.obtain();
+        Output output = outputPool.obtain();
+        try {
+            // 从预留位置之后开始写入，预留部分为 0，结果数组只分配一次
+            for (int i = 0; i < headerLength; i++) {
+                output.writeByte(0);
+            }
+            kryo.writeClassAndObject(output, value);
+            return output.toBytes();
+        } catch (KryoException e) {
+            kryo.reset();
+            throw new CacheException("Error serializing value: " + value, e);
+        } finally {
+            if (output.getBuffer().length > MAX_POOLED_BUFFER_SIZE) {
+                output.setBuffer(new byte[INITIAL_BUFFER_SIZE], -1);
+            } else {
+                output.reset();
+            }
+            outputPool.free(output);
+            kryoPool.free(kryo);
+        }
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) {
+        return deserialize(bytes, 0, bytes.length);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(byte[] bytes, int offset, int length) {
+        Kryo kryo = kryoPool.obtain();
+        Input input = inputPool.obtain();
+        try {
+            input.setBuffer(bytes, offset, length);
+            return (T) kryo.readClassAndObject(input);
+        } catch (KryoException e) {
+            kryo.reset();
+            throw new CacheException("Error deserializing value", e);
+        } finally {
+            input.setBuffer(EMPTY_BUFFER);
+            inputPool.free(input);
+            kryoPool.free(kryo);
+        }
+    }
+
+    // 不要求注册类型；有无参构造方法时调用，否则跳过构造方法直接创建实例；开启引用记录以支持循环引用
+    private static Kryo createKryo(ClassLoader classLoader) {
+        Kryo kryo = new Kryo();
+        kryo.setClassLoader(classLoader);
+        kryo.setRegistrationRequired(false);
+        kryo.setReferences(true);
+        kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        ImmutableCollectionsSerializers.addDefaultSerializers(kryo);
+        return kryo;
+    }
+}
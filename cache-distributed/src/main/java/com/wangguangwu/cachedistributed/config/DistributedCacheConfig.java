@@ -0,0 +1,116 @@
+package com.wangguangwu.cachedistributed.config;
+
+import com.wangguangwu.cachedistributed.codec.CacheSerializerCodec;
+import com.wangguangwu.cachedistributed.codec.CacheSerializerTranscoder;
+import com.wangguangwu.cachedistributed.codec.CacheSerializers;
+import com.wangguangwu.cachedistributed.constants.DistributedCacheTypeConstants;
+import com.wangguangwu.cachedistributed.negative.NegativeCachingDistributedCacheService;
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import com.wangguangwu.cachedistributed.service.impl.MemcachedDistributedCacheService;
+import com.wangguangwu.cachedistributed.service.impl.RedissonDistributedCacheService;
+import com.wangguangwu.cachedistributed.spring.DistributedCacheManager;
+import com.wangguangwu.cachedistributed.stampede.InMemoryLoadLock;
+import com.wangguangwu.cachedistributed.stampede.LoadLock;
+import com.wangguangwu.cachedistributed.stampede.RedissonLoadLock;
+import com.wangguangwu.cachedistributed.stampede.StampedeProtectedCacheService;
+import lombok.RequiredArgsConstructor;
+import net.rubyeye.xmemcached.MemcachedClient;
+import net.rubyeye.xmemcached.XMemcachedClientBuilder;
+import net.rubyeye.xmemcached.command.BinaryCommandFactory;
+import net.rubyeye.xmemcached.utils.AddrUtil;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * 本类用于配置分布式缓存的类型。
+ *
+ * @author wangguangwu
+ */
+@Configuration
+@RequiredArgsConstructor
+public class DistributedCacheConfig {
+
+    private final DistributedCacheProperties distributedCacheProperties;
+
+    /**
+     * Redisson 客户端，按配置设置连接池大小、Netty 事件循环线程数与值的编解码方式。
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = DistributedCacheTypeConstants.DISTRIBUTED_CACHE_TYPE, havingValue = DistributedCacheTypeConstants.REDISSON)
+    public RedissonClient redissonClient() {
+        DistributedCacheProperties.Redis redis = distributedCacheProperties.getRedis();
+        Config config = new Config();
+        config.setNettyThreads(redis.getNettyThreads());
+        config.setCodec(new CacheSerializerCodec(CacheSerializers.create(distributedCacheProperties.getCodec())));
+        config.useSingleServer()
+                .setAddress(redis.getAddress())
+                .setPassword(redis.getPassword())
+                .setDatabase(redis.getDatabase())
+                .setConnectionPoolSize(redis.getConnectionPoolSize())
+                .setConnectionMinimumIdleSize(redis.getConnectionMinimumIdleSize())
+                .setTimeout(redis.getTimeout());
+        return Redisson.create(config);
+    }
+
+    /**
+     * Redis 分布式缓存服务，启用 stampede 时装饰为 {@link StampedeProtectedCacheService}，通过 Redis 锁跨节点只加载一次；
+     * 配置了 negativeTtl 时再装饰为 {@link NegativeCachingDistributedCacheService}，Memcached 同理。
+     */
+    @Bean
+    @ConditionalOnProperty(name = DistributedCacheTypeConstants.DISTRIBUTED_CACHE_TYPE, havingValue = DistributedCacheTypeConstants.REDISSON)
+    public DistributedCacheService<String, Object> redissonCacheService(RedissonClient redissonClient) {
+        return decorate(new RedissonDistributedCacheService<>(redissonClient, distributedCacheProperties),
+                new RedissonLoadLock(redissonClient));
+    }
+
+    /**
+     * xmemcached 客户端，使用二进制协议，按配置设置每个节点的连接数、超时时间与值的编解码方式。
+     *
+     * @throws IOException 如果无法建立连接
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = DistributedCacheTypeConstants.DISTRIBUTED_CACHE_TYPE, havingValue = DistributedCacheTypeConstants.MEMCACHED)
+    public MemcachedClient memcachedClient() throws IOException {
+        DistributedCacheProperties.Memcached memcached = distributedCacheProperties.getMemcached();
+        XMemcachedClientBuilder builder = new XMemcachedClientBuilder(AddrUtil.getAddresses(memcached.getServers()));
+        builder.setCommandFactory(new BinaryCommandFactory());
+        builder.setTranscoder(new CacheSerializerTranscoder(CacheSerializers.create(distributedCacheProperties.getCodec())));
+        builder.setConnectionPoolSize(memcached.getConnectionPoolSize());
+        builder.setOpTimeout(memcached.getOpTimeout());
+        builder.setConnectTimeout(memcached.getConnectTimeout());
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = DistributedCacheTypeConstants.DISTRIBUTED_CACHE_TYPE, havingValue = DistributedCacheTypeConstants.MEMCACHED)
+    public DistributedCacheService<String, Object> memcachedCacheService(MemcachedClient memcachedClient) {
+        return decorate(new MemcachedDistributedCacheService<>(memcachedClient, distributedCacheProperties),
+                new InMemoryLoadLock());
+    }
+
+    /**
+     * Spring 缓存管理器，配置了分布式缓存类型时启用，{@code @Cacheable} 等注解的所有缓存名称共用分布式缓存服务；
+     * 定义了该 bean 后 Spring Boot 不再自动配置其他 {@link CacheManager}。
+     */
+    @Bean
+    @ConditionalOnProperty(name = DistributedCacheTypeConstants.DISTRIBUTED_CACHE_TYPE)
+    public CacheManager distributedCacheManager(DistributedCacheService<String, Object> distributedCacheService) {
+        return new DistributedCacheManager(distributedCacheService, distributedCacheProperties.isAllowNullValues());
+    }
+
+    // 负缓存在外层，加载结果为 null 时写入的占位值同样只由一个节点加载
+    private DistributedCacheService<String, Object> decorate(DistributedCacheService<String, Object> cacheService,
+                                                             LoadLock loadLock) {
+        return NegativeCachingDistributedCacheService.decorate(
+                StampedeProtectedCacheService.decorate(cacheService, loadLock, distributedCacheProperties),
+                distributedCacheProperties);
+    }
+}
@@ -0,0 +1,52 @@
+package com.wangguangwu.cachedistributed.constants;
+
+/**
+ * 常量类，用于定义分布式缓存类型的常量。
+ * <p>
+ * 不允许实例化该类。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public final class DistributedCacheTypeConstants {
+
+    /**
+     * 分布式缓存类型的配置键
+     */
+    public static final String DISTRIBUTED_CACHE_TYPE = "distributed.cache.type";
+
+    /**
+     * 基于 Redisson 的 Redis 缓存
+     */
+    public static final String REDISSON = "redisson";
+
+    /**
+     * 基于 xmemcached 的 Memcached 缓存
+     */
+    public static final String MEMCACHED = "memcached";
+
+    /**
+     * 基于 Kryo 的紧凑二进制编解码
+     */
+    public static final String CODEC_KRYO = "kryo";
+
+    /**
+     * 基于 JDK 序列化的编解码
+     */
+    public static final String CODEC_JDK = "jdk";
+
+    /**
+     * 布隆过滤器，可通过 Redis 位图在节点间共享，不支持删除
+     */
+    public static final String FILTER_BLOOM = "bloom";
+
+    /**
+     * 布谷鸟过滤器，支持删除
+     */
+    public static final String FILTER_CUCKOO = "cuckoo";
+
+    // 私有构造方法，防止实例化
+    private DistributedCacheTypeConstants() {
+        throw new UnsupportedOperationException("This is a constants class and cannot be instantiated");
+    }
+}
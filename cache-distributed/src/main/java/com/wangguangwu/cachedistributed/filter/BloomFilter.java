@@ -0,0 +1,154 @@
+package com.wangguangwu.cachedistributed.filter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定容量的布隆过滤器，按预期元素数与误判率计算位数与哈希函数个数。
+ * <p>
+ * 每个 key 由 MurmurHash3 128 位结果的两半通过双重哈希得到 k 个位置，查询只读取 k 个字，不加锁；
+ * 加入时按位或写入 {@link AtomicLongArray}，位只会被置 1，并发查询不会出现假阴性。
+ * 加入的元素超过预期数量后误判率快速上升，元素数不可预估时使用 {@link ScalableBloomFilter}。
+ * </p>
+ *
+ * @param <K> 键的类型
+ * @author wangguangwu
+ */
+public class BloomFilter<K> implements MembershipFilter<K> {
+
+    // 位数组，第 i 位位于第 i / 64 个字的第 i % 64 位
+    private final AtomicLongArray words;
+
+    // 位数
+    private final long bitSize;
+
+    // 每个 key 占用的位数
+    private final int hashCount;
+
+    // 预期的元素数量
+    private final long expectedInsertions;
+
+    // 加入后位数组发生变化的次数
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * BloomFilter 构造方法。
+     *
+     * @param expectedInsertions 预期的元素数量
+     * @param fpp                元素数达到预期数量时的误判率，取值范围 (0, 1)
+     * @throws IllegalArgumentException 如果参数超出范围，或计算出的位数超过 2^37
+     */
+    public BloomFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be greater than 0: " + expectedInsertions);
+        }
+        if (!(fpp > 0 && fpp < 1)) {
+            throw new IllegalArgumentException("False positive probability must be in (0, 1): " + fpp);
+        }
+        double bits = Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        if (bits > (double) Integer.MAX_VALUE * Long.SIZE) {
+            throw new IllegalArgumentException("Bloom filter too large for " + expectedInsertions + " insertions at " + fpp);
+        }
+        int wordCount = (int) Math.max(1, ((long) bits + Long.SIZE - 1) / Long.SIZE);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount * Long.SIZE;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    @Override
+    public boolean mightContain(K key) {
+        long[] hash = FilterHash.hash128(key);
+        long combined = hash[0];
+        for (int i = 0; i < hashCount; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitSize;
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+            combined += hash[1];
+        }
+        return true;
+    }
+
+    @Override
+    public boolean put(K key) {
+        long[] hash = FilterHash.hash128(key);
+        long combined = hash[0];
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            changed |= setBit((combined & Long.MAX_VALUE) % bitSize);
+            combined += hash[1];
+        }
+        if (changed) {
+            count.increment();
+        }
+        return changed;
+    }
+
+    @Override
+    public long approximateCount() {
+        return count.sum();
+    }
+
+    /**
+     * 位数，为 64 的整数倍
+     *
+     * @return 位数
+     */
+    public long bitSize() {
+        return bitSize;
+    }
+
+    /**
+     * 每个 key 占用的位数
+     *
+     * @return 哈希函数个数
+     */
+    public int hashCount() {
+        return hashCount;
+    }
+
+    /**
+     * 预期的元素数量
+     *
+     * @return 构造时指定的预期元素数量
+     */
+    public long expectedInsertions() {
+        return expectedInsertions;
+    }
+
+    // key 对应的全部位置，用于同步到共享位图
+    long[] bitIndexes(K key) {
+        long[] hash = FilterHash.hash128(key);
+        long[] indexes = new long[hashCount];
+        long combined = hash[0];
+        for (int i = 0; i < hashCount; i++) {
+            indexes[i] = (combined & Long.MAX_VALUE) % bitSize;
+            combined += hash[1];
+        }
+        return indexes;
+    }
+
+    // 按位或合并 Redis 位图，位图中第 i 位为第 i / 8 个字节的第 7 - i % 8 位，超出位数的部分忽略
+    void merge(byte[] bitmap) {
+        int length = (int) Math.min(bitmap.length, bitSize / Byte.SIZE);
+        for (int i = 0; i < length; i++) {
+            int bits = bitmap[i] & 0xFF;
+            for (int j = 0; j < Byte.SIZE; j++) {
+                if ((bits & (0x80 >>> j)) != 0) {
+                    setBit((long) i * Byte.SIZE + j);
+                }
+            }
+        }
+    }
+
+    // 置位，返回该位原来是否为 0
+    private boolean setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        if ((words.get(word) & mask) != 0) {
+            return false;
+        }
+        return (words.getAndAccumulate(word, mask, (current, bit) -> current | bit) & mask) == 0;
+    }
+}
@@ -0,0 +1,257 @@
+package com.wangguangwu.cachedistributed.filter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 支持删除的布谷鸟过滤器，数据源中的记录会被删除时使用。
+ * <p>
+ * 每个桶有 4 个槽位，每个槽位保存 key 的 16 位指纹，一个桶正好是一个 long。
+ * key 可以位于两个候选桶之一，第二个桶由第一个桶与指纹的哈希异或得到，两个桶都满时随机踢出一个指纹到它的另一个桶，
+ * 最多踢出 500 次；仍未放下的指纹暂存在一个备用槽中。负载率约 95% 时误判率约为 2 * 4 / 2^16（约 0.012%）。
+ * </p>
+ * <p>
+ * 写入与删除持有 {@link StampedLock} 的写锁，查询使用乐观读，两个桶读取期间没有写入时不加锁；
+ * 踢出过程中指纹会短暂离开原来的桶，乐观读校验失败后改为持有读锁重新查询，不会出现假阴性。
+ * 备用槽也被占用时过滤器已满，之后所有查询都返回 true（不再拒绝任何 key），需要以更大的容量重建。
+ * </p>
+ * <p>
+ * 与标准的布谷鸟过滤器相同，每次加入都保存一份指纹：指纹和桶都相同的两个 key 各保存一份，
+ * 删除其中一个只删除一份，另一个 key 仍判断为存在。同一个指纹在两个候选桶中最多保存 2 * 4 份，
+ * 超过后不再保存。加入与删除应一一对应，重复加入同一个 key 会占用多个槽位。
+ * </p>
+ *
+ * @param <K> 键的类型
+ * @author wangguangwu
+ */
+public class CuckooFilter<K> implements MembershipFilter<K> {
+
+    // 每个桶的槽位数
+    private static final int SLOTS = 4;
+
+    // 指纹位数
+    private static final int FINGERPRINT_BITS = 16;
+
+    private static final long FINGERPRINT_MASK = (1L << FINGERPRINT_BITS) - 1;
+
+    // 两个候选桶都满时最多踢出的次数
+    private static final int MAX_KICKS = 500;
+
+    // 目标负载率
+    private static final double LOAD_FACTOR = 0.95;
+
+    private final StampedLock lock = new StampedLock();
+
+    // 每个 long 是一个桶，第 s 个槽位位于第 s * 16 位开始的 16 位，0 表示空槽
+    private final long[] buckets;
+
+    private final int bucketMask;
+
+    // 已保存的指纹数
+    private volatile long count;
+
+    // 踢出次数用尽后暂存的指纹及其所在桶，0 表示没有
+    private int victimFingerprint;
+
+    private int victimBucket;
+
+    // 过滤器已满，所有查询都返回 true
+    private volatile boolean saturated;
+
+    /**
+     * CuckooFilter 构造方法，桶数为 2 的幂。
+     *
+     * @param capacity 预期的元素数量
+     * @throws IllegalArgumentException 如果 capacity 不大于 0 或超过 2^31
+     */
+    public CuckooFilter(long capacity) {
+        if (capacity <= 0 || capacity > (1L << 31)) {
+            throw new IllegalArgumentException("Capacity must be in (0, 2^31]: " + capacity);
+        }
+        long required = Math.max(1, (long) Math.ceil(capacity / (SLOTS * LOAD_FACTOR)));
+        int bucketCount = (int) Long.highestOneBit(required);
+        if (bucketCount < required) {
+            bucketCount <<= 1;
+        }
+        this.buckets = new long[bucketCount];
+        this.bucketMask = bucketCount - 1;
+    }
+
+    @Override
+    public boolean mightContain(K key) {
+        long[] hash = FilterHash.hash128(key);
+        int fingerprint = fingerprint(hash);
+        int first = (int) hash[0] & bucketMask;
+        int second = alternate(first, fingerprint);
+        long stamp = lock.tryOptimisticRead();
+        boolean found = contains(first, second, fingerprint);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                found = contains(first, second, fingerprint);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public boolean put(K key) {
+        long[] hash = FilterHash.hash128(key);
+        int fingerprint = fingerprint(hash);
+        int first = (int) hash[0] & bucketMask;
+        int second = alternate(first, fingerprint);
+        long stamp = lock.writeLock();
+        try {
+            // 两个候选桶已被同一个指纹占满，再保存一份也放不下
+            if (occurrences(first, second, fingerprint) >= 2 * SLOTS) {
+                return false;
+            }
+            if (victimFingerprint != 0) {
+                saturated = true;
+                return true;
+            }
+            count++;
+            if (insert(first, fingerprint) || insert(second, fingerprint)) {
+                return true;
+            }
+            relocate(ThreadLocalRandom.current().nextBoolean() ? first : second, fingerprint);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean supportsRemoval() {
+        return true;
+    }
+
+    @Override
+    public boolean remove(K key) {
+        long[] hash = FilterHash.hash128(key);
+        int fingerprint = fingerprint(hash);
+        int first = (int) hash[0] & bucketMask;
+        int second = alternate(first, fingerprint);
+        long stamp = lock.writeLock();
+        try {
+            boolean removed;
+            if (victimFingerprint == fingerprint && (victimBucket == first || victimBucket == second)) {
+                victimFingerprint = 0;
+                removed = true;
+            } else {
+                removed = delete(first, fingerprint) || delete(second, fingerprint);
+                // 腾出槽位后尝试放回暂存的指纹
+                if (removed && victimFingerprint != 0
+                        && (insert(victimBucket, victimFingerprint)
+                        || insert(alternate(victimBucket, victimFingerprint), victimFingerprint))) {
+                    victimFingerprint = 0;
+                }
+            }
+            if (removed) {
+                count--;
+            }
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public long approximateCount() {
+        return count;
+    }
+
+    /**
+     * 过滤器是否已满，已满时不再拒绝任何 key
+     *
+     * @return 已满时返回 true
+     */
+    public boolean isSaturated() {
+        return saturated;
+    }
+
+    // 随机踢出指纹直到放下，踢出次数用尽时把最后一个指纹放入备用槽
+    private void relocate(int bucket, int fingerprint) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            int shift = random.nextInt(SLOTS) * FINGERPRINT_BITS;
+            long value = buckets[bucket];
+            int evicted = (int) ((value >>> shift) & FINGERPRINT_MASK);
+            buckets[bucket] = (value & ~(FINGERPRINT_MASK << shift)) | ((long) fingerprint << shift);
+            fingerprint = evicted;
+            bucket = alternate(bucket, fingerprint);
+            if (insert(bucket, fingerprint)) {
+                return;
+            }
+        }
+        victimFingerprint = fingerprint;
+        victimBucket = bucket;
+    }
+
+    private boolean contains(int first, int second, int fingerprint) {
+        return saturated || hasFingerprint(buckets[first], fingerprint) || hasFingerprint(buckets[second], fingerprint)
+                || (victimFingerprint == fingerprint && (victimBucket == first || victimBucket == second));
+    }
+
+    private int occurrences(int first, int second, int fingerprint) {
+        int occurrences = countFingerprint(buckets[first], fingerprint);
+        if (second != first) {
+            occurrences += countFingerprint(buckets[second], fingerprint);
+        }
+        return occurrences;
+    }
+
+    private boolean insert(int bucket, int fingerprint) {
+        long value = buckets[bucket];
+        for (int shift = 0; shift < Long.SIZE; shift += FINGERPRINT_BITS) {
+            if (((value >>> shift) & FINGERPRINT_MASK) == 0) {
+                buckets[bucket] = value | ((long) fingerprint << shift);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean delete(int bucket, int fingerprint) {
+        long value = buckets[bucket];
+        for (int shift = 0; shift < Long.SIZE; shift += FINGERPRINT_BITS) {
+            if (((value >>> shift) & FINGERPRINT_MASK) == fingerprint) {
+                buckets[bucket] = value & ~(FINGERPRINT_MASK << shift);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int alternate(int bucket, int fingerprint) {
+        // 指纹经过乘法散列，异或后结果与原桶无关；两个方向使用相同的计算，互为候选桶
+        return (bucket ^ (fingerprint * 0x5bd1e995)) & bucketMask;
+    }
+
+    private static boolean hasFingerprint(long bucket, int fingerprint) {
+        for (int shift = 0; shift < Long.SIZE; shift += FINGERPRINT_BITS) {
+            if (((bucket >>> shift) & FINGERPRINT_MASK) == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int countFingerprint(long bucket, int fingerprint) {
+        int count = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += FINGERPRINT_BITS) {
+            if (((bucket >>> shift) & FINGERPRINT_MASK) == fingerprint) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // 取高 64 位的最高 16 位作为指纹，0 保留给空槽
+    private static int fingerprint(long[] hash) {
+        int fingerprint = (int) (hash[1] >>> (Long.SIZE - FINGERPRINT_BITS));
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+}
@@ -0,0 +1,324 @@
+package com.wangguangwu.cachedistributed.filter;
+
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.support.LoaderExecutors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 由成员过滤器守护的分布式缓存服务，防止缓存穿透：查询数据源中不存在的 key 时，请求既不访问缓存也不调用加载函数。
+ * <p>
+ * 过滤器记录数据源中存在的全部 key，{@link MembershipFilter#mightContain(Object)} 返回 false 的 key 一定不存在，
+ * getIfPresent、get、getAllPresent 与 containsKey 直接返回未命中，只有一次本地哈希计算。与负缓存相比，
+ * 不存在的 key 即使每次都不同也会被拒绝，不会在缓存中写入大量占位值。
+ * </p>
+ * <p>
+ * 过滤器由 {@link #rebuild(Stream)} 从数据源的 key 流中构建：新的过滤器在后台逐个加入 key，
+ * 构建期间旧的过滤器继续提供服务，构建完成后替换；构建期间写入的 key 同时加入新旧过滤器。
+ * 第一次构建完成前不拒绝任何请求。写入缓存与加载成功的 key 自动加入过滤器；
+ * 数据源中新增记录但不写入缓存时调用 {@link #addKey(Object)}，删除记录时调用 {@link #removeKey(Object)}。
+ * 支持删除的 {@link CuckooFilter} 中加入与删除必须一一对应，写入缓存不会自动加入，数据源每新增一条记录都要调用 addKey。
+ * 缓存失效（invalidate）不代表数据源中的记录被删除，不修改过滤器。
+ * </p>
+ * <p>
+ * 过滤器保存在每个节点的内存中，其他节点写入或新增的 key 在本节点调用 addKey、写入缓存或重建之前会被拒绝。
+ * 只在本地维护的过滤器只适用于单个节点，或每个节点都收到数据源变更的场景；多个节点应使用 {@link SharedBloomFilter}，
+ * 查询时距上次同步超过同步间隔则在后台调用 {@link MembershipFilter#sync()}，其他节点加入的 key 最多滞后一个同步间隔可见。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+@Slf4j
+public class FilterGuardedCacheService<K, V> implements DistributedCacheService<K, V> {
+
+    // 默认的同步间隔，单位为毫秒
+    private static final long DEFAULT_SYNC_INTERVAL = 10_000;
+
+    private final DistributedCacheService<K, V> delegate;
+
+    // 每次重建时创建新的过滤器
+    private final Supplier<? extends MembershipFilter<K>> filterFactory;
+
+    // 提供服务的过滤器，第一次重建完成前为 null
+    private volatile MembershipFilter<K> filter;
+
+    // 正在构建的过滤器，不在重建时为 null
+    private volatile MembershipFilter<K> building;
+
+    // 被过滤器拒绝的请求数
+    private final LongAdder rejectedCount = new LongAdder();
+
+    // 同步间隔，单位为纳秒，0 表示不同步
+    private final long syncIntervalNanos;
+
+    // 下一次同步的时间
+    private final AtomicLong nextSyncAt = new AtomicLong(System.nanoTime());
+
+    // 执行同步的线程池
+    private final Executor executor;
+
+    /**
+     * FilterGuardedCacheService 构造方法，共享的过滤器每 10 秒同步一次，调用 {@link #rebuild(Stream)} 之前不拒绝任何请求。
+     *
+     * @param delegate      被装饰的分布式缓存
+     * @param filterFactory 创建空过滤器的方法，见 {@link MembershipFilters#factory}
+     */
+    public FilterGuardedCacheService(DistributedCacheService<K, V> delegate,
+                                     Supplier<? extends MembershipFilter<K>> filterFactory) {
+        this(delegate, filterFactory, DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * FilterGuardedCacheService 构造方法，调用 {@link #rebuild(Stream)} 之前不拒绝任何请求。
+     *
+     * @param delegate      被装饰的分布式缓存
+     * @param filterFactory 创建空过滤器的方法，见 {@link MembershipFilters#factory}
+     * @param syncInterval  调用 {@link MembershipFilter#sync()} 的间隔，单位为毫秒，0 表示不同步
+     * @throws IllegalArgumentException 如果 syncInterval 小于 0
+     */
+    public FilterGuardedCacheService(DistributedCacheService<K, V> delegate,
+                                     Supplier<? extends MembershipFilter<K>> filterFactory, long syncInterval) {
+        if (syncInterval < 0) {
+            throw new IllegalArgumentException("Sync interval must not be negative: " + syncInterval);
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.filterFactory = Objects.requireNonNull(filterFactory);
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncInterval);
+        this.executor = LoaderExecutors.defaultExecutor();
+    }
+
+    /**
+     * 从数据源的 key 流构建新的过滤器并替换当前的过滤器，流被逐个消费，不会把全部 key 读入内存。
+     * 构建失败时保留当前的过滤器。同一时刻只进行一次重建。
+     *
+     * @param keys 数据源中全部存在的 key
+     * @return 新过滤器中的近似元素数
+     */
+    public synchronized long rebuild(Stream<? extends K> keys) {
+        MembershipFilter<K> fresh = filterFactory.get();
+        building = fresh;
+        try (keys) {
+            keys.forEach(fresh::put);
+            filter = fresh;
+        } finally {
+            building = null;
+        }
+        return fresh.approximateCount();
+    }
+
+    /**
+     * 数据源中新增了记录，加入过滤器
+     *
+     * @param key 键
+     */
+    public void addKey(K key) {
+        add(key, true);
+    }
+
+    /**
+     * 数据源中删除了记录，从支持删除的过滤器中删除；布隆过滤器不支持删除，该 key 在下一次重建后才会被拒绝
+     *
+     * @param key 键
+     * @return 从当前过滤器中删除时返回 true
+     */
+    public boolean removeKey(K key) {
+        MembershipFilter<K> pending = building;
+        MembershipFilter<K> current = filter;
+        if (pending != null && pending.supportsRemoval()) {
+            pending.remove(key);
+        }
+        return current != null && current != pending && current.supportsRemoval() && current.remove(key);
+    }
+
+    /**
+     * 第一次重建是否已完成，完成前不拒绝任何请求
+     *
+     * @return 已有提供服务的过滤器时返回 true
+     */
+    public boolean isReady() {
+        return filter != null;
+    }
+
+    /**
+     * 被过滤器拒绝的请求数，批量请求中每个被拒绝的 key 计一次
+     *
+     * @return 拒绝次数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public void put(K key, V value) {
+        learnKey(key);
+        delegate.put(key, value);
+    }
+
+    @Override
+    public void put(K key, V value, long expiration) {
+        learnKey(key);
+        delegate.put(key, value, expiration);
+    }
+
+    @Override
+    public V getIfPresent(K key) {
+        return rejects(key) ? null : delegate.getIfPresent(key);
+    }
+
+    /**
+     * 获取缓存值，过滤器判断 key 不存在时直接返回 null，不访问缓存也不调用 mappingFunction；
+     * 加载到值时 key 加入过滤器。
+     *
+     * @param key             键
+     * @param mappingFunction 计算值的方法
+     * @return 缓存值，key 不存在时返回 null
+     * @throws CacheException 如果加载失败，则抛出自定义缓存异常
+     */
+    @Override
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (rejects(key)) {
+            return null;
+        }
+        return delegate.get(key, k -> {
+            V loaded = mappingFunction.apply(k);
+            if (loaded != null) {
+                learnKey(k);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * 批量获取缓存值，只向被装饰的缓存请求过滤器判断可能存在的 key，全部被拒绝时不访问缓存。
+     *
+     * @param keys 键集合
+     * @return 存在值的键值映射
+     */
+    @Override
+    public Map<K, V> getAllPresent(Iterable<? extends K> keys) {
+        List<K> candidates = new ArrayList<>();
+        for (K key : keys) {
+            if (!rejects(key)) {
+                candidates.add(key);
+            }
+        }
+        return candidates.isEmpty() ? Collections.emptyMap() : delegate.getAllPresent(candidates);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        map.keySet().forEach(this::learnKey);
+        delegate.putAll(map);
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return !rejects(key) && delegate.containsKey(key);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        delegate.invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        delegate.invalidateAll();
+    }
+
+    @Override
+    public void invalidateAll(Iterable<? extends K> keys) {
+        delegate.invalidateAll(keys);
+    }
+
+    @Override
+    public Stream<K> scan(String pattern, int batchSize) {
+        return delegate.scan(pattern, batchSize);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return delegate.keySet();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void setExpiration(K key, long expiration) {
+        delegate.setExpiration(key, expiration);
+    }
+
+    @Override
+    public long getExpiration(K key) {
+        return delegate.getExpiration(key);
+    }
+
+    // 写入缓存或加载到值时自动加入，支持删除的过滤器只由 addKey 加入，使加入与删除一一对应
+    private void learnKey(K key) {
+        add(key, false);
+    }
+
+    private void add(K key, boolean explicit) {
+        // 先读 building 再读 filter：building 被清空时 filter 已替换为新过滤器，key 不会只加入旧过滤器
+        MembershipFilter<K> pending = building;
+        MembershipFilter<K> current = filter;
+        if (pending != null && (explicit || !pending.supportsRemoval())) {
+            pending.put(key);
+        }
+        if (current != null && current != pending && (explicit || !current.supportsRemoval())) {
+            current.put(key);
+        }
+    }
+
+    // 过滤器判断 key 一定不存在时返回 true 并计数，距上次同步超过同步间隔时在后台同步
+    private boolean rejects(K key) {
+        MembershipFilter<K> current = filter;
+        if (current == null) {
+            return false;
+        }
+        syncIfDue(current);
+        if (current.mightContain(key)) {
+            return false;
+        }
+        rejectedCount.increment();
+        return true;
+    }
+
+    // 只有一个线程能推进下一次同步的时间，同步失败时等到下一个间隔再试
+    private void syncIfDue(MembershipFilter<K> current) {
+        if (syncIntervalNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long next = nextSyncAt.get();
+        if (now - next < 0 || !nextSyncAt.compareAndSet(next, now + syncIntervalNanos)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                current.sync();
+            } catch (RuntimeException e) {
+                log.warn("Failed to sync membership filter", e);
+            }
+        });
+    }
+}
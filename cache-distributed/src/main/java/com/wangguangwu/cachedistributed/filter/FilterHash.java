@@ -0,0 +1,35 @@
+package com.wangguangwu.cachedistributed.filter;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 过滤器使用的 128 位哈希，各节点对同一个 key 的计算结果相同，共享位图时依赖这一点。
+ *
+ * @author wangguangwu
+ */
+final class FilterHash {
+
+    // 私有构造方法，防止实例化
+    private FilterHash() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * 计算 key 字符串形式的 MurmurHash3 128 位哈希
+     *
+     * @param key 键
+     * @return 两个 64 位哈希值，低 64 位在前
+     */
+    static long[] hash128(Object key) {
+        byte[] bytes = Hashing.murmur3_128().hashString(String.valueOf(key), StandardCharsets.UTF_8).asBytes();
+        long low = 0;
+        long high = 0;
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            low = (low << 8) | (bytes[i] & 0xFF);
+            high = (high << 8) | (bytes[i + Long.BYTES] & 0xFF);
+        }
+        return new long[]{low, high};
+    }
+}
@@ -0,0 +1,64 @@
+package com.wangguangwu.cachedistributed.filter;
+
+/**
+ * 键的成员过滤器，回答“某个 key 是否可能存在于数据源中”。
+ * <p>
+ * 结果允许误判为存在（假阳性），但不允许把已加入的 key 判断为不存在（假阴性），
+ * 因此 {@link #mightContain(Object)} 返回 false 的 key 一定不存在，可以直接拒绝而不访问缓存与数据源。
+ * 所有实现都是线程安全的，查询只访问本地内存。
+ * </p>
+ *
+ * @param <K> 键的类型，按字符串形式计算哈希
+ * @author wangguangwu
+ */
+public interface MembershipFilter<K> {
+
+    /**
+     * 判断 key 是否可能存在
+     *
+     * @param key 键
+     * @return 可能存在时返回 true，返回 false 时一定不存在
+     */
+    boolean mightContain(K key);
+
+    /**
+     * 加入一个 key。不支持删除的过滤器重复加入不产生影响；支持删除的过滤器每次加入都保存一份，应与 {@link #remove(Object)} 一一对应
+     *
+     * @param key 键
+     * @return 过滤器因此发生变化时返回 true；没有保存时返回 false
+     */
+    boolean put(K key);
+
+    /**
+     * 是否支持删除
+     *
+     * @return 支持 {@link #remove(Object)} 时返回 true
+     */
+    default boolean supportsRemoval() {
+        return false;
+    }
+
+    /**
+     * 删除一个 key，只应删除确实加入过的 key，否则可能删除误判冲突的其他 key
+     *
+     * @param key 键
+     * @return 找到并删除时返回 true
+     * @throws UnsupportedOperationException 如果过滤器不支持删除
+     */
+    default boolean remove(K key) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support removal");
+    }
+
+    /**
+     * 已加入的 key 的近似数量，误判为已存在的 key 不计入
+     *
+     * @return 近似数量
+     */
+    long approximateCount();
+
+    /**
+     * 合并其他节点加入的 key，只有在节点间共享状态的过滤器需要实现，{@link FilterGuardedCacheService} 按同步间隔在后台调用
+     */
+    default void sync() {
+    }
+}
@@ -0,0 +1,66 @@
+package com.wangguangwu.cachedistributed.filter;
+
+import com.wangguangwu.cachedistributed.constants.DistributedCacheTypeConstants;
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import org.redisson.api.RedissonClient;
+
+import java.util.function.Supplier;
+
+/**
+ * 按配置创建成员过滤器。
+ * <p>
+ * 不允许实例化该类。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public final class MembershipFilters {
+
+    // 私有构造方法，防止实例化
+    private MembershipFilters() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * 按配置创建过滤器的工厂，用于 {@link FilterGuardedCacheService} 每次重建时创建新的过滤器。
+     * <p>
+     * bloom 类型未配置 sharedKey 时创建 {@link ScalableBloomFilter}，配置了 sharedKey 时创建 {@link SharedBloomFilter}，
+     * 创建时清空 Redis 位图，由重建重新加入全部 key；cuckoo 类型创建 {@link CuckooFilter}，不支持共享。
+     * </p>
+     *
+     * @param filter         过滤器配置
+     * @param redissonClient Redisson 客户端，只在配置了 sharedKey 时使用，可以为 null
+     * @param <K>            键类型
+     * @return 创建空过滤器的方法
+     * @throws IllegalArgumentException 如果过滤器类型未知，或配置了 sharedKey 但类型不是 bloom 或没有 Redisson 客户端
+     */
+    public static <K> Supplier<MembershipFilter<K>> factory(DistributedCacheProperties.Filter filter,
+                                                           RedissonClient redissonClient) {
+        long expectedInsertions = filter.getExpectedInsertions();
+        double fpp = filter.getFpp();
+        String sharedKey = filter.getSharedKey();
+        boolean shared = sharedKey != null && !sharedKey.isEmpty();
+        switch (filter.getType()) {
+            case DistributedCacheTypeConstants.FILTER_BLOOM -> {
+                if (!shared) {
+                    return () -> new ScalableBloomFilter<>(expectedInsertions, fpp);
+                }
+                if (redissonClient == null) {
+                    throw new IllegalArgumentException("Shared bloom filter requires a Redisson client");
+                }
+                return () -> {
+                    SharedBloomFilter<K> fresh = new SharedBloomFilter<>(redissonClient, sharedKey, expectedInsertions, fpp);
+                    fresh.clear();
+                    return fresh;
+                };
+            }
+            case DistributedCacheTypeConstants.FILTER_CUCKOO -> {
+                if (shared) {
+                    throw new IllegalArgumentException("Cuckoo filter cannot be shared through Redis");
+                }
+                return () -> new CuckooFilter<>(expectedInsertions);
+            }
+            default -> throw new IllegalArgumentException("Unknown membership filter: " + filter.getType());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.wangguangwu.cachedistributed.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 可扩容的布隆过滤器，元素数量无法预估时使用。
+ * <p>
+ * 由一组 {@link BloomFilter} 组成，新元素写入最后一个；最后一个写满预期数量后追加一个容量翻倍、
+ * 误判率减半的新过滤器。第一个过滤器的误判率为配置值的一半，各级误判率之和收敛于配置值，
+ * 总误判率不超过配置值。查询依次检查每一级，级数随元素数对数增长。
+ * </p>
+ *
+ * @param <K> 键的类型
+ * @author wangguangwu
+ */
+public class ScalableBloomFilter<K> implements MembershipFilter<K> {
+
+    // 每一级相对上一级的容量倍数
+    private static final int GROWTH_FACTOR = 2;
+
+    // 每一级相对上一级的误判率比例
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    // 总误判率
+    private final double fpp;
+
+    // 各级过滤器，扩容时整体替换
+    private volatile List<BloomFilter<K>> stages;
+
+    /**
+     * ScalableBloomFilter 构造方法。
+     *
+     * @param initialCapacity 第一级的预期元素数量
+     * @param fpp             总误判率，取值范围 (0, 1)
+     * @throws IllegalArgumentException 如果参数超出范围
+     */
+    public ScalableBloomFilter(long initialCapacity, double fpp) {
+        // 第一级使用 fpp 的一半，需要单独校验总误判率
+        if (!(fpp > 0 && fpp < 1)) {
+            throw new IllegalArgumentException("False positive probability must be in (0, 1): " + fpp);
+        }
+        this.fpp = fpp;
+        this.stages = List.of(new BloomFilter<>(initialCapacity, fpp * TIGHTENING_RATIO));
+    }
+
+    @Override
+    public boolean mightContain(K key) {
+        List<BloomFilter<K>> current = stages;
+        for (int i = current.size() - 1; i >= 0; i--) {
+            if (current.get(i).mightContain(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean put(K key) {
+        if (mightContain(key)) {
+            return false;
+        }
+        List<BloomFilter<K>> current = stages;
+        BloomFilter<K> last = current.get(current.size() - 1);
+        boolean changed = last.put(key);
+        if (last.approximateCount() >= last.expectedInsertions()) {
+            grow(last);
+        }
+        return changed;
+    }
+
+    @Override
+    public long approximateCount() {
+        long count = 0;
+        for (BloomFilter<K> stage : stages) {
+            count += stage.approximateCount();
+        }
+        return count;
+    }
+
+    /**
+     * 当前的级数
+     *
+     * @return 级数，至少为 1
+     */
+    public int stageCount() {
+        return stages.size();
+    }
+
+    // 追加下一级，并发写满时只有一个线程追加
+    private synchronized void grow(BloomFilter<K> full) {
+        List<BloomFilter<K>> current = stages;
+        BloomFilter<K> last = current.get(current.size() - 1);
+        if (last != full) {
+            return;
+        }
+        // 第 i 级（从 0 开始）的误判率为 fpp * ratio^(i + 1)
+        double stageFpp = fpp * Math.pow(TIGHTENING_RATIO, current.size() + 1);
+        List<BloomFilter<K>> grown = new ArrayList<>(current);
+        grown.add(new BloomFilter<>(last.expectedInsertions() * GROWTH_FACTOR, stageFpp));
+        stages = List.copyOf(grown);
+    }
+}
@@ -0,0 +1,105 @@
+package com.wangguangwu.cachedistributed.filter;
+
+import org.redisson.api.RBitSet;
+import org.redisson.api.RedissonClient;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 通过 Redis 位图在节点间共享的布隆过滤器。
+ * <p>
+ * 查询只读取本地的 {@link BloomFilter}，不访问 Redis。加入的 key 使本地位图发生变化时，
+ * 把它的全部位置通过一条 BITFIELD 命令异步写入 Redis 位图；{@link #sync()} 读取整个 Redis 位图并按位或合并到本地，
+ * 其他节点加入的 key 在下一次同步后可见。构造时不访问 Redis，之后由 {@link FilterGuardedCacheService} 按同步间隔调用。
+ * </p>
+ * <p>
+ * 位图中第 i 位与 Redis SETBIT/GETBIT 的偏移量一致，所有节点必须使用相同的预期元素数量与误判率，
+ * 否则位数与哈希函数个数不同，共享的位图没有意义。布隆过滤器不支持删除，
+ * 重建时先调用 {@link #clear()} 删除 Redis 位图再重新加入全部 key，否则同步会把已删除 key 的旧位合并回来。
+ * 其他节点本地的旧位在它们各自重建前仍然保留，只会多放行已删除的 key，不会出现假阴性。
+ * </p>
+ *
+ * @param <K> 键的类型
+ * @author wangguangwu
+ */
+public class SharedBloomFilter<K> implements MembershipFilter<K> {
+
+    // Redis 字符串最大 512MB
+    private static final long MAX_REDIS_BITS = 1L << 32;
+
+    private final BloomFilter<K> local;
+
+    private final RBitSet bitSet;
+
+    // 写入 Redis 失败的位置，下一次同步时重新写入
+    private final Queue<long[]> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * SharedBloomFilter 构造方法，构造时不访问 Redis，需要已有的位图时调用 {@link #sync()}。
+     *
+     * @param redissonClient     Redisson 客户端
+     * @param redisKey           Redis 位图的 key，不应以缓存的 keyPrefix 开头
+     * @param expectedInsertions 预期的元素数量
+     * @param fpp                误判率，取值范围 (0, 1)
+     * @throws IllegalArgumentException 如果参数超出范围，或位数超过 Redis 字符串的上限
+     */
+    public SharedBloomFilter(RedissonClient redissonClient, String redisKey, long expectedInsertions, double fpp) {
+        this.local = new BloomFilter<>(expectedInsertions, fpp);
+        if (local.bitSize() > MAX_REDIS_BITS) {
+            throw new IllegalArgumentException("Bloom filter of " + local.bitSize() + " bits exceeds the Redis string limit");
+        }
+        this.bitSet = redissonClient.getBitSet(Objects.requireNonNull(redisKey));
+    }
+
+    @Override
+    public boolean mightContain(K key) {
+        return local.mightContain(key);
+    }
+
+    @Override
+    public boolean put(K key) {
+        if (!local.put(key)) {
+            return false;
+        }
+        push(local.bitIndexes(key));
+        return true;
+    }
+
+    @Override
+    public long approximateCount() {
+        return local.approximateCount();
+    }
+
+    /**
+     * 重新写入之前写入失败的位置，再读取 Redis 位图并合并到本地，一次读取的数据量为位数 / 8 字节
+     */
+    @Override
+    public void sync() {
+        long[] indexes;
+        while ((indexes = pending.poll()) != null) {
+            push(indexes);
+        }
+        byte[] bitmap = bitSet.toByteArray();
+        if (bitmap != null) {
+            local.merge(bitmap);
+        }
+    }
+
+    /**
+     * 删除 Redis 位图并丢弃写入失败的位置，重建前调用；本地位图不变
+     */
+    public void clear() {
+        pending.clear();
+        bitSet.delete();
+    }
+
+    private void push(long[] indexes) {
+        bitSet.setAsync(indexes, true).whenComplete((result, error) -> {
+            if (error != null) {
+                pending.add(indexes);
+            }
+        });
+    }
+}
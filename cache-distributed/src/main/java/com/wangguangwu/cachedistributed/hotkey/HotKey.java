@@ -0,0 +1,40 @@
+package com.wangguangwu.cachedistributed.hotkey;
+
+import java.util.Objects;
+
+/**
+ * 热点 key 及其在本节点上的读取速率。
+ *
+ * @param <K> 缓存的键类型
+ * @author wangguangwu
+ */
+public final class HotKey<K> {
+
+    private final K key;
+
+    // 每秒读取次数的下界
+    private final double rate;
+
+    HotKey(K key, double rate) {
+        this.key = Objects.requireNonNull(key);
+        this.rate = rate;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    /**
+     * 上一个统计窗口内本节点每秒读取该 key 的次数，按采样计数扣除 Space-Saving 的误差后估算，是下界
+     *
+     * @return 每秒读取次数
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    @Override
+    public String toString() {
+        return "HotKey{key=" + key + ", rate=" + String.format("%.1f", rate) + "/s}";
+    }
+}
@@ -0,0 +1,284 @@
+package com.wangguangwu.cachedistributed.hotkey;
+
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * 基于 Space-Saving 算法的热点 key 探测器，在读取路径上按比例采样，统计每个窗口内读取最多的 key。
+ * <p>
+ * 未被采样的读取只有一次随机数计算；被采样的 key 通过 CAS 写入按线程分段的环形缓冲区，不加锁。
+ * 某一段积累到一半容量时，写入的线程尝试获取锁，把全部缓冲区排空到 {@link StreamSummary}，获取失败说明其他线程正在排空，直接返回；
+ * 只有某一段写满（排空跟不上写入）时写入的线程才等待锁并排空，采样不会丢失。
+ * </p>
+ * <p>
+ * Stream-Summary 最多保存 capacity 个计数器，计数器已满时替换计数最小的一个，新计数为最小计数加一，
+ * 并把最小计数记为误差，更新与替换都是 O(1)。任何真实频率超过 1 / capacity 的 key 都不会被替换出去，
+ * 计数减去误差是真实采样次数的下界。
+ * </p>
+ * <p>
+ * 每个窗口结束时按下界估算每秒读取次数，达到阈值的 key 按速率从高到低取前 topK 个作为热点 key 发布，
+ * 通过 {@link #getHotKeys()} 查询并通知监听器，随后清空计数器开始新的窗口。窗口在读取或查询时检查是否结束，
+ * 不需要额外的线程；没有读取时热点 key 在下一次查询时清空。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @author wangguangwu
+ */
+public class HotKeyDetector<K> {
+
+    // 每段缓冲区的容量，2 的幂
+    private static final int BUFFER_SIZE = 64;
+
+    // 每段积累到该数量时尝试排空
+    private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+    // 采样比例，取值范围 (0, 1]
+    private final double sampleRate;
+
+    // 计数器数量
+    private final int capacity;
+
+    // 发布的热点 key 数量上限
+    private final int topK;
+
+    // 统计窗口（毫秒）
+    private final long windowMillis;
+
+    // 成为热点 key 的每秒读取次数
+    private final double threshold;
+
+    private final LongSupplier clock;
+
+    // [0, 1) 区间的随机数
+    private final DoubleSupplier random;
+
+    // 保护 summary 与窗口的开始时间
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 当前窗口的计数器，由 lock 保护
+    private final StreamSummary<K> summary;
+
+    // 按线程分段的采样缓冲区
+    private final List<ReadBuffer<K>> buffers;
+
+    // 当前窗口的开始时间，由 lock 保护
+    private long windowStart;
+
+    // 当前窗口的结束时间
+    private volatile long windowEnd;
+
+    // 上一个窗口的热点 key，按速率从高到低排列
+    private volatile List<HotKey<K>> hotKeys = List.of();
+
+    private volatile Set<K> hotKeySet = Set.of();
+
+    private final List<Consumer<? super List<HotKey<K>>>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * HotKeyDetector 构造方法。
+     *
+     * @param hotKey 热点 key 配置
+     * @throws IllegalArgumentException 如果配置超出范围
+     */
+    public HotKeyDetector(DistributedCacheProperties.HotKey hotKey) {
+        this(hotKey, System::currentTimeMillis, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    HotKeyDetector(DistributedCacheProperties.HotKey hotKey, LongSupplier clock, DoubleSupplier random) {
+        if (!(hotKey.getSampleRate() > 0 && hotKey.getSampleRate() <= 1)) {
+            throw new IllegalArgumentException("Sample rate must be in (0, 1]: " + hotKey.getSampleRate());
+        }
+        if (hotKey.getCapacity() <= 0 || hotKey.getTopK() <= 0 || hotKey.getWindow() <= 0 || !(hotKey.getThreshold() > 0)) {
+            throw new IllegalArgumentException("Capacity, top K, window and threshold must be greater than 0");
+        }
+        this.sampleRate = hotKey.getSampleRate();
+        this.capacity = hotKey.getCapacity();
+        this.topK = hotKey.getTopK();
+        this.windowMillis = hotKey.getWindow();
+        this.threshold = hotKey.getThreshold();
+        this.clock = clock;
+        this.random = random;
+        this.summary = new StreamSummary<>(capacity);
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        List<ReadBuffer<K>> stripeList = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            stripeList.add(new ReadBuffer<>());
+        }
+        this.buffers = List.copyOf(stripeList);
+        this.windowStart = clock.getAsLong();
+        this.windowEnd = windowStart + windowMillis;
+    }
+
+    /**
+     * 记录一次读取，按采样比例计入当前窗口
+     *
+     * @param key 键
+     */
+    public void record(K key) {
+        rotateIfDue();
+        if (sampleRate < 1 && random.getAsDouble() >= sampleRate) {
+            return;
+        }
+        ReadBuffer<K> buffer = buffers.get(stripe());
+        while (!buffer.offer(key)) {
+            lock.lock();
+            try {
+                drainBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (buffer.pending() >= DRAIN_THRESHOLD && lock.tryLock()) {
+            try {
+                drainBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 判断 key 是否为上一个窗口的热点 key，只读取发布的集合
+     *
+     * @param key 键
+     * @return 是热点 key 时返回 true
+     */
+    public boolean isHot(K key) {
+        return hotKeySet.contains(key);
+    }
+
+    /**
+     * 上一个窗口的热点 key 及其速率
+     *
+     * @return 按速率从高到低排列的不可变列表
+     */
+    public List<HotKey<K>> getHotKeys() {
+        rotateIfDue();
+        return hotKeys;
+    }
+
+    /**
+     * 注册监听器，每个窗口结束时在结束窗口的线程上以新的热点 key 列表调用，列表可能为空
+     *
+     * @param listener 监听器
+     */
+    public void addListener(Consumer<? super List<HotKey<K>>> listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    private void rotateIfDue() {
+        if (clock.getAsLong() < windowEnd) {
+            return;
+        }
+        List<HotKey<K>> published;
+        lock.lock();
+        try {
+            long now = clock.getAsLong();
+            if (now < windowEnd) {
+                return;
+            }
+            drainBuffers();
+            // 窗口内没有读取时结束得较晚，按实际经过的时间计算速率
+            double seconds = (now - windowStart) / 1000.0;
+            List<HotKey<K>> candidates = new ArrayList<>();
+            summary.forEach((key, guaranteed) -> {
+                double rate = guaranteed / sampleRate / seconds;
+                if (rate >= threshold) {
+                    candidates.add(new HotKey<>(key, rate));
+                }
+            });
+            published = candidates.stream()
+                    .sorted(Comparator.comparingDouble(HotKey<K>::getRate).reversed())
+                    .limit(topK)
+                    .toList();
+            summary.clear();
+            windowStart = now;
+            windowEnd = now + windowMillis;
+            hotKeys = published;
+            hotKeySet = published.stream().map(HotKey::getKey).collect(Collectors.toUnmodifiableSet());
+        } finally {
+            lock.unlock();
+        }
+        for (Consumer<? super List<HotKey<K>>> listener : listeners) {
+            listener.accept(published);
+        }
+    }
+
+    // 持有 lock 时调用，把全部缓冲区中的采样计入 summary
+    private void drainBuffers() {
+        for (ReadBuffer<K> buffer : buffers) {
+            buffer.drainTo(summary);
+        }
+    }
+
+    // 按线程 id 选择缓冲区，同一线程总是写入同一段
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9e3779b9;
+        return (hash ^ (hash >>> 16)) & (buffers.size() - 1);
+    }
+
+    /**
+     * 多个写入线程、单个排空线程的有界环形缓冲区，写入通过 CAS 占用位置
+     */
+    private static final class ReadBuffer<K> {
+
+        private static final int MASK = BUFFER_SIZE - 1;
+
+        private final AtomicReferenceArray<K> slots = new AtomicReferenceArray<>(BUFFER_SIZE);
+
+        // 下一个写入位置，由写入线程 CAS 推进
+        private final AtomicLong writeCounter = new AtomicLong();
+
+        // 下一个读取位置，只由持有锁的排空线程推进
+        private volatile long readCounter;
+
+        // 写满时返回 false，由调用方排空后重试
+        private boolean offer(K key) {
+            while (true) {
+                long tail = writeCounter.get();
+                if (tail - readCounter >= BUFFER_SIZE) {
+                    return false;
+                }
+                if (writeCounter.compareAndSet(tail, tail + 1)) {
+                    slots.lazySet((int) tail & MASK, key);
+                    return true;
+                }
+            }
+        }
+
+        private long pending() {
+            return writeCounter.get() - readCounter;
+        }
+
+        private void drainTo(StreamSummary<K> summary) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            for (; head < tail; head++) {
+                int index = (int) head & MASK;
+                K key = slots.get(index);
+                // 位置已被占用但写入线程尚未写入，留到下一次排空
+                if (key == null) {
+                    break;
+                }
+                slots.lazySet(index, null);
+                summary.offer(key);
+            }
+            readCounter = head;
+        }
+    }
+}
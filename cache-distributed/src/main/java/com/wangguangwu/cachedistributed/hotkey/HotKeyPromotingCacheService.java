@@ -0,0 +1,308 @@
+package com.wangguangwu.cachedistributed.hotkey;
+
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 自动把热点 key 提升到本地缓存的分布式缓存服务，防止单个热点 key 压垮它所在的 Redis 分片。
+ * <p>
+ * getIfPresent、get 与 getAllPresent 的每次读取都交给 {@link HotKeyDetector} 采样。
+ * 被判定为热点的 key 从分布式缓存读到值后以较短的 pinTtl 写入本节点的 {@link LocalCacheService}，
+ * 之后的读取直接由本地缓存返回，不再访问分布式缓存，每个节点每个 pinTtl 最多读取一次。
+ * key 不再是热点时从本地缓存中移除。
+ * </p>
+ * <p>
+ * 本节点的写入与删除同时移除本地缓存中的值；其他节点不会收到通知，最长在 pinTtl 内读到旧值，
+ * pinTtl 应按业务可以容忍的不一致时间配置。本地缓存应专用于此，invalidateAll 只移除由本服务写入的 key。
+ * </p>
+ * <p>
+ * 读取在访问分布式缓存之前记下 key 所在分段的写入代数，写入与删除先递增代数再移除本地缓存。
+ * 代数在读取期间变化时读到的可能是旧值，不写入本地缓存；写入本地缓存之后代数才变化时立即移除，
+ * 避免并发的写入先执行了移除、随后又被读取写回旧值。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+public class HotKeyPromotingCacheService<K, V> implements DistributedCacheService<K, V> {
+
+    // 写入代数的分段数，必须是 2 的幂
+    private static final int GENERATION_STRIPES = 64;
+
+    private final DistributedCacheService<K, V> delegate;
+
+    // 保存热点 key 的本地缓存
+    private final LocalCacheService<K, V> localCache;
+
+    private final HotKeyDetector<K> detector;
+
+    // 热点 key 在本地缓存中的过期时间
+    private final Duration pinTtl;
+
+    // 写入过本地缓存的热点 key
+    private final Set<K> pinned = ConcurrentHashMap.newKeySet();
+
+    // 按 key 的哈希分段的写入代数，写入与删除时递增
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    // 由本地缓存返回的读取次数
+    private final LongAdder localHitCount = new LongAdder();
+
+    /**
+     * HotKeyPromotingCacheService 构造方法，按配置创建热点 key 探测器。
+     *
+     * @param delegate                   被装饰的分布式缓存
+     * @param localCache                 保存热点 key 的本地缓存
+     * @param distributedCacheProperties 缓存配置属性，包含热点 key 配置
+     */
+    public HotKeyPromotingCacheService(DistributedCacheService<K, V> delegate, LocalCacheService<K, V> localCache,
+                                       DistributedCacheProperties distributedCacheProperties) {
+        this(delegate, localCache, new HotKeyDetector<>(distributedCacheProperties.getHotKey()),
+                Duration.ofMillis(distributedCacheProperties.getHotKey().getPinTtl()));
+    }
+
+    /**
+     * HotKeyPromotingCacheService 构造方法。
+     *
+     * @param delegate   被装饰的分布式缓存
+     * @param localCache 保存热点 key 的本地缓存
+     * @param detector   热点 key 探测器
+     * @param pinTtl     热点 key 在本地缓存中的过期时间
+     * @throws IllegalArgumentException 如果 pinTtl 不大于 0
+     */
+    public HotKeyPromotingCacheService(DistributedCacheService<K, V> delegate, LocalCacheService<K, V> localCache,
+                                       HotKeyDetector<K> detector, Duration pinTtl) {
+        if (pinTtl == null || pinTtl.isZero() || pinTtl.isNegative()) {
+            throw new IllegalArgumentException("Pin TTL must be greater than 0: " + pinTtl);
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.localCache = Objects.requireNonNull(localCache);
+        this.detector = Objects.requireNonNull(detector);
+        this.pinTtl = pinTtl;
+        detector.addListener(hotKeys -> demote());
+    }
+
+    /**
+     * 本节点当前的热点 key 及其读取速率
+     *
+     * @return 按速率从高到低排列的热点 key
+     */
+    public List<HotKey<K>> getHotKeys() {
+        return detector.getHotKeys();
+    }
+
+    /**
+     * 由本地缓存返回、没有访问分布式缓存的读取次数
+     *
+     * @return 本地命中次数
+     */
+    public long getLocalHitCount() {
+        return localHitCount.sum();
+    }
+
+    @Override
+    public void put(K key, V value) {
+        delegate.put(key, value);
+        unpin(key);
+    }
+
+    @Override
+    public void put(K key, V value, long expiration) {
+        delegate.put(key, value, expiration);
+        unpin(key);
+    }
+
+    @Override
+    public V getIfPresent(K key) {
+        V local = readLocal(key);
+        if (local != null) {
+            return local;
+        }
+        long generation = generation(key);
+        return pin(key, generation, delegate.getIfPresent(key));
+    }
+
+    /**
+     * 获取缓存值，热点 key 优先从本地缓存读取；本地未命中时由被装饰的缓存读取或调用 mappingFunction 加载，
+     * 热点 key 的结果写入本地缓存。
+     *
+     * @param key             键
+     * @param mappingFunction 计算值的方法
+     * @return 缓存值
+     * @throws CacheException 如果加载失败，则抛出自定义缓存异常
+     */
+    @Override
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        V local = readLocal(key);
+        if (local != null) {
+            return local;
+        }
+        long generation = generation(key);
+        return pin(key, generation, delegate.get(key, mappingFunction));
+    }
+
+    /**
+     * 批量获取缓存值，本地缓存中的热点 key 不再向被装饰的缓存请求。
+     *
+     * @param keys 键集合
+     * @return 存在值的键值映射，按请求顺序排列
+     */
+    @Override
+    public Map<K, V> getAllPresent(Iterable<? extends K> keys) {
+        Map<K, V> result = new LinkedHashMap<>();
+        List<K> remote = new ArrayList<>();
+        for (K key : keys) {
+            V local = readLocal(key);
+            // 先占位，保持请求顺序
+            result.put(key, local);
+            if (local == null) {
+                remote.add(key);
+            }
+        }
+        long[] generations = new long[remote.size()];
+        for (int i = 0; i < generations.length; i++) {
+            generations[i] = generation(remote.get(i));
+        }
+        Map<K, V> loaded = remote.isEmpty() ? Collections.emptyMap() : delegate.getAllPresent(remote);
+        for (int i = 0; i < generations.length; i++) {
+            K key = remote.get(i);
+            V value = pin(key, generations[i], loaded.get(key));
+            if (value == null) {
+                result.remove(key);
+            } else {
+                result.put(key, value);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        delegate.putAll(map);
+        map.keySet().forEach(this::unpin);
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        delegate.invalidate(key);
+        unpin(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        delegate.invalidateAll();
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        pinned.forEach(this::removeLocal);
+    }
+
+    @Override
+    public void invalidateAll(Iterable<? extends K> keys) {
+        delegate.invalidateAll(keys);
+        keys.forEach(this::unpin);
+    }
+
+    @Override
+    public Stream<K> scan(String pattern, int batchSize) {
+        return delegate.scan(pattern, batchSize);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return delegate.keySet();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void setExpiration(K key, long expiration) {
+        delegate.setExpiration(key, expiration);
+    }
+
+    @Override
+    public long getExpiration(K key) {
+        return delegate.getExpiration(key);
+    }
+
+    // 记录读取，热点 key 从本地缓存读取
+    private V readLocal(K key) {
+        detector.record(key);
+        if (!detector.isHot(key)) {
+            return null;
+        }
+        V value = localCache.getIfPresent(key);
+        if (value != null) {
+            localHitCount.increment();
+        }
+        return value;
+    }
+
+    // 热点 key 的值写入本地缓存，generation 是访问分布式缓存之前记下的写入代数
+    private V pin(K key, long generation, V value) {
+        if (value == null || !detector.isHot(key) || generation(key) != generation) {
+            return value;
+        }
+        pinned.add(key);
+        localCache.put(key, value, pinTtl);
+        // 写入本地缓存期间有并发的写入或删除，它的移除可能早于本次写入
+        if (generation(key) != generation) {
+            removeLocal(key);
+        }
+        return value;
+    }
+
+    private void unpin(K key) {
+        generations.incrementAndGet(stripe(key));
+        removeLocal(key);
+    }
+
+    private void removeLocal(K key) {
+        if (pinned.remove(key)) {
+            localCache.invalidate(key);
+        }
+    }
+
+    private long generation(K key) {
+        return generations.get(stripe(key));
+    }
+
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    // 窗口结束时移除不再是热点的 key
+    private void demote() {
+        for (K key : pinned) {
+            if (!detector.isHot(key)) {
+                removeLocal(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.wangguangwu.cachedistributed.hotkey;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Space-Saving 算法的 Stream-Summary 结构。
+ * <p>
+ * 计数相同的计数器挂在同一个桶上，桶按计数从小到大组成双向链表。计数加一时计数器移到下一个桶，
+ * 下一个桶的计数恰好多一时复用，否则在当前桶之后插入新桶；计数器已满时复用计数最小的桶中的任意一个计数器，
+ * 新计数为最小计数加一，并把最小计数记为误差。两种操作都是 O(1)，不需要扫描全部计数器。
+ * </p>
+ * <p>
+ * 不是线程安全的，由 {@link HotKeyDetector} 持有锁访问。
+ * </p>
+ *
+ * @param <K> 键的类型
+ * @author wangguangwu
+ */
+final class StreamSummary<K> {
+
+    private final int capacity;
+
+    private final Map<K, Counter<K>> counters;
+
+    // 计数最小的桶，没有计数器时为 null
+    private Bucket<K> min;
+
+    StreamSummary(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(Math.max(16, (int) (capacity / 0.75f) + 1));
+    }
+
+    /**
+     * 记录一次出现，已有计数器时加一，计数器已满时替换计数最小的一个
+     *
+     * @param key 键
+     */
+    void offer(K key) {
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            increment(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counter = new Counter<>(key, 0);
+            counters.put(key, counter);
+            if (min == null || min.count != 1) {
+                Bucket<K> first = new Bucket<>(1);
+                first.next = min;
+                if (min != null) {
+                    min.prev = first;
+                }
+                min = first;
+            }
+            min.add(counter);
+            return;
+        }
+        // 复用最小桶中的计数器，计数从最小计数继续累加
+        Counter<K> victim = min.head;
+        counters.remove(victim.key);
+        victim.key = key;
+        victim.error = min.count;
+        counters.put(key, victim);
+        increment(victim);
+    }
+
+    /**
+     * 遍历全部计数器
+     *
+     * @param action 接收键与扣除误差后的计数，即真实出现次数的下界
+     */
+    void forEach(ObjLongConsumer<K> action) {
+        for (Bucket<K> bucket = min; bucket != null; bucket = bucket.next) {
+            for (Counter<K> counter = bucket.head; counter != null; counter = counter.next) {
+                action.accept(counter.key, bucket.count - counter.error);
+            }
+        }
+    }
+
+    void clear() {
+        counters.clear();
+        min = null;
+    }
+
+    private void increment(Counter<K> counter) {
+        Bucket<K> current = counter.bucket;
+        Bucket<K> target = current.next;
+        if (target == null || target.count != current.count + 1) {
+            target = new Bucket<>(current.count + 1);
+            target.prev = current;
+            target.next = current.next;
+            if (current.next != null) {
+                current.next.prev = target;
+            }
+            current.next = target;
+        }
+        current.remove(counter);
+        if (current.head == null) {
+            unlink(current);
+        }
+        target.add(counter);
+    }
+
+    private void unlink(Bucket<K> bucket) {
+        if (bucket.prev == null) {
+            min = bucket.next;
+        } else {
+            bucket.prev.next = bucket.next;
+        }
+        if (bucket.next != null) {
+            bucket.next.prev = bucket.prev;
+        }
+    }
+
+    private static final class Counter<K> {
+
+        private K key;
+
+        // 替换进来时继承的计数，计数最多比真实值多出这么多
+        private long error;
+
+        private Bucket<K> bucket;
+
+        private Counter<K> prev;
+
+        private Counter<K> next;
+
+        private Counter(K key, long error) {
+            this.key = key;
+            this.error = error;
+        }
+    }
+
+    private static final class Bucket<K> {
+
+        // 桶中计数器的计数，是采样次数的估计值，不小于真实值
+        private final long count;
+
+        private Counter<K> head;
+
+        private Bucket<K> prev;
+
+        private Bucket<K> next;
+
+        private Bucket(long count) {
+            this.count = count;
+        }
+
+        private void add(Counter<K> counter) {
+            counter.bucket = this;
+            counter.prev = null;
+            counter.next = head;
+            if (head != null) {
+                head.prev = counter;
+            }
+            head = counter;
+        }
+
+        private void remove(Counter<K> counter) {
+            if (counter.prev == null) {
+                head = counter.next;
+            } else {
+                counter.prev.next = counter.next;
+            }
+            if (counter.next != null) {
+                counter.next.prev = counter.prev;
+            }
+            counter.prev = null;
+            counter.next = null;
+        }
+    }
+}
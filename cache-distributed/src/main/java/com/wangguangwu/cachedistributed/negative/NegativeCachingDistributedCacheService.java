@@ -0,0 +1,207 @@
+package com.wangguangwu.cachedistributed.negative;
+
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.negative.AbsentValue;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 带负缓存的分布式缓存服务，装饰任意 {@link DistributedCacheService}，与本地缓存的
+ * {@link com.wangguangwu.cachelocal.negative.NegativeCachingLocalCacheService} 语义一致。
+ * <p>
+ * 加载函数返回 null 时，通过 {@link DistributedCacheService#put(Object, Object, long)} 写入带 negativeTtl 的
+ * {@link AbsentValue} 占位值，值与过期时间一次写入，不会留下不过期的占位值。过期前所有节点对该 key 的读取都直接返回 null，
+ * 不再调用加载函数。被装饰的服务为 {@link com.wangguangwu.cachedistributed.stampede.StampedeProtectedCacheService} 时，
+ * 等待加载锁的节点同样会读到占位值。
+ * </p>
+ * <p>
+ * 读到占位值对调用方而言就是未命中：getIfPresent 与 get 返回 null，getAllPresent 的结果中不包含该 key，
+ * 同时计入 {@link #getNegativeHitCount()}。containsKey、scan、keySet 与 size 不读取值，结果包含负缓存项。
+ * 占位值通过客户端配置的编解码器序列化，Kryo 与 JDK 序列化都支持。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+public class NegativeCachingDistributedCacheService<K, V> implements DistributedCacheService<K, V> {
+
+    private final DistributedCacheService<K, Object> delegate;
+
+    // 占位值的过期时间（毫秒）
+    private final long negativeTtlMillis;
+
+    // 本节点读到占位值的次数
+    private final LongAdder negativeHitCount = new LongAdder();
+
+    /**
+     * NegativeCachingDistributedCacheService 构造方法。
+     *
+     * @param delegate          被装饰的分布式缓存，值与占位值都写入该缓存
+     * @param negativeTtlMillis 占位值的过期时间（单位：毫秒）
+     * @throws IllegalArgumentException 如果 negativeTtlMillis 不大于 0
+     */
+    public NegativeCachingDistributedCacheService(DistributedCacheService<K, Object> delegate, long negativeTtlMillis) {
+        if (negativeTtlMillis <= 0) {
+            throw new IllegalArgumentException("Negative TTL must be greater than 0: " + negativeTtlMillis);
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.negativeTtlMillis = negativeTtlMillis;
+    }
+
+    /**
+     * 按配置的 negativeTtl 装饰缓存，negativeTtl 不大于 0 时原样返回。
+     *
+     * @param cacheService               被装饰的分布式缓存
+     * @param distributedCacheProperties 缓存配置属性
+     * @param <K>                        键类型
+     * @return 启用负缓存时返回装饰后的缓存，否则返回原缓存
+     */
+    public static <K> DistributedCacheService<K, Object> decorate(DistributedCacheService<K, Object> cacheService,
+                                                                  DistributedCacheProperties distributedCacheProperties) {
+        if (distributedCacheProperties.getNegativeTtl() <= 0) {
+            return cacheService;
+        }
+        return new NegativeCachingDistributedCacheService<>(cacheService, distributedCacheProperties.getNegativeTtl());
+    }
+
+    @Override
+    public void put(K key, V value) {
+        delegate.put(key, Objects.requireNonNull(value));
+    }
+
+    @Override
+    public void put(K key, V value, long expiration) {
+        delegate.put(key, Objects.requireNonNull(value), expiration);
+    }
+
+    @Override
+    public V getIfPresent(K key) {
+        return unwrap(delegate.getIfPresent(key));
+    }
+
+    /**
+     * 获取缓存值，未命中时由被装饰的服务调用 mappingFunction 加载，结果为 null 时写入占位值并返回 null。
+     *
+     * @param key             键
+     * @param mappingFunction 计算值的方法
+     * @return 缓存值，不存在时返回 null
+     * @throws CacheException 如果加载失败，则抛出自定义缓存异常
+     */
+    @Override
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        boolean[] loadedAbsent = new boolean[1];
+        Object value = delegate.get(key, k -> {
+            V loaded = mappingFunction.apply(k);
+            loadedAbsent[0] = loaded == null;
+            return loaded;
+        });
+        if (value == null && loadedAbsent[0]) {
+            delegate.put(key, AbsentValue.INSTANCE, negativeTtlMillis);
+            return null;
+        }
+        return unwrap(value);
+    }
+
+    /**
+     * 批量获取缓存值，结果中不包含负缓存项。
+     *
+     * @param keys 键集合
+     * @return 存在值的键值映射，按请求顺序排列
+     */
+    @Override
+    public Map<K, V> getAllPresent(Iterable<? extends K> keys) {
+        Map<K, V> result = new LinkedHashMap<>();
+        delegate.getAllPresent(keys).forEach((key, value) -> {
+            V present = unwrap(value);
+            if (present != null) {
+                result.put(key, present);
+            }
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        delegate.putAll(map);
+    }
+
+    /**
+     * 判断缓存中是否存在指定的 key，不读取值，负缓存项同样返回 true。
+     *
+     * @param key 键
+     * @return 存在值或负缓存项时返回 true
+     */
+    @Override
+    public boolean containsKey(K key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        delegate.invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        delegate.invalidateAll();
+    }
+
+    @Override
+    public void invalidateAll(Iterable<? extends K> keys) {
+        delegate.invalidateAll(keys);
+    }
+
+    @Override
+    public Stream<K> scan(String pattern, int batchSize) {
+        return delegate.scan(pattern, batchSize);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return delegate.keySet();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void setExpiration(K key, long expiration) {
+        delegate.setExpiration(key, expiration);
+    }
+
+    @Override
+    public long getExpiration(K key) {
+        return delegate.getExpiration(key);
+    }
+
+    /**
+     * 本节点读到负缓存占位值的次数，这些读取都按未命中返回给调用方
+     *
+     * @return 负缓存命中次数
+     */
+    public long getNegativeHitCount() {
+        return negativeHitCount.sum();
+    }
+
+    // 占位值按未命中返回 null，并记录负缓存命中
+    @SuppressWarnings("unchecked")
+    private V unwrap(Object value) {
+        if (AbsentValue.isAbsent(value)) {
+            negativeHitCount.increment();
+            return null;
+        }
+        return (V) value;
+    }
+}
@@ -0,0 +1,319 @@
+package com.wangguangwu.cachedistributed.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 分布式缓存配置类，提供缓存参数的可配置性。
+ * 通过 `@ConfigurationProperties` 进行自动绑定。
+ * <p>
+ * 配置示例：
+ * distributed:
+ * cache:
+ * type: redisson
+ * keyPrefix: "cache:"
+ * defaultTtl: 0
+ * allowNullValues: true
+ * negativeTtl: 0
+ * codec:
+ * type: kryo
+ * compressionThreshold: 1024
+ * stampede:
+ * enabled: false
+ * lockPrefix: "cache-lock:"
+ * lockLease: 10000
+ * pollInterval: 50
+ * maxWait: 3000
+ * beta: 1.0
+ * filter:
+ * type: bloom
+ * expectedInsertions: 1000000
+ * fpp: 0.01
+ * sharedKey: "cache-filter:bloom"
+ * syncInterval: 10000
+ * hotKey:
+ * sampleRate: 0.1
+ * capacity: 128
+ * topK: 16
+ * window: 1000
+ * threshold: 1000
+ * pinTtl: 1000
+ * redis:
+ * address: redis://127.0.0.1:6379
+ * database: 0
+ * connectionPoolSize: 64
+ * connectionMinimumIdleSize: 24
+ * nettyThreads: 32
+ * timeout: 3000
+ * memcached:
+ * servers: 127.0.0.1:11211
+ * connectionPoolSize: 4
+ * opTimeout: 1000
+ *
+ * @author wangguangwu
+ */
+@Configuration
+@ConfigurationProperties(prefix = "distributed.cache")
+@Getter
+@Setter
+public class DistributedCacheProperties {
+
+    /**
+     * 分布式缓存类型，可选 redisson、memcached
+     */
+    private String type;
+
+    /**
+     * 缓存 key 的前缀，用于与同一个 Redis 或 Memcached 中的其他数据隔离，keySet、size 与 invalidateAll 只处理带该前缀的 key
+     */
+    private String keyPrefix = "cache:";
+
+    /**
+     * 写入缓存时的默认过期时间，单位为毫秒，0 表示不过期
+     */
+    private long defaultTtl = 0;
+
+    /**
+     * 通过 Spring 缓存注解使用时，是否缓存方法返回的 null
+     */
+    private boolean allowNullValues = true;
+
+    /**
+     * 负缓存的过期时间，单位为毫秒，0 表示不启用。
+     * 大于 0 时加载函数返回 null 的 key 写入占位值，过期前所有节点的读取直接按未命中返回 null，不再调用加载函数
+     */
+    private long negativeTtl = 0;
+
+    /**
+     * 值的编解码配置，Redis 与 Memcached 共用
+     */
+    private Codec codec = new Codec();
+
+    /**
+     * 防止缓存击穿的配置
+     */
+    private Stampede stampede = new Stampede();
+
+    /**
+     * 防止缓存穿透的成员过滤器配置
+     */
+    private Filter filter = new Filter();
+
+    /**
+     * 热点 key 探测与本地提升的配置
+     */
+    private HotKey hotKey = new HotKey();
+
+    /**
+     * Redis 连接配置
+     */
+    private Redis redis = new Redis();
+
+    /**
+     * Memcached 连接配置
+     */
+    private Memcached memcached = new Memcached();
+
+    /**
+     * 值的编解码配置，修改后已写入的值无法读取，需要同时更换 key 前缀
+     */
+    @Getter
+    @Setter
+    public static class Codec {
+
+        /**
+         * 编解码类型，可选 kryo、jdk
+         */
+        private String type = "kryo";
+
+        /**
+         * 触发压缩的最小字节数，序列化后达到该大小的值使用 Deflate 压缩，0 表示不压缩
+         */
+        private int compressionThreshold = 1024;
+    }
+
+    /**
+     * 防止缓存击穿的配置：未命中时跨节点只加载一次，命中时按 XFetch 概率性提前重算
+     */
+    @Getter
+    @Setter
+    public static class Stampede {
+
+        /**
+         * 是否为自动配置的分布式缓存服务启用防击穿；Memcached 没有分布式锁，只合并同一个节点内的加载
+         */
+        private boolean enabled = false;
+
+        /**
+         * 加载锁名称的前缀，不能以 keyPrefix 开头，否则锁会出现在 keySet 与 scan 的结果中
+         */
+        private String lockPrefix = "cache-lock:";
+
+        /**
+         * 加载锁的租约时间，单位为毫秒，应大于加载函数通常的耗时
+         */
+        private long lockLease = 10000;
+
+        /**
+         * 等待其他节点加载时轮询缓存的间隔，单位为毫秒
+         */
+        private long pollInterval = 50;
+
+        /**
+         * 等待其他节点加载的最长时间，单位为毫秒，超过后自行加载
+         */
+        private long maxWait = 3000;
+
+        /**
+         * XFetch 提前重算的 beta 参数，越大越早重算，0 表示不提前重算
+         */
+        private double beta = 1.0;
+    }
+
+    /**
+     * 防止缓存穿透的成员过滤器配置，过滤器记录数据源中存在的 key，一定不存在的 key 不访问数据源。
+     * 不会自动配置，由应用传给 {@link com.wangguangwu.cachedistributed.filter.MembershipFilters#factory} 并创建
+     * {@link com.wangguangwu.cachedistributed.filter.FilterGuardedCacheService}，重建需要应用提供数据源的 key 流
+     */
+    @Getter
+    @Setter
+    public static class Filter {
+
+        /**
+         * 过滤器类型，可选 bloom、cuckoo；数据源中的记录会被删除时使用 cuckoo
+         */
+        private String type = "bloom";
+
+        /**
+         * 预期的 key 数量。bloom 超过后自动扩容，共享的 bloom 与 cuckoo 为固定容量
+         */
+        private long expectedInsertions = 1000000;
+
+        /**
+         * bloom 的误判率，取值范围 (0, 1)；cuckoo 使用 16 位指纹，误判率约为 0.012%
+         */
+        private double fpp = 0.01;
+
+        /**
+         * 共享 bloom 位图的 Redis key，为空表示只在本地维护，不能以 keyPrefix 开头
+         */
+        private String sharedKey;
+
+        /**
+         * 共享的 bloom 合并其他节点位图的间隔，单位为毫秒，0 表示不同步
+         */
+        private long syncInterval = 10000;
+    }
+
+    /**
+     * 热点 key 探测与本地提升的配置，速率与阈值都是单个节点上的读取次数。
+     * 不会自动配置，由应用连同专用的本地缓存传给 {@link com.wangguangwu.cachedistributed.hotkey.HotKeyPromotingCacheService}
+     */
+    @Getter
+    @Setter
+    public static class HotKey {
+
+        /**
+         * 读取的采样比例，取值范围 (0, 1]，比例越低开销越小，低速率的统计误差越大
+         */
+        private double sampleRate = 0.1;
+
+        /**
+         * Space-Saving 计数器数量，应明显大于 topK，真实频率超过 1 / capacity 的 key 不会漏掉
+         */
+        private int capacity = 128;
+
+        /**
+         * 同时提升到本地缓存的热点 key 数量上限
+         */
+        private int topK = 16;
+
+        /**
+         * 统计窗口，单位为毫秒，每个窗口结束时重新判定热点 key
+         */
+        private long window = 1000;
+
+        /**
+         * 成为热点 key 的每秒读取次数
+         */
+        private double threshold = 1000;
+
+        /**
+         * 热点 key 在本地缓存中的过期时间，单位为毫秒，即其他节点修改后本节点最长读到旧值的时间
+         */
+        private long pinTtl = 1000;
+    }
+
+    /**
+     * Redis 连接配置，连接池与 Netty 线程数需要按并发量调整
+     */
+    @Getter
+    @Setter
+    public static class Redis {
+
+        /**
+         * Redis 地址，格式为 redis://host:port，使用 TLS 时为 rediss://host:port
+         */
+        private String address = "redis://127.0.0.1:6379";
+
+        /**
+         * Redis 密码，为空表示不需要认证
+         */
+        private String password;
+
+        /**
+         * Redis 数据库编号
+         */
+        private int database = 0;
+
+        /**
+         * 连接池最大连接数，批量操作使用流水线，通常不需要很多连接
+         */
+        private int connectionPoolSize = 64;
+
+        /**
+         * 连接池最小空闲连接数
+         */
+        private int connectionMinimumIdleSize = 24;
+
+        /**
+         * Netty 事件循环线程数，0 表示使用 CPU 核数的两倍
+         */
+        private int nettyThreads = 32;
+
+        /**
+         * 命令响应超时时间，单位为毫秒
+         */
+        private int timeout = 3000;
+    }
+
+    /**
+     * Memcached 连接配置，固定使用二进制协议
+     */
+    @Getter
+    @Setter
+    public static class Memcached {
+
+        /**
+         * Memcached 地址列表，格式为 host:port，多个地址以空格分隔，key 按哈希分布到各节点
+         */
+        private String servers = "127.0.0.1:11211";
+
+        /**
+         * 每个节点的连接数，xmemcached 基于 NIO，单个连接即可承载较高并发，连接数过多反而会降低批量请求的合并效果
+         */
+        private int connectionPoolSize = 4;
+
+        /**
+         * 命令响应超时时间，单位为毫秒
+         */
+        private long opTimeout = 1000;
+
+        /**
+         * 建立连接的超时时间，单位为毫秒
+         */
+        private long connectTimeout = 3000;
+    }
+}
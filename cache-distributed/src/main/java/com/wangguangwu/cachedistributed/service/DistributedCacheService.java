@@ -1,7 +1,9 @@
 package com.wangguangwu.cachedistributed.service;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * 分布式缓存服务接口
@@ -20,6 +22,22 @@ public interface DistributedCacheService<K, V> {
      */
     void put(K key, V value);
 
+    /**
+     * 向缓存中添加一个键值对，并单独指定过期时间。
+     * <p>
+     * 默认实现先写入再设置过期时间，两步之间进程退出会留下按默认过期时间存活的缓存项；
+     * 支持写入时携带过期时间的实现应覆盖该方法，一次完成写入。
+     * </p>
+     *
+     * @param key        键
+     * @param value      值
+     * @param expiration 过期时间（单位：毫秒）
+     */
+    default void put(K key, V value, long expiration) {
+        put(key, value);
+        setExpiration(key, expiration);
+    }
+
     /**
      * 获取缓存中的值
      *
@@ -37,6 +55,21 @@ public interface DistributedCacheService<K, V> {
      */
     V get(K key, Function<? super K, ? extends V> mappingFunction);
 
+    /**
+     * 批量获取缓存中的值
+     *
+     * @param keys 键集合
+     * @return 键值映射，只包含存在值的 key，按请求顺序排列
+     */
+    Map<K, V> getAllPresent(Iterable<? extends K> keys);
+
+    /**
+     * 批量向缓存中添加键值对
+     *
+     * @param map 键值映射
+     */
+    void putAll(Map<? extends K, ? extends V> map);
+
     /**
      * 判断缓存中是否存在某个 key
      *
@@ -57,8 +90,32 @@ public interface DistributedCacheService<K, V> {
      */
     void invalidateAll();
 
+    /**
+     * 批量移除缓存中的键值对
+     *
+     * @param keys 键集合
+     */
+    void invalidateAll(Iterable<? extends K> keys);
+
+    /**
+     * 惰性遍历匹配 pattern 的 key
+     * <p>
+     * 返回的 Stream 在消费时才分批从服务端取出 key，不阻塞服务端，也不会一次性生成完整的键集合。
+     * 遍历是弱一致的：遍历期间一直存在的 key 至少返回一次，并发写入、删除的 key 可能可见也可能不可见，
+     * 同一个 key 可能重复返回。
+     * </p>
+     *
+     * @param pattern   glob 表达式，与 Redis SCAN MATCH 的语义一致，null 表示所有 key
+     * @param batchSize 每批取出的 key 数量，必须大于 0
+     * @return key 的惰性 Stream，使用完毕后应关闭
+     */
+    Stream<K> scan(String pattern, int batchSize);
+
     /**
      * 返回缓存中的所有键集合
+     * <p>
+     * 需要遍历大量 key 时使用 {@link #scan(String, int)}，避免生成完整的键集合。
+     * </p>
      *
      * @return 键集合
      */
@@ -83,7 +140,7 @@ public interface DistributedCacheService<K, V> {
      * 获取缓存的过期时间
      *
      * @param key 键
-     * @return 缓存的过期时间（单位：毫秒）
+     * @return 缓存的剩余过期时间（单位：毫秒），未设置过期时间时返回 -1，key 不存在时返回 -2
      */
     long getExpiration(K key);
 }
@@ -0,0 +1,302 @@
+package com.wangguangwu.cachedistributed.service.impl;
+
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import com.wangguangwu.cachelocal.exception.CacheException;
+import net.rubyeye.xmemcached.MemcachedClient;
+import net.rubyeye.xmemcached.exception.MemcachedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 基于 xmemcached 实现的分布式缓存服务，客户端需使用二进制协议。
+ * <p>
+ * 单个 key 的读写都是一次网络往返；getAllPresent 对应一次 multi-get，
+ * 二进制协议下所有 key 以静默的 GETKQ 连续发出，未命中的 key 不产生响应。
+ * putAll 与 invalidateAll(keys) 使用不等待响应的 SETQ 与 DELETEQ，写入失败不会反馈给调用方，
+ * 适合允许回源重建的缓存数据；单个 key 的 put 与 invalidate 仍等待服务端确认。
+ * </p>
+ * <p>
+ * Memcached 的过期时间以秒为单位，毫秒向上取整；超过 30 天的过期时间按绝对时间戳发送。
+ * Memcached 不支持遍历 key，也不支持查询剩余过期时间：scan、keySet、size 与 getExpiration 抛出
+ * {@link UnsupportedOperationException}，invalidateAll 通过 flush_all 清空整个实例，
+ * 因此 Memcached 实例应只用于本缓存。
+ * </p>
+ *
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+public class MemcachedDistributedCacheService<V> implements DistributedCacheService<String, V> {
+
+    // 超过该秒数的过期时间会被 Memcached 解释为绝对时间戳
+    private static final long MAX_RELATIVE_EXPIRATION_SECONDS = TimeUnit.DAYS.toSeconds(30);
+
+    private final MemcachedClient memcachedClient;
+
+    // Memcached 中 key 的前缀
+    private final String keyPrefix;
+
+    // 写入时的默认过期时间（毫秒），0 表示不过期
+    private final long defaultTtlMillis;
+
+    /**
+     * MemcachedDistributedCacheService 构造方法。
+     *
+     * @param memcachedClient            xmemcached 客户端，值使用客户端配置的编解码器序列化
+     * @param distributedCacheProperties 缓存配置属性，包含 key 前缀与默认过期时间
+     */
+    public MemcachedDistributedCacheService(MemcachedClient memcachedClient,
+                                            DistributedCacheProperties distributedCacheProperties) {
+        this.memcachedClient = Objects.requireNonNull(memcachedClient);
+        this.keyPrefix = Objects.requireNonNull(distributedCacheProperties.getKeyPrefix());
+        this.defaultTtlMillis = Math.max(0, distributedCacheProperties.getDefaultTtl());
+    }
+
+    /**
+     * 写入缓存，等待服务端确认。
+     *
+     * @param key   键
+     * @param value 值
+     * @throws CacheException 如果服务端没有存储该值
+     */
+    @Override
+    public void put(String key, V value) {
+        Objects.requireNonNull(value);
+        set(key, defaultTtlMillis, value);
+    }
+
+    /**
+     * 写入缓存并单独指定过期时间，过期时间随 SET 一起发送，等待服务端确认。
+     *
+     * @param key        键
+     * @param value      值
+     * @param expiration 过期时间（单位：毫秒），不大于 0 时不过期
+     * @throws CacheException 如果服务端没有存储该值
+     */
+    @Override
+    public void put(String key, V value, long expiration) {
+        Objects.requireNonNull(value);
+        set(key, expiration, value);
+    }
+
+    @Override
+    public V getIfPresent(String key) {
+        return execute(key, () -> memcachedClient.<V>get(name(key)));
+    }
+
+    /**
+     * 获取缓存值，命中时只有一次 GET；未命中时调用 mappingFunction 计算并写入，结果为 null 时不写入。
+     *
+     * @param key             键
+     * @param mappingFunction 计算值的方法
+     * @return 缓存值
+     * @throws CacheException 如果加载失败，则抛出自定义缓存异常
+     */
+    @Override
+    public V get(String key, Function<? super String, ? extends V> mappingFunction) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        try {
+            value = mappingFunction.apply(key);
+        } catch (Exception e) {
+            throw new CacheException("Error loading value for key: " + key, e);
+        }
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 批量获取缓存值，对应一次 multi-get。
+     *
+     * @param keys 键集合
+     * @return 存在值的键值映射，按请求顺序排列
+     */
+    @Override
+    public Map<String, V> getAllPresent(Iterable<? extends String> keys) {
+        Set<String> distinctKeys = new LinkedHashSet<>();
+        keys.forEach(distinctKeys::add);
+        if (distinctKeys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<String> names = new ArrayList<>(distinctKeys.size());
+        for (String key : distinctKeys) {
+            names.add(name(key));
+        }
+        Map<String, V> values = execute(names.toString(), () -> memcachedClient.<V>get(names));
+        Map<String, V> result = new LinkedHashMap<>();
+        for (String key : distinctKeys) {
+            V value = values.get(name(key));
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * 批量写入缓存，使用不等待响应的 SETQ。
+     *
+     * @param map 键值映射
+     */
+    @Override
+    public void putAll(Map<? extends String, ? extends V> map) {
+        int expiry = expiry(defaultTtlMillis);
+        map.forEach((key, value) -> {
+            Objects.requireNonNull(value);
+            execute(key, () -> {
+                memcachedClient.setWithNoReply(name(key), expiry, value);
+                return null;
+            });
+        });
+    }
+
+    /**
+     * 判断 key 是否存在，Memcached 没有单独的存在性命令，通过一次 GET 判断。
+     *
+     * @param key 键
+     * @return 如果存在则返回 true，否则返回 false
+     */
+    @Override
+    public boolean containsKey(String key) {
+        return getIfPresent(key) != null;
+    }
+
+    @Override
+    public void invalidate(String key) {
+        execute(key, () -> memcachedClient.delete(name(key)));
+    }
+
+    /**
+     * 通过 flush_all 清空所有节点，会同时删除不带前缀的其他数据。
+     */
+    @Override
+    public void invalidateAll() {
+        execute("*", () -> {
+            memcachedClient.flushAll();
+            return null;
+        });
+    }
+
+    /**
+     * 批量删除缓存，使用不等待响应的 DELETEQ。
+     *
+     * @param keys 键集合
+     */
+    @Override
+    public void invalidateAll(Iterable<? extends String> keys) {
+        for (String key : keys) {
+            execute(key, () -> {
+                memcachedClient.deleteWithNoReply(name(key));
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Memcached 不支持遍历 key。
+     *
+     * @throws UnsupportedOperationException 总是抛出
+     */
+    @Override
+    public Stream<String> scan(String pattern, int batchSize) {
+        throw new UnsupportedOperationException("Memcached does not support key enumeration");
+    }
+
+    /**
+     * Memcached 不支持遍历 key。
+     *
+     * @throws UnsupportedOperationException 总是抛出
+     */
+    @Override
+    public Set<String> keySet() {
+        throw new UnsupportedOperationException("Memcached does not support key enumeration");
+    }
+
+    /**
+     * Memcached 不支持统计带前缀的 key 数量。
+     *
+     * @throws UnsupportedOperationException 总是抛出
+     */
+    @Override
+    public int size() {
+        throw new UnsupportedOperationException("Memcached does not support key enumeration");
+    }
+
+    /**
+     * 设置过期时间，对应 TOUCH，毫秒向上取整为秒。
+     *
+     * @param key        键
+     * @param expiration 过期时间（单位：毫秒）
+     */
+    @Override
+    public void setExpiration(String key, long expiration) {
+        execute(key, () -> memcachedClient.touch(name(key), expiry(expiration)));
+    }
+
+    /**
+     * Memcached 不支持查询剩余过期时间。
+     *
+     * @throws UnsupportedOperationException 总是抛出
+     */
+    @Override
+    public long getExpiration(String key) {
+        throw new UnsupportedOperationException("Memcached does not expose the remaining TTL of a key");
+    }
+
+    // Memcached 的过期时间参数：0 表示不过期，不超过 30 天时为相对秒数，否则为绝对时间戳
+    private static int expiry(long ttlMillis) {
+        if (ttlMillis <= 0) {
+            return 0;
+        }
+        long seconds = (ttlMillis + 999) / 1000;
+        if (seconds > MAX_RELATIVE_EXPIRATION_SECONDS) {
+            seconds += TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        }
+        return (int) Math.min(seconds, Integer.MAX_VALUE);
+    }
+
+    private String name(String key) {
+        return keyPrefix + Objects.requireNonNull(key);
+    }
+
+    // SET 返回 false 表示服务端没有存储该值，与其他访问失败一样抛出 CacheException
+    private void set(String key, long ttlMillis, V value) {
+        boolean stored = execute(key, () -> memcachedClient.set(name(key), expiry(ttlMillis), value));
+        if (!stored) {
+            throw new CacheException("Memcached did not store value for key: " + key);
+        }
+    }
+
+    // 把 xmemcached 的受检异常统一包装为 CacheException
+    private <T> T execute(String key, MemcachedOperation<T> operation) {
+        try {
+            return operation.execute();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException("Interrupted while accessing memcached for key: " + key, e);
+        } catch (TimeoutException | MemcachedException e) {
+            throw new CacheException("Error accessing memcached for key: " + key, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface MemcachedOperation<T> {
+
+        T execute() throws TimeoutException, InterruptedException, MemcachedException;
+    }
+}
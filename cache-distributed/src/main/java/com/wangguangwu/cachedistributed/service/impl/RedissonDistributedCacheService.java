@@ -0,0 +1,337 @@
+package com.wangguangwu.cachedistributed.service.impl;
+
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import com.wangguangwu.cachelocal.exception.CacheException;
+import org.redisson.Redisson;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucket;
+import org.redisson.api.RBucketAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.client.protocol.RedisCommands;
+import org.redisson.command.CommandAsyncExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 基于 Redisson 实现的分布式缓存服务，每个缓存项对应 Redis 中的一个字符串 key。
+ * <p>
+ * 单个 key 的读写都是一次网络往返；批量操作通过 {@link RBatch} 以流水线方式发送，
+ * 所有命令在一次往返中写出、一次读回，不包裹 MULTI/EXEC。
+ * 过期时间直接映射到 Redis 的 PEXPIRE 与 PTTL。
+ * </p>
+ * <p>
+ * key 在 Redis 中带有配置的前缀，scan、keySet、size 与 invalidateAll 通过 SCAN 遍历带前缀的 key，
+ * 时间复杂度与 Redis 中的 key 数量成正比，不适合在请求路径上调用。
+ * </p>
+ *
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+public class RedissonDistributedCacheService<V> implements DistributedCacheService<String, V> {
+
+    // invalidateAll 时每批删除的 key 数量
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    // keySet、size 与 invalidateAll 遍历时 SCAN 的 COUNT
+    private static final int SCAN_BATCH_SIZE = 1000;
+
+    private final RedissonClient redissonClient;
+
+    // 用于直接发送 PEXPIRE，RBucket#expire 会包装成 Lua 脚本
+    private final CommandAsyncExecutor commandExecutor;
+
+    // Redis 中 key 的前缀
+    private final String keyPrefix;
+
+    // 写入时的默认过期时间（毫秒），0 表示不过期
+    private final long defaultTtlMillis;
+
+    /**
+     * RedissonDistributedCacheService 构造方法。
+     *
+     * @param redissonClient             Redisson 客户端，需为 {@link Redisson#create} 创建的实例，值使用客户端配置的编解码器序列化
+     * @param distributedCacheProperties 缓存配置属性，包含 key 前缀与默认过期时间
+     */
+    public RedissonDistributedCacheService(RedissonClient redissonClient,
+                                           DistributedCacheProperties distributedCacheProperties) {
+        this.redissonClient = Objects.requireNonNull(redissonClient);
+        this.commandExecutor = ((Redisson) redissonClient).getCommandExecutor();
+        this.keyPrefix = Objects.requireNonNull(distributedCacheProperties.getKeyPrefix());
+        this.defaultTtlMillis = Math.max(0, distributedCacheProperties.getDefaultTtl());
+    }
+
+    /**
+     * 写入缓存，配置了默认过期时间时使用 SET PX 一次写入值与过期时间。
+     *
+     * @param key   键
+     * @param value 值
+     */
+    @Override
+    public void put(String key, V value) {
+        set(bucket(key), Objects.requireNonNull(value));
+    }
+
+    /**
+     * 写入缓存并单独指定过期时间，值与过期时间在一条命令中写入。
+     *
+     * @param key        键
+     * @param value      值
+     * @param expiration 过期时间（单位：毫秒），不大于 0 时不过期
+     */
+    @Override
+    public void put(String key, V value, long expiration) {
+        RBucket<V> bucket = bucket(key);
+        if (expiration > 0) {
+            bucket.set(Objects.requireNonNull(value), expiration, TimeUnit.MILLISECONDS);
+        } else {
+            bucket.set(Objects.requireNonNull(value));
+        }
+    }
+
+    /**
+     * 获取缓存值，一次 GET。
+     *
+     * @param key 键
+     * @return 缓存值，不存在时返回 null
+     */
+    @Override
+    public V getIfPresent(String key) {
+        return this.<V>bucket(key).get();
+    }
+
+    /**
+     * 获取缓存值，命中时只有一次 GET；未命中时调用 mappingFunction 计算并写入，结果为 null 时不写入。
+     *
+     * @param key             键
+     * @param mappingFunction 计算值的方法
+     * @return 缓存值
+     * @throws CacheException 如果加载失败，则抛出自定义缓存异常
+     */
+    @Override
+    public V get(String key, Function<? super String, ? extends V> mappingFunction) {
+        RBucket<V> bucket = bucket(key);
+        V value = bucket.get();
+        if (value != null) {
+            return value;
+        }
+        try {
+            value = mappingFunction.apply(key);
+        } catch (Exception e) {
+            throw new CacheException("Error loading value for key: " + key, e);
+        }
+        if (value != null) {
+            set(bucket, value);
+        }
+        return value;
+    }
+
+    /**
+     * 批量获取缓存值，所有 GET 通过流水线在一次往返中完成。
+     *
+     * @param keys 键集合
+     * @return 存在值的键值映射，按请求顺序排列
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, V> getAllPresent(Iterable<? extends String> keys) {
+        Set<String> distinctKeys = new LinkedHashSet<>();
+        keys.forEach(distinctKeys::add);
+        if (distinctKeys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        RBatch batch = createBatch();
+        for (String key : distinctKeys) {
+            batch.getBucket(name(key)).getAsync();
+        }
+        List<?> responses = batch.execute().getResponses();
+        Map<String, V> result = new LinkedHashMap<>();
+        Iterator<?> values = responses.iterator();
+        for (String key : distinctKeys) {
+            V value = (V) values.next();
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * 批量写入缓存，所有 SET 通过流水线在一次往返中完成。
+     *
+     * @param map 键值映射
+     */
+    @Override
+    public void putAll(Map<? extends String, ? extends V> map) {
+        if (map.isEmpty()) {
+            return;
+        }
+        RBatch batch = createBatch();
+        map.forEach((key, value) -> {
+            RBucketAsync<V> bucket = batch.getBucket(name(key));
+            if (defaultTtlMillis > 0) {
+                bucket.setAsync(Objects.requireNonNull(value), defaultTtlMillis, TimeUnit.MILLISECONDS);
+            } else {
+                bucket.setAsync(Objects.requireNonNull(value));
+            }
+        });
+        batch.execute();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return bucket(key).isExists();
+    }
+
+    @Override
+    public void invalidate(String key) {
+        bucket(key).delete();
+    }
+
+    /**
+     * 删除所有带前缀的 key，SCAN 得到的 key 分批删除。
+     */
+    @Override
+    public void invalidateAll() {
+        List<String> names = new ArrayList<>(DELETE_BATCH_SIZE);
+        Iterator<String> iterator = redissonClient.getKeys()
+                .getKeysStreamByPattern(match(null), SCAN_BATCH_SIZE).iterator();
+        while (iterator.hasNext()) {
+            names.add(iterator.next());
+            if (names.size() == DELETE_BATCH_SIZE || !iterator.hasNext()) {
+                redissonClient.getKeys().delete(names.toArray(new String[0]));
+                names.clear();
+            }
+        }
+    }
+
+    /**
+     * 批量删除缓存，所有 DEL 通过流水线在一次往返中完成。
+     *
+     * @param keys 键集合
+     */
+    @Override
+    public void invalidateAll(Iterable<? extends String> keys) {
+        RBatch batch = createBatch();
+        boolean empty = true;
+        for (String key : keys) {
+            batch.getBucket(name(key)).deleteAsync();
+            empty = false;
+        }
+        if (!empty) {
+            batch.execute();
+        }
+    }
+
+    /**
+     * 通过 SCAN 惰性遍历带前缀且匹配 pattern 的 key，去掉前缀后返回，batchSize 作为 SCAN 的 COUNT。
+     *
+     * @param pattern   glob 表达式，作用于去掉前缀后的 key，null 表示所有 key
+     * @param batchSize 每次 SCAN 的 COUNT
+     * @return key 的惰性 Stream
+     */
+    @Override
+    public Stream<String> scan(String pattern, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0: " + batchSize);
+        }
+        return redissonClient.getKeys().getKeysStreamByPattern(match(pattern), batchSize)
+                .map(name -> name.substring(keyPrefix.length()));
+    }
+
+    /**
+     * 返回所有带前缀的 key，去掉前缀后返回，通过 SCAN 遍历。
+     *
+     * @return 键集合
+     */
+    @Override
+    public Set<String> keySet() {
+        try (Stream<String> keys = scan(null, SCAN_BATCH_SIZE)) {
+            return keys.collect(Collectors.toCollection(HashSet::new));
+        }
+    }
+
+    /**
+     * 统计带前缀的 key 的数量，通过 SCAN 遍历。
+     *
+     * @return 缓存大小
+     */
+    @Override
+    public int size() {
+        try (Stream<String> keys = scan(null, SCAN_BATCH_SIZE)) {
+            return (int) Math.min(keys.count(), Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * 设置过期时间，对应 PEXPIRE。
+     *
+     * @param key        键
+     * @param expiration 过期时间（单位：毫秒）
+     */
+    @Override
+    public void setExpiration(String key, long expiration) {
+        String name = name(key);
+        commandExecutor.get(commandExecutor.<Boolean, Boolean>writeAsync(name, StringCodec.INSTANCE,
+                RedisCommands.PEXPIRE, name, expiration));
+    }
+
+    /**
+     * 获取剩余过期时间，对应 PTTL。
+     *
+     * @param key 键
+     * @return 剩余过期时间（单位：毫秒），未设置过期时间时返回 -1，key 不存在时返回 -2
+     */
+    @Override
+    public long getExpiration(String key) {
+        return bucket(key).remainTimeToLive();
+    }
+
+    private <T> RBucket<T> bucket(String key) {
+        return redissonClient.getBucket(name(key));
+    }
+
+    private void set(RBucket<V> bucket, V value) {
+        if (defaultTtlMillis > 0) {
+            bucket.set(value, defaultTtlMillis, TimeUnit.MILLISECONDS);
+        } else {
+            bucket.set(value);
+        }
+    }
+
+    // 流水线批量执行，不使用事务
+    private RBatch createBatch() {
+        return redissonClient.createBatch(BatchOptions.defaults());
+    }
+
+    private String name(String key) {
+        return keyPrefix + Objects.requireNonNull(key);
+    }
+
+    // 转义前缀中的通配符后拼接 pattern，只匹配以前缀开头的 key
+    private String match(String pattern) {
+        StringBuilder match = new StringBuilder(keyPrefix.length() + 8);
+        for (char c : keyPrefix.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                match.append('\\');
+            }
+            match.append(c);
+        }
+        return match.append(pattern == null ? "*" : pattern).toString();
+    }
+}
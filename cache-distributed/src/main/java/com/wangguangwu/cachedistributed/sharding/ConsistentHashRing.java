@@ -0,0 +1,148 @@
+package com.wangguangwu.cachedistributed.sharding;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 带虚拟节点的一致性哈希环。
+ * <p>
+ * 每个节点在环上放置 virtualNodes 个虚拟节点，位置为 {@code hash(节点名称 + "#" + 序号)}；
+ * key 顺时针归属于第一个虚拟节点所在的节点。增加或移除一个节点时，只有约 1/N 的 key 改变归属。
+ * </p>
+ * <p>
+ * 环以不可变快照的形式发布，查找无锁，只做一次二分查找；增删节点时在锁内重建快照。
+ * </p>
+ *
+ * @param <N> 节点类型
+ * @author wangguangwu
+ */
+public final class ConsistentHashRing<N> {
+
+    // 每个节点的虚拟节点数
+    private final int virtualNodes;
+
+    private final ShardHashFunction hashFunction;
+
+    // 节点名称到节点的映射，按加入顺序排列，只在锁内修改
+    private final Map<String, N> nodes = new LinkedHashMap<>();
+
+    private volatile Snapshot<N> snapshot = new Snapshot<>(new long[0], new Object[0], Collections.emptyMap());
+
+    /**
+     * 构造方法
+     *
+     * @param virtualNodes 每个节点的虚拟节点数，必须大于 0，越大分布越均匀，通常取 100 到 200
+     * @param hashFunction 哈希函数
+     */
+    public ConsistentHashRing(int virtualNodes, ShardHashFunction hashFunction) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be greater than 0: " + virtualNodes);
+        }
+        this.virtualNodes = virtualNodes;
+        this.hashFunction = Objects.requireNonNull(hashFunction);
+    }
+
+    /**
+     * 加入节点，同名节点已存在时替换，替换不改变 key 的归属
+     *
+     * @param name 节点名称，决定虚拟节点在环上的位置，所有客户端上应保持一致
+     * @param node 节点
+     */
+    public synchronized void add(String name, N node) {
+        nodes.put(Objects.requireNonNull(name), Objects.requireNonNull(node));
+        rebuild();
+    }
+
+    /**
+     * 移除节点
+     *
+     * @param name 节点名称
+     * @return 被移除的节点，不存在时返回 null
+     */
+    public synchronized N remove(String name) {
+        N removed = nodes.remove(name);
+        if (removed != null) {
+            rebuild();
+        }
+        return removed;
+    }
+
+    /**
+     * 查找 key 所属的节点
+     *
+     * @param key key 的字符串形式
+     * @return 节点
+     * @throws IllegalStateException 如果环上没有节点
+     */
+    @SuppressWarnings("unchecked")
+    public N nodeFor(String key) {
+        Snapshot<N> current = snapshot;
+        long[] points = current.points;
+        if (points.length == 0) {
+            throw new IllegalStateException("No nodes in the hash ring");
+        }
+        int index = Arrays.binarySearch(points, hashFunction.hash(key));
+        if (index < 0) {
+            index = -index - 1;
+            // 超过最后一个虚拟节点时回到环的起点
+            if (index == points.length) {
+                index = 0;
+            }
+        }
+        return (N) current.owners[index];
+    }
+
+    /**
+     * 返回当前所有节点
+     *
+     * @return 节点名称到节点的只读映射，按加入顺序排列
+     */
+    public Map<String, N> nodes() {
+        return snapshot.nodes;
+    }
+
+    // 重建快照，哈希值相同的虚拟节点按节点名称排序，保证所有客户端上的归属一致
+    private void rebuild() {
+        int size = nodes.size() * virtualNodes;
+        long[] hashes = new long[size];
+        String[] names = new String[size];
+        int i = 0;
+        for (String name : nodes.keySet()) {
+            for (int v = 0; v < virtualNodes; v++) {
+                hashes[i] = hashFunction.hash(name + "#" + v);
+                names[i] = name;
+                i++;
+            }
+        }
+        Integer[] order = new Integer[size];
+        for (int j = 0; j < size; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int result = Long.compare(hashes[a], hashes[b]);
+            return result != 0 ? result : names[a].compareTo(names[b]);
+        });
+
+        // 哈希值相同的虚拟节点只保留排在最前的一个，二分查找要求位置不重复
+        long[] points = new long[size];
+        Object[] owners = new Object[size];
+        int count = 0;
+        for (int index : order) {
+            if (count > 0 && points[count - 1] == hashes[index]) {
+                continue;
+            }
+            points[count] = hashes[index];
+            owners[count] = nodes.get(names[index]);
+            count++;
+        }
+        snapshot = new Snapshot<>(Arrays.copyOf(points, count), Arrays.copyOf(owners, count),
+                Collections.unmodifiableMap(new LinkedHashMap<>(nodes)));
+    }
+
+    // 环的不可变快照，points 升序排列，owners 为对应位置的节点
+    private record Snapshot<N>(long[] points, Object[] owners, Map<String, N> nodes) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.wangguangwu.cachedistributed.sharding;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 内置的分片哈希函数。
+ *
+ * @author wangguangwu
+ */
+public enum HashAlgorithm implements ShardHashFunction {
+
+    /**
+     * MurmurHash3 128 位结果的低 64 位，速度快且分布均匀，默认使用
+     */
+    MURMUR3_128 {
+        @Override
+        public long hash(String key) {
+            return Hashing.murmur3_128().hashString(key, StandardCharsets.UTF_8).asLong();
+        }
+    },
+
+    /**
+     * 64 位 FNV-1a，不依赖第三方实现，短 key 上最快；
+     * FNV 对只有末尾几个字符不同的字符串（如虚拟节点名称）扩散不足，结果再经过 MurmurHash3 的 fmix64 混合
+     */
+    FNV1A_64 {
+        @Override
+        public long hash(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xFF;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    },
+
+    /**
+     * MD5 摘要的前 8 个字节，与 ketama 等基于 MD5 的客户端在同一组节点上的分布更接近，计算开销最大
+     */
+    MD5 {
+        @Override
+        public long hash(String key) {
+            byte[] digest = md5().digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        }
+    };
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
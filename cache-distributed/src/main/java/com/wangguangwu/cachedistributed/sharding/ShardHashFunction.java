@@ -0,0 +1,21 @@
+package com.wangguangwu.cachedistributed.sharding;
+
+/**
+ * 一致性哈希环使用的哈希函数，同时用于计算虚拟节点与 key 在环上的位置。
+ * <p>
+ * 实现需要在所有客户端上对同一个字符串返回相同的结果，并且输出在 long 范围内分布均匀。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+@FunctionalInterface
+public interface ShardHashFunction {
+
+    /**
+     * 计算哈希值
+     *
+     * @param key 虚拟节点名称或 key 的字符串形式
+     * @return 哈希值
+     */
+    long hash(String key);
+}
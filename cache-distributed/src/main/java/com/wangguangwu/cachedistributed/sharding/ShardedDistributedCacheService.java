@@ -0,0 +1,295 @@
+package com.wangguangwu.cachedistributed.sharding;
+
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.support.LoaderExecutors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 客户端分片的分布式缓存服务，通过 {@link ConsistentHashRing} 把 key 路由到多个后端节点。
+ * <p>
+ * 单个 key 的操作直接交给所属节点；批量操作按节点分组，每个节点一次批量调用，
+ * 多个节点的调用在执行器上并行发出，当前线程等待全部完成。keySet、size、scan 与 invalidateAll 作用于所有节点。
+ * </p>
+ * <p>
+ * 增删节点不迁移数据：改变归属的约 1/N 的 key 在新节点上未命中，由调用方回源重建，
+ * 旧节点上的数据在过期后自然淘汰。节点移除后又重新加入时可能读到移除前写入的旧值，
+ * 需要这种场景时应为缓存项设置过期时间。
+ * </p>
+ *
+ * @param <K> 缓存的键类型，按字符串形式计算哈希
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+public class ShardedDistributedCacheService<K, V> implements DistributedCacheService<K, V> {
+
+    /**
+     * 默认的每个节点虚拟节点数
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final ConsistentHashRing<DistributedCacheService<K, V>> ring;
+
+    // 多个节点的批量调用并行执行的执行器
+    private final Executor executor;
+
+    /**
+     * 使用默认虚拟节点数、MurmurHash3 与默认的阻塞任务执行器构造
+     *
+     * @param nodes 节点名称到后端缓存服务的映射
+     */
+    public ShardedDistributedCacheService(Map<String, ? extends DistributedCacheService<K, V>> nodes) {
+        this(nodes, DEFAULT_VIRTUAL_NODES, HashAlgorithm.MURMUR3_128, LoaderExecutors.defaultExecutor());
+    }
+
+    /**
+     * ShardedDistributedCacheService 构造方法。
+     *
+     * @param nodes        节点名称到后端缓存服务的映射，节点名称决定 key 的分布，所有客户端上应保持一致
+     * @param virtualNodes 每个节点的虚拟节点数
+     * @param hashFunction 哈希函数
+     * @param executor     多个节点的批量调用并行执行的执行器，后端调用是阻塞的，不应使用 ForkJoinPool 公共池
+     */
+    public ShardedDistributedCacheService(Map<String, ? extends DistributedCacheService<K, V>> nodes, int virtualNodes,
+                                          ShardHashFunction hashFunction, Executor executor) {
+        this.ring = new ConsistentHashRing<>(virtualNodes, hashFunction);
+        this.executor = Objects.requireNonNull(executor);
+        nodes.forEach(ring::add);
+    }
+
+    /**
+     * 加入节点，约 1/N 的 key 改为路由到新节点
+     *
+     * @param name 节点名称
+     * @param node 后端缓存服务
+     */
+    public void addNode(String name, DistributedCacheService<K, V> node) {
+        ring.add(name, node);
+    }
+
+    /**
+     * 移除节点，原属于该节点的 key 分散到其余节点
+     *
+     * @param name 节点名称
+     * @return 被移除的后端缓存服务，不存在时返回 null
+     */
+    public DistributedCacheService<K, V> removeNode(String name) {
+        return ring.remove(name);
+    }
+
+    /**
+     * 返回当前所有节点
+     *
+     * @return 节点名称到后端缓存服务的只读映射
+     */
+    public Map<String, DistributedCacheService<K, V>> nodes() {
+        return ring.nodes();
+    }
+
+    @Override
+    public void put(K key, V value) {
+        nodeFor(key).put(key, value);
+    }
+
+    @Override
+    public void put(K key, V value, long expiration) {
+        nodeFor(key).put(key, value, expiration);
+    }
+
+    @Override
+    public V getIfPresent(K key) {
+        return nodeFor(key).getIfPresent(key);
+    }
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        return nodeFor(key).get(key, mappingFunction);
+    }
+
+    /**
+     * 批量获取缓存值，按节点分组后并行调用各节点的 getAllPresent。
+     *
+     * @param keys 键集合
+     * @return 存在值的键值映射，按请求顺序排列
+     */
+    @Override
+    public Map<K, V> getAllPresent(Iterable<? extends K> keys) {
+        Set<K> distinctKeys = new LinkedHashSet<>();
+        keys.forEach(distinctKeys::add);
+        if (distinctKeys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<DistributedCacheService<K, V>, List<K>> groups = new IdentityHashMap<>();
+        for (K key : distinctKeys) {
+            groups.computeIfAbsent(nodeFor(key), node -> new ArrayList<>()).add(key);
+        }
+        Map<K, V> found = new HashMap<>();
+        for (Map<K, V> values : fanOut(groups, DistributedCacheService::getAllPresent)) {
+            found.putAll(values);
+        }
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : distinctKeys) {
+            V value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * 批量写入缓存，按节点分组后并行调用各节点的 putAll。
+     *
+     * @param map 键值映射
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        Map<DistributedCacheService<K, V>, Map<K, V>> groups = new IdentityHashMap<>();
+        map.forEach((key, value) -> groups.computeIfAbsent(nodeFor(key), node -> new LinkedHashMap<>()).put(key, value));
+        fanOut(groups, (node, group) -> {
+            node.putAll(group);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return nodeFor(key).containsKey(key);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        nodeFor(key).invalidate(key);
+    }
+
+    /**
+     * 并行清空所有节点。
+     */
+    @Override
+    public void invalidateAll() {
+        fanOut(allNodes(), (node, ignored) -> {
+            node.invalidateAll();
+            return null;
+        });
+    }
+
+    /**
+     * 批量删除缓存，按节点分组后并行调用各节点的 invalidateAll。
+     *
+     * @param keys 键集合
+     */
+    @Override
+    public void invalidateAll(Iterable<? extends K> keys) {
+        Map<DistributedCacheService<K, V>, List<K>> groups = new IdentityHashMap<>();
+        for (K key : keys) {
+            groups.computeIfAbsent(nodeFor(key), node -> new ArrayList<>()).add(key);
+        }
+        fanOut(groups, (node, group) -> {
+            node.invalidateAll(group);
+            return null;
+        });
+    }
+
+    /**
+     * 依次遍历各节点，前一个节点遍历完后才开始遍历下一个节点。
+     *
+     * @param pattern   glob 表达式，null 表示所有 key
+     * @param batchSize 每批取出的 key 数量
+     * @return key 的惰性 Stream
+     */
+    @Override
+    public Stream<K> scan(String pattern, int batchSize) {
+        return ring.nodes().values().stream().flatMap(node -> node.scan(pattern, batchSize));
+    }
+
+    /**
+     * 并行获取所有节点的键集合并合并。
+     *
+     * @return 键集合
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> keys = new HashSet<>();
+        fanOut(allNodes(), (node, ignored) -> node.keySet()).forEach(keys::addAll);
+        return keys;
+    }
+
+    /**
+     * 并行获取所有节点的大小并求和。
+     *
+     * @return 缓存大小
+     */
+    @Override
+    public int size() {
+        long size = 0;
+        for (Integer nodeSize : fanOut(allNodes(), (node, ignored) -> node.size())) {
+            size += nodeSize;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void setExpiration(K key, long expiration) {
+        nodeFor(key).setExpiration(key, expiration);
+    }
+
+    @Override
+    public long getExpiration(K key) {
+        return nodeFor(key).getExpiration(key);
+    }
+
+    private DistributedCacheService<K, V> nodeFor(K key) {
+        return ring.nodeFor(String.valueOf(Objects.requireNonNull(key)));
+    }
+
+    private Map<DistributedCacheService<K, V>, Void> allNodes() {
+        Map<DistributedCacheService<K, V>, Void> nodes = new IdentityHashMap<>();
+        ring.nodes().values().forEach(node -> nodes.put(node, null));
+        return nodes;
+    }
+
+    // 每个节点一次调用，只有一个节点时在当前线程执行，否则在执行器上并行执行并等待全部完成
+    private <G, T> List<T> fanOut(Map<DistributedCacheService<K, V>, G> groups,
+                                  BiFunction<DistributedCacheService<K, V>, G, T> action) {
+        if (groups.size() == 1) {
+            Map.Entry<DistributedCacheService<K, V>, G> entry = groups.entrySet().iterator().next();
+            return Collections.singletonList(action.apply(entry.getKey(), entry.getValue()));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(groups.size());
+        groups.forEach((node, group) -> futures.add(CompletableFuture.supplyAsync(() -> action.apply(node, group), executor)));
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CacheException(cause);
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+}
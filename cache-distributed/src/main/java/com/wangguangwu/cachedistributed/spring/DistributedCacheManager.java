@@ -0,0 +1,46 @@
+package com.wangguangwu.cachedistributed.spring;
+
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 基于 {@link DistributedCacheService} 的 Spring {@link org.springframework.cache.CacheManager}。
+ * <p>
+ * 首次访问某个缓存名称时创建对应的 {@link DistributedCacheServiceCache}，所有缓存共用同一个服务，键按缓存名称隔离。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public class DistributedCacheManager extends AbstractCacheManager {
+
+    private final DistributedCacheService<String, Object> cacheService;
+
+    // 是否缓存 null 值
+    private final boolean allowNullValues;
+
+    /**
+     * DistributedCacheManager 构造方法。
+     *
+     * @param cacheService    分布式缓存服务
+     * @param allowNullValues 是否缓存 null 值
+     */
+    public DistributedCacheManager(DistributedCacheService<String, Object> cacheService, boolean allowNullValues) {
+        this.cacheService = Objects.requireNonNull(cacheService);
+        this.allowNullValues = allowNullValues;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return List.of();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return new DistributedCacheServiceCache(name, cacheService, allowNullValues);
+    }
+}
@@ -0,0 +1,164 @@
+package com.wangguangwu.cachedistributed.spring;
+
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+/**
+ * 将 {@link DistributedCacheService} 适配为 Spring 的 {@link org.springframework.cache.Cache}，
+ * 使 {@code @Cacheable} 等注解直接使用本项目的分布式缓存实现。
+ * <p>
+ * 键转换为 {@code cacheName::key} 形式的字符串，与 Spring Data Redis 默认的键格式一致，多个缓存名称可以共用同一个服务。
+ * {@code @Cacheable(sync = true)} 对应服务的 {@link DistributedCacheService#get}，
+ * 服务为 {@link com.wangguangwu.cachedistributed.stampede.StampedeProtectedCacheService} 时跨节点只加载一次。
+ * </p>
+ * <p>
+ * clear 通过 scan 遍历以 {@code cacheName::} 开头的键并分批删除；Memcached 不支持遍历键，clear 会抛出
+ * {@link UnsupportedOperationException}。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public class DistributedCacheServiceCache extends AbstractValueAdaptingCache {
+
+    // 缓存名称与业务键之间的分隔符
+    private static final String SEPARATOR = "::";
+
+    // clear 时每批遍历、删除的键数量
+    private static final int CLEAR_BATCH_SIZE = 1000;
+
+    private final String name;
+
+    private final DistributedCacheService<String, Object> cacheService;
+
+    /**
+     * DistributedCacheServiceCache 构造方法。
+     *
+     * @param name            缓存名称
+     * @param cacheService    分布式缓存服务
+     * @param allowNullValues 是否缓存 null 值
+     */
+    public DistributedCacheServiceCache(String name, DistributedCacheService<String, Object> cacheService,
+                                        boolean allowNullValues) {
+        super(allowNullValues);
+        this.name = Objects.requireNonNull(name);
+        this.cacheService = Objects.requireNonNull(cacheService);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public DistributedCacheService<String, Object> getNativeCache() {
+        return cacheService;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        return cacheService.getIfPresent(cacheKey(key));
+    }
+
+    /**
+     * 获取缓存值，未命中时调用 valueLoader 加载并写入。
+     *
+     * @param key         键
+     * @param valueLoader 加载函数
+     * @return 缓存值
+     * @throws ValueRetrievalException 如果加载失败
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        try {
+            return (T) fromStoreValue(cacheService.get(cacheKey(key), k -> load(key, valueLoader)));
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        cacheService.put(cacheKey(key), toStoreValue(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        cacheService.invalidate(cacheKey(key));
+    }
+
+    /**
+     * 删除以 {@code cacheName::} 开头的所有键，其他缓存名称的键不受影响。
+     */
+    @Override
+    public void clear() {
+        try (Stream<String> keys = cacheService.scan(escape(name) + SEPARATOR + "*", CLEAR_BATCH_SIZE)) {
+            Iterator<String> iterator = keys.iterator();
+            List<String> batch = new ArrayList<>(CLEAR_BATCH_SIZE);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == CLEAR_BATCH_SIZE || !iterator.hasNext()) {
+                    cacheService.invalidateAll(batch);
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    // 反序列化得到的 NullValue 不一定是单例（例如 Kryo 不调用 readResolve），按类型判断
+    @Override
+    protected Object fromStoreValue(Object storeValue) {
+        if (isAllowNullValues() && storeValue instanceof NullValue) {
+            return null;
+        }
+        return storeValue;
+    }
+
+    private String cacheKey(Object key) {
+        return name + SEPARATOR + key;
+    }
+
+    // 加载结果为 null 且不缓存 null 值时返回 null，服务不会写入
+    private Object load(Object key, Callable<?> valueLoader) {
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value == null) {
+            return isAllowNullValues() ? NullValue.INSTANCE : null;
+        }
+        return value;
+    }
+
+    // 服务会把加载函数抛出的异常包装为 CacheException，这里还原为 Spring 约定的 ValueRetrievalException
+    private static RuntimeException unwrap(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ValueRetrievalException valueRetrievalException) {
+                return valueRetrievalException;
+            }
+        }
+        return e;
+    }
+
+    // 转义缓存名称中的 glob 通配符
+    private static String escape(String name) {
+        StringBuilder escaped = new StringBuilder(name.length() + 4);
+        for (char c : name.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,19 @@
+package com.wangguangwu.cachedistributed.stampede;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 写入分布式缓存的值，附带提前重算所需的加载耗时与过期时间。
+ *
+ * @param value         缓存值
+ * @param computeMillis 加载函数的耗时（毫秒），直接写入的值为 0
+ * @param expireAt      过期的时间戳（毫秒），0 表示不过期
+ * @param <V>           缓存的值类型
+ * @author wangguangwu
+ */
+public record ComputedValue<V>(V value, long computeMillis, long expireAt) implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,33 @@
+package com.wangguangwu.cachedistributed.stampede;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内的加载锁，只在同一个 JVM 内互斥，适用于单节点部署与测试。
+ *
+ * @author wangguangwu
+ */
+public class InMemoryLoadLock implements LoadLock {
+
+    // 锁名称到租约的映射
+    private final ConcurrentHashMap<String, Lease> leases = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean tryLock(String name, long leaseMillis) {
+        Thread current = Thread.currentThread();
+        long now = System.nanoTime();
+        Lease lease = new Lease(current, now + leaseMillis * 1_000_000L);
+        // 锁不存在或租约已到期时获取成功，不支持重入
+        return leases.compute(name, (k, existing) ->
+                existing == null || existing.expiresAt - now <= 0 ? lease : existing) == lease;
+    }
+
+    @Override
+    public void unlock(String name) {
+        Thread current = Thread.currentThread();
+        leases.computeIfPresent(name, (k, lease) -> lease.owner == current ? null : lease);
+    }
+
+    private record Lease(Thread owner, long expiresAt) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.wangguangwu.cachedistributed.stampede;
+
+/**
+ * 跨节点的加载锁，保证同一个 key 同一时刻只有一个节点执行加载函数。
+ * <p>
+ * 锁带有租约：持有锁的节点宕机或加载超时后，锁在租约到期时自动释放，其他节点可以重新获取。
+ * 锁的持有者是获取锁的线程，释放必须在同一个线程上进行。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public interface LoadLock {
+
+    /**
+     * 尝试获取锁，不等待
+     *
+     * @param name        锁名称
+     * @param leaseMillis 租约时间（毫秒），到期后自动释放
+     * @return 获取成功时返回 true
+     */
+    boolean tryLock(String name, long leaseMillis);
+
+    /**
+     * 释放当前线程持有的锁，租约已到期或锁已被其他线程获取时不做任何操作
+     *
+     * @param name 锁名称
+     */
+    void unlock(String name);
+}
@@ -0,0 +1,49 @@
+package com.wangguangwu.cachedistributed.stampede;
+
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redisson {@link RLock} 的加载锁，获取与释放各是一次网络往返。
+ * <p>
+ * 获取时指定了租约时间，Redisson 不会启动看门狗续期，加载时间超过租约时锁会被释放，
+ * 其他节点可能开始第二次加载，租约应大于加载函数通常的耗时。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public class RedissonLoadLock implements LoadLock {
+
+    private final RedissonClient redissonClient;
+
+    /**
+     * RedissonLoadLock 构造方法。
+     *
+     * @param redissonClient Redisson 客户端
+     */
+    public RedissonLoadLock(RedissonClient redissonClient) {
+        this.redissonClient = Objects.requireNonNull(redissonClient);
+    }
+
+    @Override
+    public boolean tryLock(String name, long leaseMillis) {
+        try {
+            return redissonClient.getLock(name).tryLock(0, leaseMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void unlock(String name) {
+        try {
+            redissonClient.getLock(name).unlock();
+        } catch (IllegalMonitorStateException e) {
+            // 租约已到期，锁可能已被其他节点获取
+        }
+    }
+}
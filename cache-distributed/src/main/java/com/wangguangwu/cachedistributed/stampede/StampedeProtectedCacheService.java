@@ -0,0 +1,318 @@
+package com.wangguangwu.cachedistributed.stampede;
+
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.support.LoaderExecutors;
+import com.wangguangwu.cachelocal.support.SingleFlightLoader;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * 防止缓存击穿的分布式缓存服务，保证热点 key 过期时所有节点合计只执行一次加载函数。
+ * <p>
+ * get 未命中时，同一个节点内的并发请求先通过 {@link SingleFlightLoader} 合并，
+ * 再由合并后的请求尝试获取 {@link LoadLock}：获取成功的节点再检查一次缓存后执行加载并写入；
+ * 其他节点按 pollInterval 轮询缓存等待结果，等待超过 maxWait 仍未读到时自行加载，
+ * 避免持锁节点过慢时请求无限期阻塞。
+ * </p>
+ * <p>
+ * 配置了 beta 时启用概率性提前重算（XFetch）：每次命中按
+ * {@code now - computeMillis * beta * ln(random) >= expireAt} 判断是否提前重算，
+ * 越接近过期、加载越慢的值越容易触发，触发的请求在获取到加载锁后同步重算并写入，
+ * 未获取到锁的请求继续返回当前值；提前重算失败时当前值仍未过期，记录日志后照常返回。
+ * 热点 key 因此通常在过期前就被某一个节点刷新，不会出现集中未命中。
+ * </p>
+ * <p>
+ * 值以 {@link ComputedValue} 的形式写入被装饰的缓存，记录加载耗时与写入时计算的过期时间，
+ * 被装饰的缓存与本服务应使用相同的 defaultTtl；setExpiration 不会更新记录的过期时间。
+ * </p>
+ *
+ * @param <K> 缓存的键类型，按字符串形式拼接锁名称
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+@Slf4j
+public class StampedeProtectedCacheService<K, V> implements DistributedCacheService<K, V> {
+
+    private final DistributedCacheService<K, ComputedValue<V>> delegate;
+
+    private final LoadLock loadLock;
+
+    // 合并本节点内同一个 key 的并发加载
+    private final SingleFlightLoader<K, V> singleFlight = new SingleFlightLoader<>(LoaderExecutors.defaultExecutor());
+
+    // 锁名称的前缀
+    private final String lockPrefix;
+
+    // 写入时的默认过期时间（毫秒），0 表示不过期
+    private final long ttlMillis;
+
+    // 加载锁的租约时间（毫秒）
+    private final long lockLeaseMillis;
+
+    // 等待其他节点加载时轮询缓存的间隔（毫秒）
+    private final long pollIntervalMillis;
+
+    // 等待其他节点加载的最长时间（毫秒）
+    private final long maxWaitMillis;
+
+    // XFetch 的 beta 参数，0 表示不提前重算
+    private final double beta;
+
+    // 墙上时间，过期时间需要在节点间比较
+    private final LongSupplier clock;
+
+    // (0, 1] 区间的随机数
+    private final DoubleSupplier random;
+
+    /**
+     * StampedeProtectedCacheService 构造方法。
+     *
+     * @param delegate                   被装饰的分布式缓存
+     * @param loadLock                   跨节点的加载锁
+     * @param distributedCacheProperties 缓存配置属性，包含默认过期时间与防击穿配置
+     */
+    public StampedeProtectedCacheService(DistributedCacheService<K, ComputedValue<V>> delegate, LoadLock loadLock,
+                                         DistributedCacheProperties distributedCacheProperties) {
+        this(delegate, loadLock, distributedCacheProperties, System::currentTimeMillis,
+                () -> 1.0 - ThreadLocalRandom.current().nextDouble());
+    }
+
+    StampedeProtectedCacheService(DistributedCacheService<K, ComputedValue<V>> delegate, LoadLock loadLock,
+                                  DistributedCacheProperties distributedCacheProperties,
+                                  LongSupplier clock, DoubleSupplier random) {
+        DistributedCacheProperties.Stampede stampede = distributedCacheProperties.getStampede();
+        if (stampede.getLockLease() <= 0 || stampede.getPollInterval() <= 0 || stampede.getMaxWait() < 0) {
+            throw new IllegalArgumentException("Lock lease and poll interval must be greater than 0, max wait must not be negative");
+        }
+        if (!(stampede.getBeta() >= 0)) {
+            throw new IllegalArgumentException("Beta must not be negative: " + stampede.getBeta());
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.loadLock = Objects.requireNonNull(loadLock);
+        this.lockPrefix = Objects.requireNonNull(stampede.getLockPrefix());
+        this.ttlMillis = Math.max(0, distributedCacheProperties.getDefaultTtl());
+        this.lockLeaseMillis = stampede.getLockLease();
+        this.pollIntervalMillis = stampede.getPollInterval();
+        this.maxWaitMillis = stampede.getMaxWait();
+        this.beta = stampede.getBeta();
+        this.clock = clock;
+        this.random = random;
+    }
+
+    /**
+     * 按配置装饰缓存，未启用防击穿时原样返回。
+     * <p>
+     * 被装饰的缓存中写入的是 {@link ComputedValue}，值类型为 Object 的缓存可以直接存放，
+     * 已有的未包装的值读取时会出现类型错误，启用前应清空或更换 keyPrefix。
+     * </p>
+     *
+     * @param cacheService               被装饰的分布式缓存
+     * @param loadLock                   跨节点的加载锁
+     * @param distributedCacheProperties 缓存配置属性
+     * @param <K>                        键类型
+     * @return 启用防击穿时返回装饰后的缓存，否则返回原缓存
+     */
+    @SuppressWarnings("unchecked")
+    public static <K> DistributedCacheService<K, Object> decorate(DistributedCacheService<K, Object> cacheService,
+                                                                  LoadLock loadLock,
+                                                                  DistributedCacheProperties distributedCacheProperties) {
+        if (!distributedCacheProperties.getStampede().isEnabled()) {
+            return cacheService;
+        }
+        DistributedCacheService<K, ComputedValue<Object>> delegate =
+                (DistributedCacheService<K, ComputedValue<Object>>) (DistributedCacheService<K, ?>) cacheService;
+        return new StampedeProtectedCacheService<>(delegate, loadLock, distributedCacheProperties);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        delegate.put(key, wrap(Objects.requireNonNull(value), 0));
+    }
+
+    /**
+     * 写入缓存并单独指定过期时间，记录的过期时间按该值计算。
+     *
+     * @param key        键
+     * @param value      值
+     * @param expiration 过期时间（单位：毫秒），不大于 0 时不过期
+     */
+    @Override
+    public void put(K key, V value, long expiration) {
+        long expireAt = expiration > 0 ? clock.getAsLong() + expiration : 0;
+        delegate.put(key, new ComputedValue<>(Objects.requireNonNull(value), 0, expireAt), expiration);
+    }
+
+    @Override
+    public V getIfPresent(K key) {
+        return unwrap(delegate.getIfPresent(key));
+    }
+
+    /**
+     * 获取缓存值，命中时只有一次读取；未命中时跨节点只由获取到加载锁的节点调用 mappingFunction，结果为 null 时不写入。
+     *
+     * @param key             键
+     * @param mappingFunction 计算值的方法
+     * @return 缓存值
+     * @throws CacheException 如果加载失败或等待被中断，则抛出自定义缓存异常
+     */
+    @Override
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        ComputedValue<V> entry = delegate.getIfPresent(key);
+        if (entry == null) {
+            return singleFlight.load(key, k -> loadExclusively(k, mappingFunction), (k, v) -> {
+            });
+        }
+        if (shouldRecomputeEarly(entry)) {
+            String lockName = lockName(key);
+            if (loadLock.tryLock(lockName, lockLeaseMillis)) {
+                try {
+                    V value = compute(key, mappingFunction);
+                    return value != null ? value : entry.value();
+                } catch (RuntimeException e) {
+                    log.warn("Early recomputation failed for key: {}, returning the current value", key, e);
+                    return entry.value();
+                } finally {
+                    loadLock.unlock(lockName);
+                }
+            }
+        }
+        return entry.value();
+    }
+
+    @Override
+    public Map<K, V> getAllPresent(Iterable<? extends K> keys) {
+        Map<K, V> result = new LinkedHashMap<>();
+        delegate.getAllPresent(keys).forEach((key, entry) -> result.put(key, entry.value()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        Map<K, ComputedValue<V>> entries = new LinkedHashMap<>();
+        map.forEach((key, value) -> entries.put(key, wrap(Objects.requireNonNull(value), 0)));
+        delegate.putAll(entries);
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        delegate.invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        delegate.invalidateAll();
+    }
+
+    @Override
+    public void invalidateAll(Iterable<? extends K> keys) {
+        delegate.invalidateAll(keys);
+    }
+
+    @Override
+    public Stream<K> scan(String pattern, int batchSize) {
+        return delegate.scan(pattern, batchSize);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return delegate.keySet();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void setExpiration(K key, long expiration) {
+        delegate.setExpiration(key, expiration);
+    }
+
+    @Override
+    public long getExpiration(K key) {
+        return delegate.getExpiration(key);
+    }
+
+    // 获取到加载锁的节点加载，其余节点轮询等待结果
+    private V loadExclusively(K key, Function<? super K, ? extends V> mappingFunction) {
+        String lockName = lockName(key);
+        long deadline = clock.getAsLong() + maxWaitMillis;
+        while (true) {
+            if (loadLock.tryLock(lockName, lockLeaseMillis)) {
+                try {
+                    // 获取锁之前其他节点可能已经加载完成
+                    ComputedValue<V> entry = delegate.getIfPresent(key);
+                    return entry != null ? entry.value() : compute(key, mappingFunction);
+                } finally {
+                    loadLock.unlock(lockName);
+                }
+            }
+            if (clock.getAsLong() >= deadline) {
+                // 持锁节点过慢或已宕机，不再等待
+                return compute(key, mappingFunction);
+            }
+            try {
+                Thread.sleep(pollIntervalMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CacheException("Interrupted while waiting for value of key: " + key, e);
+            }
+            ComputedValue<V> entry = delegate.getIfPresent(key);
+            if (entry != null) {
+                return entry.value();
+            }
+        }
+    }
+
+    private V compute(K key, Function<? super K, ? extends V> mappingFunction) {
+        long start = clock.getAsLong();
+        V value;
+        try {
+            value = mappingFunction.apply(key);
+        } catch (Exception e) {
+            throw new CacheException("Error loading value for key: " + key, e);
+        }
+        if (value != null) {
+            delegate.put(key, wrap(value, Math.max(0, clock.getAsLong() - start)));
+        }
+        return value;
+    }
+
+    // XFetch：剩余时间小于加载耗时乘以 beta 与一个指数分布随机数的乘积时提前重算
+    private boolean shouldRecomputeEarly(ComputedValue<V> entry) {
+        if (beta == 0 || entry.expireAt() == 0 || entry.computeMillis() == 0) {
+            return false;
+        }
+        double gap = -entry.computeMillis() * beta * Math.log(random.getAsDouble());
+        return clock.getAsLong() + gap >= entry.expireAt();
+    }
+
+    private ComputedValue<V> wrap(V value, long computeMillis) {
+        return new ComputedValue<>(value, computeMillis, ttlMillis > 0 ? clock.getAsLong() + ttlMillis : 0);
+    }
+
+    private static <V> V unwrap(ComputedValue<V> entry) {
+        return entry != null ? entry.value() : null;
+    }
+
+    private String lockName(K key) {
+        return lockPrefix + key;
+    }
+}
@@ -0,0 +1,29 @@
+package com.wangguangwu.cachedistributed.tiered;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内的失效通道，在发布线程上同步通知所有订阅者，用于单节点部署与测试。
+ *
+ * @param <K> 缓存的键类型
+ * @author wangguangwu
+ */
+public class InMemoryInvalidationChannel<K> implements InvalidationChannel<K> {
+
+    private final List<Consumer<? super InvalidationMessage<K>>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(InvalidationMessage<K> message) {
+        for (Consumer<? super InvalidationMessage<K>> listener : listeners) {
+            listener.accept(message);
+        }
+    }
+
+    @Override
+    public AutoCloseable subscribe(Consumer<? super InvalidationMessage<K>> listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+}
@@ -0,0 +1,30 @@
+package com.wangguangwu.cachedistributed.tiered;
+
+import java.util.function.Consumer;
+
+/**
+ * 一级缓存失效通道，以发布订阅的方式在节点间广播失效消息。
+ * <p>
+ * 通道只保证尽力送达：消息丢失时，其他节点的一级缓存最长在自身的过期时间之后恢复一致。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @author wangguangwu
+ */
+public interface InvalidationChannel<K> {
+
+    /**
+     * 发布失效消息，所有订阅者（包括发布者自身）都会收到
+     *
+     * @param message 失效消息
+     */
+    void publish(InvalidationMessage<K> message);
+
+    /**
+     * 订阅失效消息
+     *
+     * @param listener 消息回调，可能在通道的内部线程上执行
+     * @return 订阅句柄，关闭后不再收到消息
+     */
+    AutoCloseable subscribe(Consumer<? super InvalidationMessage<K>> listener);
+}
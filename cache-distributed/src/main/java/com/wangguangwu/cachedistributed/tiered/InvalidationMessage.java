@@ -0,0 +1,67 @@
+package com.wangguangwu.cachedistributed.tiered;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 一级缓存失效消息，由写入或删除缓存的节点发布，其他节点收到后移除本地的一级缓存。
+ *
+ * @param <K> 缓存的键类型
+ * @author wangguangwu
+ */
+public final class InvalidationMessage<K> implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // 发布消息的节点标识，节点忽略自己发布的消息
+    private final String sourceId;
+
+    // 失效的键，为 null 时表示清空所有一级缓存
+    private final K key;
+
+    private InvalidationMessage(String sourceId, K key) {
+        this.sourceId = sourceId;
+        this.key = key;
+    }
+
+    /**
+     * 单个键失效的消息
+     *
+     * @param sourceId 发布消息的节点标识
+     * @param key      失效的键
+     * @param <K>      缓存的键类型
+     * @return 失效消息
+     */
+    public static <K> InvalidationMessage<K> of(String sourceId, K key) {
+        return new InvalidationMessage<>(sourceId, key);
+    }
+
+    /**
+     * 清空所有一级缓存的消息
+     *
+     * @param sourceId 发布消息的节点标识
+     * @param <K>      缓存的键类型
+     * @return 失效消息
+     */
+    public static <K> InvalidationMessage<K> all(String sourceId) {
+        return new InvalidationMessage<>(sourceId, null);
+    }
+
+    public String getSourceId() {
+        return sourceId;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    /**
+     * 是否清空所有一级缓存
+     *
+     * @return 清空所有一级缓存时返回 true
+     */
+    public boolean isAll() {
+        return key == null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.wangguangwu.cachedistributed.tiered;
+
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redisson {@link RTopic} 的失效通道，消息通过 Redis 的发布订阅广播到所有节点。
+ * <p>
+ * Redis 的发布订阅不持久化消息，订阅连接断开期间发布的消息会丢失，一级缓存需要配置合理的过期时间兜底。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @author wangguangwu
+ */
+public class RedissonInvalidationChannel<K> implements InvalidationChannel<K> {
+
+    private final RTopic topic;
+
+    /**
+     * RedissonInvalidationChannel 构造方法。
+     *
+     * @param redissonClient Redisson 客户端
+     * @param topicName      主题名称，同一份缓存的所有节点需要使用相同的名称
+     */
+    public RedissonInvalidationChannel(RedissonClient redissonClient, String topicName) {
+        this.topic = redissonClient.getTopic(topicName);
+    }
+
+    @Override
+    public void publish(InvalidationMessage<K> message) {
+        topic.publish(message);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public AutoCloseable subscribe(Consumer<? super InvalidationMessage<K>> listener) {
+        int listenerId = topic.addListener(InvalidationMessage.class,
+                (channel, message) -> listener.accept((InvalidationMessage<K>) message));
+        return () -> topic.removeListener(listenerId);
+    }
+}
@@ -0,0 +1,141 @@
+package com.wangguangwu.cachedistributed.tiered;
+
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * 多级缓存服务：一级缓存为进程内的 {@link LocalCacheService}，二级缓存为 {@link DistributedCacheService}。
+ * <p>
+ * 读取先查一级缓存，未命中时查二级缓存并回填一级缓存；两级都未命中时调用加载函数，结果写入两级缓存。
+ * 同一个 key 的并发未命中由一级缓存引擎合并，每个节点只访问一次二级缓存与后端。
+ * </p>
+ * <p>
+ * 写入与删除先修改二级缓存，再修改本节点的一级缓存，最后通过 {@link InvalidationChannel} 通知其他节点移除一级缓存。
+ * 失效通知是异步、尽力送达的，其他节点可能在短时间内读到旧值，最长不超过一级缓存自身的过期时间，
+ * 一级缓存的过期时间应按业务可以容忍的不一致时间配置。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+public class TieredCacheService<K, V> implements AutoCloseable {
+
+    // 一级缓存
+    private final LocalCacheService<K, V> localCache;
+
+    // 二级缓存
+    private final DistributedCacheService<K, V> distributedCache;
+
+    private final InvalidationChannel<K> invalidationChannel;
+
+    // 本节点标识，用于忽略自己发布的失效消息
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final AutoCloseable subscription;
+
+    /**
+     * TieredCacheService 构造方法，创建时即订阅失效消息。
+     *
+     * @param localCache          一级缓存
+     * @param distributedCache    二级缓存
+     * @param invalidationChannel 一级缓存失效通道
+     */
+    public TieredCacheService(LocalCacheService<K, V> localCache, DistributedCacheService<K, V> distributedCache,
+                              InvalidationChannel<K> invalidationChannel) {
+        this.localCache = Objects.requireNonNull(localCache);
+        this.distributedCache = Objects.requireNonNull(distributedCache);
+        this.invalidationChannel = Objects.requireNonNull(invalidationChannel);
+        this.subscription = invalidationChannel.subscribe(this::onInvalidation);
+    }
+
+    /**
+     * 获取缓存值，一级缓存未命中时查询二级缓存并回填一级缓存。
+     *
+     * @param key 键
+     * @return 缓存值，两级都不存在时返回 null
+     */
+    public V getIfPresent(K key) {
+        V value = localCache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        value = distributedCache.getIfPresent(key);
+        if (value != null) {
+            localCache.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 获取缓存值，两级都未命中时调用 mappingFunction 加载并写入两级缓存。
+     *
+     * @param key             键
+     * @param mappingFunction 计算值的方法
+     * @return 缓存值
+     */
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        // 一级缓存未命中时进入二级缓存的 get，二级缓存未命中时由它调用 mappingFunction 并写入
+        return localCache.get(key, k -> distributedCache.get(k, mappingFunction));
+    }
+
+    /**
+     * 写入两级缓存，并通知其他节点移除一级缓存。
+     *
+     * @param key   键
+     * @param value 值
+     */
+    public void put(K key, V value) {
+        distributedCache.put(key, value);
+        localCache.put(key, value);
+        invalidationChannel.publish(InvalidationMessage.of(nodeId, key));
+    }
+
+    /**
+     * 从两级缓存中移除，并通知其他节点移除一级缓存。
+     *
+     * @param key 键
+     */
+    public void invalidate(K key) {
+        distributedCache.invalidate(key);
+        localCache.invalidate(key);
+        invalidationChannel.publish(InvalidationMessage.of(nodeId, key));
+    }
+
+    /**
+     * 清空两级缓存，并通知其他节点清空一级缓存。
+     */
+    public void invalidateAll() {
+        distributedCache.invalidateAll();
+        localCache.invalidateAll();
+        invalidationChannel.publish(InvalidationMessage.all(nodeId));
+    }
+
+    /**
+     * 取消订阅失效消息，不会关闭两级缓存。
+     */
+    @Override
+    public void close() {
+        try {
+            subscription.close();
+        } catch (Exception e) {
+            throw new CacheException("Error closing invalidation subscription", e);
+        }
+    }
+
+    private void onInvalidation(InvalidationMessage<K> message) {
+        if (nodeId.equals(message.getSourceId())) {
+            return;
+        }
+        if (message.isAll()) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidate(message.getKey());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.wangguangwu.cachedistributed.codec;
+
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.serializer.CacheSerializer;
+import com.wangguangwu.cachelocal.serializer.StringCacheSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CompressingCacheSerializer 的单元测试类
+ */
+class CompressingCacheSerializerTest {
+
+    private final CompressingCacheSerializer<String> serializer =
+            new CompressingCacheSerializer<>(new StringCacheSerializer(), 256, 1);
+
+    @Test
+    @DisplayName("测试小于阈值的值不压缩，只增加一个字节的编码头")
+    void testBelowThreshold() {
+        String value = "v".repeat(255);
+        byte[] bytes = serializer.serialize(value);
+        assertEquals(CompressingCacheSerializer.RAW, bytes[0]);
+        assertEquals(256, bytes.length);
+        assertEquals(value, serializer.deserialize(bytes));
+    }
+
+    @Test
+    @DisplayName("测试达到阈值的值压缩后写入，长度不同的值复用同一个压缩器")
+    void testAboveThreshold() {
+        for (int length : new int[]{256, 100_000, 300, 1 << 20}) {
+            String value = "value-".repeat(length / 6 + 1).substring(0, length);
+            byte[] bytes = serializer.serialize(value);
+            assertEquals(CompressingCacheSerializer.DEFLATE, bytes[0]);
+            assertTrue(bytes.length < length / 4, "length=" + length + ", compressed=" + bytes.length);
+            assertEquals(value, serializer.deserialize(bytes));
+        }
+    }
+
+    @Test
+    @DisplayName("测试压缩后不变小的值按未压缩写入")
+    void testIncompressible() {
+        CompressingCacheSerializer<byte[]> bytesSerializer = new CompressingCacheSerializer<>(new IdentitySerializer(), 16);
+        byte[] random = new byte[4096];
+        new Random(1).nextBytes(random);
+        byte[] bytes = bytesSerializer.serialize(random);
+        assertEquals(CompressingCacheSerializer.RAW, bytes[0]);
+        assertEquals(random.length + 1, bytes.length);
+        assertArrayEquals(random, bytesSerializer.deserialize(bytes));
+    }
+
+    @Test
+    @DisplayName("测试被装饰的 Kryo 序列化直接写入预留的编码头位置，并按区间读取")
+    void testHeaderReservedByDelegate() {
+        CompressingCacheSerializer<String> kryoSerializer = new CompressingCacheSerializer<>(new KryoCacheSerializer<>(), 256, 1);
+        for (String value : new String[]{"value", "value-".repeat(100)}) {
+            byte[] bytes = kryoSerializer.serialize(value);
+            assertEquals(value, kryoSerializer.deserialize(bytes));
+
+            // 位于更大数组中间的编码结果同样可以读取
+            byte[] padded = new byte[bytes.length + 4];
+            System.arraycopy(bytes, 0, padded, 2, bytes.length);
+            assertEquals(value, kryoSerializer.deserialize(padded, 2, bytes.length));
+        }
+    }
+
+    @Test
+    @DisplayName("测试未知编码与截断的压缩数据抛出 CacheException")
+    void testCorruptedBytes() {
+        byte[] bytes = serializer.serialize("x".repeat(1000));
+        assertThrows(CacheException.class, () -> serializer.deserialize(new byte[0]));
+        assertThrows(CacheException.class, () -> serializer.deserialize(new byte[]{9, 1, 2}));
+        assertThrows(CacheException.class, () -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length / 2)));
+        assertThrows(CacheException.class, () -> serializer.deserialize(new byte[]{CompressingCacheSerializer.DEFLATE, (byte) 0x80}));
+        assertEquals("x".repeat(1000), serializer.deserialize(bytes));
+    }
+
+    @Test
+    @DisplayName("测试压缩阈值必须大于 0")
+    void testInvalidThreshold() {
+        StringCacheSerializer delegate = new StringCacheSerializer();
+        assertThrows(IllegalArgumentException.class, () -> new CompressingCacheSerializer<>(delegate, 0));
+    }
+
+    /**
+     * 原样返回字节数组的序列化实现
+     */
+    private static final class IdentitySerializer implements CacheSerializer<byte[]> {
+
+        @Override
+        public byte[] serialize(byte[] value) {
+            return value;
+        }
+
+        @Override
+        public byte[] deserialize(byte[] bytes) {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.wangguangwu.cachedistributed.codec;
+
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.serializer.JdkCacheSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KryoCacheSerializer 的单元测试类
+ */
+class KryoCacheSerializerTest {
+
+    private final KryoCacheSerializer<Object> serializer = new KryoCacheSerializer<>(2);
+
+    @Test
+    @DisplayName("测试未注册的类型、不可变集合与 record 的序列化与反序列化")
+    void testRoundTrip() {
+        Profile profile = new Profile(42L, "alice", List.of("a", "b"), Map.of("k", "v"));
+        assertEquals(profile, serializer.deserialize(serializer.serialize(profile)));
+
+        Point point = new Point(1, 2);
+        assertEquals(point, serializer.deserialize(serializer.serialize(point)));
+        assertEquals("value", serializer.deserialize(serializer.serialize("value")));
+        assertEquals(List.of(1L, 2L), serializer.deserialize(serializer.serialize(List.of(1L, 2L))));
+
+        // 循环引用
+        List<Object> cyclic = new ArrayList<>();
+        cyclic.add(cyclic);
+        List<?> copy = (List<?>) serializer.deserialize(serializer.serialize(cyclic));
+        assertSame(copy, copy.get(0));
+    }
+
+    @Test
+    @DisplayName("测试序列化结果比 JDK 序列化更小")
+    void testSmallerThanJdk() {
+        Map<String, String> attributes = new HashMap<>();
+        for (int i = 0; i < 8; i++) {
+            attributes.put("attr-" + i, "value-" + i);
+        }
+        Profile profile = new Profile(42L, "alice", List.of("a", "b", "c"), attributes);
+        int kryoSize = serializer.serialize(profile).length;
+        int jdkSize = new JdkCacheSerializer<Profile>().serialize(profile).length;
+        assertTrue(kryoSize < jdkSize, "kryo=" + kryoSize + ", jdk=" + jdkSize);
+    }
+
+    @Test
+    @DisplayName("测试多线程共用池化的 Kryo 实例与缓冲区，超过池容量时临时创建")
+    void testConcurrentUse() {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        // 偶尔写入超过池化上限的大对象
+                        String name = i % 100 == 0 ? "x".repeat(100_000) : "name-" + thread + "-" + i;
+                        Profile profile = new Profile(i, name, List.of(), Map.of());
+                        assertEquals(profile, serializer.deserialize(serializer.serialize(profile)));
+                    }
+                }, executor));
+            }
+            futures.forEach(CompletableFuture::join);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("测试损坏的字节抛出 CacheException，之后仍可正常使用")
+    void testCorruptedBytes() {
+        byte[] bytes = serializer.serialize(new Point(1, 2));
+        assertThrows(CacheException.class, () -> serializer.deserialize(new byte[]{1, 127, 127, 127}));
+        assertThrows(CacheException.class, () -> serializer.deserialize(new byte[0]));
+        assertEquals(new Point(1, 2), serializer.deserialize(bytes));
+    }
+
+    record Point(int x, int y) {
+    }
+
+    /**
+     * 没有无参构造方法、字段为 final 的缓存对象
+     */
+    static final class Profile implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final long id;
+
+        private final String name;
+
+        private final List<String> tags;
+
+        private final Map<String, String> attributes;
+
+        Profile(long id, String name, List<String> tags, Map<String, String> attributes) {
+            this.id = id;
+            this.name = name;
+            this.tags = tags;
+            this.attributes = attributes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Profile other && id == other.id && name.equals(other.name)
+                    && tags.equals(other.tags) && attributes.equals(other.attributes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id);
+        }
+    }
+}
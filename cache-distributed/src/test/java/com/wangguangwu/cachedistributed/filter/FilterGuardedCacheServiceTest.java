@@ -0,0 +1,172 @@
+package com.wangguangwu.cachedistributed.filter;
+
+import com.wangguangwu.cachedistributed.service.InMemoryDistributedCacheService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FilterGuardedCacheService 的单元测试类，使用进程内的分布式缓存替身
+ */
+class FilterGuardedCacheServiceTest {
+
+    @Test
+    @DisplayName("测试重建前不拒绝请求，重建后一定不存在的 key 不访问缓存也不调用加载函数")
+    void testRejectsAbsentKeys() {
+        InMemoryDistributedCacheService<String, String> remote = new InMemoryDistributedCacheService<>();
+        FilterGuardedCacheService<String, String> cacheService =
+                new FilterGuardedCacheService<>(remote, () -> new ScalableBloomFilter<>(100, 0.001));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertFalse(cacheService.isReady());
+        assertNull(cacheService.get("missing", k -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertEquals(1, loads.get());
+
+        assertEquals(1_000, cacheService.rebuild(IntStream.range(0, 1_000).mapToObj(i -> "user:" + i)));
+        assertTrue(cacheService.isReady());
+        remote.reads.set(0);
+        assertNull(cacheService.get("missing", k -> {
+            loads.incrementAndGet();
+            return "loaded";
+        }));
+        assertNull(cacheService.getIfPresent("missing"));
+        assertFalse(cacheService.containsKey("missing"));
+        assertEquals(Map.of(), cacheService.getAllPresent(List.of("missing", "other")));
+        assertEquals(1, loads.get());
+        assertEquals(0, remote.reads.get());
+        assertEquals(5, cacheService.getRejectedCount());
+
+        // 存在的 key 正常加载，批量读取只请求可能存在的 key
+        assertEquals("value-1", cacheService.get("user:1", k -> "value-1"));
+        assertEquals(Map.of("user:1", "value-1"), cacheService.getAllPresent(List.of("user:1", "missing")));
+        assertEquals(2, remote.reads.get());
+        assertEquals(6, cacheService.getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("测试其他节点写入缓存的 key 在本节点加入过滤器前被拒绝，本节点写入后可以读到")
+    void testKeyWrittenByOtherNode() {
+        InMemoryDistributedCacheService<String, String> remote = new InMemoryDistributedCacheService<>();
+        FilterGuardedCacheService<String, String> cacheService =
+                new FilterGuardedCacheService<>(remote, () -> new ScalableBloomFilter<>(100, 0.001));
+        cacheService.rebuild(Stream.of("a"));
+
+        // 其他节点写入的 key 不经过本节点的过滤器
+        remote.put("b", "2");
+        remote.reads.set(0);
+        assertNull(cacheService.getIfPresent("b"));
+        assertNull(cacheService.get("b", k -> "loaded"));
+        assertEquals(0, remote.reads.get());
+
+        cacheService.addKey("b");
+        assertEquals("2", cacheService.getIfPresent("b"));
+        cacheService.put("c", "3");
+        assertTrue(cacheService.containsKey("c"));
+    }
+
+    @Test
+    @DisplayName("测试查询时距上次同步超过同步间隔则在后台同步过滤器，间隔为 0 时不同步")
+    void testSyncInterval() throws Exception {
+        InMemoryDistributedCacheService<String, String> remote = new InMemoryDistributedCacheService<>();
+        CountDownLatch synced = new CountDownLatch(2);
+        AtomicInteger syncs = new AtomicInteger();
+        Supplier<MembershipFilter<String>> factory = () -> new ScalableBloomFilter<>(100, 0.01) {
+            @Override
+            public void sync() {
+                syncs.incrementAndGet();
+                synced.countDown();
+            }
+        };
+        FilterGuardedCacheService<String, String> cacheService = new FilterGuardedCacheService<>(remote, factory, 1);
+        cacheService.rebuild(Stream.of("a"));
+        cacheService.get("a", k -> "1");
+        Thread.sleep(5);
+        cacheService.get("a", k -> "1");
+        assertTrue(synced.await(5, TimeUnit.SECONDS));
+
+        FilterGuardedCacheService<String, String> unsynced = new FilterGuardedCacheService<>(remote, factory, 0);
+        unsynced.rebuild(Stream.of("a"));
+        int before = syncs.get();
+        unsynced.get("a", k -> "1");
+        Thread.sleep(5);
+        unsynced.get("a", k -> "1");
+        assertEquals(before, syncs.get());
+        assertThrows(IllegalArgumentException.class, () -> new FilterGuardedCacheService<>(remote, factory, -1));
+    }
+
+    @Test
+    @DisplayName("测试写入的 key 加入布隆过滤器，布谷鸟过滤器只由 addKey 加入，数据源删除的 key 删除后被拒绝")
+    void testAddAndRemoveKeys() {
+        InMemoryDistributedCacheService<String, String> remote = new InMemoryDistributedCacheService<>();
+        FilterGuardedCacheService<String, String> cacheService =
+                new FilterGuardedCacheService<>(remote, () -> new CuckooFilter<>(100));
+        cacheService.rebuild(Stream.of("a", "b"));
+
+        cacheService.put("c", "3");
+        cacheService.putAll(Map.of("d", "4"));
+        cacheService.addKey("e");
+        assertEquals("5", cacheService.get("e", k -> "5"));
+
+        // 写入缓存不加入布谷鸟过滤器，调用 addKey 后才能读到
+        assertNull(cacheService.getIfPresent("c"));
+        assertNull(cacheService.getIfPresent("d"));
+        cacheService.addKey("c");
+        assertEquals("3", cacheService.getIfPresent("c"));
+
+        // 缓存失效不修改过滤器
+        cacheService.invalidate("a");
+        assertEquals("1", cacheService.get("a", k -> "1"));
+
+        assertTrue(cacheService.removeKey("a"));
+        cacheService.invalidate("a");
+        assertNull(cacheService.get("a", k -> "1"));
+        assertEquals(3, cacheService.getRejectedCount());
+
+        FilterGuardedCacheService<String, String> bloomGuarded =
+                new FilterGuardedCacheService<>(remote, () -> new ScalableBloomFilter<>(100, 0.01));
+        bloomGuarded.rebuild(Stream.of("a"));
+        bloomGuarded.put("f", "6");
+        assertEquals("6", bloomGuarded.getIfPresent("f"));
+        assertFalse(bloomGuarded.removeKey("a"));
+    }
+
+    @Test
+    @DisplayName("测试重建期间旧过滤器继续提供服务，写入的 key 同时加入新过滤器，重建失败时保留旧过滤器")
+    void testRebuildWhileServing() {
+        InMemoryDistributedCacheService<String, String> remote = new InMemoryDistributedCacheService<>();
+        FilterGuardedCacheService<String, String> cacheService =
+                new FilterGuardedCacheService<>(remote, () -> new ScalableBloomFilter<>(100, 0.001));
+        cacheService.rebuild(Stream.of("old"));
+        cacheService.put("old", "old-value");
+
+        cacheService.rebuild(Stream.of("k1", "k2", "k3").peek(key -> {
+            if (key.equals("k2")) {
+                assertEquals("old-value", cacheService.getIfPresent("old"));
+                assertNull(cacheService.getIfPresent("k1"));
+                cacheService.put("during", "value");
+            }
+        }));
+        assertEquals("value", cacheService.getIfPresent("during"));
+        assertNull(cacheService.getIfPresent("old"));
+        assertEquals("v3", cacheService.get("k3", k -> "v3"));
+
+        assertThrows(IllegalStateException.class, () -> cacheService.rebuild(Stream.of("x").peek(key -> {
+            throw new IllegalStateException("key stream failed");
+        })));
+        assertEquals("v3", cacheService.getIfPresent("k3"));
+        assertNull(cacheService.getIfPresent("x"));
+    }
+}
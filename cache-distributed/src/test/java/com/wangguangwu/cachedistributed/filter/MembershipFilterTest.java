@@ -0,0 +1,222 @@
+package com.wangguangwu.cachedistributed.filter;
+
+import com.wangguangwu.cachedistributed.config.DistributedCacheConfig;
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachedistributed.service.impl.RespServer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 成员过滤器的单元测试类，覆盖布隆过滤器、可扩容布隆过滤器与布谷鸟过滤器
+ */
+class MembershipFilterTest {
+
+    @Test
+    @DisplayName("测试各过滤器加入的 key 全部判断为可能存在，未加入的 key 误判率不超过配置值")
+    void testNoFalseNegatives() {
+        ScalableBloomFilter<String> scalable = new ScalableBloomFilter<>(1_000, 0.01);
+        List<MembershipFilter<String>> filters = List.of(new BloomFilter<>(10_000, 0.01), scalable, new CuckooFilter<>(10_000));
+        for (MembershipFilter<String> filter : filters) {
+            String name = filter.getClass().getSimpleName();
+            for (int i = 0; i < 10_000; i++) {
+                filter.put("key-" + i);
+            }
+            int falsePositives = 0;
+            for (int i = 0; i < 10_000; i++) {
+                assertTrue(filter.mightContain("key-" + i), name);
+                if (filter.mightContain("other-" + i)) {
+                    falsePositives++;
+                }
+            }
+            assertTrue(falsePositives <= 200, name + ": " + falsePositives);
+            assertTrue(filter.approximateCount() > 9_800 && filter.approximateCount() <= 10_000,
+                    name + ": " + filter.approximateCount());
+            if (!filter.supportsRemoval()) {
+                assertFalse(filter.put("key-0"), name);
+            }
+        }
+        assertTrue(scalable.stageCount() > 1);
+    }
+
+    @Test
+    @DisplayName("测试布谷鸟过滤器删除 key，写满后不再拒绝任何 key；布隆过滤器不支持删除")
+    void testCuckooRemovalAndSaturation() {
+        CuckooFilter<String> filter = new CuckooFilter<>(100);
+        filter.put("a");
+        filter.put("b");
+        assertTrue(filter.remove("a"));
+        assertFalse(filter.mightContain("a"));
+        assertTrue(filter.mightContain("b"));
+        assertFalse(filter.remove("a"));
+        assertEquals(1, filter.approximateCount());
+
+        CuckooFilter<String> small = new CuckooFilter<>(8);
+        for (int i = 0; i < 100; i++) {
+            small.put("key-" + i);
+        }
+        assertTrue(small.isSaturated());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(small.mightContain("key-" + i));
+        }
+        assertTrue(small.mightContain("never-added"));
+
+        BloomFilter<String> bloom = new BloomFilter<>(100, 0.01);
+        assertFalse(bloom.supportsRemoval());
+        assertThrows(UnsupportedOperationException.class, () -> bloom.remove("a"));
+    }
+
+    @Test
+    @DisplayName("测试布谷鸟过滤器保存指纹相同的 key 各一份，删除其中一个不影响另一个")
+    void testCuckooDuplicateFingerprints() {
+        // 只有一个桶，指纹相同的 key 桶也相同
+        CuckooFilter<String> probe = new CuckooFilter<>(1);
+        probe.put("a");
+        String colliding = IntStream.range(0, 10_000_000).mapToObj(i -> "key-" + i)
+                .filter(probe::mightContain).findFirst().orElseThrow();
+
+        CuckooFilter<String> filter = new CuckooFilter<>(1);
+        assertTrue(filter.put("a"));
+        assertTrue(filter.put(colliding));
+        assertEquals(2, filter.approximateCount());
+        assertTrue(filter.remove("a"));
+        assertTrue(filter.mightContain(colliding));
+        assertTrue(filter.remove(colliding));
+        assertFalse(filter.mightContain(colliding));
+
+        // 重复加入同一个 key 需要删除同样的次数
+        filter.put("b");
+        filter.put("b");
+        assertTrue(filter.remove("b"));
+        assertTrue(filter.mightContain("b"));
+        assertTrue(filter.remove("b"));
+        assertFalse(filter.mightContain("b"));
+    }
+
+    @Test
+    @DisplayName("测试布谷鸟过滤器并发写入踢出指纹时，已加入的 key 查询不出现假阴性")
+    void testCuckooConcurrentReads() throws Exception {
+        int keys = 3_800;
+        CuckooFilter<String> filter = new CuckooFilter<>(keys);
+        AtomicInteger inserted = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger falseNegatives = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                readers.add(executor.submit(() -> {
+                    started.countDown();
+                    while (!done.get()) {
+                        int limit = inserted.get();
+                        for (int i = 0; i < limit; i += 7) {
+                            if (!filter.mightContain("key-" + i)) {
+                                falseNegatives.incrementAndGet();
+                            }
+                        }
+                    }
+                }));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < keys; i++) {
+                filter.put("key-" + i);
+                inserted.incrementAndGet();
+            }
+            done.set(true);
+            for (Future<?> reader : readers) {
+                reader.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertFalse(filter.isSaturated());
+        assertEquals(0, falseNegatives.get());
+    }
+
+    @Test
+    @DisplayName("测试按 Redis 位图的位序合并其他节点的位")
+    void testMergeRedisBitmap() {
+        byte[] bitmap = redisBitmap(new BloomFilter<>(1_000, 0.01), "shared");
+        BloomFilter<String> local = new BloomFilter<>(1_000, 0.01);
+        assertFalse(local.mightContain("shared"));
+        local.merge(bitmap);
+        assertTrue(local.mightContain("shared"));
+        assertFalse(local.put("shared"));
+    }
+
+    @Test
+    @DisplayName("测试按共享配置重建时先删除 Redis 位图，已删除 key 的旧位不会被同步回来")
+    void testSharedRebuildClearsBitmap() throws IOException {
+        try (RespServer server = new RespServer()) {
+            DistributedCacheProperties properties = new DistributedCacheProperties();
+            properties.getRedis().setAddress(server.address());
+            properties.getRedis().setConnectionPoolSize(2);
+            properties.getRedis().setConnectionMinimumIdleSize(1);
+            properties.getRedis().setNettyThreads(2);
+            RedissonClient redissonClient = new DistributedCacheConfig(properties).redissonClient();
+            try {
+                String redisKey = "cache-filter:bloom";
+                redissonClient.getBucket(redisKey, ByteArrayCodec.INSTANCE)
+                        .set(redisBitmap(new BloomFilter<>(1_000, 0.01), "deleted"));
+                SharedBloomFilter<String> joined = new SharedBloomFilter<>(redissonClient, redisKey, 1_000, 0.01);
+                assertFalse(joined.mightContain("deleted"));
+                joined.sync();
+                assertTrue(joined.mightContain("deleted"));
+
+                DistributedCacheProperties.Filter filter = properties.getFilter();
+                filter.setExpectedInsertions(1_000);
+                filter.setSharedKey(redisKey);
+                MembershipFilter<String> rebuilt = MembershipFilters.<String>factory(filter, redissonClient).get();
+                assertTrue(server.commands.contains("DEL"));
+                rebuilt.sync();
+                assertFalse(rebuilt.mightContain("deleted"));
+            } finally {
+                redissonClient.shutdown();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试按配置创建过滤器，未知类型与无法共享的配置抛出异常")
+    void testFactory() {
+        DistributedCacheProperties.Filter properties = new DistributedCacheProperties.Filter();
+        assertInstanceOf(ScalableBloomFilter.class, MembershipFilters.factory(properties, null).get());
+        properties.setType("cuckoo");
+        assertInstanceOf(CuckooFilter.class, MembershipFilters.factory(properties, null).get());
+
+        properties.setSharedKey("cache-filter:bloom");
+        assertThrows(IllegalArgumentException.class, () -> MembershipFilters.factory(properties, null));
+        properties.setType("bloom");
+        assertThrows(IllegalArgumentException.class, () -> MembershipFilters.factory(properties, null));
+        properties.setType("quotient");
+        assertThrows(IllegalArgumentException.class, () -> MembershipFilters.factory(properties, null));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter<>(100, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter<>(100, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter<>(100, 0));
+    }
+
+    // 按 Redis 位图的位序设置 key 的全部位置，SETBIT 的偏移量从每个字节的最高位开始
+    private static byte[] redisBitmap(BloomFilter<String> filter, String key) {
+        byte[] bitmap = new byte[(int) (filter.bitSize() / Byte.SIZE)];
+        for (long index : filter.bitIndexes(key)) {
+            bitmap[(int) (index / Byte.SIZE)] |= (byte) (0x80 >>> (index % Byte.SIZE));
+        }
+        return bitmap;
+    }
+}
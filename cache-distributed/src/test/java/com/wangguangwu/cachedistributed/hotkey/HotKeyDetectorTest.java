@@ -0,0 +1,129 @@
+package com.wangguangwu.cachedistributed.hotkey;
+
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HotKeyDetector 的单元测试类，使用可控的时钟与随机数
+ */
+class HotKeyDetectorTest {
+
+    @Test
+    @DisplayName("测试窗口结束时按速率发布前 topK 个达到阈值的热点 key 并通知监听器，没有读取的窗口清空热点 key")
+    void testPublishHotKeys() {
+        AtomicLong clock = new AtomicLong(10_000);
+        HotKeyDetector<String> detector = new HotKeyDetector<>(properties(1.0, 8, 2, 100), clock::get, () -> 0);
+        List<List<HotKey<String>>> published = new ArrayList<>();
+        detector.addListener(published::add);
+
+        record(detector, "hot", 500);
+        record(detector, "warm", 200);
+        record(detector, "a", 150);
+        record(detector, "cold", 50);
+        assertEquals(List.of(), detector.getHotKeys());
+        assertFalse(detector.isHot("hot"));
+
+        clock.addAndGet(1_000);
+        List<HotKey<String>> hotKeys = detector.getHotKeys();
+        assertEquals(List.of("hot", "warm"), hotKeys.stream().map(HotKey::getKey).toList());
+        assertEquals(500, hotKeys.get(0).getRate(), 0.001);
+        assertEquals(200, hotKeys.get(1).getRate(), 0.001);
+        assertTrue(detector.isHot("hot"));
+        assertFalse(detector.isHot("a"));
+        assertEquals(List.of(hotKeys), published);
+
+        clock.addAndGet(1_000);
+        assertEquals(List.of(), detector.getHotKeys());
+        assertFalse(detector.isHot("hot"));
+        assertEquals(2, published.size());
+    }
+
+    @Test
+    @DisplayName("测试按采样比例还原速率，计数器已满时替换计数最小的 key 且速率扣除继承的误差")
+    void testSamplingAndReplacement() {
+        AtomicLong clock = new AtomicLong();
+        AtomicInteger draws = new AtomicInteger();
+        // 交替返回 0.2 与 0.7，采样比例 0.5 时一半的读取被采样
+        HotKeyDetector<String> sampled = new HotKeyDetector<>(properties(0.5, 8, 4, 100), clock::get,
+                () -> draws.getAndIncrement() % 2 == 0 ? 0.2 : 0.7);
+        record(sampled, "k", 400);
+        clock.addAndGet(1_000);
+        assertEquals(400, sampled.getHotKeys().get(0).getRate(), 0.001);
+
+        HotKeyDetector<String> small = new HotKeyDetector<>(properties(1.0, 2, 4, 1), clock::get, () -> 0);
+        record(small, "x", 10);
+        record(small, "y", 1);
+        record(small, "z", 5);
+        clock.addAndGet(1_000);
+        List<HotKey<String>> hotKeys = small.getHotKeys();
+        assertEquals(List.of("x", "z"), hotKeys.stream().map(HotKey::getKey).toList());
+        assertEquals(5, hotKeys.get(1).getRate(), 0.001);
+
+        assertThrows(IllegalArgumentException.class, () -> new HotKeyDetector<>(properties(0, 8, 4, 100)));
+        assertThrows(IllegalArgumentException.class, () -> new HotKeyDetector<>(properties(0.5, 0, 4, 100)));
+    }
+
+    @Test
+    @DisplayName("测试多个线程并发读取时采样写入各自的缓冲区，窗口结束时全部计入并发布热点 key")
+    void testConcurrentRecord() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        HotKeyDetector<String> detector = new HotKeyDetector<>(properties(1.0, 16, 2, 1_000), clock::get, () -> 0);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 10_000; i++) {
+                        detector.record(i % 2 == 0 ? "hot" : "cold-" + thread + "-" + i);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        clock.addAndGet(1_000);
+        List<HotKey<String>> hotKeys = detector.getHotKeys();
+        assertEquals(List.of("hot"), hotKeys.stream().map(HotKey::getKey).toList());
+        // 采样不会丢失，速率只扣除 key 进入计数器时继承的误差
+        assertTrue(hotKeys.get(0).getRate() > 39_000 && hotKeys.get(0).getRate() <= 40_000,
+                String.valueOf(hotKeys.get(0).getRate()));
+    }
+
+    static DistributedCacheProperties.HotKey properties(double sampleRate, int capacity, int topK, double threshold) {
+        DistributedCacheProperties.HotKey hotKey = new DistributedCacheProperties.HotKey();
+        hotKey.setSampleRate(sampleRate);
+        hotKey.setCapacity(capacity);
+        hotKey.setTopK(topK);
+        hotKey.setWindow(1_000);
+        hotKey.setThreshold(threshold);
+        return hotKey;
+    }
+
+    private static void record(HotKeyDetector<String> detector, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            detector.record(key);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.wangguangwu.cachedistributed.hotkey;
+
+import com.wangguangwu.cachedistributed.service.InMemoryDistributedCacheService;
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.MapLocalCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HotKeyPromotingCacheService 的单元测试类，使用进程内的分布式缓存替身与 Map 本地缓存
+ */
+class HotKeyPromotingCacheServiceTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private InMemoryDistributedCacheService<String, String> remote;
+
+    private LocalCacheService<String, String> localCache;
+
+    private HotKeyPromotingCacheService<String, String> cacheService;
+
+    @BeforeEach
+    void setUp() {
+        remote = new InMemoryDistributedCacheService<>();
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(60);
+        properties.setExpireAfterAccess(60);
+        localCache = new MapLocalCacheService<>(properties);
+        HotKeyDetector<String> detector = new HotKeyDetector<>(
+                HotKeyDetectorTest.properties(1.0, 16, 4, 10), clock::get, () -> 0);
+        cacheService = new HotKeyPromotingCacheService<>(remote, localCache, detector, Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("测试热点 key 提升到本地缓存后读取不再访问分布式缓存，写入时移除，不再是热点时移除")
+    void testPromoteAndDemote() {
+        remote.put("hot", "value");
+        for (int i = 0; i < 20; i++) {
+            assertEquals("value", cacheService.get("hot", k -> "loaded"));
+        }
+        assertEquals(20, remote.reads.get());
+        assertNull(localCache.getIfPresent("hot"));
+
+        clock.addAndGet(1_000);
+        for (int i = 0; i < 11; i++) {
+            assertEquals("value", cacheService.getIfPresent("hot"));
+        }
+        assertEquals(21, remote.reads.get());
+        assertEquals(10, cacheService.getLocalHitCount());
+        assertEquals("hot", cacheService.getHotKeys().get(0).getKey());
+        Duration remaining = localCache.getExpiration("hot");
+        assertTrue(remaining != null && remaining.compareTo(Duration.ofSeconds(5)) <= 0, String.valueOf(remaining));
+
+        // 本节点写入后移除本地缓存中的旧值
+        cacheService.put("hot", "new");
+        assertNull(localCache.getIfPresent("hot"));
+        assertEquals("new", cacheService.getIfPresent("hot"));
+        assertEquals("new", localCache.getIfPresent("hot"));
+
+        // 下一个窗口没有达到阈值，结束时从本地缓存中移除
+        clock.addAndGet(1_000);
+        cacheService.getIfPresent("hot");
+        clock.addAndGet(1_000);
+        assertEquals(List.of(), cacheService.getHotKeys());
+        assertNull(localCache.getIfPresent("hot"));
+    }
+
+    @Test
+    @DisplayName("测试批量读取中本地缓存已有的热点 key 不再向分布式缓存请求，结果保持请求顺序")
+    void testGetAllPresent() {
+        remote.putAll(Map.of("hot", "1", "cold", "2"));
+        for (int i = 0; i < 10; i++) {
+            cacheService.getIfPresent("hot");
+        }
+        clock.addAndGet(1_000);
+        assertEquals(Map.of("hot", "1", "cold", "2"), cacheService.getAllPresent(List.of("hot", "missing", "cold")));
+        assertEquals("1", localCache.getIfPresent("hot"));
+        assertNull(localCache.getIfPresent("cold"));
+
+        remote.reads.set(0);
+        Map<String, String> result = cacheService.getAllPresent(List.of("cold", "hot"));
+        assertEquals(List.of("cold", "hot"), List.copyOf(result.keySet()));
+        assertEquals(1, remote.reads.get());
+
+        cacheService.invalidateAll();
+        assertNull(localCache.getIfPresent("hot"));
+        assertEquals(Map.of(), cacheService.getAllPresent(List.of("hot", "cold")));
+    }
+
+    @Test
+    @DisplayName("测试读取分布式缓存期间并发写入时，读到的旧值不会写入本地缓存")
+    void testConcurrentPutDuringPin() throws Exception {
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        InMemoryDistributedCacheService<String, String> blocking = new InMemoryDistributedCacheService<>() {
+            @Override
+            public String getIfPresent(String key) {
+                String value = super.getIfPresent(key);
+                if (read.getCount() > 0 && proceed.getCount() > 0 && clock.get() > 0) {
+                    read.countDown();
+                    try {
+                        proceed.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return value;
+            }
+        };
+        HotKeyDetector<String> detector = new HotKeyDetector<>(
+                HotKeyDetectorTest.properties(1.0, 16, 4, 10), clock::get, () -> 0);
+        cacheService = new HotKeyPromotingCacheService<>(blocking, localCache, detector, Duration.ofSeconds(5));
+        blocking.put("hot", "old");
+        for (int i = 0; i < 10; i++) {
+            cacheService.getIfPresent("hot");
+        }
+        clock.addAndGet(1_000);
+
+        // 读取线程已读到旧值但还没有写入本地缓存时，另一个线程写入新值
+        CompletableFuture<String> reader = CompletableFuture.supplyAsync(() -> cacheService.getIfPresent("hot"));
+        assertTrue(read.await(5, TimeUnit.SECONDS));
+        cacheService.put("hot", "new");
+        proceed.countDown();
+        assertEquals("old", reader.get(5, TimeUnit.SECONDS));
+
+        assertNull(localCache.getIfPresent("hot"));
+        assertEquals("new", cacheService.getIfPresent("hot"));
+        assertEquals("new", localCache.getIfPresent("hot"));
+    }
+}
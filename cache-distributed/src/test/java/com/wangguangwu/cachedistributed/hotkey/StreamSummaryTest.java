@@ -0,0 +1,64 @@
+package com.wangguangwu.cachedistributed.hotkey;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StreamSummary 的单元测试类，与逐个扫描最小计数的 Space-Saving 实现对照
+ */
+class StreamSummaryTest {
+
+    @Test
+    @DisplayName("测试计数与替换后的下界与扫描实现一致，清空后重新计数")
+    void testMatchesLinearScan() {
+        StreamSummary<Integer> summary = new StreamSummary<>(8);
+        Map<Integer, long[]> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            // 少数 key 频繁出现，其余 key 偶尔出现
+            int key = random.nextInt(4) == 0 ? random.nextInt(1_000) : random.nextInt(4);
+            summary.offer(key);
+            offer(reference, key, 8);
+        }
+        Map<Integer, Long> counts = new HashMap<>();
+        summary.forEach(counts::put);
+        assertEquals(8, counts.size());
+        for (int hot = 0; hot < 4; hot++) {
+            assertEquals(reference.get(hot)[0] - reference.get(hot)[1], counts.get(hot));
+            assertTrue(counts.get(hot) > 3_000);
+        }
+
+        summary.clear();
+        summary.offer(7);
+        Map<Integer, Long> cleared = new HashMap<>();
+        summary.forEach(cleared::put);
+        assertEquals(Map.of(7, 1L), cleared);
+    }
+
+    // 扫描全部计数器找最小计数，计数相同时结果与替换哪一个无关
+    private static void offer(Map<Integer, long[]> counters, int key, int capacity) {
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0]++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new long[]{1, 0});
+            return;
+        }
+        Integer minKey = null;
+        for (Map.Entry<Integer, long[]> entry : counters.entrySet()) {
+            if (minKey == null || entry.getValue()[0] < counters.get(minKey)[0]) {
+                minKey = entry.getKey();
+            }
+        }
+        long min = counters.remove(minKey)[0];
+        counters.put(key, new long[]{min + 1, min});
+    }
+}
@@ -0,0 +1,74 @@
+package com.wangguangwu.cachedistributed.negative;
+
+import com.wangguangwu.cachedistributed.codec.KryoCacheSerializer;
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import com.wangguangwu.cachedistributed.service.InMemoryDistributedCacheService;
+import com.wangguangwu.cachelocal.negative.AbsentValue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NegativeCachingDistributedCacheService 的单元测试类，使用进程内的分布式缓存替身
+ */
+class NegativeCachingDistributedCacheServiceTest {
+
+    @Test
+    @DisplayName("测试加载结果为 null 时一次写入带 negativeTtl 的占位值，之后的读取按未命中返回 null 且不再加载")
+    void testAbsentValueCached() {
+        InMemoryDistributedCacheService<String, Object> remote = new InMemoryDistributedCacheService<>();
+        NegativeCachingDistributedCacheService<String, String> cacheService =
+                new NegativeCachingDistributedCacheService<>(remote, 5_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cacheService.get("missing", k -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertInstanceOf(AbsentValue.class, remote.getIfPresent("missing"));
+        assertEquals(Map.of("missing", 5_000L), remote.expirations);
+
+        assertNull(cacheService.get("missing", k -> {
+            loads.incrementAndGet();
+            return "loaded";
+        }));
+        assertNull(cacheService.getIfPresent("missing"));
+        assertEquals(1, loads.get());
+        assertEquals(2, cacheService.getNegativeHitCount());
+
+        cacheService.put("present", "value");
+        assertEquals(Map.of("present", "value"), cacheService.getAllPresent(List.of("missing", "present", "other")));
+        assertEquals(3, cacheService.getNegativeHitCount());
+        assertTrue(cacheService.containsKey("missing"));
+        assertEquals(Set.of("missing", "present"), Set.copyOf(cacheService.keySet()));
+
+        // 加载异常不写入占位值
+        assertThrows(RuntimeException.class, () -> cacheService.get("failing", k -> {
+            throw new IllegalStateException("load failed");
+        }));
+        assertFalse(remote.containsKey("failing"));
+    }
+
+    @Test
+    @DisplayName("测试占位值经 Kryo 反序列化后仍能识别，negativeTtl 不大于 0 时不装饰")
+    void testCodecAndDecorate() {
+        KryoCacheSerializer<Object> serializer = new KryoCacheSerializer<>(1);
+        Object decoded = serializer.deserialize(serializer.serialize(AbsentValue.INSTANCE));
+        assertTrue(AbsentValue.isAbsent(decoded));
+
+        DistributedCacheProperties properties = new DistributedCacheProperties();
+        DistributedCacheService<String, Object> remote = new InMemoryDistributedCacheService<>();
+        assertSame(remote, NegativeCachingDistributedCacheService.decorate(remote, properties));
+        properties.setNegativeTtl(1_000);
+        assertInstanceOf(NegativeCachingDistributedCacheService.class,
+                NegativeCachingDistributedCacheService.decorate(remote, properties));
+        assertThrows(IllegalArgumentException.class, () -> new NegativeCachingDistributedCacheService<>(remote, 0));
+    }
+}
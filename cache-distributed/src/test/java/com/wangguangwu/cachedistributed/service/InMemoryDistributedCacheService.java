@@ -0,0 +1,111 @@
+package com.wangguangwu.cachedistributed.service;
+
+import com.wangguangwu.cachelocal.support.KeyPattern;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 进程内的分布式缓存替身，基于 ConcurrentHashMap 实现，记录读取次数用于断言，不支持过期，带过期时间的写入只记录过期时间。
+ */
+public class InMemoryDistributedCacheService<K, V> implements DistributedCacheService<K, V> {
+
+    private final ConcurrentHashMap<K, V> data = new ConcurrentHashMap<>();
+
+    // 读取次数，相当于访问远程缓存的网络往返次数
+    public final AtomicInteger reads = new AtomicInteger();
+
+    // 带过期时间写入的 key 及其过期时间（毫秒）
+    public final Map<K, Long> expirations = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(K key, V value) {
+        data.put(key, value);
+    }
+
+    @Override
+    public void put(K key, V value, long expiration) {
+        data.put(key, value);
+        expirations.put(key, expiration);
+    }
+
+    @Override
+    public V getIfPresent(K key) {
+        reads.incrementAndGet();
+        return data.get(key);
+    }
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        reads.incrementAndGet();
+        return data.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public Map<K, V> getAllPresent(Iterable<? extends K> keys) {
+        reads.incrementAndGet();
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = data.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        data.putAll(map);
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return data.containsKey(key);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        data.remove(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        data.clear();
+    }
+
+    @Override
+    public void invalidateAll(Iterable<? extends K> keys) {
+        keys.forEach(data::remove);
+    }
+
+    @Override
+    public Stream<K> scan(String pattern, int batchSize) {
+        return data.keySet().stream().filter(KeyPattern.compile(pattern));
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return data.keySet();
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public void setExpiration(K key, long expiration) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getExpiration(K key) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,230 @@
+package com.wangguangwu.cachedistributed.service.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 进程内的 Memcached 二进制协议替身，实现缓存服务用到的少量命令，每个连接一个线程。
+ * <p>
+ * 记录收到的命令名称，静默命令（以 Q 结尾）按协议在成功或未命中时不回复，用于断言命令映射。
+ * </p>
+ */
+class MemcachedBinaryServer implements AutoCloseable {
+
+    private static final int HEADER_LENGTH = 24;
+
+    private static final short STATUS_OK = 0x00;
+
+    private static final short STATUS_KEY_NOT_FOUND = 0x01;
+
+    private static final short STATUS_ITEM_NOT_STORED = 0x05;
+
+    private static final short STATUS_UNKNOWN_COMMAND = 0x81;
+
+    private final ServerSocket serverSocket;
+
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+
+    // 收到的命令名称，按到达顺序记录
+    final List<String> commands = new CopyOnWriteArrayList<>();
+
+    // 为 true 时拒绝写入，SET 回复 Item Not Stored
+    volatile boolean rejectWrites;
+
+    MemcachedBinaryServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "memcached-server-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    String address() {
+        return "127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    void reset() {
+        commands.clear();
+        rejectWrites = false;
+    }
+
+    /**
+     * 服务端记录的相对过期秒数，未设置过期时间时为 0，key 不存在时为 -1
+     */
+    long expirySeconds(String key) {
+        Entry entry = data.get(key);
+        return entry == null ? -1 : entry.expiry;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread handler = new Thread(() -> handle(socket), "memcached-server-connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            byte[] header = new byte[HEADER_LENGTH];
+            while (true) {
+                in.readFully(header);
+                ByteBuffer buffer = ByteBuffer.wrap(header);
+                buffer.get();
+                int opcode = buffer.get() & 0xFF;
+                int keyLength = buffer.getShort() & 0xFFFF;
+                int extrasLength = buffer.get() & 0xFF;
+                buffer.get();
+                buffer.getShort();
+                int bodyLength = buffer.getInt();
+                int opaque = buffer.getInt();
+                byte[] extras = new byte[extrasLength];
+                in.readFully(extras);
+                byte[] key = new byte[keyLength];
+                in.readFully(key);
+                byte[] value = new byte[bodyLength - extrasLength - keyLength];
+                in.readFully(value);
+                execute(new Request(opcode, opaque, ByteBuffer.wrap(extras), key, value), out);
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (EOFException e) {
+            // 连接关闭
+        } catch (IOException e) {
+            // 连接异常
+        }
+    }
+
+    private void execute(Request request, DataOutputStream out) throws IOException {
+        String key = new String(request.key, StandardCharsets.UTF_8);
+        switch (request.opcode) {
+            // GET、GETQ、GETK、GETKQ
+            case 0x00, 0x09, 0x0c, 0x0d -> {
+                boolean quiet = request.opcode == 0x09 || request.opcode == 0x0d;
+                boolean withKey = request.opcode == 0x0c || request.opcode == 0x0d;
+                commands.add(withKey ? (quiet ? "GETKQ" : "GETK") : (quiet ? "GETQ" : "GET"));
+                Entry entry = live(key);
+                if (entry == null) {
+                    if (!quiet) {
+                        respond(out, request, STATUS_KEY_NOT_FOUND, new byte[0], new byte[0], new byte[0]);
+                    }
+                    return;
+                }
+                byte[] flags = ByteBuffer.allocate(4).putInt(entry.flags).array();
+                respond(out, request, STATUS_OK, flags, withKey ? request.key : new byte[0], entry.value);
+            }
+            // SET、SETQ
+            case 0x01, 0x11 -> {
+                boolean quiet = request.opcode == 0x11;
+                commands.add(quiet ? "SETQ" : "SET");
+                int flags = request.extras.getInt();
+                int expiry = request.extras.getInt();
+                if (rejectWrites) {
+                    respond(out, request, STATUS_ITEM_NOT_STORED, new byte[0], new byte[0], new byte[0]);
+                } else {
+                    data.put(key, new Entry(flags, request.value, expiry, deadline(expiry)));
+                    if (!quiet) {
+                        respond(out, request, STATUS_OK, new byte[0], new byte[0], new byte[0]);
+                    }
+                }
+            }
+            // DELETE、DELETEQ
+            case 0x04, 0x14 -> {
+                boolean quiet = request.opcode == 0x14;
+                commands.add(quiet ? "DELETEQ" : "DELETE");
+                boolean removed = data.remove(key) != null;
+                if (!quiet || !removed) {
+                    respond(out, request, removed ? STATUS_OK : STATUS_KEY_NOT_FOUND,
+                            new byte[0], new byte[0], new byte[0]);
+                }
+            }
+            // TOUCH
+            case 0x1c -> {
+                commands.add("TOUCH");
+                int expiry = request.extras.getInt();
+                Entry entry = live(key);
+                if (entry != null) {
+                    data.put(key, new Entry(entry.flags, entry.value, expiry, deadline(expiry)));
+                }
+                respond(out, request, entry != null ? STATUS_OK : STATUS_KEY_NOT_FOUND,
+                        new byte[0], new byte[0], new byte[0]);
+            }
+            // FLUSH
+            case 0x08 -> {
+                commands.add("FLUSH");
+                data.clear();
+                respond(out, request, STATUS_OK, new byte[0], new byte[0], new byte[0]);
+            }
+            // NOOP
+            case 0x0a -> {
+                commands.add("NOOP");
+                respond(out, request, STATUS_OK, new byte[0], new byte[0], new byte[0]);
+            }
+            // VERSION
+            case 0x0b -> respond(out, request, STATUS_OK, new byte[0], new byte[0],
+                    "1.6.21".getBytes(StandardCharsets.US_ASCII));
+            default -> respond(out, request, STATUS_UNKNOWN_COMMAND, new byte[0], new byte[0], new byte[0]);
+        }
+    }
+
+    private Entry live(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.expireAt != 0 && entry.expireAt <= System.currentTimeMillis()) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    // 测试中只会用到相对秒数
+    private static long deadline(int expiry) {
+        return expiry == 0 ? 0 : System.currentTimeMillis() + expiry * 1000L;
+    }
+
+    private static void respond(DataOutputStream out, Request request, short status,
+                                byte[] extras, byte[] key, byte[] value) throws IOException {
+        out.writeByte(0x81);
+        out.writeByte(request.opcode);
+        out.writeShort(key.length);
+        out.writeByte(extras.length);
+        out.writeByte(0);
+        out.writeShort(status);
+        out.writeInt(extras.length + key.length + value.length);
+        out.writeInt(request.opaque);
+        out.writeLong(0);
+        out.write(extras);
+        out.write(key);
+        out.write(value);
+    }
+
+    private record Request(int opcode, int opaque, ByteBuffer extras, byte[] key, byte[] value) {
+    }
+
+    private record Entry(int flags, byte[] value, int expiry, long expireAt) {
+    }
+}
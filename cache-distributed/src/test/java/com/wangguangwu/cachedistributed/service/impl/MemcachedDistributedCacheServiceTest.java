@@ -0,0 +1,116 @@
+package com.wangguangwu.cachedistributed.service.impl;
+
+import com.wangguangwu.cachedistributed.config.DistributedCacheConfig;
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachelocal.exception.CacheException;
+import net.rubyeye.xmemcached.MemcachedClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MemcachedDistributedCacheService 的单元测试类，连接进程内的 Memcached 二进制协议替身
+ */
+class MemcachedDistributedCacheServiceTest {
+
+    private static MemcachedBinaryServer server;
+
+    private static MemcachedClient memcachedClient;
+
+    private static MemcachedDistributedCacheService<String> cacheService;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        server = new MemcachedBinaryServer();
+        DistributedCacheProperties properties = new DistributedCacheProperties();
+        properties.getMemcached().setServers(server.address());
+        properties.getMemcached().setConnectionPoolSize(1);
+        memcachedClient = new DistributedCacheConfig(properties).memcachedClient();
+        cacheService = new MemcachedDistributedCacheService<>(memcachedClient, properties);
+    }
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        memcachedClient.shutdown();
+        server.close();
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        cacheService.invalidateAll();
+        server.reset();
+    }
+
+    @Test
+    @DisplayName("测试命中时 get 只发送一次 GET，未命中时加载并写入")
+    void testGetSingleRoundTrip() {
+        assertEquals("value", cacheService.get("key", k -> "value"));
+        assertEquals(List.of("GET", "SET"), server.commands);
+
+        server.reset();
+        assertEquals("value", cacheService.get("key", k -> {
+            throw new IllegalStateException("should not load");
+        }));
+        assertEquals(List.of("GET"), server.commands);
+        assertTrue(cacheService.containsKey("key"));
+        assertNull(cacheService.getIfPresent("missing"));
+    }
+
+    @Test
+    @DisplayName("测试批量读取使用静默的 multi-get，批量写入与删除不等待响应")
+    void testMultiGetAndNoReplyWrites() {
+        // 不等待响应的写入与之后的读取在同一个连接上按顺序处理
+        cacheService.putAll(Map.of("a", "1", "b", "2", "c", "3"));
+        Map<String, String> result = cacheService.getAllPresent(List.of("c", "missing", "a", "b"));
+        assertEquals(List.of("c", "a", "b"), List.copyOf(result.keySet()));
+        assertEquals("1", result.get("a"));
+        assertEquals(List.of("SETQ", "SETQ", "SETQ"), server.commands.subList(0, 3));
+        assertFalse(server.commands.contains("SET"));
+        assertFalse(server.commands.contains("GET"));
+        assertTrue(server.commands.stream().filter(command -> command.startsWith("GETK")).count() >= 4);
+
+        cacheService.invalidateAll(List.of("a", "b"));
+        assertEquals(Map.of("c", "3"), cacheService.getAllPresent(List.of("a", "b", "c")));
+        assertTrue(server.commands.contains("DELETEQ"));
+    }
+
+    @Test
+    @DisplayName("测试服务端没有存储写入的值时抛出 CacheException")
+    void testPutNotStored() {
+        server.rejectWrites = true;
+        assertThrows(CacheException.class, () -> cacheService.put("key", "value"));
+        assertThrows(CacheException.class, () -> cacheService.put("key", "value", 1000));
+        assertNull(cacheService.getIfPresent("key"));
+    }
+
+    @Test
+    @DisplayName("测试过期时间向上取整为秒并通过 TOUCH 设置，不支持的操作抛出异常")
+    void testExpirationAndUnsupportedOperations() {
+        cacheService.put("key", "value");
+        assertEquals(0, server.expirySeconds("cache:key"));
+
+        cacheService.setExpiration("key", 1500);
+        assertEquals(2, server.expirySeconds("cache:key"));
+        assertTrue(server.commands.contains("TOUCH"));
+
+        server.reset();
+        cacheService.put("ttl", "value", 2500);
+        assertEquals(3, server.expirySeconds("cache:ttl"));
+        assertFalse(server.commands.contains("TOUCH"));
+
+        assertThrows(UnsupportedOperationException.class, () -> cacheService.getExpiration("key"));
+        assertThrows(UnsupportedOperationException.class, cacheService::keySet);
+        assertThrows(UnsupportedOperationException.class, cacheService::size);
+
+        cacheService.invalidate("key");
+        assertFalse(cacheService.containsKey("key"));
+    }
+}
@@ -0,0 +1,134 @@
+package com.wangguangwu.cachedistributed.service.impl;
+
+import com.wangguangwu.cachedistributed.config.DistributedCacheConfig;
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RedissonDistributedCacheService 的单元测试类，连接进程内的 Redis 协议替身
+ */
+class RedissonDistributedCacheServiceTest {
+
+    private static RespServer server;
+
+    private static RedissonClient redissonClient;
+
+    private static RedissonDistributedCacheService<String> cacheService;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        server = new RespServer();
+        DistributedCacheProperties properties = new DistributedCacheProperties();
+        properties.getRedis().setAddress(server.address());
+        properties.getRedis().setConnectionPoolSize(4);
+        properties.getRedis().setConnectionMinimumIdleSize(1);
+        properties.getRedis().setNettyThreads(2);
+        redissonClient = new DistributedCacheConfig(properties).redissonClient();
+        cacheService = new RedissonDistributedCacheService<>(redissonClient, properties);
+    }
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        redissonClient.shutdown();
+        server.close();
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        cacheService.invalidateAll();
+        server.reset();
+    }
+
+    @Test
+    @DisplayName("测试命中时 get 只发送一次 GET，未命中时加载并写入")
+    void testGetSingleRoundTrip() {
+        assertEquals("value", cacheService.get("key", k -> "value"));
+        assertEquals(List.of("GET", "SET"), server.commands);
+
+        server.reset();
+        assertEquals("value", cacheService.get("key", k -> {
+            throw new IllegalStateException("should not load");
+        }));
+        assertEquals(List.of("GET"), server.commands);
+        assertTrue(cacheService.containsKey("key"));
+        assertNull(cacheService.getIfPresent("missing"));
+    }
+
+    @Test
+    @DisplayName("测试批量操作通过流水线在一次往返中完成")
+    void testPipelinedBatchOperations() {
+        cacheService.putAll(Map.of("a", "1", "b", "2", "c", "3"));
+        assertEquals(1, server.roundTrips.get());
+
+        server.reset();
+        Map<String, String> result = cacheService.getAllPresent(List.of("c", "missing", "a", "b"));
+        assertEquals(List.of("c", "a", "b"), List.copyOf(result.keySet()));
+        assertEquals("1", result.get("a"));
+        assertEquals(4, server.commands.size());
+        assertEquals(1, server.roundTrips.get());
+
+        server.reset();
+        cacheService.invalidateAll(List.of("a", "b"));
+        assertEquals(1, server.roundTrips.get());
+        assertEquals(Set.of("c"), cacheService.keySet());
+        assertEquals(1, cacheService.size());
+    }
+
+    @Test
+    @DisplayName("测试过期时间映射到 PEXPIRE 与 PTTL，带过期时间的写入只发送一条命令")
+    void testExpiration() {
+        cacheService.put("key", "value");
+        assertEquals(-1, cacheService.getExpiration("key"));
+        assertEquals(-2, cacheService.getExpiration("missing"));
+
+        cacheService.setExpiration("key", 60_000);
+        long ttl = cacheService.getExpiration("key");
+        assertTrue(ttl > 50_000 && ttl <= 60_000);
+        assertTrue(server.commands.contains("PEXPIRE"));
+        assertTrue(server.commands.contains("PTTL"));
+
+        server.reset();
+        cacheService.put("ttl", "value", 30_000);
+        assertEquals(List.of("PSETEX"), server.commands);
+        ttl = cacheService.getExpiration("ttl");
+        assertTrue(ttl > 20_000 && ttl <= 30_000);
+
+        cacheService.invalidate("ttl");
+        cacheService.invalidate("key");
+        assertFalse(cacheService.containsKey("key"));
+    }
+
+    @Test
+    @DisplayName("测试 scan 通过多次 SCAN 分批遍历带前缀的 key")
+    void testScan() {
+        for (int i = 0; i < 10; i++) {
+            cacheService.put("user:" + i, "value");
+            cacheService.put("order:" + i, "value");
+        }
+        server.reset();
+
+        Set<String> keys;
+        try (Stream<String> stream = cacheService.scan("user:*", 4)) {
+            keys = stream.collect(Collectors.toSet());
+        }
+        assertEquals(10, keys.size());
+        assertTrue(keys.contains("user:0"));
+        // 20 个 key 每次检查 4 个
+        assertEquals(5, server.commands.stream().filter("SCAN"::equals).count());
+        assertEquals(20, cacheService.size());
+    }
+}
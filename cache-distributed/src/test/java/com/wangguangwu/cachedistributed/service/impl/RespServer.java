@@ -0,0 +1,254 @@
+package com.wangguangwu.cachedistributed.service.impl;
+
+import com.wangguangwu.cachelocal.support.KeyPattern;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内的 Redis 协议替身，实现 RESP2 与缓存服务用到的少量命令，每个连接一个线程。
+ * <p>
+ * 记录收到的命令与每个连接上的读取批次数，用于断言命令映射与流水线：
+ * 同一批次内到达的多条命令只计为一次往返。
+ * </p>
+ */
+public class RespServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+
+    // 收到的命令名称，按到达顺序记录
+    public final List<String> commands = new CopyOnWriteArrayList<>();
+
+    // 一次读取中处理完的命令批次数，相当于网络往返次数
+    public final AtomicInteger roundTrips = new AtomicInteger();
+
+    public RespServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "resp-server-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public String address() {
+        return "redis://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    public void reset() {
+        commands.clear();
+        roundTrips.set(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread handler = new Thread(() -> handle(socket), "resp-server-connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            while (true) {
+                List<byte[]> command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                execute(command, out);
+                // 缓冲区中没有后续命令时回复，同一批到达的命令只算一次往返
+                if (in.available() == 0) {
+                    out.flush();
+                    roundTrips.incrementAndGet();
+                }
+            }
+        } catch (IOException e) {
+            // 连接关闭
+        }
+    }
+
+    private void execute(List<byte[]> args, OutputStream out) throws IOException {
+        String name = text(args.get(0)).toUpperCase(Locale.ROOT);
+        commands.add(name);
+        long now = System.currentTimeMillis();
+        switch (name) {
+            case "PING" -> simple(out, "PONG");
+            case "SELECT", "AUTH", "CLIENT", "READONLY" -> simple(out, "OK");
+            case "GET" -> {
+                Entry entry = live(text(args.get(1)), now);
+                bulk(out, entry == null ? null : entry.value);
+            }
+            case "SET" -> {
+                long expireAt = 0;
+                for (int i = 3; i + 1 < args.size(); i++) {
+                    String option = text(args.get(i)).toUpperCase(Locale.ROOT);
+                    if (option.equals("PX")) {
+                        expireAt = now + Long.parseLong(text(args.get(i + 1)));
+                    } else if (option.equals("EX")) {
+                        expireAt = now + Long.parseLong(text(args.get(i + 1))) * 1000;
+                    }
+                }
+                data.put(text(args.get(1)), new Entry(args.get(2), expireAt));
+                simple(out, "OK");
+            }
+            case "PSETEX" -> {
+                data.put(text(args.get(1)), new Entry(args.get(3), now + Long.parseLong(text(args.get(2)))));
+                simple(out, "OK");
+            }
+            case "EXISTS" -> integer(out, live(text(args.get(1)), now) == null ? 0 : 1);
+            case "DEL", "UNLINK" -> {
+                int removed = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    Entry entry = data.remove(text(args.get(i)));
+                    if (entry != null && !entry.isExpired(now)) {
+                        removed++;
+                    }
+                }
+                integer(out, removed);
+            }
+            case "PEXPIRE" -> {
+                String key = text(args.get(1));
+                Entry entry = live(key, now);
+                if (entry == null) {
+                    integer(out, 0);
+                } else {
+                    data.put(key, new Entry(entry.value, now + Long.parseLong(text(args.get(2)))));
+                    integer(out, 1);
+                }
+            }
+            case "PTTL" -> {
+                Entry entry = live(text(args.get(1)), now);
+                integer(out, entry == null ? -2 : entry.expireAt == 0 ? -1 : entry.expireAt - now);
+            }
+            case "SCAN" -> scan(args, out, now);
+            default -> error(out, "ERR unknown command '" + name + "'");
+        }
+    }
+
+    // 游标为按 key 排序后的偏移量，每次检查 COUNT 个 key（默认 10），与 Redis 一样 COUNT 包含不匹配的 key
+    private void scan(List<byte[]> args, OutputStream out, long now) throws IOException {
+        int offset = Integer.parseInt(text(args.get(1)));
+        KeyPattern pattern = KeyPattern.compile(null);
+        int count = 10;
+        for (int i = 2; i + 1 < args.size(); i++) {
+            if (text(args.get(i)).equalsIgnoreCase("MATCH")) {
+                pattern = KeyPattern.compile(text(args.get(i + 1)));
+            } else if (text(args.get(i)).equalsIgnoreCase("COUNT")) {
+                count = Integer.parseInt(text(args.get(i + 1)));
+            }
+        }
+        List<String> sorted = new ArrayList<>(new TreeMap<>(data).keySet());
+        int end = Math.min(sorted.size(), offset + count);
+        List<String> keys = new ArrayList<>();
+        for (String key : sorted.subList(Math.min(offset, end), end)) {
+            Entry entry = data.get(key);
+            if (entry != null && !entry.isExpired(now) && pattern.test(key)) {
+                keys.add(key);
+            }
+        }
+        out.write(("*2\r\n").getBytes(StandardCharsets.UTF_8));
+        bulk(out, String.valueOf(end == sorted.size() ? 0 : end).getBytes(StandardCharsets.UTF_8));
+        out.write(("*" + keys.size() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        for (String key : keys) {
+            bulk(out, key.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private Entry live(String key, long now) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.isExpired(now)) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (header == null) {
+            return null;
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<byte[]> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            byte[] arg = in.readNBytes(length);
+            in.readNBytes(2);
+            args.add(arg);
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\r') {
+                in.read();
+                return line.toString();
+            }
+            line.append((char) b);
+        }
+        return null;
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void simple(OutputStream out, String value) throws IOException {
+        out.write(("+" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void error(OutputStream out, String message) throws IOException {
+        out.write(("-" + message + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void integer(OutputStream out, long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void bulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        out.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(value);
+        out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Entry(byte[] value, long expireAt) {
+
+        boolean isExpired(long now) {
+            return expireAt != 0 && now >= expireAt;
+        }
+    }
+}
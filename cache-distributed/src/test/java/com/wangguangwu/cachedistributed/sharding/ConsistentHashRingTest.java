@@ -0,0 +1,71 @@
+package com.wangguangwu.cachedistributed.sharding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConsistentHashRing 的单元测试类
+ */
+class ConsistentHashRingTest {
+
+    private static final int KEY_COUNT = 40_000;
+
+    @Test
+    @DisplayName("测试各哈希函数下 key 在节点间均匀分布，增删节点时只有约 1/N 的 key 改变归属")
+    void testDistributionAndRebalance() {
+        for (HashAlgorithm algorithm : HashAlgorithm.values()) {
+            assertRebalance(algorithm);
+        }
+    }
+
+    private static void assertRebalance(HashAlgorithm algorithm) {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(160, algorithm);
+        for (int i = 0; i < 4; i++) {
+            ring.add("node-" + i, "node-" + i);
+        }
+        Map<String, String> before = assign(ring);
+        Map<String, Integer> counts = new HashMap<>();
+        before.values().forEach(node -> counts.merge(node, 1, Integer::sum));
+        for (int count : counts.values()) {
+            // 理想值为 1/4
+            assertTrue(count > KEY_COUNT * 0.18 && count < KEY_COUNT * 0.32, algorithm + " " + counts);
+        }
+
+        // 加入第 5 个节点，只有移动到新节点的 key 改变归属
+        ring.add("node-4", "node-4");
+        Map<String, String> added = assign(ring);
+        int moved = 0;
+        for (Map.Entry<String, String> entry : added.entrySet()) {
+            if (!entry.getValue().equals(before.get(entry.getKey()))) {
+                assertEquals("node-4", entry.getValue());
+                moved++;
+            }
+        }
+        assertTrue(moved > KEY_COUNT * 0.14 && moved < KEY_COUNT * 0.26, algorithm + " moved " + moved);
+
+        // 移除一个节点，只有原属于该节点的 key 改变归属
+        ring.remove("node-1");
+        Map<String, String> removed = assign(ring);
+        for (Map.Entry<String, String> entry : removed.entrySet()) {
+            String previous = added.get(entry.getKey());
+            if (!previous.equals("node-1")) {
+                assertEquals(previous, entry.getValue());
+            }
+        }
+        assertFalse(removed.containsValue("node-1"));
+    }
+
+    private static Map<String, String> assign(ConsistentHashRing<String> ring) {
+        Map<String, String> assignment = new HashMap<>();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            String key = "user:" + i;
+            assignment.put(key, ring.nodeFor(key));
+        }
+        return assignment;
+    }
+}
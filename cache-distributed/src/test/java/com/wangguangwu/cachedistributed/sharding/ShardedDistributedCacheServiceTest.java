@@ -0,0 +1,93 @@
+package com.wangguangwu.cachedistributed.sharding;
+
+import com.wangguangwu.cachedistributed.service.InMemoryDistributedCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ShardedDistributedCacheService 的单元测试类，后端为三个进程内的分布式缓存替身
+ */
+class ShardedDistributedCacheServiceTest {
+
+    private final Map<String, InMemoryDistributedCacheService<String, String>> nodes = new LinkedHashMap<>();
+
+    private ShardedDistributedCacheService<String, String> cacheService;
+
+    @BeforeEach
+    void beforeEach() {
+        for (int i = 0; i < 3; i++) {
+            nodes.put("node-" + i, new InMemoryDistributedCacheService<>());
+        }
+        cacheService = new ShardedDistributedCacheService<>(nodes);
+    }
+
+    @Test
+    @DisplayName("测试单个 key 路由到固定节点，批量操作按节点分组，每个节点只调用一次")
+    void testRoutingAndGroupedBulkOperations() {
+        Map<String, String> values = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            values.put("key-" + i, "value-" + i);
+            keys.add("key-" + i);
+        }
+        cacheService.putAll(values);
+        for (InMemoryDistributedCacheService<String, String> node : nodes.values()) {
+            assertTrue(node.size() > 50, "keys should spread across nodes");
+        }
+        assertEquals(300, cacheService.size());
+        assertEquals(values.keySet(), cacheService.keySet());
+
+        keys.add("missing");
+        Map<String, String> result = cacheService.getAllPresent(keys);
+        assertEquals(keys.subList(0, 300), List.copyOf(result.keySet()));
+        for (InMemoryDistributedCacheService<String, String> node : nodes.values()) {
+            assertEquals(1, node.reads.get());
+        }
+
+        // 单个 key 的读写只访问所属节点
+        cacheService.put("single", "value");
+        long holders = nodes.values().stream().filter(node -> node.containsKey("single")).count();
+        assertEquals(1, holders);
+        assertEquals("value", cacheService.getIfPresent("single"));
+
+        cacheService.invalidateAll(keys.subList(0, 100));
+        assertEquals(201, cacheService.size());
+        assertEquals(Set.of("key-100", "key-101", "key-102", "key-103", "key-104",
+                        "key-105", "key-106", "key-107", "key-108", "key-109"),
+                cacheService.scan("key-10?", 10).collect(Collectors.toSet()));
+        cacheService.invalidateAll();
+        assertEquals(0, cacheService.size());
+    }
+
+    @Test
+    @DisplayName("测试加入节点后原有 key 的归属只有少部分改变")
+    void testAddNode() {
+        for (int i = 0; i < 1000; i++) {
+            cacheService.put("key-" + i, "value");
+        }
+        cacheService.addNode("node-3", new InMemoryDistributedCacheService<>());
+        int hits = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (cacheService.getIfPresent("key-" + i) != null) {
+                hits++;
+            }
+        }
+        // 约 1/4 的 key 路由到新节点而未命中
+        assertTrue(hits > 650 && hits < 850, "hits " + hits);
+        assertEquals(4, cacheService.nodes().size());
+
+        assertSame(nodes.get("node-0"), cacheService.removeNode("node-0"));
+        assertNull(cacheService.removeNode("node-0"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.wangguangwu.cachedistributed.spring;
+
+import com.wangguangwu.cachedistributed.service.InMemoryDistributedCacheService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.NullValue;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DistributedCacheManager 的单元测试类，通过 Spring 缓存注解使用进程内的分布式缓存替身
+ */
+class DistributedCacheManagerTest {
+
+    private AnnotationConfigApplicationContext context;
+
+    private InMemoryDistributedCacheService<String, Object> remote;
+
+    private BookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext(CachingConfiguration.class);
+        remote = context.getBean(CachingConfiguration.class).remote;
+        bookService = context.getBean(BookService.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    @DisplayName("测试 @Cacheable 写入 cacheName::key 形式的键，清空只作用于单个缓存")
+    void testCacheableAndClear() {
+        assertEquals("book-1", bookService.book(1));
+        assertEquals("book-1", bookService.book(1));
+        assertEquals("book-2", bookService.book(2));
+        assertNull(bookService.missing(1));
+        assertNull(bookService.missing(1));
+        assertEquals(3, bookService.loads());
+        assertEquals(Set.of("books::1", "books::2", "missing::1"), remote.keySet());
+        assertInstanceOf(NullValue.class, remote.getIfPresent("missing::1"));
+
+        bookService.clearBooks();
+        assertEquals(Set.of("missing::1"), remote.keySet());
+    }
+
+    @Test
+    @DisplayName("测试 sync = true 对应服务的 get，加载异常原样抛出，反序列化得到的 NullValue 按 null 返回")
+    void testSyncGet() {
+        assertEquals("sync-5", bookService.syncBook(5));
+        assertEquals("sync-5", bookService.syncBook(5));
+        assertEquals(1, bookService.loads());
+        assertThrows(IllegalStateException.class, () -> bookService.failingBook(1));
+
+        Cache cache = context.getBean(CacheManager.class).getCache("books");
+        // 模拟编解码器不调用 readResolve，得到新的 NullValue 实例
+        remote.put("books::9", newNullValue());
+        assertNotNull(cache.get(9));
+        assertNull(cache.get(9).get());
+        assertNull(cache.get(9, () -> "loaded"));
+    }
+
+    private static Object newNullValue() {
+        try {
+            var constructor = NullValue.class.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            Object nullValue = constructor.newInstance();
+            assertNotSame(NullValue.INSTANCE, nullValue);
+            return nullValue;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfiguration {
+
+        final InMemoryDistributedCacheService<String, Object> remote = new InMemoryDistributedCacheService<>();
+
+        @Bean
+        CacheManager cacheManager() {
+            return new DistributedCacheManager(remote, true);
+        }
+
+        @Bean
+        BookService bookService() {
+            return new BookService();
+        }
+    }
+
+    static class BookService {
+
+        // 方法实际执行的次数，通过方法访问，字段在代理上不可见
+        private final AtomicInteger loads = new AtomicInteger();
+
+        public int loads() {
+            return loads.get();
+        }
+
+        @Cacheable("books")
+        public String book(int id) {
+            loads.incrementAndGet();
+            return "book-" + id;
+        }
+
+        @Cacheable("missing")
+        public String missing(int id) {
+            loads.incrementAndGet();
+            return null;
+        }
+
+        @Cacheable(cacheNames = "sync", sync = true)
+        public String syncBook(int id) {
+            loads.incrementAndGet();
+            return "sync-" + id;
+        }
+
+        @Cacheable(cacheNames = "failing", sync = true)
+        public String failingBook(int id) {
+            throw new IllegalStateException("load failed");
+        }
+
+        @CacheEvict(cacheNames = "books", allEntries = true)
+        public void clearBooks() {
+        }
+    }
+}
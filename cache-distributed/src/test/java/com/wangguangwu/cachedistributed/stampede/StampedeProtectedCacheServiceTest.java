@@ -0,0 +1,186 @@
+package com.wangguangwu.cachedistributed.stampede;
+
+import com.wangguangwu.cachedistributed.properties.DistributedCacheProperties;
+import com.wangguangwu.cachedistributed.service.DistributedCacheService;
+import com.wangguangwu.cachedistributed.service.InMemoryDistributedCacheService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StampedeProtectedCacheService 的单元测试类，多个服务实例共用同一个缓存与加载锁，模拟多个节点
+ */
+class StampedeProtectedCacheServiceTest {
+
+    private final InMemoryDistributedCacheService<String, ComputedValue<String>> remote =
+            new InMemoryDistributedCacheService<>();
+
+    private final InMemoryLoadLock loadLock = new InMemoryLoadLock();
+
+    @Test
+    @DisplayName("测试多个节点的并发未命中只加载一次，其余请求轮询得到同一个结果")
+    void testSingleLoadAcrossNodes() throws Exception {
+        DistributedCacheProperties properties = properties();
+        properties.getStampede().setPollInterval(5);
+        List<StampedeProtectedCacheService<String, String>> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(new StampedeProtectedCacheService<>(remote, loadLock, properties));
+        }
+
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                StampedeProtectedCacheService<String, String> node = nodes.get(t % nodes.size());
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    await(start);
+                    return node.get("hot", k -> {
+                        loads.incrementAndGet();
+                        sleep(100);
+                        return "value";
+                    });
+                }, executor));
+            }
+            start.countDown();
+            for (CompletableFuture<String> future : futures) {
+                assertEquals("value", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, loads.get());
+        assertEquals("value", remote.getIfPresent("hot").value());
+        assertTrue(remote.getIfPresent("hot").computeMillis() >= 100);
+    }
+
+    @Test
+    @DisplayName("测试持锁节点超过最长等待时间仍未写入时自行加载")
+    void testLoadAfterMaxWait() throws Exception {
+        DistributedCacheProperties properties = properties();
+        properties.getStampede().setPollInterval(5);
+        properties.getStampede().setMaxWait(50);
+        StampedeProtectedCacheService<String, String> node = new StampedeProtectedCacheService<>(remote, loadLock, properties);
+
+        // 另一个线程持有锁且不释放，模拟卡住的节点
+        CompletableFuture.runAsync(() -> assertTrue(loadLock.tryLock("cache-lock:stuck", 60_000))).get();
+        long start = System.nanoTime();
+        assertEquals("value", node.get("stuck", k -> "value"));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals("value", node.getIfPresent("stuck"));
+        assertNull(node.get("missing", k -> null));
+    }
+
+    @Test
+    @DisplayName("测试接近过期时由获取到锁的请求提前重算，未获取到锁的请求返回当前值")
+    void testEarlyRecomputation() {
+        AtomicLong now = new AtomicLong(10_000);
+        DistributedCacheProperties properties = properties();
+        properties.setDefaultTtl(1000);
+        // 随机数固定为 1/e，提前量恰好为 computeMillis * beta
+        StampedeProtectedCacheService<String, String> node = new StampedeProtectedCacheService<>(remote, loadLock,
+                properties, now::get, () -> Math.exp(-1));
+
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("v1", node.get("key", k -> {
+            now.addAndGet(100);
+            return "v" + loads.incrementAndGet();
+        }));
+        ComputedValue<String> entry = remote.getIfPresent("key");
+        assertEquals(100, entry.computeMillis());
+        assertEquals(11_100, entry.expireAt());
+
+        // 剩余时间大于提前量，不重算
+        now.set(10_999);
+        assertEquals("v1", node.get("key", k -> "v" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+
+        // 其他节点正在重算时返回当前值
+        now.set(11_000);
+        assertTrue(loadLock.tryLock("cache-lock:key", 60_000));
+        assertEquals("v1", node.get("key", k -> "v" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+        loadLock.unlock("cache-lock:key");
+
+        assertEquals("v2", node.get("key", k -> "v" + loads.incrementAndGet()));
+        assertEquals(12_000, remote.getIfPresent("key").expireAt());
+
+        // 直接写入的值没有加载耗时，不会提前重算
+        node.put("key", "put");
+        now.set(12_999);
+        assertEquals("put", node.get("key", k -> "v" + loads.incrementAndGet()));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("测试提前重算失败时返回当前值并释放加载锁")
+    void testEarlyRecomputationFailure() {
+        AtomicLong now = new AtomicLong(10_000);
+        DistributedCacheProperties properties = properties();
+        properties.setDefaultTtl(1000);
+        StampedeProtectedCacheService<String, String> node = new StampedeProtectedCacheService<>(remote, loadLock,
+                properties, now::get, () -> Math.exp(-1));
+        assertEquals("v1", node.get("key", k -> {
+            now.addAndGet(100);
+            return "v1";
+        }));
+
+        // 进入提前重算窗口，加载函数抛出异常
+        now.set(11_000);
+        assertEquals("v1", node.get("key", k -> {
+            throw new IllegalStateException("backend down");
+        }));
+        assertEquals("v1", remote.getIfPresent("key").value());
+        assertTrue(loadLock.tryLock("cache-lock:key", 60_000));
+        loadLock.unlock("cache-lock:key");
+    }
+
+    @Test
+    @DisplayName("测试按配置装饰，未启用时原样返回")
+    void testDecorate() {
+        InMemoryDistributedCacheService<String, Object> cache = new InMemoryDistributedCacheService<>();
+        DistributedCacheProperties properties = properties();
+        assertSame(cache, StampedeProtectedCacheService.decorate(cache, loadLock, properties));
+
+        properties.getStampede().setEnabled(true);
+        DistributedCacheService<String, Object> decorated = StampedeProtectedCacheService.decorate(cache, loadLock, properties);
+        assertInstanceOf(StampedeProtectedCacheService.class, decorated);
+        assertEquals("value", decorated.get("key", k -> "value"));
+        assertEquals("value", decorated.getIfPresent("key"));
+        assertInstanceOf(ComputedValue.class, cache.getIfPresent("key"));
+    }
+
+    private static DistributedCacheProperties properties() {
+        return new DistributedCacheProperties();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
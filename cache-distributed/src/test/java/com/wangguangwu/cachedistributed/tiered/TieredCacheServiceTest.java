@@ -0,0 +1,114 @@
+package com.wangguangwu.cachedistributed.tiered;
+
+import com.wangguangwu.cachedistributed.service.InMemoryDistributedCacheService;
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.service.impl.MapLocalCacheService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TieredCacheService 的单元测试类，两个节点共享同一个进程内的二级缓存与失效通道
+ */
+class TieredCacheServiceTest {
+
+    private InMemoryDistributedCacheService<String, String> distributedCache;
+
+    private MapLocalCacheService<String, String> localCacheA;
+
+    private MapLocalCacheService<String, String> localCacheB;
+
+    private TieredCacheService<String, String> nodeA;
+
+    private TieredCacheService<String, String> nodeB;
+
+    @BeforeEach
+    void beforeEach() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumSize(1000);
+        distributedCache = new InMemoryDistributedCacheService<>();
+        InMemoryInvalidationChannel<String> channel = new InMemoryInvalidationChannel<>();
+        localCacheA = new MapLocalCacheService<>(properties);
+        localCacheB = new MapLocalCacheService<>(properties);
+        nodeA = new TieredCacheService<>(localCacheA, distributedCache, channel);
+        nodeB = new TieredCacheService<>(localCacheB, distributedCache, channel);
+    }
+
+    @AfterEach
+    void afterEach() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    @DisplayName("测试两级都未命中时只加载一次并写入两级缓存，之后由一级缓存直接命中")
+    void testLoadOnceOnDoubleMiss() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    assertEquals("value", nodeA.get("key", k -> {
+                        loads.incrementAndGet();
+                        return "value";
+                    }));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        // 一级缓存合并并发未命中时有极小的窗口，可能多读几次二级缓存，但加载函数只执行一次
+        assertEquals(1, loads.get());
+        assertTrue(distributedCache.reads.get() >= 1 && distributedCache.reads.get() <= threads);
+        assertEquals("value", localCacheA.getIfPresent("key"));
+        assertEquals("value", distributedCache.getIfPresent("key"));
+
+        // 其他节点从二级缓存读取并回填一级缓存，不再调用加载函数
+        assertEquals("value", nodeB.get("key", k -> {
+            throw new IllegalStateException("should not load");
+        }));
+        assertEquals("value", localCacheB.getIfPresent("key"));
+    }
+
+    @Test
+    @DisplayName("测试写入与删除通过失效通道移除其他节点的一级缓存，本节点的一级缓存保留新值")
+    void testCrossNodeInvalidation() {
+        nodeA.put("key", "v1");
+        assertEquals("v1", nodeB.getIfPresent("key"));
+        assertEquals("v1", localCacheB.getIfPresent("key"));
+
+        nodeA.put("key", "v2");
+        assertEquals("v2", localCacheA.getIfPresent("key"));
+        assertNull(localCacheB.getIfPresent("key"));
+        assertEquals("v2", nodeB.getIfPresent("key"));
+
+        nodeB.invalidate("key");
+        assertNull(localCacheA.getIfPresent("key"));
+        assertNull(nodeA.getIfPresent("key"));
+
+        nodeA.put("a", "1");
+        nodeB.getIfPresent("a");
+        nodeA.invalidateAll();
+        assertEquals(0, localCacheB.size());
+        assertEquals(0, distributedCache.size());
+    }
+}
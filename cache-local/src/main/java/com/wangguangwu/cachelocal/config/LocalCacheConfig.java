@@ -1,16 +1,35 @@
 package com.wangguangwu.cachelocal.config;
 
 import com.wangguangwu.cachelocal.constants.CacheTypeConstants;
+import com.wangguangwu.cachelocal.negative.NegativeCachingLocalCacheService;
 import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.registry.LocalCacheRegistry;
+import com.wangguangwu.cachelocal.serializer.CacheSerializer;
+import com.wangguangwu.cachelocal.serializer.JdkCacheSerializer;
 import com.wangguangwu.cachelocal.service.LocalCacheService;
 import com.wangguangwu.cachelocal.service.impl.CaffeineLocalCacheService;
 import com.wangguangwu.cachelocal.service.impl.GuavaLocalCacheService;
 import com.wangguangwu.cachelocal.service.impl.MapLocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.OffHeapLocalCacheService;
+import com.wangguangwu.cachelocal.snapshot.CacheSnapshotFile;
+import com.wangguangwu.cachelocal.snapshot.CacheSnapshotLifecycle;
+import com.wangguangwu.cachelocal.spring.LocalCacheManager;
+import com.wangguangwu.cachelocal.support.CoarseTicker;
+import com.wangguangwu.cachelocal.support.LoaderExecutors;
+import com.wangguangwu.cachelocal.support.Ticker;
+import com.wangguangwu.cachelocal.weigher.CacheWeigher;
+import com.wangguangwu.cachelocal.weigher.EstimatedSizeWeigher;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+
 /**
  * 本类用于配置本地缓存的类型。
  *
@@ -20,23 +39,101 @@ import org.springframework.context.annotation.Configuration;
 @RequiredArgsConstructor
 public class LocalCacheConfig {
 
+    /**
+     * 缓存加载执行器的 bean 名称，定义同名的 {@link Executor} bean 即可替换默认执行器，
+     * 未定义时使用虚拟线程（运行时不支持时退化为守护线程池）。
+     */
+    public static final String LOADER_EXECUTOR_BEAN_NAME = "localCacheLoaderExecutor";
+
     private final LocalCacheProperties localCacheProperties;
 
+    /**
+     * Guava 缓存，配置了 maximumWeight 时使用容器中的 {@link CacheWeigher} 计算权重，未定义时按估算的内存占用计算；
+     * 配置了 negativeTtl 时装饰为 {@link NegativeCachingLocalCacheService}，下同。
+     */
     @Bean
     @ConditionalOnProperty(name = CacheTypeConstants.LOCAL_CACHE_TYPE, havingValue = CacheTypeConstants.GUAVA)
-    public LocalCacheService<Object, Object> guavaCacheService() {
-        return new GuavaLocalCacheService<>(localCacheProperties);
+    public LocalCacheService<Object, Object> guavaCacheService(@Qualifier(LOADER_EXECUTOR_BEAN_NAME) ObjectProvider<Executor> executorProvider,
+                                                               ObjectProvider<CacheWeigher<Object, Object>> weigherProvider) {
+        return negativeCaching(new GuavaLocalCacheService<>(localCacheProperties, Ticker.systemTicker(),
+                loaderExecutor(executorProvider), weigher(weigherProvider)));
     }
 
     @Bean
     @ConditionalOnProperty(name = CacheTypeConstants.LOCAL_CACHE_TYPE, havingValue = CacheTypeConstants.CAFFEINE)
-    public LocalCacheService<Object, Object> caffeineCacheService() {
-        return new CaffeineLocalCacheService<>(localCacheProperties);
+    public LocalCacheService<Object, Object> caffeineCacheService(@Qualifier(LOADER_EXECUTOR_BEAN_NAME) ObjectProvider<Executor> executorProvider,
+                                                                  ObjectProvider<CacheWeigher<Object, Object>> weigherProvider) {
+        return negativeCaching(new CaffeineLocalCacheService<>(localCacheProperties, Ticker.systemTicker(),
+                loaderExecutor(executorProvider), weigher(weigherProvider)));
     }
 
     @Bean
     @ConditionalOnProperty(name = CacheTypeConstants.LOCAL_CACHE_TYPE, havingValue = CacheTypeConstants.MAP)
-    public LocalCacheService<Object, Object> mapCacheService() {
-        return new MapLocalCacheService<>(localCacheProperties);
+    public LocalCacheService<Object, Object> mapCacheService(@Qualifier(LOADER_EXECUTOR_BEAN_NAME) ObjectProvider<Executor> executorProvider,
+                                                             ObjectProvider<CacheWeigher<Object, Object>> weigherProvider) {
+        return negativeCaching(new MapLocalCacheService<>(localCacheProperties, CoarseTicker.shared(),
+                loaderExecutor(executorProvider), weigher(weigherProvider)));
+    }
+
+    /**
+     * 堆外缓存，容器中存在 {@link CacheSerializer} 时用于序列化键和值，否则使用 JDK 序列化。
+     */
+    @Bean
+    @ConditionalOnProperty(name = CacheTypeConstants.LOCAL_CACHE_TYPE, havingValue = CacheTypeConstants.OFF_HEAP)
+    public LocalCacheService<Object, Object> offHeapCacheService(ObjectProvider<CacheSerializer<Object>> serializerProvider,
+                                                                 @Qualifier(LOADER_EXECUTOR_BEAN_NAME) ObjectProvider<Executor> executorProvider) {
+        CacheSerializer<Object> serializer = serializerProvider.getIfAvailable(JdkCacheSerializer::new);
+        return negativeCaching(new OffHeapLocalCacheService<>(localCacheProperties, serializer, serializer,
+                CoarseTicker.shared(), loaderExecutor(executorProvider)));
+    }
+
+    /**
+     * 命名缓存注册表，按 {@code cache.specs.<name>.*} 配置懒加载创建各自的缓存，与单引擎共用加载执行器、权重计算器与序列化器。
+     */
+    @Bean
+    public LocalCacheRegistry localCacheRegistry(@Qualifier(LOADER_EXECUTOR_BEAN_NAME) ObjectProvider<Executor> executorProvider,
+                                                 ObjectProvider<CacheWeigher<Object, Object>> weigherProvider,
+                                                 ObjectProvider<CacheSerializer<Object>> serializerProvider) {
+        return new LocalCacheRegistry(localCacheProperties, loaderExecutor(executorProvider), weigher(weigherProvider),
+                serializerProvider.getIfAvailable(JdkCacheSerializer::new));
+    }
+
+    /**
+     * Spring 缓存管理器，配置了本地缓存类型时启用，{@code @Cacheable} 等注解中配置了 {@code cache.specs} 的缓存名称使用各自的引擎，
+     * 其余缓存名称共用本地缓存引擎；定义了该 bean 后 Spring Boot 不再自动配置其他 {@link CacheManager}。
+     */
+    @Bean
+    @ConditionalOnProperty(name = CacheTypeConstants.LOCAL_CACHE_TYPE)
+    public CacheManager localCacheManager(LocalCacheService<Object, Object> cacheService, LocalCacheRegistry registry) {
+        return new LocalCacheManager(cacheService, registry, localCacheProperties.isAllowNullValues());
+    }
+
+    /**
+     * 缓存快照，与堆外缓存共用容器中的 {@link CacheSerializer}，未定义时使用 JDK 序列化。
+     */
+    @Bean
+    @ConditionalOnProperty(name = CacheTypeConstants.SNAPSHOT_ENABLED, havingValue = "true")
+    public CacheSnapshotLifecycle<Object, Object> cacheSnapshotLifecycle(LocalCacheService<Object, Object> cacheService,
+                                                                         ObjectProvider<CacheSerializer<Object>> serializerProvider) {
+        LocalCacheProperties.Snapshot snapshot = localCacheProperties.getSnapshot();
+        CacheSerializer<Object> serializer = serializerProvider.getIfAvailable(JdkCacheSerializer::new);
+        int parallelism = snapshot.getLoadParallelism() > 0
+                ? snapshot.getLoadParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        return new CacheSnapshotLifecycle<>(cacheService,
+                new CacheSnapshotFile<>(Path.of(snapshot.getPath()), serializer, serializer),
+                snapshot.getInterval(), parallelism);
+    }
+
+    private LocalCacheService<Object, Object> negativeCaching(LocalCacheService<Object, Object> cacheService) {
+        return NegativeCachingLocalCacheService.decorate(cacheService, localCacheProperties);
+    }
+
+    private static CacheWeigher<Object, Object> weigher(ObjectProvider<CacheWeigher<Object, Object>> weigherProvider) {
+        return weigherProvider.getIfAvailable(EstimatedSizeWeigher::new);
+    }
+
+    private static Executor loaderExecutor(ObjectProvider<Executor> executorProvider) {
+        return executorProvider.getIfAvailable(LoaderExecutors::defaultExecutor);
     }
 }
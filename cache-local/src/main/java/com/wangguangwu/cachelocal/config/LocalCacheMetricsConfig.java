@@ -0,0 +1,40 @@
+package com.wangguangwu.cachelocal.config;
+
+import com.wangguangwu.cachelocal.registry.LocalCacheRegistry;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.stats.CacheStatsMeterBinder;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 本类用于在类路径中存在 Micrometer 时导出本地缓存统计，引入 Spring Boot Actuator 后由其自动绑定到 MeterRegistry。
+ *
+ * @author wangguangwu
+ */
+@Configuration
+@ConditionalOnClass(MeterBinder.class)
+public class LocalCacheMetricsConfig {
+
+    /**
+     * 本地缓存引擎的 {@code cache} 标签值，命名缓存使用各自的名称
+     */
+    public static final String DEFAULT_CACHE_NAME = "local";
+
+    /**
+     * 导出本地缓存引擎与 {@code cache.specs} 中配置的命名缓存的统计；绑定时不创建命名缓存，
+     * 命名缓存首次按名称获取时才绑定指标。
+     */
+    @Bean
+    public MeterBinder localCacheMeterBinder(ObjectProvider<LocalCacheService<Object, Object>> cacheServiceProvider,
+                                             LocalCacheRegistry registry) {
+        return meterRegistry -> {
+            cacheServiceProvider.ifAvailable(cacheService ->
+                    new CacheStatsMeterBinder(DEFAULT_CACHE_NAME, cacheService).bindTo(meterRegistry));
+            registry.addCreationListener((name, cache) ->
+                    new CacheStatsMeterBinder(name, cache).bindTo(meterRegistry));
+        };
+    }
+}
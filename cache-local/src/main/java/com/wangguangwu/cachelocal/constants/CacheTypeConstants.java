@@ -16,6 +16,11 @@ public final class CacheTypeConstants {
      */
     public static final String LOCAL_CACHE_TYPE = "local.cache.type";
 
+    /**
+     * 是否开启本地缓存快照的配置键
+     */
+    public static final String SNAPSHOT_ENABLED = "cache.snapshot.enabled";
+
     /**
      * Guava 缓存类型
      */
@@ -31,6 +36,11 @@ public final class CacheTypeConstants {
      */
     public static final String MAP = "map";
 
+    /**
+     * 堆外类型缓存
+     */
+    public static final String OFF_HEAP = "offheap";
+
     // 私有构造方法，防止实例化
     private CacheTypeConstants() {
         throw new UnsupportedOperationException("This is a constants class and cannot be instantiated");
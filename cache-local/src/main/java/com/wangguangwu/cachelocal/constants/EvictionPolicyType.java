@@ -0,0 +1,23 @@
+package com.wangguangwu.cachelocal.constants;
+
+/**
+ * Map 缓存的淘汰策略类型。
+ * <p>
+ * Guava 与 Caffeine 缓存使用各自内置的淘汰策略，不受该配置影响。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public enum EvictionPolicyType {
+
+    /**
+     * 最近最少使用，淘汰最久未被访问的缓存项
+     */
+    LRU,
+
+    /**
+     * W-TinyLFU：新缓存项先进入小的准入窗口，从窗口淘汰出的候选项只有访问频率高于主区域的淘汰对象时才会被接纳，
+     * 主区域按分段 LRU 划分为试用区与保护区，能抵抗一次性扫描对热点数据的冲刷
+     */
+    TINY_LFU
+}
@@ -0,0 +1,47 @@
+package com.wangguangwu.cachelocal.negative;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 负缓存的占位值，表示加载函数确认该 key 没有对应的值。
+ * <p>
+ * 本地缓存与分布式缓存共用该类型，只有一个无字段的单例，序列化后只包含类型信息。
+ * 反序列化得到的实例不一定是单例（例如 Kryo 不调用 readResolve），判断时应使用 {@link #isAbsent(Object)}。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public final class AbsentValue implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 共享的占位值
+     */
+    public static final AbsentValue INSTANCE = new AbsentValue();
+
+    private AbsentValue() {
+    }
+
+    /**
+     * 判断缓存中取出的值是否为负缓存占位值
+     *
+     * @param value 缓存中取出的值
+     * @return 是占位值时返回 true
+     */
+    public static boolean isAbsent(Object value) {
+        return value instanceof AbsentValue;
+    }
+
+    @Serial
+    private Object readResolve() {
+        return INSTANCE;
+    }
+
+    @Override
+    public String toString() {
+        return "AbsentValue";
+    }
+}
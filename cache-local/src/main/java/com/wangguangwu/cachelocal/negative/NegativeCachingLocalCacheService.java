@@ -0,0 +1,267 @@
+package com.wangguangwu.cachelocal.negative;
+
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.service.CacheEntryVisitor;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 带负缓存的本地缓存服务，装饰任意 {@link LocalCacheService}，对所有缓存引擎的行为一致。
+ * <p>
+ * 加载函数返回 null（批量加载时返回的映射中缺少某个 key）时，向被装饰的缓存写入 {@link AbsentValue} 占位值，
+ * 过期时间为单独配置的 negativeTtl，通常比正常的过期时间短得多。过期前对该 key 的读取直接返回 null，不再调用加载函数，
+ * 大量查询不存在的 key 时不会把请求全部打到后端。
+ * </p>
+ * <p>
+ * 读到占位值对调用方而言就是未命中：get 系列方法返回 null，getAll 的结果中不包含该 key，forEachEntry 跳过占位值。
+ * stats() 中负缓存命中计为未命中，同时单独计入 {@link CacheStats#getNegativeHitCount()}。
+ * containsKey、scan、keySet 与 size 不读取值，结果包含负缓存项。
+ * </p>
+ * <p>
+ * 占位值在加载完成后才写入，写入前同一个 key 合并等待的请求直接得到 null；
+ * 堆外缓存需要通过序列化器写入占位值，自定义序列化器需要支持 {@link AbsentValue}。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+public class NegativeCachingLocalCacheService<K, V> implements LocalCacheService<K, V> {
+
+    private final LocalCacheService<K, Object> delegate;
+
+    // 占位值的过期时间
+    private final Duration negativeTtl;
+
+    // 负缓存命中次数，被装饰的缓存将其计为命中，stats() 中改为未命中
+    private final LongAdder negativeHitCount = new LongAdder();
+
+    /**
+     * NegativeCachingLocalCacheService 构造方法。
+     *
+     * @param delegate    被装饰的缓存，值与占位值都写入该缓存
+     * @param negativeTtl 占位值的过期时间
+     * @throws IllegalArgumentException 如果 negativeTtl 不大于 0
+     */
+    public NegativeCachingLocalCacheService(LocalCacheService<K, Object> delegate, Duration negativeTtl) {
+        if (negativeTtl == null || negativeTtl.isZero() || negativeTtl.isNegative()) {
+            throw new IllegalArgumentException("Negative TTL must be greater than 0: " + negativeTtl);
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.negativeTtl = negativeTtl;
+    }
+
+    /**
+     * 按配置的 negativeTtl 装饰缓存，negativeTtl 不大于 0 时原样返回。
+     *
+     * @param cacheService         被装饰的缓存
+     * @param localCacheProperties 缓存配置属性
+     * @param <K>                  键类型
+     * @return 启用负缓存时返回装饰后的缓存，否则返回原缓存
+     */
+    public static <K> LocalCacheService<K, Object> decorate(LocalCacheService<K, Object> cacheService,
+                                                            LocalCacheProperties localCacheProperties) {
+        if (localCacheProperties.getNegativeTtl() <= 0) {
+            return cacheService;
+        }
+        return new NegativeCachingLocalCacheService<>(cacheService, Duration.ofSeconds(localCacheProperties.getNegativeTtl()));
+    }
+
+    @Override
+    public void put(K key, V value) {
+        delegate.put(key, Objects.requireNonNull(value));
+    }
+
+    @Override
+    public void put(K key, V value, Duration ttl) {
+        delegate.put(key, Objects.requireNonNull(value), ttl);
+    }
+
+    @Override
+    public V getIfPresent(K key) {
+        return unwrap(delegate.getIfPresent(key));
+    }
+
+    /**
+     * 获取缓存值，未命中时调用 mappingFunction 加载，结果为 null 时写入占位值并返回 null。
+     *
+     * @param key             键
+     * @param mappingFunction 计算值的方法
+     * @return 缓存值，不存在时返回 null
+     */
+    @Override
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        // 加载函数由被装饰的缓存调用，可能在其他线程上执行，结果在 get 返回前可见
+        boolean[] loadedAbsent = new boolean[1];
+        Object value = delegate.get(key, k -> {
+            V loaded = mappingFunction.apply(k);
+            loadedAbsent[0] = loaded == null;
+            return loaded;
+        });
+        if (value == null && loadedAbsent[0]) {
+            delegate.put(key, AbsentValue.INSTANCE, negativeTtl);
+            return null;
+        }
+        return unwrap(value);
+    }
+
+    /**
+     * 异步获取缓存值，加载结果为 null 时在 future 完成前写入占位值。
+     *
+     * @param key             键
+     * @param mappingFunction 异步计算值的方法
+     * @return 值的 CompletableFuture，不存在时结果为 null
+     */
+    @Override
+    public CompletableFuture<V> getAsync(K key, Function<? super K, ? extends CompletableFuture<? extends V>> mappingFunction) {
+        boolean[] loadedAbsent = new boolean[1];
+        return delegate.getAsync(key, k -> mappingFunction.apply(k).thenApply(loaded -> {
+            loadedAbsent[0] = loaded == null;
+            return loaded;
+        })).thenApply(value -> {
+            if (value == null && loadedAbsent[0]) {
+                delegate.put(key, AbsentValue.INSTANCE, negativeTtl);
+                return null;
+            }
+            return unwrap(value);
+        });
+    }
+
+    /**
+     * 批量获取缓存值，批量加载结果中缺少或值为 null 的 key 写入占位值，不出现在返回结果中。
+     *
+     * @param keys            键集合
+     * @param mappingFunction 批量计算值的方法
+     * @return 存在值的键值映射
+     */
+    @Override
+    public Map<K, V> getAll(Iterable<? extends K> keys,
+                            Function<? super Set<? extends K>, ? extends Map<? extends K, ? extends V>> mappingFunction) {
+        Set<K> loadedAbsent = ConcurrentHashMap.newKeySet();
+        Map<K, Object> values = delegate.getAll(keys, misses -> {
+            Map<? extends K, ? extends V> loaded = mappingFunction.apply(misses);
+            if (loaded != null) {
+                for (K miss : misses) {
+                    if (loaded.get(miss) == null) {
+                        loadedAbsent.add(miss);
+                    }
+                }
+            }
+            return loaded;
+        });
+        for (K key : loadedAbsent) {
+            delegate.put(key, AbsentValue.INSTANCE, negativeTtl);
+        }
+        Map<K, V> result = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            V present = unwrap(value);
+            if (present != null) {
+                result.put(key, present);
+            }
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        delegate.putAll(map);
+    }
+
+    /**
+     * 判断缓存中是否存在指定的 key，不读取值，负缓存项同样返回 true。
+     *
+     * @param key 要检查的键
+     * @return 存在值或负缓存项时返回 true
+     */
+    @Override
+    public boolean containsKey(K key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        delegate.invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        delegate.invalidateAll();
+    }
+
+    @Override
+    public void invalidateAll(Iterable<? extends K> keys) {
+        delegate.invalidateAll(keys);
+    }
+
+    @Override
+    public boolean setExpiration(K key, Duration ttl) {
+        return delegate.setExpiration(key, ttl);
+    }
+
+    @Override
+    public Duration getExpiration(K key) {
+        return delegate.getExpiration(key);
+    }
+
+    /**
+     * 遍历未过期的缓存项，跳过负缓存项。
+     *
+     * @param visitor 缓存项回调
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachEntry(CacheEntryVisitor<? super K, ? super V> visitor) {
+        delegate.forEachEntry((key, value, remaining) -> {
+            if (!AbsentValue.isAbsent(value)) {
+                visitor.visit(key, (V) value, remaining);
+            }
+        });
+    }
+
+    @Override
+    public Stream<K> scan(String pattern, int batchSize) {
+        return delegate.scan(pattern, batchSize);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return delegate.keySet();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    /**
+     * 获取缓存统计信息的快照，负缓存命中计为未命中并单独列出。
+     *
+     * @return 不可变的统计信息快照
+     */
+    @Override
+    public CacheStats stats() {
+        return delegate.stats().withNegativeHits(negativeHitCount.sum());
+    }
+
+    // 占位值按未命中返回 null，并记录负缓存命中
+    @SuppressWarnings("unchecked")
+    private V unwrap(Object value) {
+        if (AbsentValue.isAbsent(value)) {
+            negativeHitCount.increment();
+            return null;
+        }
+        return (V) value;
+    }
+}
@@ -1,10 +1,14 @@
 package com.wangguangwu.cachelocal.properties;
 
+import com.wangguangwu.cachelocal.constants.EvictionPolicyType;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * 本地缓存配置类，提供缓存参数的可配置性。
  * 通过 `@ConfigurationProperties` 进行自动绑定。
@@ -13,7 +17,32 @@ import org.springframework.context.annotation.Configuration;
  * cache:
  * expireAfterWrite: 10
  * expireAfterAccess: 10
+ * refreshAfterWrite: 0
+ * staleIfError: 0
  * maximumSize: 100
+ * maximumWeight: 0
+ * concurrencyLevel: 16
+ * evictionPolicy: lru
+ * recordStats: true
+ * allowNullValues: true
+ * negativeTtl: 0
+ * offHeap:
+ * maximumBytes: 67108864
+ * slabSize: 1048576
+ * snapshot:
+ * enabled: false
+ * path: cache-snapshot/local-cache.snapshot
+ * interval: 300
+ * loadParallelism: 0
+ * specs:
+ * users:
+ * type: caffeine
+ * maximumSize: 100000
+ * expireAfterWrite: 600
+ * sessions:
+ * type: offheap
+ * offHeap:
+ * maximumBytes: 268435456
  *
  * @author wangguangwu
  */
@@ -33,9 +62,203 @@ public class LocalCacheProperties {
      */
     private int expireAfterAccess = 10;
 
+    /**
+     * 缓存写入后多久在后台刷新，单位为秒，0 表示不刷新。
+     * 刷新由带加载函数的读取触发，刷新期间继续返回旧值；堆外缓存不支持
+     */
+    private int refreshAfterWrite = 0;
+
+    /**
+     * 缓存过期后重新加载失败时，旧值仍可返回的窗口，单位为秒，0 表示不启用；堆外缓存不支持
+     */
+    private int staleIfError = 0;
+
     /**
      * 缓存最大大小
      */
     private int maximumSize = 100;
 
+    /**
+     * 缓存最大权重，0 表示不按权重限制。大于 0 时按 {@link com.wangguangwu.cachelocal.weigher.CacheWeigher}
+     * 计算的权重总和限制容量，maximumSize 不再限制条目数；堆外缓存不支持
+     */
+    private long maximumWeight = 0;
+
+    /**
+     * 并发级别，用于决定 Map 缓存的分段数量
+     */
+    private int concurrencyLevel = 16;
+
+    /**
+     * Map 缓存的淘汰策略，可选 lru、tiny-lfu
+     */
+    private EvictionPolicyType evictionPolicy = EvictionPolicyType.LRU;
+
+    /**
+     * 是否记录缓存统计信息，关闭后 stats() 返回的计数都为 0，读写操作不再读取系统时钟记录耗时
+     */
+    private boolean recordStats = true;
+
+    /**
+     * 通过 Spring 缓存注解使用时，是否缓存方法返回的 null
+     */
+    private boolean allowNullValues = true;
+
+    /**
+     * 负缓存的过期时间，单位为秒，0 表示不启用。
+     * 大于 0 时加载函数返回 null 的 key 写入占位值，过期前的读取直接按未命中返回 null，不再调用加载函数
+     */
+    private int negativeTtl = 0;
+
+    /**
+     * 堆外缓存配置
+     */
+    private OffHeap offHeap = new OffHeap();
+
+    /**
+     * 快照配置，用于重启后预热缓存
+     */
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * 命名缓存配置，键为缓存名称，每个缓存可以使用不同的引擎、容量与过期时间，未配置的参数沿用上面的全局配置
+     */
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    /**
+     * 堆外缓存配置，堆外缓存按字节数限制容量，不使用 maximumSize
+     */
+    @Getter
+    @Setter
+    public static class OffHeap {
+
+        /**
+         * 堆外缓存占用的最大字节数
+         */
+        private long maximumBytes = 64L * 1024 * 1024;
+
+        /**
+         * 单个 slab 的字节数，单个缓存项序列化后的大小不能超过该值
+         */
+        private int slabSize = 1024 * 1024;
+    }
+
+    /**
+     * 快照配置，开启后定时及关闭时将缓存项连同剩余存活时间写入文件，启动时加载完成后应用才就绪
+     */
+    @Getter
+    @Setter
+    public static class Snapshot {
+
+        /**
+         * 是否开启快照
+         */
+        private boolean enabled = false;
+
+        /**
+         * 快照文件路径
+         */
+        private String path = "cache-snapshot/local-cache.snapshot";
+
+        /**
+         * 定时写入快照的间隔，单位为秒，0 表示只在关闭时写入
+         */
+        private int interval = 300;
+
+        /**
+         * 加载快照的并行线程数，0 表示使用可用处理器数量
+         */
+        private int loadParallelism = 0;
+    }
+
+    /**
+     * 单个命名缓存的配置，属性为 null 时沿用全局配置
+     */
+    @Getter
+    @Setter
+    public static class Spec {
+
+        /**
+         * 缓存引擎类型，可选 guava、caffeine、map、offheap
+         */
+        private String type = "caffeine";
+
+        /**
+         * 缓存写入后过期时间，单位为秒
+         */
+        private Integer expireAfterWrite;
+
+        /**
+         * 缓存访问后过期时间，单位为秒
+         */
+        private Integer expireAfterAccess;
+
+        /**
+         * 缓存写入后多久在后台刷新，单位为秒，0 表示不刷新
+         */
+        private Integer refreshAfterWrite;
+
+        /**
+         * 缓存过期后重新加载失败时，旧值仍可返回的窗口，单位为秒，0 表示不启用
+         */
+        private Integer staleIfError;
+
+        /**
+         * 缓存最大大小
+         */
+        private Integer maximumSize;
+
+        /**
+         * 缓存最大权重，0 表示不按权重限制
+         */
+        private Long maximumWeight;
+
+        /**
+         * 并发级别
+         */
+        private Integer concurrencyLevel;
+
+        /**
+         * Map 缓存的淘汰策略
+         */
+        private EvictionPolicyType evictionPolicy;
+
+        /**
+         * 是否记录缓存统计信息
+         */
+        private Boolean recordStats;
+
+        /**
+         * 负缓存的过期时间，单位为秒，0 表示不启用
+         */
+        private Integer negativeTtl;
+
+        /**
+         * 堆外缓存配置
+         */
+        private OffHeap offHeap;
+
+        /**
+         * 以全局配置为默认值，合并出该缓存实际使用的配置，不修改全局配置。
+         *
+         * @param defaults 全局配置
+         * @return 该缓存使用的配置
+         */
+        public LocalCacheProperties toProperties(LocalCacheProperties defaults) {
+            LocalCacheProperties properties = new LocalCacheProperties();
+            properties.setExpireAfterWrite(expireAfterWrite != null ? expireAfterWrite : defaults.getExpireAfterWrite());
+            properties.setExpireAfterAccess(expireAfterAccess != null ? expireAfterAccess : defaults.getExpireAfterAccess());
+            properties.setRefreshAfterWrite(refreshAfterWrite != null ? refreshAfterWrite : defaults.getRefreshAfterWrite());
+            properties.setStaleIfError(staleIfError != null ? staleIfError : defaults.getStaleIfError());
+            properties.setMaximumSize(maximumSize != null ? maximumSize : defaults.getMaximumSize());
+            properties.setMaximumWeight(maximumWeight != null ? maximumWeight : defaults.getMaximumWeight());
+            properties.setConcurrencyLevel(concurrencyLevel != null ? concurrencyLevel : defaults.getConcurrencyLevel());
+            properties.setEvictionPolicy(evictionPolicy != null ? evictionPolicy : defaults.getEvictionPolicy());
+            properties.setRecordStats(recordStats != null ? recordStats : defaults.isRecordStats());
+            properties.setAllowNullValues(defaults.isAllowNullValues());
+            properties.setNegativeTtl(negativeTtl != null ? negativeTtl : defaults.getNegativeTtl());
+            properties.setOffHeap(offHeap != null ? offHeap : defaults.getOffHeap());
+            return properties;
+        }
+    }
 }
@@ -0,0 +1,166 @@
+package com.wangguangwu.cachelocal.registry;
+
+import com.wangguangwu.cachelocal.constants.CacheTypeConstants;
+import com.wangguangwu.cachelocal.negative.NegativeCachingLocalCacheService;
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.serializer.CacheSerializer;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.CaffeineLocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.GuavaLocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.MapLocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.OffHeapLocalCacheService;
+import com.wangguangwu.cachelocal.support.CoarseTicker;
+import com.wangguangwu.cachelocal.support.Ticker;
+import com.wangguangwu.cachelocal.weigher.CacheWeigher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+/**
+ * 命名缓存注册表，按 {@code cache.specs.<name>.*} 配置为每个缓存名称创建独立的 {@link LocalCacheService}。
+ * <p>
+ * 每个缓存可以使用不同的引擎、容量与过期时间，未配置的参数沿用全局配置；缓存在首次按名称获取时才创建，
+ * 之后同一名称始终返回同一个实例。引擎类型在构造时校验，配置错误在启动阶段即可发现。
+ * 需要感知缓存创建的组件（如指标导出）通过 {@link #addCreationListener(BiConsumer)} 注册，不应为此提前获取缓存。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public class LocalCacheRegistry {
+
+    private static final Set<String> SUPPORTED_TYPES = Set.of(CacheTypeConstants.GUAVA, CacheTypeConstants.CAFFEINE,
+            CacheTypeConstants.MAP, CacheTypeConstants.OFF_HEAP);
+
+    // 全局配置，命名缓存未配置的参数从这里取值
+    private final LocalCacheProperties defaults;
+
+    private final Map<String, LocalCacheProperties.Spec> specs;
+
+    // 已创建的缓存实例
+    private final Map<String, LocalCacheService<Object, Object>> caches = new ConcurrentHashMap<>();
+
+    // 缓存创建监听器，注册与通知都持有 this 的锁
+    private final List<BiConsumer<String, LocalCacheService<Object, Object>>> creationListeners = new ArrayList<>();
+
+    private final Executor executor;
+
+    private final CacheWeigher<Object, Object> weigher;
+
+    // 堆外缓存使用的键、值序列化器
+    private final CacheSerializer<Object> serializer;
+
+    /**
+     * LocalCacheRegistry 构造方法。
+     *
+     * @param defaults   全局配置，命名缓存配置取自 {@link LocalCacheProperties#getSpecs()}
+     * @param executor   缓存加载执行器
+     * @param weigher    按权重限制容量时使用的权重计算器
+     * @param serializer 堆外缓存使用的序列化器
+     * @throws IllegalArgumentException 如果某个命名缓存的引擎类型不受支持
+     */
+    public LocalCacheRegistry(LocalCacheProperties defaults, Executor executor,
+                              CacheWeigher<Object, Object> weigher, CacheSerializer<Object> serializer) {
+        this.defaults = Objects.requireNonNull(defaults);
+        this.specs = Collections.unmodifiableMap(new LinkedHashMap<>(defaults.getSpecs()));
+        this.executor = Objects.requireNonNull(executor);
+        this.weigher = Objects.requireNonNull(weigher);
+        this.serializer = Objects.requireNonNull(serializer);
+        specs.forEach((name, spec) -> {
+            if (spec.getType() == null || !SUPPORTED_TYPES.contains(spec.getType())) {
+                throw new IllegalArgumentException("Unsupported cache type for cache '" + name + "': " + spec.getType());
+            }
+        });
+    }
+
+    /**
+     * 按名称获取缓存，首次获取时创建。
+     *
+     * @param name 缓存名称
+     * @return 缓存实例
+     * @throws IllegalArgumentException 如果没有该名称的缓存配置
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> LocalCacheService<K, V> getCache(String name) {
+        LocalCacheProperties.Spec spec = specs.get(name);
+        if (spec == null) {
+            throw new IllegalArgumentException("No cache spec configured for name: " + name);
+        }
+        LocalCacheService<Object, Object> cache = caches.get(name);
+        if (cache == null) {
+            cache = createIfAbsent(name, spec);
+        }
+        return (LocalCacheService<K, V>) cache;
+    }
+
+    /**
+     * 注册缓存创建监听器，已创建的缓存立即通知一次，之后每个缓存首次按名称获取时通知，每个缓存只通知一次。
+     *
+     * @param listener 接收缓存名称与实例的监听器，在创建缓存的线程中调用
+     */
+    public synchronized void addCreationListener(BiConsumer<String, LocalCacheService<Object, Object>> listener) {
+        Objects.requireNonNull(listener);
+        creationListeners.add(listener);
+        caches.forEach(listener);
+    }
+
+    /**
+     * 判断是否配置了该名称的缓存。
+     *
+     * @param name 缓存名称
+     * @return 配置了返回 true
+     */
+    public boolean contains(String name) {
+        return specs.containsKey(name);
+    }
+
+    /**
+     * 获取所有配置的缓存名称，包括尚未创建的缓存。
+     *
+     * @return 缓存名称集合
+     */
+    public Set<String> getCacheNames() {
+        return specs.keySet();
+    }
+
+    // 创建与通知在同一把锁内完成，监听器注册时不会漏掉或重复收到同一个缓存
+    private synchronized LocalCacheService<Object, Object> createIfAbsent(String name, LocalCacheProperties.Spec spec) {
+        LocalCacheService<Object, Object> cache = caches.get(name);
+        if (cache == null) {
+            cache = create(spec);
+            caches.put(name, cache);
+            for (BiConsumer<String, LocalCacheService<Object, Object>> listener : creationListeners) {
+                listener.accept(name, cache);
+            }
+        }
+        return cache;
+    }
+
+    // 配置了 negativeTtl 时装饰为负缓存
+    private LocalCacheService<Object, Object> create(LocalCacheProperties.Spec spec) {
+        LocalCacheProperties properties = spec.toProperties(defaults);
+        return NegativeCachingLocalCacheService.decorate(createEngine(spec.getType(), properties), properties);
+    }
+
+    // Guava、Caffeine 使用精确时钟，Map 与堆外缓存使用共享的粗粒度时钟，与单引擎配置保持一致
+    private LocalCacheService<Object, Object> createEngine(String type, LocalCacheProperties properties) {
+        return switch (type) {
+            case CacheTypeConstants.GUAVA ->
+                    new GuavaLocalCacheService<>(properties, Ticker.systemTicker(), executor, weigher);
+            case CacheTypeConstants.CAFFEINE ->
+                    new CaffeineLocalCacheService<>(properties, Ticker.systemTicker(), executor, weigher);
+            case CacheTypeConstants.MAP ->
+                    new MapLocalCacheService<>(properties, CoarseTicker.shared(), executor, weigher);
+            case CacheTypeConstants.OFF_HEAP ->
+                    new OffHeapLocalCacheService<>(properties, serializer, serializer, CoarseTicker.shared(), executor);
+            default -> throw new IllegalArgumentException("Unsupported cache type: " + type);
+        };
+    }
+}
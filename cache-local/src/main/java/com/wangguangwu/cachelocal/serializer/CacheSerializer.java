@@ -0,0 +1,65 @@
+package com.wangguangwu.cachelocal.serializer;
+
+import java.util.Arrays;
+
+/**
+ * 缓存序列化接口，用于将缓存的键和值转换为字节数组，供堆外缓存等需要脱离 Java 堆存储数据的场景使用。
+ * <p>
+ * 实现类需要保证：同一个对象多次序列化得到相同的字节，相等的键序列化后字节也相等。
+ * </p>
+ *
+ * @param <T> 序列化的对象类型
+ * @author wangguangwu
+ */
+public interface CacheSerializer<T> {
+
+    /**
+     * 将对象序列化为字节数组
+     *
+     * @param value 对象，不为 null
+     * @return 字节数组
+     */
+    byte[] serialize(T value);
+
+    /**
+     * 将对象序列化为字节数组，并在开头预留若干字节，供装饰器直接写入编码头，不必再复制一次。
+     * 默认实现序列化后复制到新数组，能直接写入预留位置的实现应覆盖该方法。
+     *
+     * @param value        对象，不为 null
+     * @param headerLength 开头预留的字节数，预留部分为 0
+     * @return 字节数组，序列化结果从 headerLength 开始
+     */
+    default byte[] serialize(T value, int headerLength) {
+        byte[] bytes = serialize(value);
+        if (headerLength == 0) {
+            return bytes;
+        }
+        byte[] result = new byte[headerLength + bytes.length];
+        System.arraycopy(bytes, 0, result, headerLength, bytes.length);
+        return result;
+    }
+
+    /**
+     * 将字节数组反序列化为对象
+     *
+     * @param bytes 字节数组
+     * @return 对象
+     */
+    T deserialize(byte[] bytes);
+
+    /**
+     * 从字节数组的指定区间反序列化对象。
+     * 默认实现复制该区间后调用 {@link #deserialize(byte[])}，能直接读取区间的实现应覆盖该方法。
+     *
+     * @param bytes  字节数组
+     * @param offset 起始位置
+     * @param length 字节数
+     * @return 对象
+     */
+    default T deserialize(byte[] bytes, int offset, int length) {
+        if (offset == 0 && length == bytes.length) {
+            return deserialize(bytes);
+        }
+        return deserialize(Arrays.copyOfRange(bytes, offset, offset + length));
+    }
+}
@@ -0,0 +1,53 @@
+package com.wangguangwu.cachelocal.serializer;
+
+import com.wangguangwu.cachelocal.exception.CacheException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * 基于 JDK 序列化的缓存序列化实现，要求对象实现 {@link java.io.Serializable}。
+ * <p>
+ * 通用但体积较大、速度较慢，对性能敏感的场景建议提供专用的 {@link CacheSerializer} 实现。
+ * </p>
+ *
+ * @param <T> 序列化的对象类型
+ * @author wangguangwu
+ */
+public class JdkCacheSerializer<T> implements CacheSerializer<T> {
+
+    @Override
+    public byte[] serialize(T value) {
+        return serialize(value, 0);
+    }
+
+    @Override
+    public byte[] serialize(T value, int headerLength) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + headerLength);
+        bytes.write(new byte[headerLength], 0, headerLength);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new CacheException("Error serializing value: " + value, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) {
+        return deserialize(bytes, 0, bytes.length);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(byte[] bytes, int offset, int length) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes, offset, length))) {
+            return (T) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new CacheException("Error deserializing value", e);
+        }
+    }
+}
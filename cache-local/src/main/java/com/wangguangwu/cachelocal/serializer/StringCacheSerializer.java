@@ -0,0 +1,26 @@
+package com.wangguangwu.cachelocal.serializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 字符串的缓存序列化实现，使用 UTF-8 编码。
+ *
+ * @author wangguangwu
+ */
+public class StringCacheSerializer implements CacheSerializer<String> {
+
+    @Override
+    public byte[] serialize(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String deserialize(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String deserialize(byte[] bytes, int offset, int length) {
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+}
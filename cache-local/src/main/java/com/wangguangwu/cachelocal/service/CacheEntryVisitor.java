@@ -0,0 +1,23 @@
+package com.wangguangwu.cachelocal.service;
+
+import java.time.Duration;
+
+/**
+ * 缓存项遍历回调，由 {@link LocalCacheService#forEachEntry(CacheEntryVisitor)} 对每个未过期的缓存项调用一次。
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+@FunctionalInterface
+public interface CacheEntryVisitor<K, V> {
+
+    /**
+     * 处理一个缓存项
+     *
+     * @param key       键
+     * @param value     值
+     * @param remaining 剩余存活时间，大于 0
+     */
+    void visit(K key, V value, Duration remaining);
+}
@@ -1,7 +1,13 @@
 package com.wangguangwu.cachelocal.service;
 
+import com.wangguangwu.cachelocal.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * 本地缓存服务接口
@@ -20,6 +26,21 @@ public interface LocalCacheService<K, V> {
      */
     void put(K key, V value);
 
+    /**
+     * 向缓存中添加一个键值对，并单独指定过期时间
+     * <p>
+     * 缓存项在写入 ttl 之后过期，不再受全局的 expireAfterWrite 与 expireAfterAccess 约束；
+     * 之后再通过 {@link #put(Object, Object)} 覆盖写入时恢复为全局过期策略。
+     * Guava 引擎的底层缓存只能按全局过期时间淘汰，ttl 不能超过全局 expireAfterWrite 与 expireAfterAccess 中较小的一个。
+     * </p>
+     *
+     * @param key   键
+     * @param value 值
+     * @param ttl   过期时间，必须大于 0
+     * @throws IllegalArgumentException 如果 ttl 不大于 0，或超过引擎支持的上限
+     */
+    void put(K key, V value, Duration ttl);
+
     /**
      * 获取缓存中的值
      *
@@ -29,14 +50,46 @@ public interface LocalCacheService<K, V> {
     V getIfPresent(K key);
 
     /**
-     * 获取缓存中的值，如果不存在则计算值并存入缓存后返回
+     * 获取缓存中的值，如果不存在则计算值并存入缓存后返回。
+     * 计算结果为 null 时不写入缓存，需要缓存不存在的结果时使用
+     * {@link com.wangguangwu.cachelocal.negative.NegativeCachingLocalCacheService}
      *
      * @param key             键
      * @param mappingFunction 计算值的函数
-     * @return 缓存中的值
+     * @return 缓存中的值，计算结果为 null 时返回 null
      */
     V get(K key, Function<? super K, ? extends V> mappingFunction);
 
+    /**
+     * 异步获取缓存中的值，如果不存在则调用 mappingFunction 异步加载并存入缓存
+     * <p>
+     * 同一个 key 的并发未命中共享同一次进行中的加载，mappingFunction 在加载执行器上运行，不持有任何缓存锁。
+     * 加载结果为 null 时不写入缓存。
+     * </p>
+     *
+     * @param key             键
+     * @param mappingFunction 异步计算值的函数
+     * @return 值的 CompletableFuture，加载失败时以异常结束
+     */
+    CompletableFuture<V> getAsync(K key, Function<? super K, ? extends CompletableFuture<? extends V>> mappingFunction);
+
+    /**
+     * 批量获取缓存中的值，所有未命中的 key 通过一次 mappingFunction 调用批量加载并存入缓存
+     *
+     * @param keys            键集合
+     * @param mappingFunction 批量计算值的函数，入参为未命中的键集合，返回结果中缺失的 key 视为不存在
+     * @return 键值映射，只包含存在值的 key，按请求顺序排列
+     */
+    Map<K, V> getAll(Iterable<? extends K> keys,
+                     Function<? super Set<? extends K>, ? extends Map<? extends K, ? extends V>> mappingFunction);
+
+    /**
+     * 批量向缓存中添加键值对
+     *
+     * @param map 键值映射
+     */
+    void putAll(Map<? extends K, ? extends V> map);
+
     /**
      * 判断缓存中是否存在某个 key
      *
@@ -57,8 +110,61 @@ public interface LocalCacheService<K, V> {
      */
     void invalidateAll();
 
+    /**
+     * 批量移除缓存中的键值对
+     *
+     * @param keys 键集合
+     */
+    void invalidateAll(Iterable<? extends K> keys);
+
+    /**
+     * 重新设置缓存项的过期时间，缓存项从当前时间起 ttl 之后过期，ttl 的上限与 {@link #put(Object, Object, Duration)} 相同
+     *
+     * @param key 键
+     * @param ttl 过期时间，必须大于 0
+     * @return 缓存项存在且未过期时返回 true，否则不做任何修改并返回 false
+     * @throws IllegalArgumentException 如果 ttl 不大于 0，或超过引擎支持的上限
+     */
+    boolean setExpiration(K key, Duration ttl);
+
+    /**
+     * 获取缓存项的剩余存活时间
+     *
+     * @param key 键
+     * @return 剩余存活时间，缓存项不存在或已过期时返回 null
+     */
+    Duration getExpiration(K key);
+
+    /**
+     * 遍历所有未过期的缓存项及其剩余存活时间，不记录访问，也不计入统计
+     * <p>
+     * 遍历期间的并发写入可能可见也可能不可见，用于导出快照等弱一致的场景。
+     * </p>
+     *
+     * @param visitor 缓存项回调
+     */
+    void forEachEntry(CacheEntryVisitor<? super K, ? super V> visitor);
+
+    /**
+     * 惰性遍历匹配 pattern 的未过期 key，不记录访问，也不计入统计
+     * <p>
+     * 返回的 Stream 在消费时才分批从缓存中取出 key，不会一次性生成完整的键集合，
+     * 适合管理任务与预热任务遍历大量 key。遍历是弱一致的：遍历期间一直存在且未被修改的 key 至少返回一次，
+     * 并发写入、删除的 key 可能可见也可能不可见，部分实现在并发修改时可能重复返回同一个 key。
+     * </p>
+     *
+     * @param pattern   glob 表达式，与 Redis SCAN MATCH 的语义一致，作用于 key 的字符串形式，null 表示所有 key
+     * @param batchSize 每批取出的 key 数量，必须大于 0；分段加锁的实现每次加锁最多复制这么多 key，
+     *                  基于并发 Map 的实现无锁遍历，忽略该参数
+     * @return key 的惰性 Stream
+     */
+    Stream<K> scan(String pattern, int batchSize);
+
     /**
      * 返回缓存中的所有键集合
+     * <p>
+     * 需要遍历大量 key 时使用 {@link #scan(String, int)}，避免生成完整的键集合。
+     * </p>
      *
      * @return 键集合
      */
@@ -70,4 +176,11 @@ public interface LocalCacheService<K, V> {
      * @return 当前缓存的大小
      */
     int size();
+
+    /**
+     * 获取缓存统计信息的快照，包括命中与未命中次数、加载次数与耗时、按原因统计的淘汰次数以及各操作的耗时分布
+     *
+     * @return 不可变的统计信息快照，未开启统计时所有计数都为 0
+     */
+    CacheStats stats();
 }
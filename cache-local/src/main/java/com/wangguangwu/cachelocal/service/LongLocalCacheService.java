@@ -0,0 +1,75 @@
+package com.wangguangwu.cachelocal.service;
+
+import java.util.function.LongFunction;
+
+/**
+ * 以基本类型 long 为键的本地缓存服务接口。
+ * <p>
+ * 与 {@link LocalCacheService} 语义一致，但键直接以 long 传递，避免装箱为 {@link Long}，
+ * 适用于以数字 ID 作为键的高频访问场景。
+ * </p>
+ *
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+public interface LongLocalCacheService<V> {
+
+    /**
+     * 向缓存中添加一个键值对
+     *
+     * @param key   键
+     * @param value 值
+     */
+    void put(long key, V value);
+
+    /**
+     * 获取缓存中的值
+     *
+     * @param key 键
+     * @return 缓存中的值，如果不存在则返回 null
+     */
+    V getIfPresent(long key);
+
+    /**
+     * 获取缓存中的值，如果不存在则计算值并存入缓存后返回
+     *
+     * @param key             键
+     * @param mappingFunction 计算值的函数
+     * @return 缓存中的值
+     */
+    V get(long key, LongFunction<? extends V> mappingFunction);
+
+    /**
+     * 判断缓存中是否存在某个 key
+     *
+     * @param key 键
+     * @return 如果存在则返回 true，否则返回 false
+     */
+    boolean containsKey(long key);
+
+    /**
+     * 移除缓存中的某个键值对
+     *
+     * @param key 键
+     */
+    void invalidate(long key);
+
+    /**
+     * 移除所有缓存项
+     */
+    void invalidateAll();
+
+    /**
+     * 返回缓存中所有键的快照
+     *
+     * @return 键数组
+     */
+    long[] keys();
+
+    /**
+     * 获取当前缓存的大小
+     *
+     * @return 当前缓存的大小
+     */
+    int size();
+}
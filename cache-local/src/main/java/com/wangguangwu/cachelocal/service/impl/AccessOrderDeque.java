@@ -0,0 +1,84 @@
+package com.wangguangwu.cachelocal.service.impl;
+
+import java.util.function.Consumer;
+
+/**
+ * 按访问顺序排列缓存项的双向链表，链表头为最久未访问的缓存项，链表尾为最近访问的缓存项。
+ * <p>
+ * 直接复用缓存项上的链表指针，入队与出队不产生额外对象；一个缓存项同一时间只能位于一个链表中。
+ * 该类不是线程安全的，调用方需要在分段锁内访问。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+final class AccessOrderDeque<K, V> {
+
+    private MapCacheNode<K, V> head;
+
+    private MapCacheNode<K, V> tail;
+
+    private int size;
+
+    MapCacheNode<K, V> peekFirst() {
+        return head;
+    }
+
+    MapCacheNode<K, V> peekLast() {
+        return tail;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void linkLast(MapCacheNode<K, V> node) {
+        node.prev = tail;
+        node.next = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        size++;
+    }
+
+    void unlink(MapCacheNode<K, V> node) {
+        MapCacheNode<K, V> prev = node.prev;
+        MapCacheNode<K, V> next = node.next;
+        if (prev == null) {
+            head = next;
+        } else {
+            prev.next = next;
+        }
+        if (next == null) {
+            tail = prev;
+        } else {
+            next.prev = prev;
+        }
+        node.prev = null;
+        node.next = null;
+        size--;
+    }
+
+    void moveToTail(MapCacheNode<K, V> node) {
+        if (node != tail) {
+            unlink(node);
+            linkLast(node);
+        }
+    }
+
+    void forEach(Consumer<MapCacheNode<K, V>> action) {
+        for (MapCacheNode<K, V> node = head; node != null; node = node.next) {
+            action.accept(node);
+        }
+    }
+
+    void clear() {
+        head = null;
+        tail = null;
+        size = 0;
+    }
+}
@@ -1,18 +1,52 @@
 package com.wangguangwu.cachelocal.service.impl;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import com.github.benmanes.caffeine.cache.Weigher;
 import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.service.CacheEntryVisitor;
 import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.stats.CacheOperation;
+import com.wangguangwu.cachelocal.stats.CacheStats;
+import com.wangguangwu.cachelocal.stats.EvictionCause;
+import com.wangguangwu.cachelocal.stats.StatsCounter;
+import com.wangguangwu.cachelocal.support.KeyPattern;
+import com.wangguangwu.cachelocal.support.LoaderExecutors;
+import com.wangguangwu.cachelocal.support.Ticker;
+import com.wangguangwu.cachelocal.weigher.CacheWeigher;
+import com.wangguangwu.cachelocal.weigher.EstimatedSizeWeigher;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.OptionalLong;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * 基于 Caffeine 实现的本地缓存服务。
  * 该服务提供了常见的缓存操作，如放入缓存、获取缓存、判断缓存是否存在、缓存清除等。
  * 支持缓存的过期策略和最大容量限制。
+ * <p>
+ * 缓存中存放的是带写入时间的 {@link TimestampedValue}，用于支持 refreshAfterWrite 与 staleIfError，
+ * 具体语义见 {@link RefreshPolicy}。Caffeine 原生的 refreshAfterWrite 依赖固定的 CacheLoader，
+ * 与按调用传入加载函数的接口不兼容，因此刷新由 RefreshPolicy 完成。
+ * </p>
+ * <p>
+ * 过期通过 Caffeine 的 {@link Expiry} 按缓存项计算：未单独设置过期时间的缓存项按全局的 expireAfterWrite 与
+ * expireAfterAccess 中较早的一个过期，单独设置了的按各自的到期时间过期，由 Caffeine 的时间轮调度，不扫描整个缓存。
+ * </p>
  *
  * @author wangguangwu
  * @param <K> 缓存的键类型
@@ -20,35 +54,92 @@ import java.util.function.Function;
  */
 public class CaffeineLocalCacheService<K, V> implements LocalCacheService<K, V> {
 
-    private final Cache<K, V> cache;
+    // 异步缓存，进行中的加载以 CompletableFuture 的形式存放在缓存中，天然合并同一个 key 的并发加载
+    private final AsyncCache<K, TimestampedValue<V>> asyncCache;
+
+    // 异步缓存的同步视图，同步操作都通过它完成
+    private final Cache<K, TimestampedValue<V>> cache;
+
+    // 刷新与 stale-if-error 逻辑
+    private final RefreshPolicy<K, V> refreshPolicy;
+
+    // 统计信息记录器，替代 Caffeine 自带的 recordStats，与其他缓存实现使用同一套统计口径
+    private final StatsCounter statsCounter;
+
+    /**
+     * 构造方法，使用默认的加载执行器。
+     *
+     * @param localCacheProperties 缓存配置属性，包含过期时间、访问过期时间和最大缓存容量
+     */
+    public CaffeineLocalCacheService(LocalCacheProperties localCacheProperties) {
+        this(localCacheProperties, LoaderExecutors.defaultExecutor());
+    }
+
+    /**
+     * 构造方法，使用系统时间源。
+     *
+     * @param localCacheProperties 缓存配置属性，包含过期时间、访问过期时间和最大缓存容量
+     * @param executor             异步加载使用的执行器
+     */
+    public CaffeineLocalCacheService(LocalCacheProperties localCacheProperties, Executor executor) {
+        this(localCacheProperties, Ticker.systemTicker(), executor);
+    }
 
     /**
      * 构造方法，配置缓存策略。
      * 使用 Caffeine 的构建器来设置缓存过期时间、访问后过期时间、最大缓存大小等。
-     * 配置了键弱引用、值软引用以及启用了缓存统计，确保在内存压力下缓存能被合理回收。
+     * 配置了键弱引用以及启用了缓存统计；异步缓存不支持值软引用，值的回收交由容量与过期策略控制。
      *
      * @param localCacheProperties 缓存配置属性，包含过期时间、访问过期时间和最大缓存容量
+     * @param ticker               时间源，同时用于 Caffeine 的过期判断
+     * @param executor             异步加载与后台刷新使用的执行器
      */
-    public CaffeineLocalCacheService(LocalCacheProperties localCacheProperties) {
+    public CaffeineLocalCacheService(LocalCacheProperties localCacheProperties, Ticker ticker, Executor executor) {
+        this(localCacheProperties, ticker, executor, new EstimatedSizeWeigher<>());
+    }
+
+    /**
+     * 构造方法，配置缓存策略。
+     * 配置了 maximumWeight 时使用 Caffeine 原生的按权重淘汰，权重由 weigher 计算，否则按 maximumSize 限制条目数。
+     *
+     * @param localCacheProperties 缓存配置属性，包含过期时间、访问过期时间和最大缓存容量
+     * @param ticker               时间源，同时用于 Caffeine 的过期判断
+     * @param executor             异步加载与后台刷新使用的执行器
+     * @param weigher              缓存项权重计算，只在配置了 maximumWeight 时使用
+     */
+    public CaffeineLocalCacheService(LocalCacheProperties localCacheProperties, Ticker ticker, Executor executor,
+                                     CacheWeigher<? super K, ? super V> weigher) {
         // 检查最大缓存大小是否大于0，确保配置有效
-        if (localCacheProperties.getMaximumSize() <= 0) {
+        if (localCacheProperties.getMaximumWeight() <= 0 && localCacheProperties.getMaximumSize() <= 0) {
             throw new IllegalArgumentException("Maximum cache size must be greater than 0");
         }
 
-        cache = Caffeine.newBuilder()
-                // expireAfterWrite: 指定缓存项在写入后多久过期。这里使用 localCacheProperties.getExpireAfterWrite() 指定秒数。
-                .expireAfterWrite(localCacheProperties.getExpireAfterWrite(), TimeUnit.SECONDS)
-                // expireAfterAccess: 指定缓存项在最后一次访问后多久过期。这里使用 localCacheProperties.getExpireAfterAccess() 指定秒数。
-                .expireAfterAccess(localCacheProperties.getExpireAfterAccess(), TimeUnit.SECONDS)
-                // maximumSize: 指定缓存的最大容量。当缓存项数量超过该值时，Caffeine 会根据一定的策略进行回收。
-                .maximumSize(localCacheProperties.getMaximumSize())
-                // weakKeys: 使用弱引用存储键，这样在内存不足时，键可以被垃圾回收，从而释放缓存空间。
-                .weakKeys()
-                // softValues: 使用软引用存储值，这样在内存不足时，值可以被垃圾回收，从而释放缓存空间。
-                .softValues()
-                // recordStats: 启用缓存统计功能，用于监控缓存的命中率和其他性能指标。
-                .recordStats()
-                .build();
+        statsCounter = localCacheProperties.isRecordStats() ? new StatsCounter() : StatsCounter.disabled();
+        refreshPolicy = new RefreshPolicy<>(localCacheProperties, ticker, executor);
+        RemovalListener<K, TimestampedValue<V>> removalListener = (key, holder, cause) -> recordEviction(cause);
+        Caffeine<K, TimestampedValue<V>> builder = Caffeine.newBuilder()
+                // expireAfter: 按缓存项计算过期时间，启用 stale-if-error 时包含 stale 窗口。
+                .expireAfter(new EntryExpiryPolicy())
+                // 键按 equals 比较，不使用 weakKeys：弱引用键按引用比较，每次新建的相等键（如 Spring 缓存注解生成的键）永远无法命中。
+                // removalListener: 缓存项因容量或过期而淘汰时记录统计，在 executor 上异步执行。
+                // 主动移除与覆盖写入同样会触发回调，在回调中按原因过滤。
+                .removalListener(removalListener)
+                // executor: 异步加载与缓存维护任务使用的执行器。
+                .executor(executor)
+                // ticker: 与刷新判断使用同一个时间源。
+                .ticker(ticker::read);
+        if (localCacheProperties.getMaximumWeight() > 0) {
+            // maximumWeight: 指定缓存的最大权重。当权重总和超过该值时，Caffeine 会根据一定的策略进行回收。
+            Weigher<K, TimestampedValue<V>> entryWeigher = (key, holder) -> weigher.weigh(key, holder.value);
+            asyncCache = builder.maximumWeight(localCacheProperties.getMaximumWeight())
+                    .weigher(entryWeigher)
+                    .buildAsync();
+        } else {
+            // maximumSize: 指定缓存的最大容量。当缓存项数量超过该值时，Caffeine 会根据一定的策略进行回收。
+            asyncCache = builder.maximumSize(localCacheProperties.getMaximumSize())
+                    .buildAsync();
+        }
+        cache = asyncCache.synchronous();
     }
 
     /**
@@ -59,7 +150,24 @@ public class CaffeineLocalCacheService<K, V> implements LocalCacheService<K, V>
      */
     @Override
     public void put(K key, V value) {
-        cache.put(key, value);
+        long start = statsCounter.startTime();
+        cache.put(key, refreshPolicy.wrap(value));
+        statsCounter.recordOperation(CacheOperation.PUT, start);
+    }
+
+    /**
+     * 将指定的键值对放入缓存中，并单独指定过期时间。
+     *
+     * @param key   要缓存的键
+     * @param value 要缓存的值
+     * @param ttl   过期时间
+     */
+    @Override
+    public void put(K key, V value, Duration ttl) {
+        long ttlNanos = EntryExpiry.toNanos(ttl);
+        long start = statsCounter.startTime();
+        cache.put(key, refreshPolicy.wrap(value, ttlNanos));
+        statsCounter.recordOperation(CacheOperation.PUT, start);
     }
 
     /**
@@ -70,11 +178,16 @@ public class CaffeineLocalCacheService<K, V> implements LocalCacheService<K, V>
      */
     @Override
     public V getIfPresent(K key) {
-        return cache.getIfPresent(key);
+        long start = statsCounter.startTime();
+        V value = refreshPolicy.read(cache.getIfPresent(key));
+        recordRead(value != null);
+        statsCounter.recordOperation(CacheOperation.GET_IF_PRESENT, start);
+        return value;
     }
 
     /**
      * 如果 key 存在，则返回对应的值；如果 key 不存在，则使用提供的 mappingFunction 计算并存入缓存后返回。
+     * 命中的值需要刷新时照常返回，同时在后台重新加载。
      *
      * @param key             键
      * @param mappingFunction 计算值的方法
@@ -82,7 +195,122 @@ public class CaffeineLocalCacheService<K, V> implements LocalCacheService<K, V>
      */
     @Override
     public V get(K key, Function<? super K, ? extends V> mappingFunction) {
-        return cache.get(key, mappingFunction);
+        long start = statsCounter.startTime();
+        TimestampedValue<V> holder = cache.getIfPresent(key);
+        V value = refreshPolicy.read(holder);
+        recordRead(value != null);
+        Function<K, V> recordingFunction = statsCounter.recordingLoads(mappingFunction);
+        if (value != null) {
+            refreshPolicy.refreshIfNeeded(key, holder, recordingFunction, writerFor(holder));
+        } else if (holder == null) {
+            value = unwrap(cache.get(key, k -> refreshPolicy.wrapNullable(recordingFunction.apply(k))));
+        } else {
+            value = refreshPolicy.loadOrStale(key, holder, recordingFunction, writerFor(holder));
+        }
+        statsCounter.recordOperation(CacheOperation.GET, start);
+        return value;
+    }
+
+    /**
+     * 异步获取缓存值，未命中时由 Caffeine 合并同一个 key 的并发请求，mappingFunction 在加载执行器上运行。
+     *
+     * @param key             要获取的键
+     * @param mappingFunction 异步计算值的方法
+     * @return 值的 CompletableFuture
+     */
+    @Override
+    public CompletableFuture<V> getAsync(K key, Function<? super K, ? extends CompletableFuture<? extends V>> mappingFunction) {
+        TimestampedValue<V> holder = cache.getIfPresent(key);
+        V value = refreshPolicy.read(holder);
+        recordRead(value != null);
+        Function<K, CompletableFuture<? extends V>> recordingFunction = statsCounter.recordingAsyncLoads(mappingFunction);
+        if (value != null) {
+            refreshPolicy.refreshAsyncIfNeeded(key, holder, recordingFunction, writerFor(holder));
+            return CompletableFuture.completedFuture(value);
+        }
+        if (holder != null) {
+            return refreshPolicy.loadOrStaleAsync(key, holder, recordingFunction, writerFor(holder));
+        }
+        return asyncCache.get(key, (k, executor) -> CompletableFuture
+                        .supplyAsync(() -> CaffeineLocalCacheService.<V>narrow(recordingFunction.apply(k)), executor)
+                        .thenCompose(Function.identity())
+                        .thenApply(refreshPolicy::wrapNullable))
+                .thenApply(CaffeineLocalCacheService::unwrap);
+    }
+
+    /**
+     * 批量获取缓存值，未命中的 key 由 Caffeine 合并为一次 mappingFunction 调用加载。
+     * 处于 stale 窗口内的值再批量重新加载一次，加载抛出异常时返回旧值。
+     *
+     * @param keys            键集合
+     * @param mappingFunction 批量计算值的方法
+     * @return 存在值的键值映射
+     */
+    @Override
+    public Map<K, V> getAll(Iterable<? extends K> keys,
+                            Function<? super Set<? extends K>, ? extends Map<? extends K, ? extends V>> mappingFunction) {
+        long start = statsCounter.startTime();
+        Set<K> requested = new LinkedHashSet<>();
+        keys.forEach(requested::add);
+        Function<Set<? extends K>, Map<? extends K, ? extends V>> recordingFunction =
+                statsCounter.recordingBulkLoads(mappingFunction);
+        int[] missCount = new int[1];
+        Map<K, TimestampedValue<V>> holders = cache.getAll(requested, misses -> {
+            missCount[0] = misses.size();
+            return wrapAll(recordingFunction.apply(misses), Collections.emptyMap());
+        });
+        Map<K, V> result = new LinkedHashMap<>();
+        Set<K> stale = new LinkedHashSet<>();
+        holders.forEach((key, holder) -> {
+            V value = refreshPolicy.read(holder);
+            if (value != null) {
+                result.put(key, value);
+            } else {
+                stale.add(key);
+            }
+        });
+        // 底层缓存未命中的 key 由批量加载函数统计，处于 stale 窗口内的 key 同样视为未命中
+        statsCounter.recordMisses(missCount[0] + stale.size());
+        statsCounter.recordHits(requested.size() - missCount[0] - stale.size());
+        if (stale.isEmpty()) {
+            statsCounter.recordOperation(CacheOperation.GET_ALL, start);
+            return Collections.unmodifiableMap(result);
+        }
+
+        Map<? extends K, ? extends V> reloaded;
+        boolean failed = false;
+        try {
+            reloaded = recordingFunction.apply(Collections.unmodifiableSet(stale));
+            cache.putAll(wrapAll(reloaded, holders));
+        } catch (RuntimeException e) {
+            reloaded = Collections.emptyMap();
+            failed = true;
+        }
+        // 按请求顺序合并结果，只有重新加载抛出异常时才使用旧值，加载成功但没有返回值的 key 视为不存在
+        Map<K, V> ordered = new LinkedHashMap<>();
+        for (K key : holders.keySet()) {
+            V value = !stale.contains(key) ? result.get(key)
+                    : failed ? holders.get(key).value : reloaded.get(key);
+            if (value != null) {
+                ordered.put(key, value);
+            }
+        }
+        statsCounter.recordOperation(CacheOperation.GET_ALL, start);
+        return Collections.unmodifiableMap(ordered);
+    }
+
+    /**
+     * 批量将键值对放入缓存中。
+     *
+     * @param map 要缓存的键值映射
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        long start = statsCounter.startTime();
+        Map<K, TimestampedValue<V>> wrapped = new LinkedHashMap<>();
+        map.forEach((key, value) -> wrapped.put(key, refreshPolicy.wrap(value)));
+        cache.putAll(wrapped);
+        statsCounter.recordOperation(CacheOperation.PUT_ALL, start);
     }
 
     /**
@@ -93,7 +321,10 @@ public class CaffeineLocalCacheService<K, V> implements LocalCacheService<K, V>
      */
     @Override
     public boolean containsKey(K key) {
-        return cache.asMap().containsKey(key);
+        if (!refreshPolicy.hasStaleWindow()) {
+            return cache.asMap().containsKey(key);
+        }
+        return refreshPolicy.isPresent(cache.policy().getIfPresentQuietly(key));
     }
 
     /**
@@ -103,7 +334,9 @@ public class CaffeineLocalCacheService<K, V> implements LocalCacheService<K, V>
      */
     @Override
     public void invalidate(K key) {
+        long start = statsCounter.startTime();
         cache.invalidate(key);
+        statsCounter.recordOperation(CacheOperation.INVALIDATE, start);
     }
 
     /**
@@ -115,7 +348,87 @@ public class CaffeineLocalCacheService<K, V> implements LocalCacheService<K, V>
     }
 
     /**
-     * 返回缓存中的所有键。
+     * 批量移除指定的键。
+     *
+     * @param keys 要移除的键集合
+     */
+    @Override
+    public void invalidateAll(Iterable<? extends K> keys) {
+        cache.invalidateAll(keys);
+    }
+
+    /**
+     * 重新设置缓存项的过期时间，通过替换缓存值触发 Caffeine 按新的到期时间重新调度。
+     *
+     * @param key 键
+     * @param ttl 过期时间
+     * @return 缓存项存在且未过期时返回 true
+     */
+    @Override
+    public boolean setExpiration(K key, Duration ttl) {
+        long ttlNanos = EntryExpiry.toNanos(ttl);
+        boolean[] updated = new boolean[1];
+        cache.asMap().computeIfPresent(key, (k, holder) -> {
+            if (!refreshPolicy.isPresent(holder)) {
+                return holder;
+            }
+            updated[0] = true;
+            return refreshPolicy.withExpiration(holder, ttlNanos);
+        });
+        return updated[0];
+    }
+
+    /**
+     * 获取缓存项的剩余存活时间，由 Caffeine 记录的过期时间减去 stale 窗口得到。
+     *
+     * @param key 键
+     * @return 剩余存活时间，不存在或已过期时返回 null
+     */
+    @Override
+    public Duration getExpiration(K key) {
+        if (!refreshPolicy.isPresent(cache.policy().getIfPresentQuietly(key))) {
+            return null;
+        }
+        return remaining(key);
+    }
+
+    /**
+     * 遍历未过期的缓存项，遍历不会记录访问。
+     *
+     * @param visitor 缓存项回调
+     */
+    @Override
+    public void forEachEntry(CacheEntryVisitor<? super K, ? super V> visitor) {
+        cache.asMap().forEach((key, holder) -> {
+            if (refreshPolicy.isPresent(holder)) {
+                Duration remaining = remaining(key);
+                if (remaining != null) {
+                    visitor.visit(key, holder.value, remaining);
+                }
+            }
+        });
+    }
+
+    /**
+     * 惰性遍历匹配的 key，基于并发 Map 的弱一致迭代，不加锁，忽略 batchSize。
+     *
+     * @param pattern   glob 表达式，null 表示所有 key
+     * @param batchSize 每批取出的 key 数量
+     * @return key 的惰性 Stream
+     */
+    @Override
+    public Stream<K> scan(String pattern, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0: " + batchSize);
+        }
+        KeyPattern keyPattern = KeyPattern.compile(pattern);
+        return cache.asMap().entrySet().stream()
+                .filter(entry -> refreshPolicy.isPresent(entry.getValue()) && keyPattern.test(entry.getKey()))
+                .map(Map.Entry::getKey);
+    }
+
+    /**
+     * 返回缓存中的所有键，启用 stale-if-error 时包含处于 stale 窗口内的键。
      *
      * @return 缓存中的键集合
      */
@@ -133,4 +446,91 @@ public class CaffeineLocalCacheService<K, V> implements LocalCacheService<K, V>
     public int size() {
         return (int) cache.estimatedSize();
     }
+
+    /**
+     * 获取缓存统计信息的快照。
+     *
+     * @return 不可变的统计信息快照
+     */
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    // 过期时间的计算委托给 RefreshPolicy，与 stale-if-error 窗口保持一致
+    private final class EntryExpiryPolicy implements Expiry<K, TimestampedValue<V>> {
+
+        @Override
+        public long expireAfterCreate(K key, TimestampedValue<V> holder, long currentTime) {
+            return refreshPolicy.expireAfterWrite(holder, currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, TimestampedValue<V> holder, long currentTime, long currentDuration) {
+            return refreshPolicy.expireAfterWrite(holder, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, TimestampedValue<V> holder, long currentTime, long currentDuration) {
+            return refreshPolicy.expireAfterRead(holder, currentTime, currentDuration);
+        }
+    }
+
+    // Caffeine 记录的过期时间减去 stale 窗口
+    private Duration remaining(K key) {
+        OptionalLong expiresAfter = cache.policy().expireVariably()
+                .map(policy -> policy.getExpiresAfter(key, TimeUnit.NANOSECONDS))
+                .orElse(OptionalLong.empty());
+        return expiresAfter.isPresent()
+                ? EntryExpiry.remaining(expiresAfter.getAsLong() - refreshPolicy.staleWindowNanos())
+                : null;
+    }
+
+    // 刷新与重新加载的写回沿用缓存项单独设置的过期时间，未设置时按全局配置过期
+    private BiConsumer<K, V> writerFor(TimestampedValue<V> holder) {
+        if (holder == null || holder.ttlNanos == 0) {
+            return this::put;
+        }
+        return (key, value) -> put(key, value, Duration.ofNanos(holder.ttlNanos));
+    }
+
+    private void recordRead(boolean hit) {
+        if (hit) {
+            statsCounter.recordHits(1);
+        } else {
+            statsCounter.recordMisses(1);
+        }
+    }
+
+    // 只记录淘汰，主动移除与覆盖写入不计入
+    private void recordEviction(RemovalCause cause) {
+        switch (cause) {
+            case SIZE -> statsCounter.recordEviction(EvictionCause.SIZE);
+            case EXPIRED -> statsCounter.recordEviction(EvictionCause.EXPIRED);
+            case COLLECTED -> statsCounter.recordEviction(EvictionCause.COLLECTED);
+            default -> {
+            }
+        }
+    }
+
+    // 加载结果中值为 null 的 key 不写入缓存，previous 中的旧值单独设置的过期时间沿用
+    private Map<K, TimestampedValue<V>> wrapAll(Map<? extends K, ? extends V> values,
+                                                Map<K, TimestampedValue<V>> previous) {
+        Map<K, TimestampedValue<V>> wrapped = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            if (value != null) {
+                wrapped.put(key, refreshPolicy.rewrap(previous.get(key), value));
+            }
+        });
+        return wrapped;
+    }
+
+    private static <V> V unwrap(TimestampedValue<V> holder) {
+        return holder == null ? null : holder.value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> CompletableFuture<V> narrow(CompletableFuture<? extends V> future) {
+        return (CompletableFuture<V>) future;
+    }
 }
@@ -0,0 +1,66 @@
+package com.wangguangwu.cachelocal.service.impl;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * 缓存项单独过期时间的公共处理。
+ * <p>
+ * 通过 put(key, value, ttl) 或 setExpiration 设置了过期时间的缓存项在到期时间点过期，
+ * 不再受全局的 expireAfterWrite 与 expireAfterAccess 约束；未设置的缓存项仍按全局配置过期。
+ * 到期时间以时间源的纳秒表示，{@link #NO_DEADLINE} 表示未单独设置。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+final class EntryExpiry {
+
+    /**
+     * 未单独设置过期时间
+     */
+    static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    private EntryExpiry() {
+    }
+
+    /**
+     * 校验并转换过期时间，超出 long 范围的按最大值处理
+     *
+     * @param ttl 过期时间，必须大于 0
+     * @return 过期时间（纳秒）
+     */
+    static long toNanos(Duration ttl) {
+        Objects.requireNonNull(ttl, "ttl");
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("TTL must be greater than 0: " + ttl);
+        }
+        try {
+            return ttl.toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * 计算到期时间，结果不会等于 {@link #NO_DEADLINE}
+     *
+     * @param now      当前时间（纳秒）
+     * @param ttlNanos 过期时间（纳秒）
+     * @return 到期时间（纳秒）
+     */
+    static long deadline(long now, long ttlNanos) {
+        // 溢出时取最大值，相当于永不过期
+        long deadline = now + ttlNanos;
+        return deadline < now ? Long.MAX_VALUE : deadline;
+    }
+
+    /**
+     * 剩余的存活时间，已过期时返回 null
+     *
+     * @param remainingNanos 剩余时间（纳秒）
+     * @return 剩余存活时间
+     */
+    static Duration remaining(long remainingNanos) {
+        return remainingNanos > 0 ? Duration.ofNanos(remainingNanos) : null;
+    }
+}
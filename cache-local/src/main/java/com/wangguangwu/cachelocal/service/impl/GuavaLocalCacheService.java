@@ -2,18 +2,50 @@ package com.wangguangwu.cachelocal.service.impl;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
 import com.wangguangwu.cachelocal.exception.CacheException;
 import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.service.CacheEntryVisitor;
 import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.stats.CacheOperation;
+import com.wangguangwu.cachelocal.stats.CacheStats;
+import com.wangguangwu.cachelocal.stats.EvictionCause;
+import com.wangguangwu.cachelocal.stats.StatsCounter;
+import com.wangguangwu.cachelocal.support.KeyPattern;
+import com.wangguangwu.cachelocal.support.LoaderExecutors;
+import com.wangguangwu.cachelocal.support.Ticker;
+import com.wangguangwu.cachelocal.weigher.CacheWeigher;
+import com.wangguangwu.cachelocal.weigher.EstimatedSizeWeigher;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * 基于 Guava 实现的本地缓存服务。
  * 本服务提供了常见的缓存操作，如放入缓存、获取缓存、判断缓存是否存在、缓存清除等。
  * 支持缓存的过期策略和最大容量限制。
+ * <p>
+ * 缓存中存放的是带写入时间的 {@link TimestampedValue}，用于支持 refreshAfterWrite 与 staleIfError，
+ * 具体语义见 {@link RefreshPolicy}。
+ * </p>
+ * <p>
+ * Guava 不支持按缓存项设置过期时间，单独设置的过期时间记录在 {@link TimestampedValue} 中，读取时判断；
+ * 底层缓存仍按全局的 expireAfterWrite 与 expireAfterAccess 淘汰，单独设置的过期时间超过两者中较小的一个时
+ * 抛出 {@link IllegalArgumentException}，配置的 negativeTtl 超过时构造失败。
+ * </p>
  *
  * @param <K> 缓存的键类型
  * @param <V> 缓存的值类型
@@ -21,24 +53,103 @@ import java.util.function.Function;
  */
 public class GuavaLocalCacheService<K, V> implements LocalCacheService<K, V> {
 
-    private final Cache<K, V> cache;
+    private final Cache<K, TimestampedValue<V>> cache;
+
+    // 刷新与 stale-if-error 逻辑，Guava 没有异步缓存，加载的请求合并也由它完成
+    private final RefreshPolicy<K, V> refreshPolicy;
+
+    // 统计信息记录器
+    private final StatsCounter statsCounter;
+
+    // 单独设置的过期时间上限（纳秒），即全局 expireAfterWrite 与 expireAfterAccess 中较小的一个
+    private final long maxTtlNanos;
+
+    /**
+     * GuavaLocalCacheService 构造方法，使用默认的加载执行器。
+     *
+     * @param localCacheProperties 缓存配置属性，包含过期时间、访问过期时间和最大缓存容量
+     */
+    public GuavaLocalCacheService(LocalCacheProperties localCacheProperties) {
+        this(localCacheProperties, LoaderExecutors.defaultExecutor());
+    }
+
+    /**
+     * GuavaLocalCacheService 构造方法，使用系统时间源。
+     *
+     * @param localCacheProperties 缓存配置属性，包含过期时间、访问过期时间和最大缓存容量
+     * @param executor             异步加载使用的执行器
+     */
+    public GuavaLocalCacheService(LocalCacheProperties localCacheProperties, Executor executor) {
+        this(localCacheProperties, Ticker.systemTicker(), executor);
+    }
 
     /**
      * GuavaLocalCacheService 构造方法，配置缓存策略。
      * 通过 Guava 的构建器设置缓存的过期时间、访问后过期时间和最大缓存大小等策略。
      *
      * @param localCacheProperties 缓存配置属性，包含过期时间、访问过期时间和最大缓存容量
+     * @param ticker               时间源，同时用于 Guava 的过期判断
+     * @param executor             异步加载与后台刷新使用的执行器
      */
-    public GuavaLocalCacheService(LocalCacheProperties localCacheProperties) {
-        if (localCacheProperties.getMaximumSize() <= 0) {
+    public GuavaLocalCacheService(LocalCacheProperties localCacheProperties, Ticker ticker, Executor executor) {
+        this(localCacheProperties, ticker, executor, new EstimatedSizeWeigher<>());
+    }
+
+    /**
+     * GuavaLocalCacheService 构造方法，配置缓存策略。
+     * 配置了 maximumWeight 时使用 Guava 原生的按权重淘汰，权重由 weigher 计算，否则按 maximumSize 限制条目数。
+     *
+     * @param localCacheProperties 缓存配置属性，包含过期时间、访问过期时间和最大缓存容量
+     * @param ticker               时间源，同时用于 Guava 的过期判断
+     * @param executor             异步加载与后台刷新使用的执行器
+     * @param weigher              缓存项权重计算，只在配置了 maximumWeight 时使用
+     * @throws IllegalArgumentException 如果没有配置容量，或 negativeTtl 超过全局过期时间
+     */
+    public GuavaLocalCacheService(LocalCacheProperties localCacheProperties, Ticker ticker, Executor executor,
+                                  CacheWeigher<? super K, ? super V> weigher) {
+        if (localCacheProperties.getMaximumWeight() <= 0 && localCacheProperties.getMaximumSize() <= 0) {
             throw new IllegalArgumentException("Maximum cache size must be greater than 0");
         }
+        maxTtlNanos = TimeUnit.SECONDS.toNanos(
+                Math.min(localCacheProperties.getExpireAfterWrite(), localCacheProperties.getExpireAfterAccess()));
+        // 负缓存的占位值按 negativeTtl 单独设置过期时间，配置错误在启动时发现而不是在加载时
+        if (TimeUnit.SECONDS.toNanos(localCacheProperties.getNegativeTtl()) > maxTtlNanos) {
+            throw new IllegalArgumentException("Negative TTL of " + localCacheProperties.getNegativeTtl()
+                    + "s exceeds the global expiry of Guava cache");
+        }
 
-        cache = CacheBuilder.newBuilder()
-                .expireAfterWrite(localCacheProperties.getExpireAfterWrite(), TimeUnit.SECONDS)
-                .expireAfterAccess(localCacheProperties.getExpireAfterAccess(), TimeUnit.SECONDS)
-                .maximumSize(localCacheProperties.getMaximumSize())
-                .build();
+        statsCounter = localCacheProperties.isRecordStats() ? new StatsCounter() : StatsCounter.disabled();
+        // 只记录淘汰，主动移除与覆盖写入不计入
+        RemovalListener<K, TimestampedValue<V>> removalListener = notification -> {
+            switch (notification.getCause()) {
+                case SIZE -> statsCounter.recordEviction(EvictionCause.SIZE);
+                case EXPIRED -> statsCounter.recordEviction(EvictionCause.EXPIRED);
+                case COLLECTED -> statsCounter.recordEviction(EvictionCause.COLLECTED);
+                default -> {
+                }
+            }
+        };
+        CacheBuilder<K, TimestampedValue<V>> builder = CacheBuilder.newBuilder()
+                // 启用 stale-if-error 时过期时间包含 stale 窗口，窗口内的值由 RefreshPolicy 判断是否可用
+                .expireAfterWrite(RefreshPolicy.physicalExpireAfterWrite(localCacheProperties), TimeUnit.SECONDS)
+                .expireAfterAccess(RefreshPolicy.physicalExpireAfterAccess(localCacheProperties), TimeUnit.SECONDS)
+                .ticker(new com.google.common.base.Ticker() {
+                    @Override
+                    public long read() {
+                        return ticker.read();
+                    }
+                })
+                .removalListener(removalListener);
+        if (localCacheProperties.getMaximumWeight() > 0) {
+            Weigher<K, TimestampedValue<V>> entryWeigher = (key, holder) -> weigher.weigh(key, holder.value);
+            cache = builder.maximumWeight(localCacheProperties.getMaximumWeight())
+                    .weigher(entryWeigher)
+                    .build();
+        } else {
+            cache = builder.maximumSize(localCacheProperties.getMaximumSize())
+                    .build();
+        }
+        refreshPolicy = new RefreshPolicy<>(localCacheProperties, ticker, executor);
     }
 
     /**
@@ -49,7 +160,25 @@ public class GuavaLocalCacheService<K, V> implements LocalCacheService<K, V> {
      */
     @Override
     public void put(K key, V value) {
-        cache.put(key, value);
+        long start = statsCounter.startTime();
+        cache.put(key, refreshPolicy.wrap(value));
+        statsCounter.recordOperation(CacheOperation.PUT, start);
+    }
+
+    /**
+     * 将指定的键值对放入缓存中，并单独指定过期时间。
+     *
+     * @param key   要缓存的键
+     * @param value 要缓存的值
+     * @param ttl   过期时间，不能超过全局 expireAfterWrite 与 expireAfterAccess 中较小的一个
+     * @throws IllegalArgumentException 如果 ttl 不大于 0 或超过全局过期时间
+     */
+    @Override
+    public void put(K key, V value, Duration ttl) {
+        long ttlNanos = ttlNanos(ttl);
+        long start = statsCounter.startTime();
+        cache.put(key, refreshPolicy.wrap(value, ttlNanos));
+        statsCounter.recordOperation(CacheOperation.PUT, start);
     }
 
     /**
@@ -60,24 +189,146 @@ public class GuavaLocalCacheService<K, V> implements LocalCacheService<K, V> {
      */
     @Override
     public V getIfPresent(K key) {
-        return cache.getIfPresent(key);
+        long start = statsCounter.startTime();
+        V value = refreshPolicy.read(cache.getIfPresent(key));
+        recordRead(value != null);
+        statsCounter.recordOperation(CacheOperation.GET_IF_PRESENT, start);
+        return value;
     }
 
     /**
      * 如果 key 存在，则返回对应的值；如果 key 不存在，则使用提供的 mappingFunction 计算并存入缓存后返回。
+     * 命中的值需要刷新时照常返回，同时在后台重新加载。
      *
      * @param key             键
      * @param mappingFunction 计算值的方法
-     * @return 缓存中的值
-     * @throws CacheException 如果缓存操作失败，则抛出自定义缓存异常
+     * @return 缓存中的值，加载结果为 null 时返回 null
+     * @throws CacheException 如果加载失败，则抛出自定义缓存异常
      */
     @Override
     public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        long start = statsCounter.startTime();
+        TimestampedValue<V> holder = cache.getIfPresent(key);
+        V value = refreshPolicy.read(holder);
+        recordRead(value != null);
+        Function<K, V> recordingFunction = statsCounter.recordingLoads(mappingFunction);
+        if (value != null) {
+            refreshPolicy.refreshIfNeeded(key, holder, recordingFunction, writerFor(holder));
+            statsCounter.recordOperation(CacheOperation.GET, start);
+            return value;
+        }
+
         try {
-            return cache.get(key, () -> mappingFunction.apply(key));
+            value = refreshPolicy.loadOrStale(key, holder, recordingFunction, writerFor(holder));
         } catch (Exception e) {
             throw new CacheException("Error loading value for key: " + key, e);
         }
+        // 与其他缓存实现保持一致，加载结果为 null 时不写入缓存，直接返回 null
+        statsCounter.recordOperation(CacheOperation.GET, start);
+        return value;
+    }
+
+    /**
+     * 异步获取缓存值，未命中时同一个 key 的并发请求共享一次加载，mappingFunction 在加载执行器上运行。
+     *
+     * @param key             键
+     * @param mappingFunction 异步计算值的方法
+     * @return 值的 CompletableFuture
+     */
+    @Override
+    public CompletableFuture<V> getAsync(K key, Function<? super K, ? extends CompletableFuture<? extends V>> mappingFunction) {
+        TimestampedValue<V> holder = cache.getIfPresent(key);
+        V value = refreshPolicy.read(holder);
+        recordRead(value != null);
+        Function<K, CompletableFuture<? extends V>> recordingFunction = statsCounter.recordingAsyncLoads(mappingFunction);
+        if (value != null) {
+            refreshPolicy.refreshAsyncIfNeeded(key, holder, recordingFunction, writerFor(holder));
+            return CompletableFuture.completedFuture(value);
+        }
+        return refreshPolicy.loadOrStaleAsync(key, holder, recordingFunction, writerFor(holder));
+    }
+
+    /**
+     * 批量获取缓存值。先通过 getAllPresent 一次取出命中的值，未命中的 key 合并为一次 mappingFunction 调用加载后写入缓存。
+     * 加载失败时，处于 stale 窗口内的 key 返回旧值。
+     *
+     * @param keys            键集合
+     * @param mappingFunction 批量计算值的方法
+     * @return 存在值的键值映射，按请求顺序排列
+     * @throws CacheException 如果批量加载失败且没有可用的旧值，则抛出自定义缓存异常
+     */
+    @Override
+    public Map<K, V> getAll(Iterable<? extends K> keys,
+                            Function<? super Set<? extends K>, ? extends Map<? extends K, ? extends V>> mappingFunction) {
+        long start = statsCounter.startTime();
+        // keys 可能只能遍历一次，先复制
+        List<K> requested = new ArrayList<>();
+        keys.forEach(requested::add);
+        Map<K, TimestampedValue<V>> present = cache.getAllPresent(requested);
+        Map<K, V> result = new LinkedHashMap<>();
+        Set<K> misses = new LinkedHashSet<>();
+        // 仍在 stale-if-error 窗口内的旧值，批量加载失败时返回
+        Map<K, V> stale = new LinkedHashMap<>();
+        for (K key : requested) {
+            TimestampedValue<V> holder = present.get(key);
+            V value = refreshPolicy.read(holder);
+            if (value != null) {
+                result.put(key, value);
+            } else {
+                misses.add(key);
+                if (holder != null && refreshPolicy.hasStaleWindow()) {
+                    stale.put(key, holder.value);
+                }
+            }
+        }
+        statsCounter.recordHits(result.size());
+        statsCounter.recordMisses(misses.size());
+        if (misses.isEmpty()) {
+            statsCounter.recordOperation(CacheOperation.GET_ALL, start);
+            return Collections.unmodifiableMap(result);
+        }
+
+        Map<? extends K, ? extends V> loaded;
+        try {
+            loaded = statsCounter.<K, V>recordingBulkLoads(mappingFunction).apply(Collections.unmodifiableSet(misses));
+        } catch (Exception e) {
+            if (stale.isEmpty()) {
+                throw new CacheException("Error loading values for keys: " + misses, e);
+            }
+            result.putAll(stale);
+            statsCounter.recordOperation(CacheOperation.GET_ALL, start);
+            return Collections.unmodifiableMap(result);
+        }
+        // Guava 不允许 null 值，过滤后批量写入，已有缓存项单独设置的过期时间沿用
+        Map<K, TimestampedValue<V>> wrapped = new LinkedHashMap<>();
+        loaded.forEach((key, value) -> {
+            if (value != null) {
+                wrapped.put(key, refreshPolicy.rewrap(present.get(key), value));
+            }
+        });
+        cache.putAll(wrapped);
+        for (K key : misses) {
+            V value = loaded.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        statsCounter.recordOperation(CacheOperation.GET_ALL, start);
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * 批量将键值对放入缓存中。
+     *
+     * @param map 要缓存的键值映射
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        long start = statsCounter.startTime();
+        Map<K, TimestampedValue<V>> wrapped = new LinkedHashMap<>();
+        map.forEach((key, value) -> wrapped.put(key, refreshPolicy.wrap(value)));
+        cache.putAll(wrapped);
+        statsCounter.recordOperation(CacheOperation.PUT_ALL, start);
     }
 
     /**
@@ -88,7 +339,8 @@ public class GuavaLocalCacheService<K, V> implements LocalCacheService<K, V> {
      */
     @Override
     public boolean containsKey(K key) {
-        return cache.asMap().containsKey(key);
+        // 单独设置的过期时间不由 Guava 判断，需要取出值检查
+        return refreshPolicy.isPresent(cache.asMap().get(key));
     }
 
     /**
@@ -98,7 +350,9 @@ public class GuavaLocalCacheService<K, V> implements LocalCacheService<K, V> {
      */
     @Override
     public void invalidate(K key) {
+        long start = statsCounter.startTime();
         cache.invalidate(key);
+        statsCounter.recordOperation(CacheOperation.INVALIDATE, start);
     }
 
     /**
@@ -110,7 +364,89 @@ public class GuavaLocalCacheService<K, V> implements LocalCacheService<K, V> {
     }
 
     /**
-     * 返回缓存中的所有键。
+     * 批量移除指定的键。
+     *
+     * @param keys 要移除的键集合
+     */
+    @Override
+    public void invalidateAll(Iterable<? extends K> keys) {
+        cache.invalidateAll(keys);
+    }
+
+    /**
+     * 重新设置缓存项的过期时间。
+     *
+     * @param key 键
+     * @param ttl 过期时间，不能超过全局 expireAfterWrite 与 expireAfterAccess 中较小的一个
+     * @return 缓存项存在且未过期时返回 true
+     * @throws IllegalArgumentException 如果 ttl 不大于 0 或超过全局过期时间
+     */
+    @Override
+    public boolean setExpiration(K key, Duration ttl) {
+        long ttlNanos = ttlNanos(ttl);
+        boolean[] updated = new boolean[1];
+        cache.asMap().computeIfPresent(key, (k, holder) -> {
+            if (!refreshPolicy.isPresent(holder)) {
+                return holder;
+            }
+            updated[0] = true;
+            return refreshPolicy.withExpiration(holder, ttlNanos);
+        });
+        return updated[0];
+    }
+
+    /**
+     * 获取缓存项的剩余存活时间，按记录的写入与访问时间计算。
+     *
+     * @param key 键
+     * @return 剩余存活时间，不存在或已过期时返回 null
+     */
+    @Override
+    public Duration getExpiration(K key) {
+        TimestampedValue<V> holder = cache.asMap().get(key);
+        if (!refreshPolicy.isPresent(holder)) {
+            return null;
+        }
+        return EntryExpiry.remaining(refreshPolicy.remainingNanos(holder));
+    }
+
+    /**
+     * 遍历未过期的缓存项，剩余存活时间按记录的写入与访问时间计算。
+     *
+     * @param visitor 缓存项回调
+     */
+    @Override
+    public void forEachEntry(CacheEntryVisitor<? super K, ? super V> visitor) {
+        cache.asMap().forEach((key, holder) -> {
+            if (refreshPolicy.isPresent(holder)) {
+                Duration remaining = EntryExpiry.remaining(refreshPolicy.remainingNanos(holder));
+                if (remaining != null) {
+                    visitor.visit(key, holder.value, remaining);
+                }
+            }
+        });
+    }
+
+    /**
+     * 惰性遍历匹配的 key，基于并发 Map 的弱一致迭代，不加锁，忽略 batchSize。
+     *
+     * @param pattern   glob 表达式，null 表示所有 key
+     * @param batchSize 每批取出的 key 数量
+     * @return key 的惰性 Stream
+     */
+    @Override
+    public Stream<K> scan(String pattern, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0: " + batchSize);
+        }
+        KeyPattern keyPattern = KeyPattern.compile(pattern);
+        return cache.asMap().entrySet().stream()
+                .filter(entry -> refreshPolicy.isPresent(entry.getValue()) && keyPattern.test(entry.getKey()))
+                .map(Map.Entry::getKey);
+    }
+
+    /**
+     * 返回缓存中的所有键，启用 stale-if-error 时包含处于 stale 窗口内的键。
      *
      * @return 缓存中的键集合
      */
@@ -128,4 +464,40 @@ public class GuavaLocalCacheService<K, V> implements LocalCacheService<K, V> {
     public int size() {
         return (int) cache.size();
     }
+
+    /**
+     * 获取缓存统计信息的快照。
+     *
+     * @return 不可变的统计信息快照
+     */
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    // 底层缓存按全局过期时间淘汰，更长的过期时间无法保证，直接拒绝
+    private long ttlNanos(Duration ttl) {
+        long ttlNanos = EntryExpiry.toNanos(ttl);
+        if (ttlNanos > maxTtlNanos) {
+            throw new IllegalArgumentException("TTL " + ttl + " exceeds the global expiry of Guava cache: "
+                    + Duration.ofNanos(maxTtlNanos));
+        }
+        return ttlNanos;
+    }
+
+    // 刷新与重新加载的写回沿用缓存项单独设置的过期时间，未设置时按全局配置过期
+    private BiConsumer<K, V> writerFor(TimestampedValue<V> holder) {
+        if (holder == null || holder.ttlNanos == 0) {
+            return this::put;
+        }
+        return (key, value) -> put(key, value, Duration.ofNanos(holder.ttlNanos));
+    }
+
+    private void recordRead(boolean hit) {
+        if (hit) {
+            statsCounter.recordHits(1);
+        } else {
+            statsCounter.recordMisses(1);
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package com.wangguangwu.cachelocal.service.impl;
+
+import java.util.function.Consumer;
+
+/**
+ * LRU 淘汰策略，淘汰最久未被访问的缓存项。
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+final class LruEvictionPolicy<K, V> implements MapEvictionPolicy<K, V> {
+
+    private final AccessOrderDeque<K, V> deque = new AccessOrderDeque<>();
+
+    @Override
+    public void onAdd(MapCacheNode<K, V> node) {
+        deque.linkLast(node);
+    }
+
+    @Override
+    public void onAccess(MapCacheNode<K, V> node) {
+        deque.moveToTail(node);
+    }
+
+    @Override
+    public void onRemove(MapCacheNode<K, V> node) {
+        deque.unlink(node);
+    }
+
+    @Override
+    public MapCacheNode<K, V> selectVictim() {
+        return deque.peekFirst();
+    }
+
+    @Override
+    public void forEach(Consumer<MapCacheNode<K, V>> action) {
+        deque.forEach(action);
+    }
+
+    @Override
+    public void clear() {
+        deque.clear();
+    }
+}
@@ -0,0 +1,51 @@
+package com.wangguangwu.cachelocal.service.impl;
+
+import com.wangguangwu.cachelocal.support.TimerWheel;
+
+/**
+ * Map 缓存的缓存项，存储缓存值、写入与访问时间以及淘汰队列指针，时间轮指针由父类维护。
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+final class MapCacheNode<K, V> extends TimerWheel.Timer {
+
+    // 缓存的键
+    final K key;
+
+    // 缓存的值
+    volatile V value;
+
+    // 缓存项的写入时间（纳秒）
+    volatile long writeTime;
+
+    // 缓存项的最近访问时间（纳秒）
+    volatile long accessTime;
+
+    // 单独设置的到期时间（纳秒），未设置时为 EntryExpiry.NO_DEADLINE
+    volatile long expiresAt = EntryExpiry.NO_DEADLINE;
+
+    // 单独设置的过期时间（纳秒），为 0 时按全局配置过期，刷新与重新加载写回时沿用
+    volatile long ttlNanos;
+
+    // 缓存项的权重，只在按权重限制容量时计算，由分段锁保护
+    int weight;
+
+    // 是否已从缓存中移除，由分段锁保护
+    boolean removed;
+
+    // 所在的淘汰队列，由淘汰策略定义取值，由分段锁保护
+    int queueType;
+
+    // 淘汰队列指针，由分段锁保护
+    MapCacheNode<K, V> prev;
+    MapCacheNode<K, V> next;
+
+    MapCacheNode(K key, V value, long writeTime) {
+        this.key = key;
+        this.value = value;
+        this.writeTime = writeTime;
+        this.accessTime = writeTime;
+    }
+}
@@ -0,0 +1,74 @@
+package com.wangguangwu.cachelocal.service.impl;
+
+import com.wangguangwu.cachelocal.constants.EvictionPolicyType;
+
+import java.util.function.Consumer;
+
+/**
+ * Map 缓存分段内的淘汰策略，负责维护缓存项的淘汰顺序并在分段超出容量时选出被淘汰的缓存项。
+ * <p>
+ * 所有方法都在分段锁内调用。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+interface MapEvictionPolicy<K, V> {
+
+    /**
+     * 新缓存项加入分段
+     *
+     * @param node 缓存项
+     */
+    void onAdd(MapCacheNode<K, V> node);
+
+    /**
+     * 缓存项被访问或被覆盖写入
+     *
+     * @param node 缓存项
+     */
+    void onAccess(MapCacheNode<K, V> node);
+
+    /**
+     * 缓存项从分段中移除
+     *
+     * @param node 缓存项
+     */
+    void onRemove(MapCacheNode<K, V> node);
+
+    /**
+     * 分段超出容量时选出被淘汰的缓存项，由调用方负责移除
+     *
+     * @return 被淘汰的缓存项
+     */
+    MapCacheNode<K, V> selectVictim();
+
+    /**
+     * 遍历策略维护的所有缓存项
+     *
+     * @param action 处理函数
+     */
+    void forEach(Consumer<MapCacheNode<K, V>> action);
+
+    /**
+     * 清空策略维护的所有缓存项
+     */
+    void clear();
+
+    /**
+     * 根据配置创建淘汰策略
+     *
+     * @param type     淘汰策略类型
+     * @param capacity 分段容量
+     * @param <K>      缓存的键类型
+     * @param <V>      缓存的值类型
+     * @return 淘汰策略
+     */
+    static <K, V> MapEvictionPolicy<K, V> create(EvictionPolicyType type, int capacity) {
+        return switch (type) {
+            case LRU -> new LruEvictionPolicy<>();
+            case TINY_LFU -> new TinyLfuEvictionPolicy<>(capacity);
+        };
+    }
+}
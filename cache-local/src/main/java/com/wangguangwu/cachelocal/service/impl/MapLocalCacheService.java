@@ -1,18 +1,76 @@
 package com.wangguangwu.cachelocal.service.impl;
 
+import com.wangguangwu.cachelocal.constants.EvictionPolicyType;
 import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.service.CacheEntryVisitor;
 import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.stats.CacheOperation;
+import com.wangguangwu.cachelocal.stats.CacheStats;
+import com.wangguangwu.cachelocal.stats.EvictionCause;
+import com.wangguangwu.cachelocal.stats.StatsCounter;
+import com.wangguangwu.cachelocal.support.CoarseTicker;
+import com.wangguangwu.cachelocal.support.KeyPattern;
+import com.wangguangwu.cachelocal.support.LoaderExecutors;
+import com.wangguangwu.cachelocal.support.SingleFlightLoader;
+import com.wangguangwu.cachelocal.support.Ticker;
+import com.wangguangwu.cachelocal.support.TimerWheel;
+import com.wangguangwu.cachelocal.weigher.CacheWeigher;
+import com.wangguangwu.cachelocal.weigher.EstimatedSizeWeigher;
 
-import java.util.Iterator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
- * 基于 HashMap 实现的本地缓存服务
+ * 基于 ConcurrentHashMap 与分段锁实现的本地缓存服务。
+ * <p>
+ * 所有缓存项统一存放在 ConcurrentHashMap 中，读操作不加锁；
+ * 淘汰顺序按 key 的哈希拆分到多个分段中维护，每个分段持有独立的锁，写操作只锁定 key 所在的分段。
+ * 读操作带来的淘汰顺序调整先记录到分段的环形读缓冲区，由写操作或读缓冲区积累到阈值时批量回放，
+ * 读线程之间不会因为维护淘汰顺序而互相阻塞。
+ * </p>
+ * <p>
+ * 淘汰策略由 {@link LocalCacheProperties#getEvictionPolicy()} 选择：默认的 LRU，
+ * 或对扫描类流量更健壮的 W-TinyLFU（见 {@link EvictionPolicyType#TINY_LFU}）。
+ * </p>
+ * <p>
+ * 过期由每个分段的分层时间轮驱动：缓存项按 expireAfterWrite 与 expireAfterAccess 中较早的到期时间调度，
+ * 写操作推进时间轮时只处理已经到期的桶，单个缓存项的调度与过期均摊为 O(1)。
+ * 单独设置了过期时间的缓存项按各自的到期时间调度，同样不需要扫描。
+ * 时间读取通过可替换的 {@link Ticker} 完成，默认使用粗粒度时间源，热点路径不直接访问系统时钟。
+ * </p>
+ * <p>
+ * 未命中时的加载（同步与异步）都不持有分段锁，同一个 key 的并发加载由 {@link SingleFlightLoader} 合并为一次。
+ * </p>
+ * <p>
+ * 配置 refreshAfterWrite 时，带加载函数的读取命中写入时间超过该值的缓存项会照常返回当前值，同时在后台重新加载。
+ * 配置 staleIfError 时，缓存项在正常过期后继续保留一个窗口：窗口内的值不再被正常读取命中，
+ * 只在带加载函数的读取重新加载失败时返回。
+ * </p>
+ * <p>
+ * 配置 maximumWeight 时按权重限制容量：权重在分段锁外计算，写入时计入所在分段，
+ * 分段的权重总和超出其分到的额度时由淘汰策略持续淘汰，直到回到额度以内；此时 maximumSize 只用于确定分段数量与淘汰策略的规模。
+ * </p>
+ * <p>
+ * 批量操作先按分段对 key 分组，每个分段在一次批量操作中只加锁一次；
+ * 批量加载在锁外执行，不会因为一次慢加载阻塞多个分段，但也不保证并发的批量加载对同一个 key 只计算一次。
+ * </p>
  *
  * @param <K> 缓存的键类型
  * @param <V> 缓存的值类型
@@ -20,185 +78,783 @@ import java.util.function.Function;
  */
 public class MapLocalCacheService<K, V> implements LocalCacheService<K, V> {
 
-    // 缓存数据存储，键值对形式
-    private final Map<K, CacheItem<V>> cache;
+    // 单个分段的最小容量，容量过小时不再继续拆分分段，避免淘汰精度下降
+    private static final int MIN_SEGMENT_CAPACITY = 16;
 
-    // 最大缓存容量
-    private final int maxSize;
+    // 读缓冲区大小，必须为 2 的幂
+    private static final int READ_BUFFER_SIZE = 64;
 
-    // 缓存过期时间（毫秒）
-    private final int expirationTime;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
 
-    // ReadWriteLock for thread safety
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // 每记录多少次读操作尝试回放一次读缓冲区，必须为 2 的幂
+    private static final int READ_DRAIN_THRESHOLD = 32;
 
-    private final ThreadLocal<Boolean> isReadLocked = ThreadLocal.withInitial(() -> false);
+    // 缓存数据存储，读操作直接访问，写操作只在 key 所在分段的锁内进行
+    private final ConcurrentHashMap<K, MapCacheNode<K, V>> data;
+
+    // 分段数组，长度为 2 的幂
+    private final Segment[] segments;
+
+    private final int segmentMask;
+
+    // 缓存写入后过期时间（纳秒）
+    private final long expireAfterWriteNanos;
+
+    // 缓存访问后过期时间（纳秒）
+    private final long expireAfterAccessNanos;
+
+    // 写入后多久触发后台刷新（纳秒），0 表示不刷新
+    private final long refreshAfterWriteNanos;
+
+    // 过期后加载失败时仍可使用旧值的窗口（纳秒），0 表示不启用
+    private final long staleIfErrorNanos;
+
+    // 时间源
+    private final Ticker ticker;
+
+    // 合并同一个 key 的并发加载
+    private final SingleFlightLoader<K, V> loader;
+
+    // 缓存项权重计算，未配置 maximumWeight 时为 null
+    private final CacheWeigher<? super K, ? super V> weigher;
+
+    // 统计信息记录器
+    private final StatsCounter statsCounter;
 
     /**
-     * 构造方法，初始化缓存配置。
+     * 构造方法，初始化缓存配置，使用共享的粗粒度时间源。
      *
-     * @param localCacheProperties 缓存配置属性，包含最大容量和过期时间
+     * @param localCacheProperties 缓存配置属性，包含最大容量、过期时间和并发级别
      */
     public MapLocalCacheService(LocalCacheProperties localCacheProperties) {
-        // 初始化缓存容器，使用 LinkedHashMap 保持插入顺序
-        this.cache = new LinkedHashMap<>(localCacheProperties.getMaximumSize(), 0.75f, true);
-        // 从配置中获取最大缓存容量
-        this.maxSize = localCacheProperties.getMaximumSize();
-        // 获取过期时间并转换为毫秒
-        this.expirationTime = localCacheProperties.getExpireAfterWrite() * 1000;
+        this(localCacheProperties, CoarseTicker.shared());
+    }
+
+    /**
+     * 构造方法，初始化缓存配置。
+     *
+     * @param localCacheProperties 缓存配置属性，包含最大容量、过期时间和并发级别
+     * @param ticker               时间源
+     */
+    public MapLocalCacheService(LocalCacheProperties localCacheProperties, Ticker ticker) {
+        this(localCacheProperties, ticker, LoaderExecutors.defaultExecutor());
+    }
+
+    /**
+     * 构造方法，初始化缓存配置。
+     *
+     * @param localCacheProperties 缓存配置属性，包含最大容量、过期时间和并发级别
+     * @param ticker               时间源
+     * @param executor             异步加载使用的执行器
+     */
+    public MapLocalCacheService(LocalCacheProperties localCacheProperties, Ticker ticker, Executor executor) {
+        this(localCacheProperties, ticker, executor, new EstimatedSizeWeigher<>());
+    }
+
+    /**
+     * 构造方法，初始化缓存配置。
+     *
+     * @param localCacheProperties 缓存配置属性，包含最大容量、过期时间和并发级别
+     * @param ticker               时间源
+     * @param executor             异步加载使用的执行器
+     * @param weigher              缓存项权重计算，只在配置了 maximumWeight 时使用
+     */
+    @SuppressWarnings("unchecked")
+    public MapLocalCacheService(LocalCacheProperties localCacheProperties, Ticker ticker, Executor executor,
+                                CacheWeigher<? super K, ? super V> weigher) {
+        if (localCacheProperties.getMaximumSize() <= 0) {
+            throw new IllegalArgumentException("Maximum cache size must be greater than 0");
+        }
+        if (localCacheProperties.getConcurrencyLevel() <= 0) {
+            throw new IllegalArgumentException("Concurrency level must be greater than 0");
+        }
+
+        int maxSize = localCacheProperties.getMaximumSize();
+        // 分段数取不超过并发级别的 2 的幂，同时保证每个分段至少有 MIN_SEGMENT_CAPACITY 的容量
+        int segmentCount = 1;
+        while (segmentCount < localCacheProperties.getConcurrencyLevel()
+                && (long) segmentCount * 2 * MIN_SEGMENT_CAPACITY <= maxSize) {
+            segmentCount <<= 1;
+        }
+
+        this.ticker = Objects.requireNonNull(ticker);
+        this.loader = new SingleFlightLoader<>(executor);
+        long maxWeight = localCacheProperties.getMaximumWeight();
+        this.weigher = maxWeight > 0 ? Objects.requireNonNull(weigher) : null;
+        this.statsCounter = localCacheProperties.isRecordStats() ? new StatsCounter() : StatsCounter.disabled();
+        this.expireAfterWriteNanos = TimeUnit.SECONDS.toNanos(localCacheProperties.getExpireAfterWrite());
+        this.expireAfterAccessNanos = TimeUnit.SECONDS.toNanos(localCacheProperties.getExpireAfterAccess());
+        this.refreshAfterWriteNanos = TimeUnit.SECONDS.toNanos(Math.max(0, localCacheProperties.getRefreshAfterWrite()));
+        this.staleIfErrorNanos = TimeUnit.SECONDS.toNanos(Math.max(0, localCacheProperties.getStaleIfError()));
+        this.data = new ConcurrentHashMap<>(Math.min(maxSize, 1 << 16));
+        this.segments = new MapLocalCacheService.Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        // 将总容量平均分配到各个分段，余数分给前面的分段，保证容量总和等于 maxSize
+        int base = maxSize / segmentCount;
+        int remainder = maxSize % segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            int capacity = base + (i < remainder ? 1 : 0);
+            MapEvictionPolicy<K, V> policy = MapEvictionPolicy.create(localCacheProperties.getEvictionPolicy(), capacity);
+            if (this.weigher == null) {
+                segments[i] = new Segment(capacity, Long.MAX_VALUE, policy);
+            } else {
+                // 按权重限制时条目数不设上限，权重额度同样平均分配，余数分给前面的分段
+                long weightBudget = maxWeight / segmentCount + (i < maxWeight % segmentCount ? 1 : 0);
+                segments[i] = new Segment(Integer.MAX_VALUE, weightBudget, policy);
+            }
+        }
     }
 
     @Override
     public void put(K key, V value) {
-        lock.writeLock().lock();
-        try {
-            // 如果缓存已满
-            if (cache.size() >= maxSize) {
-                // 移除过期条目以腾出空间
-                evictExpiredEntries();
-            }
+        long start = statsCounter.startTime();
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        segmentFor(key).put(key, value, weigh(key, value), 0);
+        statsCounter.recordOperation(CacheOperation.PUT, start);
+    }
 
-            // 存入缓存并记录时间戳
-            cache.put(key, new CacheItem<>(value, System.currentTimeMillis()));
-        } finally {
-            lock.writeLock().unlock();
-        }
+    @Override
+    public void put(K key, V value, Duration ttl) {
+        long ttlNanos = EntryExpiry.toNanos(ttl);
+        long start = statsCounter.startTime();
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        segmentFor(key).put(key, value, weigh(key, value), ttlNanos);
+        statsCounter.recordOperation(CacheOperation.PUT, start);
     }
 
     @Override
     public V getIfPresent(K key) {
-        lock.readLock().lock();
-        try {
-            // 从缓存中获取缓存项
-            CacheItem<V> item = cache.get(key);
-            if (item == null) {
-                // 如果没有找到，返回 null
-                return null;
-            }
+        long start = statsCounter.startTime();
+        MapCacheNode<K, V> node = readNode(key, ticker.read());
+        recordRead(node != null);
+        statsCounter.recordOperation(CacheOperation.GET_IF_PRESENT, start);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        long start = statsCounter.startTime();
+        V value = doGet(key, mappingFunction);
+        statsCounter.recordOperation(CacheOperation.GET, start);
+        return value;
+    }
 
-            // 检查是否过期
-            if (System.currentTimeMillis() - item.timestamp > expirationTime) {
-                // 如果缓存过期
-                // 移除过期项
-                cache.remove(key);
-                // 返回 null
-                return null;
+    private V doGet(K key, Function<? super K, ? extends V> mappingFunction) {
+        long now = ticker.read();
+        MapCacheNode<K, V> node = readNode(key, now);
+        recordRead(node != null);
+        Function<K, V> recordingFunction = statsCounter.recordingLoads(mappingFunction);
+        if (node != null) {
+            V value = node.value;
+            if (needsRefresh(node, now)) {
+                loader.loadAsync(key, k -> CompletableFuture.completedFuture(recordingFunction.apply(k)), writerFor(node));
             }
+            return value;
+        }
 
-            // 返回缓存中的值
-            return item.value;
-        } finally {
-            lock.readLock().unlock();
+        // 未命中时在锁外计算，同一个 key 的并发未命中只计算一次
+        MapCacheNode<K, V> stale = staleNode(key);
+        if (stale == null) {
+            return loader.load(key, recordingFunction, this::put);
+        }
+        try {
+            return loader.load(key, recordingFunction, writerFor(stale));
+        } catch (RuntimeException e) {
+            return stale.value;
         }
     }
 
     @Override
-    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
-        lock.readLock().lock();
-        try {
-            // 标记当前线程已持有读锁
-            isReadLocked.set(true);
-            // 从缓存中获取缓存项
-            CacheItem<V> item = cache.get(key);
-
-            // 如果缓存中没有该键，则使用 mappingFunction 生成新的值并放入缓存
-            if (item == null) {
-                // 计算值
-                V value = mappingFunction.apply(key);
-                // 将计算的值存入缓存
-                // 释放读锁
-                lock.readLock().unlock();
-                // 清除读锁标记
-                isReadLocked.set(false);
-                put(key, value);
-                // 返回计算的值
-                return value;
+    public CompletableFuture<V> getAsync(K key, Function<? super K, ? extends CompletableFuture<? extends V>> mappingFunction) {
+        long now = ticker.read();
+        MapCacheNode<K, V> node = readNode(key, now);
+        recordRead(node != null);
+        Function<K, CompletableFuture<? extends V>> recordingFunction = statsCounter.recordingAsyncLoads(mappingFunction);
+        if (node != null) {
+            V value = node.value;
+            if (needsRefresh(node, now)) {
+                loader.loadAsync(key, recordingFunction, writerFor(node));
             }
+            return CompletableFuture.completedFuture(value);
+        }
 
-            // 如果缓存项存在，则检查是否过期
-            if (System.currentTimeMillis() - item.timestamp > expirationTime) {
-                // 如果缓存过期，移除该项并返回 null
-                cache.remove(key);
-                return null;
+        MapCacheNode<K, V> stale = staleNode(key);
+        CompletableFuture<V> future = loader.loadAsync(key, recordingFunction, writerFor(stale));
+        return stale == null ? future : future.exceptionally(e -> stale.value);
+    }
+
+    @Override
+    public Map<K, V> getAll(Iterable<? extends K> keys,
+                            Function<? super Set<? extends K>, ? extends Map<? extends K, ? extends V>> mappingFunction) {
+        long start = statsCounter.startTime();
+        Map<K, V> result = new LinkedHashMap<>();
+        Set<K> misses = new LinkedHashSet<>();
+        long now = ticker.read();
+        for (K key : keys) {
+            MapCacheNode<K, V> node = readNode(key, now);
+            if (node != null) {
+                result.put(key, node.value);
+            } else {
+                misses.add(key);
             }
+        }
+        statsCounter.recordHits(result.size());
+        statsCounter.recordMisses(misses.size());
+        if (misses.isEmpty()) {
+            statsCounter.recordOperation(CacheOperation.GET_ALL, start);
+            return Collections.unmodifiableMap(result);
+        }
 
-            // 返回缓存中的值
-            return item.value;
-        } finally {
-            // 检查当前线程是否持有读锁，如果持有则释放它
-            if (Boolean.TRUE.equals(isReadLocked.get())) {
-                // 只有持有锁时才释放
-                lock.readLock().unlock();
+        Map<? extends K, ? extends V> loaded;
+        try {
+            loaded = statsCounter.<K, V>recordingBulkLoads(mappingFunction)
+                    .apply(Collections.unmodifiableSet(misses));
+        } catch (RuntimeException e) {
+            // 批量加载失败时，处于 stale 窗口内的 key 返回旧值，没有旧值可用时抛出原异常
+            if (!putStaleValues(misses, result)) {
+                throw e;
+            }
+            statsCounter.recordOperation(CacheOperation.GET_ALL, start);
+            return Collections.unmodifiableMap(result);
+        }
+        // 与 Caffeine 保持一致，加载结果中值为 null 的 key 不写入缓存，未请求的 key 也一并写入；
+        // 已有缓存项单独设置了过期时间的逐个写回并沿用，其余批量写入
+        List<Map.Entry<? extends K, ? extends V>> entries = new ArrayList<>(loaded.size());
+        for (Map.Entry<? extends K, ? extends V> entry : loaded.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            MapCacheNode<K, V> previous = data.get(entry.getKey());
+            if (previous != null && previous.ttlNanos > 0) {
+                K key = entry.getKey();
+                segmentFor(key).put(key, entry.getValue(), weigh(key, entry.getValue()), previous.ttlNanos);
+            } else {
+                entries.add(entry);
             }
-            // 清理线程标记
-            isReadLocked.remove();
         }
+        putEntries(entries);
+        for (K key : misses) {
+            V value = loaded.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        statsCounter.recordOperation(CacheOperation.GET_ALL, start);
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        long start = statsCounter.startTime();
+        // 先校验全部键值，避免写入一部分后才发现非法参数
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            Objects.requireNonNull(entry.getKey());
+            Objects.requireNonNull(entry.getValue());
+        }
+        putEntries(map.entrySet());
+        statsCounter.recordOperation(CacheOperation.PUT_ALL, start);
     }
 
     @Override
     public boolean containsKey(K key) {
-        // 判断缓存中是否包含指定的键
-        return cache.containsKey(key);
+        MapCacheNode<K, V> node = data.get(key);
+        return node != null && !isExpired(node, ticker.read());
     }
 
     @Override
     public void invalidate(K key) {
-        lock.writeLock().lock();
-        try {
-            // 移除指定的缓存项
-            cache.remove(key);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        long start = statsCounter.startTime();
+        segmentFor(key).remove(key);
+        statsCounter.recordOperation(CacheOperation.INVALIDATE, start);
     }
 
     @Override
     public void invalidateAll() {
-        lock.writeLock().lock();
-        try {
-            // 清空所有缓存项
-            cache.clear();
-        } finally {
-            lock.writeLock().unlock();
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public void invalidateAll(Iterable<? extends K> keys) {
+        List<K>[] groups = groupBySegment(keys, Function.identity());
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] != null) {
+                segments[i].removeAll(groups[i]);
+            }
         }
     }
 
+    @Override
+    public boolean setExpiration(K key, Duration ttl) {
+        long ttlNanos = EntryExpiry.toNanos(ttl);
+        return segmentFor(key).setExpiration(key, ttlNanos);
+    }
+
+    @Override
+    public Duration getExpiration(K key) {
+        MapCacheNode<K, V> node = data.get(key);
+        long now = ticker.read();
+        if (node == null || isExpired(node, now)) {
+            return null;
+        }
+        return EntryExpiry.remaining(remainingNanos(node, now));
+    }
+
+    @Override
+    public void forEachEntry(CacheEntryVisitor<? super K, ? super V> visitor) {
+        long now = ticker.read();
+        data.forEach((key, node) -> {
+            Duration remaining = EntryExpiry.remaining(remainingNanos(node, now));
+            if (remaining != null) {
+                visitor.visit(key, node.value, remaining);
+            }
+        });
+    }
+
+    /**
+     * 惰性遍历匹配的 key，基于 ConcurrentHashMap 的弱一致迭代，不获取分段锁，忽略 batchSize。
+     *
+     * @param pattern   glob 表达式，null 表示所有 key
+     * @param batchSize 每批取出的 key 数量
+     * @return key 的惰性 Stream
+     */
+    @Override
+    public Stream<K> scan(String pattern, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0: " + batchSize);
+        }
+        KeyPattern keyPattern = KeyPattern.compile(pattern);
+        return data.entrySet().stream()
+                .filter(entry -> !isExpired(entry.getValue(), ticker.read()) && keyPattern.test(entry.getKey()))
+                .map(Map.Entry::getKey);
+    }
+
     @Override
     public Set<K> keySet() {
-        // 返回缓存中所有的键
-        return cache.keySet();
+        // 返回只读视图，避免绕过分段锁直接修改数据
+        return Collections.unmodifiableSet(data.keySet());
     }
 
     @Override
     public int size() {
-        // 返回缓存的大小
-        return cache.size();
+        return data.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    private void recordRead(boolean hit) {
+        if (hit) {
+            statsCounter.recordHits(1);
+        } else {
+            statsCounter.recordMisses(1);
+        }
+    }
+
+    private Segment segmentFor(Object key) {
+        return segments[rehash(key.hashCode()) & segmentMask];
+    }
+
+    private void putEntries(Iterable<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        List<Map.Entry<? extends K, ? extends V>>[] groups = groupBySegment(entries, Map.Entry::getKey);
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] != null) {
+                // 权重在加锁前计算，避免估算大对象时长时间持有分段锁
+                List<Map.Entry<? extends K, ? extends V>> group = groups[i];
+                int[] weights = new int[group.size()];
+                for (int j = 0; j < weights.length; j++) {
+                    weights[j] = weigh(group.get(j).getKey(), group.get(j).getValue());
+                }
+                segments[i].putAll(group, weights);
+            }
+        }
+    }
+
+    // 计算缓存项权重，未按权重限制容量时不计算
+    private int weigh(K key, V value) {
+        if (weigher == null) {
+            return 0;
+        }
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight must not be negative: " + weight);
+        }
+        return weight;
+    }
+
+    // 按 key 所在分段对元素分组，数组下标与分段下标一致，没有元素的分段为 null
+    @SuppressWarnings("unchecked")
+    private <T> List<T>[] groupBySegment(Iterable<? extends T> items, Function<? super T, ?> keyOf) {
+        List<T>[] groups = new List[segments.length];
+        for (T item : items) {
+            int index = rehash(keyOf.apply(item).hashCode()) & segmentMask;
+            if (groups[index] == null) {
+                groups[index] = new ArrayList<>();
+            }
+            groups[index].add(item);
+        }
+        return groups;
     }
 
-    // 移除过期缓存
-    private void evictExpiredEntries() {
-        // 移除过期缓存项
-        cache.entrySet().removeIf(entry -> System.currentTimeMillis() - entry.getValue().timestamp > expirationTime);
-        // 如果缓存超出最大容量，移除最早的缓存项
-        if (cache.size() >= maxSize) {
-            Iterator<Map.Entry<K, CacheItem<V>>> iterator = cache.entrySet().iterator();
-            if (iterator.hasNext()) {
-                iterator.next();
-                iterator.remove();
+    // 读取未过期的缓存项并记录访问，过期的缓存项在超出 stale 窗口后移除
+    private MapCacheNode<K, V> readNode(K key, long now) {
+        MapCacheNode<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+
+        Segment segment = segmentFor(key);
+        // 检查是否过期，超出 stale 窗口的在分段锁内移除
+        if (isExpired(node, now)) {
+            if (isRemovable(node, now)) {
+                segment.removeIfExpired(node);
             }
+            return null;
         }
+
+        // 记录访问时间，时间未变化时跳过写入，避免热点 key 的缓存行在多核间来回失效
+        if (node.accessTime != now) {
+            node.accessTime = now;
+        }
+        // 记录访问，由分段异步回放淘汰顺序与过期时间
+        segment.recordRead(node);
+        return node;
     }
 
-    // 内部类：缓存项，用于存储缓存值和时间戳
-    private static class CacheItem<V> {
-        // 缓存的值
-        V value;
-        // 缓存项的时间戳
-        long timestamp;
+    // 获取已过期但仍在 stale 窗口内的缓存项，未启用 stale-if-error 时返回 null
+    private MapCacheNode<K, V> staleNode(K key) {
+        if (staleIfErrorNanos == 0) {
+            return null;
+        }
+        MapCacheNode<K, V> node = data.get(key);
+        return node != null && !isRemovable(node, ticker.read()) ? node : null;
+    }
+
+    // 刷新与重新加载的写回沿用缓存项单独设置的过期时间，未设置时按全局配置过期
+    private BiConsumer<K, V> writerFor(MapCacheNode<K, V> node) {
+        long ttlNanos = node == null ? 0 : node.ttlNanos;
+        if (ttlNanos == 0) {
+            return this::put;
+        }
+        return (key, value) -> put(key, value, Duration.ofNanos(ttlNanos));
+    }
+
+    // 将处于 stale 窗口内的旧值写入结果，返回是否至少有一个 key 使用了旧值
+    private boolean putStaleValues(Set<K> keys, Map<K, V> result) {
+        boolean found = false;
+        for (K key : keys) {
+            MapCacheNode<K, V> stale = staleNode(key);
+            if (stale != null) {
+                result.put(key, stale.value);
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    private boolean needsRefresh(MapCacheNode<K, V> node, long now) {
+        return refreshAfterWriteNanos > 0 && now - node.writeTime >= refreshAfterWriteNanos;
+    }
+
+    private boolean isExpired(MapCacheNode<K, V> node, long now) {
+        long expiresAt = node.expiresAt;
+        if (expiresAt != EntryExpiry.NO_DEADLINE) {
+            return now - expiresAt >= 0;
+        }
+        return now - node.writeTime >= expireAfterWriteNanos
+                || now - node.accessTime >= expireAfterAccessNanos;
+    }
+
+    // 距离正常过期的剩余时间（纳秒），不包含 stale 窗口
+    private long remainingNanos(MapCacheNode<K, V> node, long now) {
+        long expiresAt = node.expiresAt;
+        if (expiresAt != EntryExpiry.NO_DEADLINE) {
+            return expiresAt - now;
+        }
+        return Math.min(node.writeTime + expireAfterWriteNanos, node.accessTime + expireAfterAccessNanos) - now;
+    }
+
+    // 超出 stale 窗口，可以从缓存中移除，未启用 stale-if-error 时与 isExpired 一致
+    private boolean isRemovable(MapCacheNode<K, V> node, long now) {
+        long expiresAt = node.expiresAt;
+        if (expiresAt != EntryExpiry.NO_DEADLINE) {
+            return now - expiresAt >= staleIfErrorNanos;
+        }
+        return now - node.writeTime >= expireAfterWriteNanos + staleIfErrorNanos
+                || now - node.accessTime >= expireAfterAccessNanos + staleIfErrorNanos;
+    }
+
+    // 计算缓存项的移除时间，单独设置了过期时间的取到期时间，否则取写入后过期与访问后过期中较早的一个，并加上 stale 窗口
+    private long deadlineOf(MapCacheNode<K, V> node) {
+        long expiresAt = node.expiresAt;
+        if (expiresAt != EntryExpiry.NO_DEADLINE) {
+            return EntryExpiry.deadline(expiresAt, staleIfErrorNanos);
+        }
+        return Math.min(node.writeTime + expireAfterWriteNanos, node.accessTime + expireAfterAccessNanos)
+                + staleIfErrorNanos;
+    }
+
+    // 对哈希值进行再散列，避免分段选择与 ConcurrentHashMap 桶选择使用相同的低位
+    private static int rehash(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * 分段：维护所属 key 的淘汰策略、时间轮与读缓冲区，写操作与淘汰顺序调整都在分段锁内进行。
+     */
+    @SuppressWarnings("serial")
+    private final class Segment extends ReentrantLock {
+
+        // 分段的最大容量
+        final int capacity;
+
+        // 分段的最大权重，未按权重限制容量时为 Long.MAX_VALUE
+        final long maxWeight;
+
+        // 淘汰策略，由分段锁保护
+        final MapEvictionPolicy<K, V> policy;
+
+        // 分段内缓存项数量，由分段锁保护
+        int count;
 
-        CacheItem(V value, long timestamp) {
-            this.value = value;
-            this.timestamp = timestamp;
+        // 分段内缓存项的权重总和，由分段锁保护
+        long weight;
+
+        // 过期时间轮，由分段锁保护
+        final TimerWheel<MapCacheNode<K, V>> timerWheel = new TimerWheel<>(ticker.read());
+
+        // 环形读缓冲区，记录尚未回放到淘汰策略的访问
+        final AtomicReferenceArray<MapCacheNode<K, V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+
+        // 读缓冲区写入计数
+        final AtomicLong readCounter = new AtomicLong();
+
+        // 已回放的读缓冲区位置，由分段锁保护
+        long readsDrained;
+
+        Segment(int capacity, long maxWeight, MapEvictionPolicy<K, V> policy) {
+            this.capacity = capacity;
+            this.maxWeight = maxWeight;
+            this.policy = policy;
+        }
+
+        // ttlNanos 为 0 时按全局配置过期
+        void put(K key, V value, int weight, long ttlNanos) {
+            lock();
+            try {
+                long now = ticker.read();
+                maintenance(now);
+                putLocked(key, value, weight, ttlNanos, now);
+            } finally {
+                unlock();
+            }
+        }
+
+        void putAll(List<Map.Entry<? extends K, ? extends V>> entries, int[] weights) {
+            lock();
+            try {
+                long now = ticker.read();
+                maintenance(now);
+                for (int i = 0; i < weights.length; i++) {
+                    Map.Entry<? extends K, ? extends V> entry = entries.get(i);
+                    putLocked(entry.getKey(), entry.getValue(), weights[i], 0, now);
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        void remove(Object key) {
+            lock();
+            try {
+                MapCacheNode<K, V> node = data.get(key);
+                if (node != null) {
+                    removeNode(node);
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        void removeAll(List<K> keys) {
+            lock();
+            try {
+                for (K key : keys) {
+                    MapCacheNode<K, V> node = data.get(key);
+                    if (node != null) {
+                        removeNode(node);
+                    }
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        // 为未过期的缓存项设置到期时间，并按新的到期时间重新调度
+        boolean setExpiration(K key, long ttlNanos) {
+            lock();
+            try {
+                long now = ticker.read();
+                MapCacheNode<K, V> node = data.get(key);
+                if (node == null || node.removed || isExpired(node, now)) {
+                    return false;
+                }
+                node.expiresAt = EntryExpiry.deadline(now, ttlNanos);
+                node.ttlNanos = ttlNanos;
+                reschedule(node);
+                return true;
+            } finally {
+                unlock();
+            }
+        }
+
+        void removeIfExpired(MapCacheNode<K, V> node) {
+            lock();
+            try {
+                // 加锁后再次检查，避免误删在此期间被重新写入的缓存项
+                if (!node.removed && isRemovable(node, ticker.read())) {
+                    removeNode(node);
+                    statsCounter.recordEviction(EvictionCause.EXPIRED);
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        void clear() {
+            lock();
+            try {
+                policy.forEach(node -> {
+                    data.remove(node.key, node);
+                    timerWheel.deschedule(node);
+                    node.removed = true;
+                });
+                policy.clear();
+                count = 0;
+                weight = 0;
+                for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                    readBuffer.set(i, null);
+                }
+                readsDrained = readCounter.get();
+            } finally {
+                unlock();
+            }
+        }
+
+        void recordRead(MapCacheNode<K, V> node) {
+            long index = readCounter.getAndIncrement();
+            readBuffer.lazySet((int) (index & READ_BUFFER_MASK), node);
+            // 读缓冲区积累到阈值时尝试回放，获取不到锁说明有写操作正在进行，回放交给它完成
+            if ((index & (READ_DRAIN_THRESHOLD - 1)) == READ_DRAIN_THRESHOLD - 1 && tryLock()) {
+                try {
+                    maintenance(ticker.read());
+                } finally {
+                    unlock();
+                }
+            }
+        }
+
+        // 回放读缓冲区并推进时间轮，调用方需持有分段锁
+        private void maintenance(long now) {
+            drainReadBuffer();
+            timerWheel.advance(now, this::expire);
+        }
+
+        // 时间轮回调：缓存项已到期则移除，被访问后延长了过期时间的缓存项按新的到期时间重新调度
+        private boolean expire(MapCacheNode<K, V> node) {
+            if (isRemovable(node, timerWheel.currentTime())) {
+                removeNode(node);
+                statsCounter.recordEviction(EvictionCause.EXPIRED);
+                return true;
+            }
+            node.setDeadline(deadlineOf(node));
+            return false;
+        }
+
+        // 回放读缓冲区中记录的访问，按访问顺序通知淘汰策略，调用方需持有分段锁
+        private void drainReadBuffer() {
+            long end = readCounter.get();
+            // 被覆盖的旧记录直接丢弃，淘汰顺序只需近似准确
+            long start = Math.max(readsDrained, end - READ_BUFFER_SIZE);
+            for (long i = start; i < end; i++) {
+                MapCacheNode<K, V> node = readBuffer.getAndSet((int) (i & READ_BUFFER_MASK), null);
+                if (node != null && !node.removed) {
+                    policy.onAccess(node);
+                    reschedule(node);
+                }
+            }
+            readsDrained = end;
+        }
+
+        // 写入或覆盖缓存项，ttlNanos 为 0 时按全局配置过期，调用方需持有分段锁
+        private void putLocked(K key, V value, int weight, long ttlNanos, long now) {
+            long expiresAt = ttlNanos > 0 ? EntryExpiry.deadline(now, ttlNanos) : EntryExpiry.NO_DEADLINE;
+            MapCacheNode<K, V> node = data.get(key);
+            if (node != null) {
+                // 覆盖已有缓存项，刷新写入时间与到期时间并视为一次访问
+                node.value = value;
+                node.writeTime = now;
+                node.accessTime = now;
+                node.expiresAt = expiresAt;
+                node.ttlNanos = ttlNanos;
+                this.weight += weight - node.weight;
+                node.weight = weight;
+                policy.onAccess(node);
+                reschedule(node);
+                evictIfNeeded();
+                return;
+            }
+            MapCacheNode<K, V> added = new MapCacheNode<>(key, value, now);
+            added.weight = weight;
+            added.expiresAt = expiresAt;
+            added.ttlNanos = ttlNanos;
+            addNode(added);
+        }
+
+        private void addNode(MapCacheNode<K, V> node) {
+            data.put(node.key, node);
+            policy.onAdd(node);
+            node.setDeadline(deadlineOf(node));
+            timerWheel.schedule(node);
+            count++;
+            weight += node.weight;
+            evictIfNeeded();
+        }
+
+        // 超出分段容量或权重额度时由淘汰策略选出被淘汰的缓存项，单个缓存项超出额度时自身也会被淘汰
+        private void evictIfNeeded() {
+            while (count > capacity || weight > maxWeight) {
+                removeNode(policy.selectVictim());
+                statsCounter.recordEviction(EvictionCause.SIZE);
+            }
+        }
+
+        private void removeNode(MapCacheNode<K, V> node) {
+            data.remove(node.key, node);
+            policy.onRemove(node);
+            timerWheel.deschedule(node);
+            node.removed = true;
+            count--;
+            weight -= node.weight;
+        }
+
+        // 到期时间变化后重新调度，到期时间未变化时不做处理
+        private void reschedule(MapCacheNode<K, V> node) {
+            long deadline = deadlineOf(node);
+            if (deadline != node.getDeadline()) {
+                node.setDeadline(deadline);
+                timerWheel.reschedule(node);
+            }
         }
     }
 }
@@ -0,0 +1,1061 @@
+package com.wangguangwu.cachelocal.service.impl;
+
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.serializer.CacheSerializer;
+import com.wangguangwu.cachelocal.serializer.JdkCacheSerializer;
+import com.wangguangwu.cachelocal.service.CacheEntryVisitor;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.stats.CacheOperation;
+import com.wangguangwu.cachelocal.stats.CacheStats;
+import com.wangguangwu.cachelocal.stats.EvictionCause;
+import com.wangguangwu.cachelocal.stats.StatsCounter;
+import com.wangguangwu.cachelocal.support.CoarseTicker;
+import com.wangguangwu.cachelocal.support.KeyPattern;
+import com.wangguangwu.cachelocal.support.LoaderExecutors;
+import com.wangguangwu.cachelocal.support.SingleFlightLoader;
+import com.wangguangwu.cachelocal.support.Ticker;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基于堆外内存实现的本地缓存服务。
+ * <p>
+ * 键和值经过 {@link CacheSerializer} 序列化后追加写入直接内存分配的 slab 中，Java 堆上只保留
+ * 由基本类型数组构成的开放寻址哈希索引，缓存容量不再增加 GC 的扫描与复制压力。
+ * </p>
+ * <p>
+ * 缓存按字节数限制容量：每个分段拥有若干个大小固定的 slab，按顺序循环写入；当前 slab 写满时切换到下一个 slab，
+ * 并整体淘汰该 slab 中的所有记录后复用（slab 级淘汰，近似 FIFO）。覆盖写入和删除只更新索引，
+ * 旧记录占用的空间在所在 slab 被淘汰时回收。
+ * </p>
+ * <p>
+ * 批量操作在锁外完成序列化与反序列化，再按分段分组，每个分段在一次批量操作中只加锁一次。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+public class OffHeapLocalCacheService<K, V> implements LocalCacheService<K, V> {
+
+    // 记录头：key 哈希值、key 长度、value 长度
+    private static final int HEADER_SIZE = 12;
+
+    // 索引的初始槽位数，必须为 2 的幂
+    private static final int INITIAL_INDEX_CAPACITY = 64;
+
+    // 分段数足够多时每个分段至少拥有的 slab 数
+    private static final int MIN_SLABS_PER_SEGMENT = 2;
+
+    private final CacheSerializer<K> keySerializer;
+
+    private final CacheSerializer<V> valueSerializer;
+
+    // 分段数组，长度为 2 的幂
+    private final Segment[] segments;
+
+    // 使用哈希值的高位选择分段，低位留给分段内的索引
+    private final int segmentShift;
+
+    private final int segmentMask;
+
+    // 缓存写入后过期时间（纳秒）
+    private final long expireAfterWriteNanos;
+
+    // 缓存访问后过期时间（纳秒）
+    private final long expireAfterAccessNanos;
+
+    // 时间源
+    private final Ticker ticker;
+
+    // 合并同一个 key 的并发加载，加载在分段锁外进行
+    private final SingleFlightLoader<K, V> loader;
+
+    // 统计信息记录器
+    private final StatsCounter statsCounter;
+
+    /**
+     * 构造方法，使用 JDK 序列化与共享的粗粒度时间源。
+     *
+     * @param localCacheProperties 缓存配置属性，包含堆外容量、slab 大小、过期时间和并发级别
+     */
+    public OffHeapLocalCacheService(LocalCacheProperties localCacheProperties) {
+        this(localCacheProperties, new JdkCacheSerializer<>(), new JdkCacheSerializer<>());
+    }
+
+    /**
+     * 构造方法，使用共享的粗粒度时间源。
+     *
+     * @param localCacheProperties 缓存配置属性，包含堆外容量、slab 大小、过期时间和并发级别
+     * @param keySerializer        键的序列化器
+     * @param valueSerializer      值的序列化器
+     */
+    public OffHeapLocalCacheService(LocalCacheProperties localCacheProperties,
+                                    CacheSerializer<K> keySerializer, CacheSerializer<V> valueSerializer) {
+        this(localCacheProperties, keySerializer, valueSerializer, CoarseTicker.shared());
+    }
+
+    /**
+     * 构造方法，初始化缓存配置。
+     *
+     * @param localCacheProperties 缓存配置属性，包含堆外容量、slab 大小、过期时间和并发级别
+     * @param keySerializer        键的序列化器
+     * @param valueSerializer      值的序列化器
+     * @param ticker               时间源
+     */
+    public OffHeapLocalCacheService(LocalCacheProperties localCacheProperties,
+                                    CacheSerializer<K> keySerializer, CacheSerializer<V> valueSerializer,
+                                    Ticker ticker) {
+        this(localCacheProperties, keySerializer, valueSerializer, ticker, LoaderExecutors.defaultExecutor());
+    }
+
+    /**
+     * 构造方法，初始化缓存配置。
+     *
+     * @param localCacheProperties 缓存配置属性，包含堆外容量、slab 大小、过期时间和并发级别
+     * @param keySerializer        键的序列化器
+     * @param valueSerializer      值的序列化器
+     * @param ticker               时间源
+     * @param executor             异步加载使用的执行器
+     */
+    @SuppressWarnings("unchecked")
+    public OffHeapLocalCacheService(LocalCacheProperties localCacheProperties,
+                                    CacheSerializer<K> keySerializer, CacheSerializer<V> valueSerializer,
+                                    Ticker ticker, Executor executor) {
+        LocalCacheProperties.OffHeap offHeap = localCacheProperties.getOffHeap();
+        if (offHeap.getMaximumBytes() <= 0) {
+            throw new IllegalArgumentException("Maximum off-heap bytes must be greater than 0");
+        }
+        if (offHeap.getSlabSize() <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Slab size must be greater than " + HEADER_SIZE);
+        }
+        if (localCacheProperties.getConcurrencyLevel() <= 0) {
+            throw new IllegalArgumentException("Concurrency level must be greater than 0");
+        }
+
+        this.keySerializer = Objects.requireNonNull(keySerializer);
+        this.valueSerializer = Objects.requireNonNull(valueSerializer);
+        this.ticker = Objects.requireNonNull(ticker);
+        this.loader = new SingleFlightLoader<>(executor);
+        this.statsCounter = localCacheProperties.isRecordStats() ? new StatsCounter() : StatsCounter.disabled();
+        this.expireAfterWriteNanos = TimeUnit.SECONDS.toNanos(localCacheProperties.getExpireAfterWrite());
+        this.expireAfterAccessNanos = TimeUnit.SECONDS.toNanos(localCacheProperties.getExpireAfterAccess());
+
+        // 容量不足一个 slab 时，只使用一个与容量等大的 slab
+        int slabSize = (int) Math.min(offHeap.getSlabSize(), offHeap.getMaximumBytes());
+        long slabCount = Math.max(1, offHeap.getMaximumBytes() / slabSize);
+        // 分段数取不超过并发级别的 2 的幂，同时保证每个分段至少有 2 个 slab，淘汰一个 slab 时不会清空整个分段
+        int segmentCount = 1;
+        while (segmentCount < localCacheProperties.getConcurrencyLevel()
+                && (long) (segmentCount << 1) * MIN_SLABS_PER_SEGMENT <= slabCount) {
+            segmentCount <<= 1;
+        }
+
+        this.segments = new OffHeapLocalCacheService.Segment[segmentCount];
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        this.segmentMask = segmentCount - 1;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment((int) (slabCount / segmentCount), slabSize);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        long start = statsCounter.startTime();
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        byte[] keyBytes = keySerializer.serialize(key);
+        byte[] valueBytes = valueSerializer.serialize(value);
+        int hash = hash(keyBytes);
+        segmentFor(hash).put(keyBytes, hash, valueBytes, 0);
+        statsCounter.recordOperation(CacheOperation.PUT, start);
+    }
+
+    @Override
+    public void put(K key, V value, Duration ttl) {
+        long ttlNanos = EntryExpiry.toNanos(ttl);
+        long start = statsCounter.startTime();
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        byte[] keyBytes = keySerializer.serialize(key);
+        byte[] valueBytes = valueSerializer.serialize(value);
+        int hash = hash(keyBytes);
+        segmentFor(hash).put(keyBytes, hash, valueBytes, ttlNanos);
+        statsCounter.recordOperation(CacheOperation.PUT, start);
+    }
+
+    @Override
+    public V getIfPresent(K key) {
+        long start = statsCounter.startTime();
+        V value = read(key);
+        statsCounter.recordOperation(CacheOperation.GET_IF_PRESENT, start);
+        return value;
+    }
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        long start = statsCounter.startTime();
+        V value = read(key);
+        if (value == null) {
+            // 未命中时在锁外计算，同一个 key 的并发未命中只计算一次
+            value = loader.load(key, statsCounter.recordingLoads(mappingFunction), this::put);
+        }
+        statsCounter.recordOperation(CacheOperation.GET, start);
+        return value;
+    }
+
+    @Override
+    public CompletableFuture<V> getAsync(K key, Function<? super K, ? extends CompletableFuture<? extends V>> mappingFunction) {
+        V value = read(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+        return loader.loadAsync(key, statsCounter.recordingAsyncLoads(mappingFunction), this::put);
+    }
+
+    @Override
+    public Map<K, V> getAll(Iterable<? extends K> keys,
+                            Function<? super Set<? extends K>, ? extends Map<? extends K, ? extends V>> mappingFunction) {
+        long start = statsCounter.startTime();
+        List<BatchEntry<K>> entries = new ArrayList<>();
+        Set<K> distinct = new HashSet<>();
+        for (K key : keys) {
+            if (distinct.add(key)) {
+                entries.add(new BatchEntry<>(key, keySerializer.serialize(key)));
+            }
+        }
+        List<BatchEntry<K>>[] groups = groupBySegment(entries);
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] != null) {
+                segments[i].getAll(groups[i]);
+            }
+        }
+
+        Map<K, V> result = new LinkedHashMap<>();
+        Set<K> misses = new LinkedHashSet<>();
+        for (BatchEntry<K> entry : entries) {
+            if (entry.valueBytes != null) {
+                result.put(entry.key, valueSerializer.deserialize(entry.valueBytes));
+            } else {
+                misses.add(entry.key);
+            }
+        }
+        statsCounter.recordHits(result.size());
+        statsCounter.recordMisses(misses.size());
+        if (misses.isEmpty()) {
+            statsCounter.recordOperation(CacheOperation.GET_ALL, start);
+            return Collections.unmodifiableMap(result);
+        }
+
+        Map<? extends K, ? extends V> loaded = statsCounter.<K, V>recordingBulkLoads(mappingFunction)
+                .apply(Collections.unmodifiableSet(misses));
+        // 与 Caffeine 保持一致，加载结果中值为 null 的 key 不写入缓存，未请求的 key 也一并写入
+        List<BatchEntry<K>> writes = new ArrayList<>(loaded.size());
+        for (Map.Entry<? extends K, ? extends V> entry : loaded.entrySet()) {
+            if (entry.getValue() != null) {
+                writes.add(new BatchEntry<>(entry.getKey(), keySerializer.serialize(entry.getKey()),
+                        valueSerializer.serialize(entry.getValue())));
+            }
+        }
+        putEntries(writes);
+        for (K key : misses) {
+            V value = loaded.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        statsCounter.recordOperation(CacheOperation.GET_ALL, start);
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        long start = statsCounter.startTime();
+        List<BatchEntry<K>> writes = new ArrayList<>(map.size());
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            K key = Objects.requireNonNull(entry.getKey());
+            V value = Objects.requireNonNull(entry.getValue());
+            writes.add(new BatchEntry<>(key, keySerializer.serialize(key), valueSerializer.serialize(value)));
+        }
+        putEntries(writes);
+        statsCounter.recordOperation(CacheOperation.PUT_ALL, start);
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        byte[] keyBytes = keySerializer.serialize(key);
+        int hash = hash(keyBytes);
+        return segmentFor(hash).contains(keyBytes, hash);
+    }
+
+    @Override
+    public boolean setExpiration(K key, Duration ttl) {
+        long ttlNanos = EntryExpiry.toNanos(ttl);
+        byte[] keyBytes = keySerializer.serialize(key);
+        int hash = hash(keyBytes);
+        return segmentFor(hash).setExpiration(keyBytes, hash, ttlNanos);
+    }
+
+    @Override
+    public Duration getExpiration(K key) {
+        byte[] keyBytes = keySerializer.serialize(key);
+        int hash = hash(keyBytes);
+        return EntryExpiry.remaining(segmentFor(hash).remainingNanos(keyBytes, hash));
+    }
+
+    @Override
+    public void invalidate(K key) {
+        long start = statsCounter.startTime();
+        byte[] keyBytes = keySerializer.serialize(key);
+        int hash = hash(keyBytes);
+        segmentFor(hash).remove(keyBytes, hash);
+        statsCounter.recordOperation(CacheOperation.INVALIDATE, start);
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public void invalidateAll(Iterable<? extends K> keys) {
+        List<BatchEntry<K>> entries = new ArrayList<>();
+        for (K key : keys) {
+            entries.add(new BatchEntry<>(key, keySerializer.serialize(key)));
+        }
+        List<BatchEntry<K>>[] groups = groupBySegment(entries);
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] != null) {
+                segments[i].removeAll(groups[i]);
+            }
+        }
+    }
+
+    /**
+     * 遍历未过期的缓存项，每个分段在锁内复制出记录后在锁外反序列化。
+     *
+     * @param visitor 缓存项回调
+     */
+    @Override
+    public void forEachEntry(CacheEntryVisitor<? super K, ? super V> visitor) {
+        List<LiveRecord> records = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.collectLive(records);
+            for (LiveRecord record : records) {
+                visitor.visit(keySerializer.deserialize(record.keyBytes), valueSerializer.deserialize(record.valueBytes),
+                        Duration.ofNanos(record.remainingNanos));
+            }
+            records.clear();
+        }
+    }
+
+    /**
+     * 惰性遍历匹配的 key，逐个分段分批复制 key，每次加锁最多复制约 batchSize 个，反序列化与匹配在锁外进行。
+     * <p>
+     * 分段索引在遍历期间扩容或清空时，该分段从头重新遍历，已返回的 key 可能再次返回。
+     * </p>
+     *
+     * @param pattern   glob 表达式，null 表示所有 key
+     * @param batchSize 每次加锁复制的 key 数量
+     * @return key 的惰性 Stream
+     */
+    @Override
+    public Stream<K> scan(String pattern, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0: " + batchSize);
+        }
+        KeyPattern keyPattern = KeyPattern.compile(pattern);
+        Iterator<byte[]> keys = new KeyScanIterator(batchSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(keys, Spliterator.NONNULL), false)
+                .map(keySerializer::deserialize)
+                .filter(keyPattern);
+    }
+
+    /**
+     * 返回缓存中所有键的快照。
+     * <p>
+     * 键存储在堆外内存中，需要逐个反序列化，返回的集合不会随缓存变化而更新。
+     * </p>
+     *
+     * @return 键集合
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> keys = new HashSet<>();
+        for (Segment segment : segments) {
+            segment.forEachKey(keyBytes -> keys.add(keySerializer.deserialize(keyBytes)));
+        }
+        return Collections.unmodifiableSet(keys);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    // 读取并反序列化缓存值，记录命中与未命中
+    private V read(K key) {
+        byte[] keyBytes = keySerializer.serialize(key);
+        int hash = hash(keyBytes);
+        byte[] valueBytes = segmentFor(hash).get(keyBytes, hash);
+        if (valueBytes == null) {
+            statsCounter.recordMisses(1);
+            return null;
+        }
+        statsCounter.recordHits(1);
+        // 在锁外反序列化，缩短持锁时间
+        return valueSerializer.deserialize(valueBytes);
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    private void putEntries(List<BatchEntry<K>> entries) {
+        List<BatchEntry<K>>[] groups = groupBySegment(entries);
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] != null) {
+                segments[i].putAll(groups[i]);
+            }
+        }
+    }
+
+    // 按 key 所在分段对批量条目分组，数组下标与分段下标一致，没有条目的分段为 null
+    @SuppressWarnings("unchecked")
+    private List<BatchEntry<K>>[] groupBySegment(List<BatchEntry<K>> entries) {
+        List<BatchEntry<K>>[] groups = new List[segments.length];
+        for (BatchEntry<K> entry : entries) {
+            int index = (entry.hash >>> segmentShift) & segmentMask;
+            if (groups[index] == null) {
+                groups[index] = new ArrayList<>();
+            }
+            groups[index].add(entry);
+        }
+        return groups;
+    }
+
+    // 对序列化后的 key 计算哈希，相等的 key 序列化结果相同，哈希值也相同
+    private static int hash(byte[] bytes) {
+        int h = 1;
+        for (byte b : bytes) {
+            h = 31 * h + b;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * 分段：维护若干个 slab 与对应的哈希索引。查询与遍历持有读锁，可以并发进行；写入、删除与过期清理持有写锁。
+     * <p>
+     * 索引使用线性探测的开放寻址法，槽位信息拆分到多个基本类型数组中：
+     * 记录地址（slab 下标与偏移量编码后加一，0 表示空槽）、key 哈希、写入时间、访问时间与单独设置的到期时间。
+     * 删除时向前搬移后续槽位，不留下墓碑。
+     * </p>
+     */
+    @SuppressWarnings("serial")
+    private final class Segment extends ReentrantReadWriteLock {
+
+        // slab 数组，首次写入时才分配直接内存
+        final ByteBuffer[] slabs;
+
+        // 每个 slab 已写入的字节数
+        final int[] slabLimits;
+
+        // 单个 slab 的字节数
+        final int slabSize;
+
+        // 当前写入的 slab
+        int activeSlab;
+
+        // 索引槽位
+        long[] addresses;
+        int[] hashes;
+        long[] writeTimes;
+        long[] accessTimes;
+        long[] deadlines;
+        int indexMask;
+
+        // 分段内缓存项数量，读操作不加锁，只作为估算值
+        volatile int count;
+
+        Segment(int slabCount, int slabSize) {
+            this.slabs = new ByteBuffer[slabCount];
+            this.slabLimits = new int[slabCount];
+            this.slabSize = slabSize;
+            initIndex(INITIAL_INDEX_CAPACITY);
+        }
+
+        // ttlNanos 为 0 时按全局配置过期
+        void put(byte[] keyBytes, int hash, byte[] valueBytes, long ttlNanos) {
+            writeLock().lock();
+            try {
+                long now = ticker.read();
+                long deadline = ttlNanos > 0 ? EntryExpiry.deadline(now, ttlNanos) : EntryExpiry.NO_DEADLINE;
+                write(keyBytes, hash, valueBytes, deadline, now);
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        // 命中只持有读锁；读到已过期的缓存项时释放读锁，再持有写锁删除
+        byte[] get(byte[] keyBytes, int hash) {
+            long now = ticker.read();
+            readLock().lock();
+            try {
+                int slot = find(keyBytes, hash);
+                if (slot < 0) {
+                    return null;
+                }
+                if (!isExpired(slot, now)) {
+                    touch(slot, now);
+                    return readValue(addresses[slot]);
+                }
+            } finally {
+                readLock().unlock();
+            }
+            removeExpired(keyBytes, hash);
+            return null;
+        }
+
+        void getAll(List<BatchEntry<K>> entries) {
+            long now = ticker.read();
+            List<BatchEntry<K>> expired = null;
+            readLock().lock();
+            try {
+                for (BatchEntry<K> entry : entries) {
+                    entry.valueBytes = null;
+                    int slot = find(entry.keyBytes, entry.hash);
+                    if (slot < 0) {
+                        continue;
+                    }
+                    if (isExpired(slot, now)) {
+                        if (expired == null) {
+                            expired = new ArrayList<>();
+                        }
+                        expired.add(entry);
+                    } else {
+                        touch(slot, now);
+                        entry.valueBytes = readValue(addresses[slot]);
+                    }
+                }
+            } finally {
+                readLock().unlock();
+            }
+            if (expired != null) {
+                for (BatchEntry<K> entry : expired) {
+                    removeExpired(entry.keyBytes, entry.hash);
+                }
+            }
+        }
+
+        void putAll(List<BatchEntry<K>> entries) {
+            writeLock().lock();
+            try {
+                long now = ticker.read();
+                for (BatchEntry<K> entry : entries) {
+                    write(entry.keyBytes, entry.hash, entry.valueBytes, EntryExpiry.NO_DEADLINE, now);
+                }
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        void removeAll(List<BatchEntry<K>> entries) {
+            writeLock().lock();
+            try {
+                for (BatchEntry<K> entry : entries) {
+                    int slot = find(entry.keyBytes, entry.hash);
+                    if (slot >= 0) {
+                        deleteSlot(slot);
+                    }
+                }
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        boolean contains(byte[] keyBytes, int hash) {
+            readLock().lock();
+            try {
+                int slot = find(keyBytes, hash);
+                return slot >= 0 && !isExpired(slot, ticker.read());
+            } finally {
+                readLock().unlock();
+            }
+        }
+
+        boolean setExpiration(byte[] keyBytes, int hash, long ttlNanos) {
+            writeLock().lock();
+            try {
+                long now = ticker.read();
+                int slot = find(keyBytes, hash);
+                if (slot < 0 || isExpired(slot, now)) {
+                    return false;
+                }
+                deadlines[slot] = EntryExpiry.deadline(now, ttlNanos);
+                return true;
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        // 剩余存活时间（纳秒），不存在或已过期时不大于 0
+        long remainingNanos(byte[] keyBytes, int hash) {
+            readLock().lock();
+            try {
+                long now = ticker.read();
+                int slot = find(keyBytes, hash);
+                if (slot < 0 || isExpired(slot, now)) {
+                    return 0;
+                }
+                return remainingNanos(slot, now);
+            } finally {
+                readLock().unlock();
+            }
+        }
+
+        void remove(byte[] keyBytes, int hash) {
+            writeLock().lock();
+            try {
+                int slot = find(keyBytes, hash);
+                if (slot >= 0) {
+                    deleteSlot(slot);
+                }
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        void clear() {
+            writeLock().lock();
+            try {
+                initIndex(INITIAL_INDEX_CAPACITY);
+                count = 0;
+                // 保留已分配的直接内存，重置写入位置即可
+                Arrays.fill(slabLimits, 0);
+                activeSlab = 0;
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        // 复制出所有未过期的记录及剩余存活时间
+        void collectLive(List<LiveRecord> records) {
+            readLock().lock();
+            try {
+                long now = ticker.read();
+                for (int i = 0; i <= indexMask; i++) {
+                    if (addresses[i] != 0 && !isExpired(i, now)) {
+                        records.add(new LiveRecord(readKey(addresses[i]), readValue(addresses[i]), remainingNanos(i, now)));
+                    }
+                }
+            } finally {
+                readLock().unlock();
+            }
+        }
+
+        /**
+         * 从游标位置起复制未过期的 key，复制满 batchSize 个后继续到下一个空槽为止，使下一批从探测链的边界开始
+         *
+         * @return 分段内还有未遍历的槽位时返回 true
+         */
+        boolean scanKeys(ScanCursor cursor, int batchSize, List<byte[]> keys) {
+            readLock().lock();
+            try {
+                if (cursor.index != addresses) {
+                    // 首次遍历，或索引已扩容、清空，从头开始
+                    cursor.index = addresses;
+                    cursor.slot = 0;
+                } else if (addresses[cursor.slot] != 0) {
+                    // 边界上的空槽被填上时，删除引起的向前搬移可能把未遍历的 key 移到游标之前，退回到探测链的起点
+                    while (cursor.slot > 0 && addresses[cursor.slot - 1] != 0) {
+                        cursor.slot--;
+                    }
+                }
+                long now = ticker.read();
+                int slot = cursor.slot;
+                while (slot <= indexMask && (keys.size() < batchSize || addresses[slot] != 0)) {
+                    if (addresses[slot] != 0 && !isExpired(slot, now)) {
+                        keys.add(readKey(addresses[slot]));
+                    }
+                    slot++;
+                }
+                cursor.slot = slot;
+                return slot <= indexMask;
+            } finally {
+                readLock().unlock();
+            }
+        }
+
+        void forEachKey(Consumer<byte[]> action) {
+            readLock().lock();
+            try {
+                for (int i = 0; i <= indexMask; i++) {
+                    if (addresses[i] != 0) {
+                        action.accept(readKey(addresses[i]));
+                    }
+                }
+            } finally {
+                readLock().unlock();
+            }
+        }
+
+        // 在写锁内再次检查后删除已过期的缓存项，期间被重新写入的缓存项保留
+        private void removeExpired(byte[] keyBytes, int hash) {
+            writeLock().lock();
+            try {
+                int slot = find(keyBytes, hash);
+                if (slot >= 0 && isExpired(slot, ticker.read())) {
+                    deleteSlot(slot);
+                    statsCounter.recordEviction(EvictionCause.EXPIRED);
+                }
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        // 读锁内更新访问时间：多个读线程写入的都是各自读到的当前时间，保留其中任意一个即可
+        private void touch(int slot, long now) {
+            if (accessTimes[slot] - now < 0) {
+                accessTimes[slot] = now;
+            }
+        }
+
+        private long remainingNanos(int slot, long now) {
+            if (deadlines[slot] != EntryExpiry.NO_DEADLINE) {
+                return deadlines[slot] - now;
+            }
+            return Math.min(writeTimes[slot] + expireAfterWriteNanos, accessTimes[slot] + expireAfterAccessNanos) - now;
+        }
+
+        private boolean isExpired(int slot, long now) {
+            if (deadlines[slot] != EntryExpiry.NO_DEADLINE) {
+                return now - deadlines[slot] >= 0;
+            }
+            return now - writeTimes[slot] >= expireAfterWriteNanos
+                    || now - accessTimes[slot] >= expireAfterAccessNanos;
+        }
+
+        private void write(byte[] keyBytes, int hash, byte[] valueBytes, long deadline, long now) {
+            int recordSize = HEADER_SIZE + keyBytes.length + valueBytes.length;
+            if (recordSize > slabSize) {
+                throw new CacheException("Entry size " + recordSize + " exceeds slab size " + slabSize);
+            }
+
+            // 先分配空间：分配时可能淘汰 slab，索引中的槽位会随之变化
+            long address = allocate(recordSize);
+            ByteBuffer slab = slabs[slabOf(address)];
+            int offset = offsetOf(address);
+            slab.putInt(offset, hash);
+            slab.putInt(offset + 4, keyBytes.length);
+            slab.putInt(offset + 8, valueBytes.length);
+            slab.put(offset + HEADER_SIZE, keyBytes);
+            slab.put(offset + HEADER_SIZE + keyBytes.length, valueBytes);
+
+            int slot = find(keyBytes, hash);
+            if (slot < 0) {
+                if (count + 1 > (indexMask + 1) >>> 1) {
+                    resize();
+                }
+                slot = hash & indexMask;
+                while (addresses[slot] != 0) {
+                    slot = (slot + 1) & indexMask;
+                }
+                hashes[slot] = hash;
+                count++;
+            }
+            // 覆盖写入时旧记录变为垃圾，随所在 slab 一起被回收
+            addresses[slot] = address;
+            writeTimes[slot] = now;
+            accessTimes[slot] = now;
+            deadlines[slot] = deadline;
+        }
+
+        // 在当前 slab 中分配空间，空间不足时切换到下一个 slab 并淘汰其中的所有记录
+        private long allocate(int size) {
+            if (slabs[activeSlab] == null) {
+                slabs[activeSlab] = ByteBuffer.allocateDirect(slabSize);
+            }
+            if (slabLimits[activeSlab] + size > slabSize) {
+                activeSlab = (activeSlab + 1) % slabs.length;
+                evictSlab(activeSlab);
+            }
+            int offset = slabLimits[activeSlab];
+            slabLimits[activeSlab] += size;
+            return encode(activeSlab, offset);
+        }
+
+        // 淘汰 slab 中仍被索引引用的所有记录，并重置写入位置
+        private void evictSlab(int slabIndex) {
+            ByteBuffer slab = slabs[slabIndex];
+            if (slab == null) {
+                slabs[slabIndex] = ByteBuffer.allocateDirect(slabSize);
+                return;
+            }
+            int offset = 0;
+            int limit = slabLimits[slabIndex];
+            while (offset < limit) {
+                int hash = slab.getInt(offset);
+                long address = encode(slabIndex, offset);
+                int slot = hash & indexMask;
+                // 按哈希探测到引用该地址的槽位；记录已被覆盖或删除时找不到，直接跳过
+                while (addresses[slot] != 0) {
+                    if (addresses[slot] == address) {
+                        deleteSlot(slot);
+                        statsCounter.recordEviction(EvictionCause.SIZE);
+                        break;
+                    }
+                    slot = (slot + 1) & indexMask;
+                }
+                offset += HEADER_SIZE + slab.getInt(offset + 4) + slab.getInt(offset + 8);
+            }
+            slabLimits[slabIndex] = 0;
+        }
+
+        private int find(byte[] keyBytes, int hash) {
+            int slot = hash & indexMask;
+            while (addresses[slot] != 0) {
+                if (hashes[slot] == hash && keyEquals(addresses[slot], keyBytes)) {
+                    return slot;
+                }
+                slot = (slot + 1) & indexMask;
+            }
+            return -1;
+        }
+
+        private boolean keyEquals(long address, byte[] keyBytes) {
+            ByteBuffer slab = slabs[slabOf(address)];
+            int offset = offsetOf(address);
+            if (slab.getInt(offset + 4) != keyBytes.length) {
+                return false;
+            }
+            int keyOffset = offset + HEADER_SIZE;
+            for (int i = 0; i < keyBytes.length; i++) {
+                if (slab.get(keyOffset + i) != keyBytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private byte[] readKey(long address) {
+            ByteBuffer slab = slabs[slabOf(address)];
+            int offset = offsetOf(address);
+            byte[] keyBytes = new byte[slab.getInt(offset + 4)];
+            slab.get(offset + HEADER_SIZE, keyBytes);
+            return keyBytes;
+        }
+
+        private byte[] readValue(long address) {
+            ByteBuffer slab = slabs[slabOf(address)];
+            int offset = offsetOf(address);
+            byte[] valueBytes = new byte[slab.getInt(offset + 8)];
+            slab.get(offset + HEADER_SIZE + slab.getInt(offset + 4), valueBytes);
+            return valueBytes;
+        }
+
+        // 删除槽位，并将后续因冲突而后移的槽位搬回，保证线性探测的连续性
+        private void deleteSlot(int slot) {
+            addresses[slot] = 0;
+            count--;
+            int hole = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & indexMask;
+                if (addresses[next] == 0) {
+                    return;
+                }
+                int ideal = hashes[next] & indexMask;
+                // 理想位置不在 (hole, next] 区间内的槽位需要搬到空洞处
+                boolean movable = hole <= next
+                        ? (ideal <= hole || ideal > next)
+                        : (ideal <= hole && ideal > next);
+                if (movable) {
+                    addresses[hole] = addresses[next];
+                    hashes[hole] = hashes[next];
+                    writeTimes[hole] = writeTimes[next];
+                    accessTimes[hole] = accessTimes[next];
+                    deadlines[hole] = deadlines[next];
+                    addresses[next] = 0;
+                    hole = next;
+                }
+            }
+        }
+
+        private void resize() {
+            long[] oldAddresses = addresses;
+            int[] oldHashes = hashes;
+            long[] oldWriteTimes = writeTimes;
+            long[] oldAccessTimes = accessTimes;
+            long[] oldDeadlines = deadlines;
+            initIndex(oldAddresses.length << 1);
+            for (int i = 0; i < oldAddresses.length; i++) {
+                if (oldAddresses[i] != 0) {
+                    int slot = oldHashes[i] & indexMask;
+                    while (addresses[slot] != 0) {
+                        slot = (slot + 1) & indexMask;
+                    }
+                    addresses[slot] = oldAddresses[i];
+                    hashes[slot] = oldHashes[i];
+                    writeTimes[slot] = oldWriteTimes[i];
+                    accessTimes[slot] = oldAccessTimes[i];
+                    deadlines[slot] = oldDeadlines[i];
+                }
+            }
+        }
+
+        private void initIndex(int capacity) {
+            addresses = new long[capacity];
+            hashes = new int[capacity];
+            writeTimes = new long[capacity];
+            accessTimes = new long[capacity];
+            deadlines = new long[capacity];
+            indexMask = capacity - 1;
+        }
+    }
+
+    // 将 slab 下标与偏移量编码为记录地址，加一使 0 可以表示空槽
+    private static long encode(int slabIndex, int offset) {
+        return (((long) slabIndex << 32) | offset) + 1;
+    }
+
+    private static int slabOf(long address) {
+        return (int) ((address - 1) >>> 32);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) (address - 1);
+    }
+
+    // 逐个分段分批复制 key 的迭代器，当前批次取完后才加锁复制下一批
+    private final class KeyScanIterator implements Iterator<byte[]> {
+
+        private final int batchSize;
+
+        private final List<byte[]> batch;
+
+        private final ScanCursor cursor = new ScanCursor();
+
+        private int segmentIndex;
+
+        private int position;
+
+        KeyScanIterator(int batchSize) {
+            this.batchSize = batchSize;
+            this.batch = new ArrayList<>(Math.min(batchSize, 1024));
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position == batch.size()) {
+                if (segmentIndex == segments.length) {
+                    return false;
+                }
+                batch.clear();
+                position = 0;
+                if (!segments[segmentIndex].scanKeys(cursor, batchSize, batch)) {
+                    segmentIndex++;
+                    cursor.index = null;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public byte[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return batch.get(position++);
+        }
+    }
+
+    // 分段内的遍历位置
+    private static final class ScanCursor {
+
+        // 开始遍历时的索引数组，与分段当前的索引不同时说明索引已重建
+        long[] index;
+
+        // 下一个待遍历的槽位
+        int slot;
+    }
+
+    // 遍历时从分段中复制出的记录，在锁外反序列化
+    private static final class LiveRecord {
+
+        final byte[] keyBytes;
+
+        final byte[] valueBytes;
+
+        final long remainingNanos;
+
+        LiveRecord(byte[] keyBytes, byte[] valueBytes, long remainingNanos) {
+            this.keyBytes = keyBytes;
+            this.valueBytes = valueBytes;
+            this.remainingNanos = remainingNanos;
+        }
+    }
+
+    // 批量操作中的单个条目，序列化结果在锁外计算好后交给分段处理
+    private static final class BatchEntry<K> {
+
+        final K key;
+
+        final byte[] keyBytes;
+
+        final int hash;
+
+        // 写入时为待写入的值，读取时由分段填充，未命中为 null
+        byte[] valueBytes;
+
+        BatchEntry(K key, byte[] keyBytes) {
+            this(key, keyBytes, null);
+        }
+
+        BatchEntry(K key, byte[] keyBytes, byte[] valueBytes) {
+            this.key = key;
+            this.keyBytes = keyBytes;
+            this.hash = hash(keyBytes);
+            this.valueBytes = valueBytes;
+        }
+    }
+}
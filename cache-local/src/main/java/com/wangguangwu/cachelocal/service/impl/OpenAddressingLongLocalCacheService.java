@@ -0,0 +1,493 @@
+package com.wangguangwu.cachelocal.service.impl;
+
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.service.LongLocalCacheService;
+import com.wangguangwu.cachelocal.support.CoarseTicker;
+import com.wangguangwu.cachelocal.support.LoaderExecutors;
+import com.wangguangwu.cachelocal.support.SingleFlightLoader;
+import com.wangguangwu.cachelocal.support.Ticker;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongFunction;
+
+/**
+ * 基于开放寻址哈希表实现的 long 键本地缓存服务。
+ * <p>
+ * 每个分段使用一组平行数组存储缓存项：long[] 保存键、写入时间与访问时间，Object[] 保存值，
+ * int[] 以槽位下标串起 LRU 双向链表。键不装箱，也没有缓存项包装对象，命中时的查询不分配任何对象。
+ * </p>
+ * <p>
+ * 命中只持有分段的共享读锁，并发读取互不阻塞：命中时记录访问时间并设置访问标记，不调整 LRU 链表。
+ * 超出 maximumSize 时按二次机会淘汰：从最久未调整的一端开始，带访问标记的缓存项清除标记并移到链表尾，
+ * 淘汰第一个没有标记的缓存项，结果近似于淘汰最久未访问的缓存项。
+ * 超过 expireAfterWrite 或 expireAfterAccess 的缓存项不再返回，并在访问时删除。
+ * </p>
+ * <p>
+ * 未命中时的加载不持有分段锁，同一个 key 的并发加载由 {@link SingleFlightLoader} 合并为一次，
+ * 加载完成后在写锁内再次检查，期间已被写入的值不会被覆盖。
+ * </p>
+ *
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+public class OpenAddressingLongLocalCacheService<V> implements LongLocalCacheService<V> {
+
+    // 空链表指针
+    private static final int NIL = -1;
+
+    // 单个分段的最小容量，容量过小时不再继续拆分分段，避免 LRU 精度下降
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    // 分段数组，长度为 2 的幂
+    private final Segment[] segments;
+
+    // 使用哈希值的高位选择分段，低位留给分段内的哈希表
+    private final int segmentShift;
+
+    private final int segmentMask;
+
+    // 缓存写入后过期时间（纳秒）
+    private final long expireAfterWriteNanos;
+
+    // 缓存访问后过期时间（纳秒）
+    private final long expireAfterAccessNanos;
+
+    // 时间源
+    private final Ticker ticker;
+
+    // 合并同一个 key 的并发加载，加载在分段锁外进行
+    private final SingleFlightLoader<Long, V> loader = new SingleFlightLoader<>(LoaderExecutors.defaultExecutor());
+
+    /**
+     * 构造方法，初始化缓存配置，使用共享的粗粒度时间源。
+     *
+     * @param localCacheProperties 缓存配置属性，包含最大容量、过期时间和并发级别
+     */
+    public OpenAddressingLongLocalCacheService(LocalCacheProperties localCacheProperties) {
+        this(localCacheProperties, CoarseTicker.shared());
+    }
+
+    /**
+     * 构造方法，初始化缓存配置。
+     *
+     * @param localCacheProperties 缓存配置属性，包含最大容量、过期时间和并发级别
+     * @param ticker               时间源
+     */
+    @SuppressWarnings("unchecked")
+    public OpenAddressingLongLocalCacheService(LocalCacheProperties localCacheProperties, Ticker ticker) {
+        if (localCacheProperties.getMaximumSize() <= 0) {
+            throw new IllegalArgumentException("Maximum cache size must be greater than 0");
+        }
+        if (localCacheProperties.getConcurrencyLevel() <= 0) {
+            throw new IllegalArgumentException("Concurrency level must be greater than 0");
+        }
+
+        int maxSize = localCacheProperties.getMaximumSize();
+        // 分段数取不超过并发级别的 2 的幂，同时保证每个分段至少有 MIN_SEGMENT_CAPACITY 的容量
+        int segmentCount = 1;
+        while (segmentCount < localCacheProperties.getConcurrencyLevel()
+                && (long) segmentCount * 2 * MIN_SEGMENT_CAPACITY <= maxSize) {
+            segmentCount <<= 1;
+        }
+
+        this.ticker = Objects.requireNonNull(ticker);
+        this.expireAfterWriteNanos = TimeUnit.SECONDS.toNanos(localCacheProperties.getExpireAfterWrite());
+        this.expireAfterAccessNanos = TimeUnit.SECONDS.toNanos(localCacheProperties.getExpireAfterAccess());
+        this.segments = new OpenAddressingLongLocalCacheService.Segment[segmentCount];
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        this.segmentMask = segmentCount - 1;
+        // 将总容量平均分配到各个分段，余数分给前面的分段，保证容量总和等于 maxSize
+        int base = maxSize / segmentCount;
+        int remainder = maxSize % segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(base + (i < remainder ? 1 : 0));
+        }
+    }
+
+    @Override
+    public void put(long key, V value) {
+        Objects.requireNonNull(value);
+        int hash = hash(key);
+        segmentFor(hash).put(key, hash, value);
+    }
+
+    @Override
+    public V getIfPresent(long key) {
+        int hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    @Override
+    public V get(long key, LongFunction<? extends V> mappingFunction) {
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        V value = segment.get(key, hash);
+        if (value != null) {
+            return value;
+        }
+        // 与 Caffeine 保持一致，计算结果为 null 时不写入缓存
+        return loader.load(key, k -> mappingFunction.apply(k), (k, loaded) -> segment.putIfAbsent(k, hash, loaded));
+    }
+
+    @Override
+    public boolean containsKey(long key) {
+        int hash = hash(key);
+        return segmentFor(hash).contains(key, hash);
+    }
+
+    @Override
+    public void invalidate(long key) {
+        int hash = hash(key);
+        segmentFor(hash).remove(key, hash);
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public long[] keys() {
+        long[] keys = new long[size()];
+        int length = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.readLock();
+            try {
+                // 快照期间其他分段可能有新写入，空间不足时扩容
+                if (length + segment.count > keys.length) {
+                    keys = Arrays.copyOf(keys, length + segment.count);
+                }
+                for (int i = segment.head; i != NIL; i = segment.next[i]) {
+                    keys[length++] = segment.keys[i];
+                }
+            } finally {
+                segment.unlockRead(stamp);
+            }
+        }
+        return length == keys.length ? keys : Arrays.copyOf(keys, length);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    // 对 long 键进行散列，高位用于选择分段，低位用于分段内的槽位
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xbf58476d1ce4e5b9L;
+        return (int) (h ^ (h >>> 29));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        // 负载因子不超过 0.5，线性探测的平均探测长度保持在很低的水平
+        int size = Math.max(2, capacity * 2);
+        return 1 << -Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    /**
+     * 分段：一组平行数组组成的线性探测哈希表，以及按槽位下标串起的 LRU 链表。
+     * 查询持有读锁，只写入访问时间与访问标记；修改哈希表与链表的操作持有写锁。
+     * <p>
+     * 哈希表的大小按分段容量一次分配，运行期间不扩容；删除时向前搬移后续槽位，不留下墓碑，
+     * 被搬移的缓存项同步修正 LRU 链表中指向它的指针。
+     * </p>
+     */
+    @SuppressWarnings("serial")
+    private final class Segment extends StampedLock {
+
+        // 分段的最大容量
+        final int capacity;
+
+        final int mask;
+
+        // 槽位数组，values[i] 为 null 表示空槽
+        final long[] keys;
+        final Object[] values;
+        final long[] writeTimes;
+        final long[] accessTimes;
+
+        // 读锁内命中时设置的访问标记，淘汰时给予二次机会
+        final boolean[] accessed;
+
+        // LRU 链表，head 为最久未访问的槽位，tail 为最近访问的槽位
+        final int[] prev;
+        final int[] next;
+        int head = NIL;
+        int tail = NIL;
+
+        // 分段内缓存项数量，读操作不加锁，只作为估算值
+        volatile int count;
+
+        Segment(int capacity) {
+            int tableSize = tableSizeFor(capacity);
+            this.capacity = capacity;
+            this.mask = tableSize - 1;
+            this.keys = new long[tableSize];
+            this.values = new Object[tableSize];
+            this.writeTimes = new long[tableSize];
+            this.accessTimes = new long[tableSize];
+            this.accessed = new boolean[tableSize];
+            this.prev = new int[tableSize];
+            this.next = new int[tableSize];
+        }
+
+        void put(long key, int hash, V value) {
+            long stamp = writeLock();
+            try {
+                long now = ticker.read();
+                int slot = find(key, hash);
+                if (slot != NIL) {
+                    overwrite(slot, value, now);
+                    return;
+                }
+                insert(key, hash, value, now);
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        // 加载结果的写回：加载期间已写入未过期的值时保留已有的值
+        void putIfAbsent(long key, int hash, V value) {
+            long stamp = writeLock();
+            try {
+                long now = ticker.read();
+                int slot = find(key, hash);
+                if (slot == NIL) {
+                    insert(key, hash, value, now);
+                } else if (isExpired(slot, now)) {
+                    overwrite(slot, value, now);
+                }
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        // 命中只持有读锁；读到已过期的缓存项时释放读锁，再持有写锁删除
+        V get(long key, int hash) {
+            long now = ticker.read();
+            long stamp = readLock();
+            try {
+                int slot = find(key, hash);
+                if (slot == NIL) {
+                    return null;
+                }
+                if (!isExpired(slot, now)) {
+                    // 多个读线程写入的都是各自读到的当前时间与 true，保留其中任意一个即可
+                    if (accessTimes[slot] - now < 0) {
+                        accessTimes[slot] = now;
+                    }
+                    if (!accessed[slot]) {
+                        accessed[slot] = true;
+                    }
+                    return valueAt(slot);
+                }
+            } finally {
+                unlockRead(stamp);
+            }
+            removeExpired(key, hash);
+            return null;
+        }
+
+        boolean contains(long key, int hash) {
+            long stamp = readLock();
+            try {
+                int slot = find(key, hash);
+                return slot != NIL && !isExpired(slot, ticker.read());
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        void remove(long key, int hash) {
+            long stamp = writeLock();
+            try {
+                int slot = find(key, hash);
+                if (slot != NIL) {
+                    delete(slot);
+                }
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = writeLock();
+            try {
+                // 释放对值的引用，其余数组在下次写入时覆盖
+                Arrays.fill(values, null);
+                head = NIL;
+                tail = NIL;
+                count = 0;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private V valueAt(int slot) {
+            return (V) values[slot];
+        }
+
+        private int find(long key, int hash) {
+            int slot = hash & mask;
+            while (values[slot] != null) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return NIL;
+        }
+
+        // 在写锁内再次检查后删除已过期的缓存项，期间被重新写入的缓存项保留
+        private void removeExpired(long key, int hash) {
+            long stamp = writeLock();
+            try {
+                int slot = find(key, hash);
+                if (slot != NIL && isExpired(slot, ticker.read())) {
+                    delete(slot);
+                }
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        // 覆盖已有缓存项，刷新写入时间并移动到链表尾
+        private void overwrite(int slot, V value, long now) {
+            values[slot] = value;
+            writeTimes[slot] = now;
+            accessTimes[slot] = now;
+            accessed[slot] = false;
+            moveToTail(slot);
+        }
+
+        private boolean isExpired(int slot, long now) {
+            return now - writeTimes[slot] >= expireAfterWriteNanos
+                    || now - accessTimes[slot] >= expireAfterAccessNanos;
+        }
+
+        private void insert(long key, int hash, V value, long now) {
+            // 先淘汰再选择槽位：删除会搬移槽位
+            if (count >= capacity) {
+                evict();
+            }
+            int slot = hash & mask;
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            writeTimes[slot] = now;
+            accessTimes[slot] = now;
+            accessed[slot] = false;
+            linkLast(slot);
+            count++;
+        }
+
+        // 二次机会淘汰：带访问标记的缓存项清除标记后移到链表尾，淘汰第一个没有标记的缓存项
+        private void evict() {
+            int victim = head;
+            while (accessed[victim]) {
+                accessed[victim] = false;
+                moveToTail(victim);
+                victim = head;
+            }
+            delete(victim);
+        }
+
+        // 删除槽位，并将后续因冲突而后移的槽位搬回，保证线性探测的连续性
+        private void delete(int slot) {
+            unlink(slot);
+            values[slot] = null;
+            count--;
+            int hole = slot;
+            int current = slot;
+            while (true) {
+                current = (current + 1) & mask;
+                if (values[current] == null) {
+                    return;
+                }
+                int ideal = hash(keys[current]) & mask;
+                // 理想位置不在 (hole, current] 区间内的槽位需要搬到空洞处
+                boolean movable = hole <= current
+                        ? (ideal <= hole || ideal > current)
+                        : (ideal <= hole && ideal > current);
+                if (movable) {
+                    move(current, hole);
+                    hole = current;
+                }
+            }
+        }
+
+        // 将槽位 from 的缓存项搬到空槽 to，并修正 LRU 链表中的指针
+        private void move(int from, int to) {
+            keys[to] = keys[from];
+            values[to] = values[from];
+            writeTimes[to] = writeTimes[from];
+            accessTimes[to] = accessTimes[from];
+            accessed[to] = accessed[from];
+            prev[to] = prev[from];
+            next[to] = next[from];
+            values[from] = null;
+
+            if (prev[to] == NIL) {
+                head = to;
+            } else {
+                next[prev[to]] = to;
+            }
+            if (next[to] == NIL) {
+                tail = to;
+            } else {
+                prev[next[to]] = to;
+            }
+        }
+
+        private void linkLast(int slot) {
+            prev[slot] = tail;
+            next[slot] = NIL;
+            if (tail == NIL) {
+                head = slot;
+            } else {
+                next[tail] = slot;
+            }
+            tail = slot;
+        }
+
+        private void unlink(int slot) {
+            int p = prev[slot];
+            int n = next[slot];
+            if (p == NIL) {
+                head = n;
+            } else {
+                next[p] = n;
+            }
+            if (n == NIL) {
+                tail = p;
+            } else {
+                prev[n] = p;
+            }
+        }
+
+        private void moveToTail(int slot) {
+            if (slot != tail) {
+                unlink(slot);
+                linkLast(slot);
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.wangguangwu.cachelocal.service.impl;
+
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.support.SingleFlightLoader;
+import com.wangguangwu.cachelocal.support.Ticker;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Guava 与 Caffeine 缓存共用的刷新与 stale-if-error 逻辑，缓存中存放的是 {@link TimestampedValue}。
+ * <p>
+ * refreshAfterWrite：命中写入时间超过该值的缓存项时照常返回当前值，同时在加载执行器上后台重新加载，
+ * 加载成功后替换旧值。经由本类加载的刷新与 stale 窗口内的重新加载对同一个 key 共享一次进行中的加载，
+ * Guava 的未命中加载也经由本类；Caffeine 的未命中由 Caffeine 自身合并，与后台刷新各自进行。
+ * </p>
+ * <p>
+ * 单独设置了过期时间的缓存项以 {@link TimestampedValue#expiresAt} 为准判断是否过期，见 {@link EntryExpiry}。
+ * </p>
+ * <p>
+ * staleIfError：底层缓存的过期时间延长一个窗口，窗口内的值不再被正常读取命中；
+ * 带加载函数的读取会先尝试重新加载，加载失败时返回窗口内的旧值，而不是把异常抛给调用方。
+ * </p>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author wangguangwu
+ */
+final class RefreshPolicy<K, V> {
+
+    // 写入后多久触发后台刷新（纳秒），0 表示不刷新
+    private final long refreshAfterWriteNanos;
+
+    // 正常的写入后过期时间（纳秒）
+    private final long expireAfterWriteNanos;
+
+    // 正常的访问后过期时间（纳秒）
+    private final long expireAfterAccessNanos;
+
+    // 过期后加载失败时仍可使用旧值的窗口（纳秒），0 表示不启用
+    private final long staleIfErrorNanos;
+
+    private final Ticker ticker;
+
+    private final SingleFlightLoader<K, V> loader;
+
+    RefreshPolicy(LocalCacheProperties localCacheProperties, Ticker ticker, Executor executor) {
+        this.refreshAfterWriteNanos = TimeUnit.SECONDS.toNanos(Math.max(0, localCacheProperties.getRefreshAfterWrite()));
+        this.expireAfterWriteNanos = TimeUnit.SECONDS.toNanos(localCacheProperties.getExpireAfterWrite());
+        this.expireAfterAccessNanos = TimeUnit.SECONDS.toNanos(localCacheProperties.getExpireAfterAccess());
+        this.staleIfErrorNanos = TimeUnit.SECONDS.toNanos(Math.max(0, localCacheProperties.getStaleIfError()));
+        this.ticker = Objects.requireNonNull(ticker);
+        this.loader = new SingleFlightLoader<>(executor);
+    }
+
+    /**
+     * 底层缓存使用的写入后过期时间（秒），包含 stale-if-error 窗口
+     */
+    static long physicalExpireAfterWrite(LocalCacheProperties localCacheProperties) {
+        return (long) localCacheProperties.getExpireAfterWrite() + Math.max(0, localCacheProperties.getStaleIfError());
+    }
+
+    /**
+     * 底层缓存使用的访问后过期时间（秒），包含 stale-if-error 窗口
+     */
+    static long physicalExpireAfterAccess(LocalCacheProperties localCacheProperties) {
+        return (long) localCacheProperties.getExpireAfterAccess() + Math.max(0, localCacheProperties.getStaleIfError());
+    }
+
+    TimestampedValue<V> wrap(V value) {
+        return new TimestampedValue<>(Objects.requireNonNull(value), ticker.read());
+    }
+
+    // 包装单独设置了过期时间的值
+    TimestampedValue<V> wrap(V value, long ttlNanos) {
+        long now = ticker.read();
+        return new TimestampedValue<>(Objects.requireNonNull(value), now, now, EntryExpiry.deadline(now, ttlNanos), ttlNanos);
+    }
+
+    // 包装刷新或重新加载写回的值，沿用旧值单独设置的过期时间
+    TimestampedValue<V> rewrap(TimestampedValue<V> previous, V value) {
+        return previous == null || previous.ttlNanos == 0 ? wrap(value) : wrap(value, previous.ttlNanos);
+    }
+
+    // 以当前时间为起点重新设置过期时间，写入时间保持不变，不影响刷新判断
+    TimestampedValue<V> withExpiration(TimestampedValue<V> holder, long ttlNanos) {
+        long now = ticker.read();
+        return new TimestampedValue<>(holder.value, holder.writeTime, now, EntryExpiry.deadline(now, ttlNanos), ttlNanos);
+    }
+
+    // 加载结果为 null 时不写入缓存
+    TimestampedValue<V> wrapNullable(V value) {
+        return value == null ? null : wrap(value);
+    }
+
+    /**
+     * 读取未过期的值，超过正常过期时间、只能在加载失败时使用的值返回 null
+     */
+    V read(TimestampedValue<V> holder) {
+        if (holder == null) {
+            return null;
+        }
+        // 未启用 stale-if-error 时底层缓存按正常过期时间淘汰，命中即有效；单独设置了过期时间的仍需判断
+        if (staleIfErrorNanos == 0 && !holder.hasDeadline()) {
+            return holder.value;
+        }
+        long now = ticker.read();
+        if (!isFresh(holder, now)) {
+            return null;
+        }
+        if (holder.accessTime != now) {
+            holder.accessTime = now;
+        }
+        return holder.value;
+    }
+
+    /**
+     * 是否启用了 stale-if-error，未启用时底层缓存中的值都未过期
+     */
+    boolean hasStaleWindow() {
+        return staleIfErrorNanos > 0;
+    }
+
+    /**
+     * 判断值是否未过期，不记录访问
+     */
+    boolean isPresent(TimestampedValue<V> holder) {
+        return holder != null && ((staleIfErrorNanos == 0 && !holder.hasDeadline()) || isFresh(holder, ticker.read()));
+    }
+
+    /**
+     * stale-if-error 窗口（纳秒）
+     */
+    long staleWindowNanos() {
+        return staleIfErrorNanos;
+    }
+
+    /**
+     * 按记录的时间计算剩余存活时间（纳秒），未启用 stale-if-error 时访问时间不维护，结果按写入时间估算
+     */
+    long remainingNanos(TimestampedValue<V> holder) {
+        long now = ticker.read();
+        if (holder.hasDeadline()) {
+            return holder.expiresAt - now;
+        }
+        return Math.min(holder.writeTime + expireAfterWriteNanos, holder.accessTime + expireAfterAccessNanos) - now;
+    }
+
+    /**
+     * 底层缓存在写入后的存活时间（纳秒），包含 stale-if-error 窗口，用于 Caffeine 的 Expiry
+     */
+    long expireAfterWrite(TimestampedValue<V> holder, long now) {
+        if (holder.hasDeadline()) {
+            return withStaleWindow(holder.expiresAt - now);
+        }
+        return withStaleWindow(Math.min(expireAfterWriteNanos, expireAfterAccessNanos));
+    }
+
+    /**
+     * 底层缓存在读取后的存活时间（纳秒），单独设置了过期时间的不随访问延长
+     */
+    long expireAfterRead(TimestampedValue<V> holder, long now, long currentDuration) {
+        if (holder.hasDeadline()) {
+            return currentDuration;
+        }
+        return withStaleWindow(Math.min(holder.writeTime + expireAfterWriteNanos - now, expireAfterAccessNanos));
+    }
+
+    /**
+     * 命中的值写入时间超过 refreshAfterWrite 时在后台重新加载
+     */
+    void refreshIfNeeded(K key, TimestampedValue<V> holder, Function<? super K, ? extends V> mappingFunction,
+                         BiConsumer<? super K, ? super V> writer) {
+        if (needsRefresh(holder)) {
+            loader.loadAsync(key, k -> CompletableFuture.completedFuture(mappingFunction.apply(k)), writer);
+        }
+    }
+
+    /**
+     * 异步版本的 {@link #refreshIfNeeded}
+     */
+    void refreshAsyncIfNeeded(K key, TimestampedValue<V> holder,
+                              Function<? super K, ? extends CompletableFuture<? extends V>> mappingFunction,
+                              BiConsumer<? super K, ? super V> writer) {
+        if (needsRefresh(holder)) {
+            loader.loadAsync(key, mappingFunction, writer);
+        }
+    }
+
+    /**
+     * 未命中时加载，stale 为仍在 stale-if-error 窗口内的旧值，加载失败时返回旧值
+     */
+    V loadOrStale(K key, TimestampedValue<V> stale, Function<? super K, ? extends V> mappingFunction,
+                  BiConsumer<? super K, ? super V> writer) {
+        if (stale == null) {
+            return loader.load(key, mappingFunction, writer);
+        }
+        try {
+            return loader.load(key, mappingFunction, writer);
+        } catch (RuntimeException e) {
+            return stale.value;
+        }
+    }
+
+    /**
+     * 异步版本的 {@link #loadOrStale}
+     */
+    CompletableFuture<V> loadOrStaleAsync(K key, TimestampedValue<V> stale,
+                                          Function<? super K, ? extends CompletableFuture<? extends V>> mappingFunction,
+                                          BiConsumer<? super K, ? super V> writer) {
+        CompletableFuture<V> future = loader.loadAsync(key, mappingFunction, writer);
+        return stale == null ? future : future.exceptionally(e -> stale.value);
+    }
+
+    private boolean isFresh(TimestampedValue<V> holder, long now) {
+        if (holder.hasDeadline()) {
+            return now - holder.expiresAt < 0;
+        }
+        return now - holder.writeTime < expireAfterWriteNanos && now - holder.accessTime < expireAfterAccessNanos;
+    }
+
+    // 加上 stale-if-error 窗口，溢出时取最大值，已超出窗口时为 0
+    private long withStaleWindow(long nanos) {
+        if (nanos > Long.MAX_VALUE - staleIfErrorNanos) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, nanos + staleIfErrorNanos);
+    }
+
+    private boolean needsRefresh(TimestampedValue<V> holder) {
+        return refreshAfterWriteNanos > 0 && ticker.read() - holder.writeTime >= refreshAfterWriteNanos;
+    }
+}
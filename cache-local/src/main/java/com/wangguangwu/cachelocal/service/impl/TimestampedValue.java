@@ -0,0 +1,45 @@
+package com.wangguangwu.cachelocal.service.impl;
+
+/**
+ * Guava 与 Caffeine 缓存中实际存放的值，附带写入时间与访问时间。
+ * <p>
+ * 两者都不对外暴露单个缓存项的写入时间，刷新判断和 stale-if-error 窗口需要自行记录。
+ * 单独设置了过期时间的缓存项同时记录到期时间，设置过期时间时替换为新的实例，不修改已有实例。
+ * </p>
+ *
+ * @param <V> 值类型
+ * @author wangguangwu
+ */
+final class TimestampedValue<V> {
+
+    // 缓存值
+    final V value;
+
+    // 写入时间（纳秒）
+    final long writeTime;
+
+    // 最近一次访问时间（纳秒），只在启用 stale-if-error 时维护
+    volatile long accessTime;
+
+    // 单独设置的到期时间（纳秒），未设置时为 EntryExpiry.NO_DEADLINE
+    final long expiresAt;
+
+    // 单独设置的过期时间（纳秒），为 0 时按全局配置过期，刷新与重新加载写回时沿用
+    final long ttlNanos;
+
+    TimestampedValue(V value, long now) {
+        this(value, now, now, EntryExpiry.NO_DEADLINE, 0);
+    }
+
+    TimestampedValue(V value, long writeTime, long accessTime, long expiresAt, long ttlNanos) {
+        this.value = value;
+        this.writeTime = writeTime;
+        this.accessTime = accessTime;
+        this.expiresAt = expiresAt;
+        this.ttlNanos = ttlNanos;
+    }
+
+    boolean hasDeadline() {
+        return expiresAt != EntryExpiry.NO_DEADLINE;
+    }
+}
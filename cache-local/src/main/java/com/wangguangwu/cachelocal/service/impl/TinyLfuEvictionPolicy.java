@@ -0,0 +1,135 @@
+package com.wangguangwu.cachelocal.service.impl;
+
+import com.wangguangwu.cachelocal.support.FrequencySketch;
+
+import java.util.function.Consumer;
+
+/**
+ * W-TinyLFU 淘汰策略。
+ * <p>
+ * 分段容量划分为准入窗口（1%）与主区域，主区域再按分段 LRU 划分为试用区与保护区（主区域的 80%）。
+ * 新缓存项先进入窗口，从窗口淘汰出的缓存项作为候选项进入试用区；分段超出容量时，
+ * 比较候选项与试用区最久未访问的缓存项的访问频率，淘汰频率较低的一方。
+ * 试用区的缓存项再次被访问后晋升到保护区，保护区溢出的缓存项降级回试用区。
+ * 只被访问一次的缓存项很难挤掉主区域中的热点数据，扫描类流量不会冲刷热点。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+final class TinyLfuEvictionPolicy<K, V> implements MapEvictionPolicy<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    // 准入窗口占分段容量的比例
+    private static final double WINDOW_PERCENTAGE = 0.01d;
+
+    // 保护区占主区域容量的比例
+    private static final double PROTECTED_PERCENTAGE = 0.80d;
+
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedDeque = new AccessOrderDeque<>();
+
+    private final FrequencySketch sketch;
+
+    // 准入窗口的最大容量
+    private final int maxWindow;
+
+    // 保护区的最大容量
+    private final int maxProtected;
+
+    TinyLfuEvictionPolicy(int capacity) {
+        this.sketch = new FrequencySketch(capacity);
+        this.maxWindow = Math.max(1, (int) (capacity * WINDOW_PERCENTAGE));
+        this.maxProtected = (int) (Math.max(0, capacity - maxWindow) * PROTECTED_PERCENTAGE);
+    }
+
+    @Override
+    public void onAdd(MapCacheNode<K, V> node) {
+        sketch.increment(node.key);
+        node.queueType = WINDOW;
+        window.linkLast(node);
+        // 窗口溢出的缓存项作为候选项进入试用区
+        while (window.size() > maxWindow) {
+            MapCacheNode<K, V> candidate = window.peekFirst();
+            window.unlink(candidate);
+            candidate.queueType = PROBATION;
+            probation.linkLast(candidate);
+        }
+    }
+
+    @Override
+    public void onAccess(MapCacheNode<K, V> node) {
+        sketch.increment(node.key);
+        switch (node.queueType) {
+            case WINDOW -> window.moveToTail(node);
+            case PROBATION -> {
+                // 试用区的缓存项再次被访问，晋升到保护区
+                probation.unlink(node);
+                node.queueType = PROTECTED;
+                protectedDeque.linkLast(node);
+                demoteFromProtected();
+            }
+            default -> protectedDeque.moveToTail(node);
+        }
+    }
+
+    @Override
+    public void onRemove(MapCacheNode<K, V> node) {
+        dequeOf(node).unlink(node);
+    }
+
+    @Override
+    public MapCacheNode<K, V> selectVictim() {
+        MapCacheNode<K, V> victim = probation.peekFirst();
+        if (victim == null) {
+            // 试用区为空时依次从保护区、窗口中淘汰
+            MapCacheNode<K, V> protectedVictim = protectedDeque.peekFirst();
+            return protectedVictim != null ? protectedVictim : window.peekFirst();
+        }
+
+        // 候选项是最近从窗口进入试用区的缓存项
+        MapCacheNode<K, V> candidate = probation.peekLast();
+        if (candidate == victim) {
+            return victim;
+        }
+        // 候选项更热时淘汰试用区队首，否则拒绝候选项
+        return sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+    }
+
+    @Override
+    public void forEach(Consumer<MapCacheNode<K, V>> action) {
+        window.forEach(action);
+        probation.forEach(action);
+        protectedDeque.forEach(action);
+    }
+
+    @Override
+    public void clear() {
+        window.clear();
+        probation.clear();
+        protectedDeque.clear();
+    }
+
+    // 保护区溢出时，将最久未访问的缓存项降级回试用区
+    private void demoteFromProtected() {
+        while (protectedDeque.size() > maxProtected) {
+            MapCacheNode<K, V> demoted = protectedDeque.peekFirst();
+            protectedDeque.unlink(demoted);
+            demoted.queueType = PROBATION;
+            probation.linkLast(demoted);
+        }
+    }
+
+    private AccessOrderDeque<K, V> dequeOf(MapCacheNode<K, V> node) {
+        return switch (node.queueType) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            default -> protectedDeque;
+        };
+    }
+}
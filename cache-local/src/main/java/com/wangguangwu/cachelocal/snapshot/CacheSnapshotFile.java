@@ -0,0 +1,379 @@
+package com.wangguangwu.cachelocal.snapshot;
+
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.serializer.CacheSerializer;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * 本地缓存快照文件，用于重启后预热缓存。
+ * <p>
+ * 写入时遍历缓存中未过期的缓存项，将键、值与剩余存活时间依次追加到内存映射的临时文件中，完成后原子替换快照文件，
+ * 写入过程中进程退出不会破坏上一次的快照。加载时先顺序扫描记录长度，将文件切分为若干个块，
+ * 再由多个线程并行映射、校验、反序列化并写回缓存，剩余存活时间扣除快照写入至今经过的时间。
+ * </p>
+ * <p>
+ * 文件格式：
+ * <pre>
+ * 文件头：magic(int) version(int) 写入时间(long，毫秒)
+ * 记录：  记录体长度(int) CRC32(int) 记录体
+ * 记录体：剩余存活时间(long，纳秒) 键长度(int) 键 值
+ * </pre>
+ * 文件头的 magic 或版本不匹配时整个文件不加载；单条记录校验失败或反序列化失败时只跳过该记录，
+ * 文件末尾不完整的记录同样跳过，其余记录照常加载。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+public class CacheSnapshotFile<K, V> {
+
+    // 文件标识 "LCSN"
+    private static final int MAGIC = 0x4C43534E;
+
+    // 文件格式版本，格式变化时递增，旧版本的文件不再加载
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 16;
+
+    // 记录头：记录体长度与 CRC32
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    // 记录体的最小长度：剩余存活时间与键长度
+    private static final int MIN_BODY_SIZE = 12;
+
+    // 写入与扫描时单次映射的字节数
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    // 并行加载时每个块的目标字节数
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final Path path;
+
+    private final CacheSerializer<K> keySerializer;
+
+    private final CacheSerializer<V> valueSerializer;
+
+    // 墙上时钟，单调时钟在进程间不可比较，剩余存活时间按墙上时间折算
+    private final Clock clock;
+
+    /**
+     * CacheSnapshotFile 构造方法，使用系统时钟。
+     *
+     * @param path            快照文件路径
+     * @param keySerializer   键的序列化器
+     * @param valueSerializer 值的序列化器
+     */
+    public CacheSnapshotFile(Path path, CacheSerializer<K> keySerializer, CacheSerializer<V> valueSerializer) {
+        this(path, keySerializer, valueSerializer, Clock.systemUTC());
+    }
+
+    /**
+     * CacheSnapshotFile 构造方法。
+     *
+     * @param path            快照文件路径
+     * @param keySerializer   键的序列化器
+     * @param valueSerializer 值的序列化器
+     * @param clock           计算快照写入后经过时间的时钟
+     */
+    public CacheSnapshotFile(Path path, CacheSerializer<K> keySerializer, CacheSerializer<V> valueSerializer,
+                             Clock clock) {
+        this.path = Objects.requireNonNull(path);
+        this.keySerializer = Objects.requireNonNull(keySerializer);
+        this.valueSerializer = Objects.requireNonNull(valueSerializer);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * 将缓存中未过期的缓存项写入快照文件，无法序列化的缓存项不写入。
+     *
+     * @param cache 本地缓存
+     * @return 写入的缓存项数量
+     * @throws CacheException 如果写入文件失败，则抛出自定义缓存异常
+     */
+    public long write(LocalCacheService<K, V> cache) {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long count;
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedWriter writer = new MappedWriter(channel);
+                writer.reserve(HEADER_SIZE)
+                        .putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putLong(clock.millis());
+                count = writeEntries(cache, writer);
+                channel.truncate(writer.finish());
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UncheckedIOException e) {
+            throw new CacheException("Error writing cache snapshot: " + path, e);
+        }
+        return count;
+    }
+
+    /**
+     * 并行加载快照文件中的缓存项并写回缓存，快照文件不存在时不做任何处理。
+     *
+     * @param cache       本地缓存
+     * @param parallelism 加载线程数，不大于 1 时在当前线程加载
+     * @return 加载结果
+     * @throws CacheException 如果读取文件失败，则抛出自定义缓存异常
+     */
+    public SnapshotLoadResult load(LocalCacheService<K, V> cache, int parallelism) {
+        if (!Files.isRegularFile(path)) {
+            return SnapshotLoadResult.empty();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return SnapshotLoadResult.empty();
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return SnapshotLoadResult.empty();
+            }
+            long elapsedNanos = Duration.ofMillis(Math.max(0, clock.millis() - header.getLong())).toNanos();
+
+            LoadCounters counters = new LoadCounters();
+            List<long[]> chunks = splitChunks(channel, size, counters);
+            List<Callable<Void>> tasks = new ArrayList<>(chunks.size());
+            for (long[] chunk : chunks) {
+                tasks.add(() -> {
+                    loadChunk(channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1]), cache, elapsedNanos, counters);
+                    return null;
+                });
+            }
+            runAll(tasks, parallelism);
+            return counters.toResult();
+        } catch (IOException e) {
+            throw new CacheException("Error reading cache snapshot: " + path, e);
+        }
+    }
+
+    private long writeEntries(LocalCacheService<K, V> cache, MappedWriter writer) {
+        CRC32 crc = new CRC32();
+        long[] count = new long[1];
+        cache.forEachEntry((key, value, remaining) -> {
+            byte[] keyBytes;
+            byte[] valueBytes;
+            try {
+                keyBytes = keySerializer.serialize(key);
+                valueBytes = valueSerializer.serialize(value);
+            } catch (RuntimeException e) {
+                // 快照只用于预热，个别缓存项无法序列化时直接跳过
+                return;
+            }
+            int bodySize = MIN_BODY_SIZE + keyBytes.length + valueBytes.length;
+            ByteBuffer buffer = writer.reserve(RECORD_HEADER_SIZE + bodySize);
+            int bodyStart = buffer.position() + RECORD_HEADER_SIZE;
+            buffer.putInt(bodySize)
+                    .putInt(0)
+                    .putLong(remaining.toNanos())
+                    .putInt(keyBytes.length)
+                    .put(keyBytes)
+                    .put(valueBytes);
+            crc.reset();
+            crc.update(buffer.slice(bodyStart, bodySize));
+            buffer.putInt(bodyStart - 4, (int) crc.getValue());
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    // 顺序扫描记录长度，按 CHUNK_SIZE 将完整的记录划分为块，块的起止位置都落在记录边界上
+    private static List<long[]> splitChunks(FileChannel channel, long size, LoadCounters counters) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        long position = HEADER_SIZE;
+        long chunkStart = position;
+        MappedByteBuffer window = null;
+        long windowStart = 0;
+        while (size - position >= RECORD_HEADER_SIZE) {
+            if (window == null || position + 4 > windowStart + window.capacity()) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+            }
+            int bodySize = window.getInt((int) (position - windowStart));
+            if (bodySize < MIN_BODY_SIZE || bodySize > size - position - RECORD_HEADER_SIZE) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + bodySize;
+            if (position - chunkStart >= CHUNK_SIZE) {
+                chunks.add(new long[]{chunkStart, position - chunkStart});
+                chunkStart = position;
+            }
+        }
+        if (position > chunkStart) {
+            chunks.add(new long[]{chunkStart, position - chunkStart});
+        }
+        // 文件末尾不完整的记录，通常是写入时磁盘已满
+        if (position < size) {
+            counters.skipped.increment();
+        }
+        return chunks;
+    }
+
+    private void loadChunk(ByteBuffer chunk, LocalCacheService<K, V> cache, long elapsedNanos, LoadCounters counters) {
+        CRC32 crc = new CRC32();
+        while (chunk.remaining() >= RECORD_HEADER_SIZE) {
+            int bodySize = chunk.getInt();
+            int checksum = chunk.getInt();
+            ByteBuffer body = chunk.slice(chunk.position(), bodySize);
+            chunk.position(chunk.position() + bodySize);
+
+            crc.reset();
+            crc.update(body.duplicate());
+            int keySize;
+            if ((int) crc.getValue() != checksum || (keySize = body.getInt(8)) < 0 || keySize > bodySize - MIN_BODY_SIZE) {
+                counters.skipped.increment();
+                continue;
+            }
+            long remainingNanos = body.getLong(0) - elapsedNanos;
+            if (remainingNanos <= 0) {
+                counters.expired.increment();
+                continue;
+            }
+            byte[] keyBytes = new byte[keySize];
+            byte[] valueBytes = new byte[bodySize - MIN_BODY_SIZE - keySize];
+            body.position(MIN_BODY_SIZE);
+            body.get(keyBytes).get(valueBytes);
+            try {
+                cache.put(keySerializer.deserialize(keyBytes), valueSerializer.deserialize(valueBytes),
+                        Duration.ofNanos(remainingNanos));
+                counters.loaded.increment();
+            } catch (RuntimeException e) {
+                // 类结构变化等原因无法反序列化的缓存项直接跳过
+                counters.skipped.increment();
+            }
+        }
+    }
+
+    private static void runAll(List<Callable<Void>> tasks, int parallelism) throws IOException {
+        if (parallelism <= 1 || tasks.size() <= 1) {
+            for (Callable<Void> task : tasks) {
+                call(task);
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()), new LoaderThreadFactory());
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException("Interrupted while loading cache snapshot", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new CacheException("Error loading cache snapshot", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void call(Callable<Void> task) throws IOException {
+        try {
+            task.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CacheException("Error loading cache snapshot", e);
+        }
+    }
+
+    // 在内存映射的窗口中顺序写入，剩余空间不足时从当前位置重新映射下一个窗口
+    private static final class MappedWriter {
+
+        private final FileChannel channel;
+
+        private MappedByteBuffer window;
+
+        private long windowStart;
+
+        MappedWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        // 返回至少有 size 字节剩余空间的窗口
+        ByteBuffer reserve(int size) {
+            if (window == null || window.remaining() < size) {
+                long position = position();
+                if (window != null) {
+                    window.force();
+                }
+                try {
+                    window = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(WINDOW_SIZE, size));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                windowStart = position;
+            }
+            return window;
+        }
+
+        // 刷盘并返回实际写入的字节数
+        long finish() {
+            window.force();
+            return position();
+        }
+
+        private long position() {
+            return window == null ? 0 : windowStart + window.position();
+        }
+    }
+
+    private static final class LoadCounters {
+
+        final LongAdder loaded = new LongAdder();
+
+        final LongAdder expired = new LongAdder();
+
+        final LongAdder skipped = new LongAdder();
+
+        SnapshotLoadResult toResult() {
+            return new SnapshotLoadResult(loaded.sum(), expired.sum(), skipped.sum());
+        }
+    }
+
+    private static final class LoaderThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "cache-snapshot-loader-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
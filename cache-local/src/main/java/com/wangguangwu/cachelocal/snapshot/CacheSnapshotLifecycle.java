@@ -0,0 +1,117 @@
+package com.wangguangwu.cachelocal.snapshot;
+
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地缓存快照的生命周期管理。
+ * <p>
+ * 应用启动时在当前线程加载快照，加载完成后容器才继续启动 Web 服务并发布就绪事件，避免冷缓存直接承接流量；
+ * 运行期间按固定间隔写入快照，应用关闭时在 Web 服务停止之后、缓存销毁之前再写入一次。
+ * 快照只用于预热，加载或写入失败时记录日志，不影响应用启动与关闭。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+@Slf4j
+public class CacheSnapshotLifecycle<K, V> implements SmartLifecycle {
+
+    private final LocalCacheService<K, V> cache;
+
+    private final CacheSnapshotFile<K, V> snapshotFile;
+
+    // 定时写入快照的间隔，单位为秒，0 表示只在关闭时写入
+    private final int intervalSeconds;
+
+    // 加载快照的并行线程数
+    private final int loadParallelism;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean running;
+
+    /**
+     * CacheSnapshotLifecycle 构造方法。
+     *
+     * @param cache           本地缓存
+     * @param snapshotFile    快照文件
+     * @param intervalSeconds 定时写入快照的间隔，单位为秒，0 表示只在关闭时写入
+     * @param loadParallelism 加载快照的并行线程数
+     */
+    public CacheSnapshotLifecycle(LocalCacheService<K, V> cache, CacheSnapshotFile<K, V> snapshotFile,
+                                  int intervalSeconds, int loadParallelism) {
+        this.cache = cache;
+        this.snapshotFile = snapshotFile;
+        this.intervalSeconds = intervalSeconds;
+        this.loadParallelism = loadParallelism;
+    }
+
+    @Override
+    public void start() {
+        long start = System.nanoTime();
+        try {
+            SnapshotLoadResult result = snapshotFile.load(cache, loadParallelism);
+            log.info("Loaded local cache snapshot in {} ms: {}",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), result);
+        } catch (CacheException e) {
+            log.warn("Failed to load local cache snapshot, starting with an empty cache", e);
+        }
+        if (intervalSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cache-snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::writeSnapshot, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                // 等待进行中的定时写入结束，避免与关闭时的写入同时替换快照文件
+                scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+        writeSnapshot();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 早于 Web 服务启动、晚于 Web 服务停止
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void writeSnapshot() {
+        long start = System.nanoTime();
+        try {
+            long count = snapshotFile.write(cache);
+            log.info("Wrote local cache snapshot with {} entries in {} ms",
+                    count, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (CacheException e) {
+            log.warn("Failed to write local cache snapshot", e);
+        }
+    }
+}
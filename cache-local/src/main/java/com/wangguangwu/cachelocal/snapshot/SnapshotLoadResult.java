@@ -0,0 +1,52 @@
+package com.wangguangwu.cachelocal.snapshot;
+
+/**
+ * 快照加载结果，记录写回缓存、已过期与无法读取而跳过的缓存项数量。
+ *
+ * @author wangguangwu
+ */
+public final class SnapshotLoadResult {
+
+    private static final SnapshotLoadResult EMPTY = new SnapshotLoadResult(0, 0, 0);
+
+    // 写回缓存的缓存项数量
+    private final long loadedCount;
+
+    // 快照写入后已过期而丢弃的缓存项数量
+    private final long expiredCount;
+
+    // 校验失败、格式不兼容或反序列化失败而跳过的缓存项数量
+    private final long skippedCount;
+
+    SnapshotLoadResult(long loadedCount, long expiredCount, long skippedCount) {
+        this.loadedCount = loadedCount;
+        this.expiredCount = expiredCount;
+        this.skippedCount = skippedCount;
+    }
+
+    /**
+     * 快照文件不存在时的加载结果
+     *
+     * @return 所有计数都为 0 的结果
+     */
+    public static SnapshotLoadResult empty() {
+        return EMPTY;
+    }
+
+    public long getLoadedCount() {
+        return loadedCount;
+    }
+
+    public long getExpiredCount() {
+        return expiredCount;
+    }
+
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotLoadResult{loaded=" + loadedCount + ", expired=" + expiredCount + ", skipped=" + skippedCount + "}";
+    }
+}
@@ -0,0 +1,26 @@
+package com.wangguangwu.cachelocal.spring;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 多个 Spring 缓存共用同一个本地缓存引擎时的键，按缓存名称隔离相同的业务键。
+ * <p>
+ * 字符串形式为 {@code cacheName::key}，与 Spring Data Redis 默认的键格式一致，可直接用于 scan 的 glob 表达式。
+ * 堆外缓存按序列化后的字节比较键，业务键需要可序列化。
+ * </p>
+ *
+ * @param cacheName 缓存名称
+ * @param key       业务键
+ * @author wangguangwu
+ */
+public record CacheKey(String cacheName, Object key) implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String toString() {
+        return cacheName + "::" + key;
+    }
+}
@@ -0,0 +1,67 @@
+package com.wangguangwu.cachelocal.spring;
+
+import com.wangguangwu.cachelocal.registry.LocalCacheRegistry;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 基于 {@link LocalCacheService} 的 Spring {@link org.springframework.cache.CacheManager}。
+ * <p>
+ * 首次访问某个缓存名称时创建对应的 {@link LocalCacheServiceCache}。在 {@link LocalCacheRegistry} 中配置了的缓存名称使用各自独立的引擎，
+ * 其余缓存名称共用同一个引擎，键按缓存名称隔离。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public class LocalCacheManager extends AbstractCacheManager {
+
+    private final LocalCacheService<Object, Object> cacheService;
+
+    // 命名缓存注册表，为 null 时所有缓存名称共用同一个引擎
+    private final LocalCacheRegistry registry;
+
+    // 是否缓存 null 值
+    private final boolean allowNullValues;
+
+    /**
+     * LocalCacheManager 构造方法。
+     *
+     * @param cacheService    本地缓存引擎
+     * @param allowNullValues 是否缓存 null 值
+     */
+    public LocalCacheManager(LocalCacheService<Object, Object> cacheService, boolean allowNullValues) {
+        this(cacheService, null, allowNullValues);
+    }
+
+    /**
+     * LocalCacheManager 构造方法。
+     *
+     * @param cacheService    未在注册表中配置的缓存名称共用的本地缓存引擎
+     * @param registry        命名缓存注册表，可以为 null
+     * @param allowNullValues 是否缓存 null 值
+     */
+    public LocalCacheManager(LocalCacheService<Object, Object> cacheService, LocalCacheRegistry registry,
+                             boolean allowNullValues) {
+        this.cacheService = Objects.requireNonNull(cacheService);
+        this.registry = registry;
+        this.allowNullValues = allowNullValues;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return List.of();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        if (registry != null && registry.contains(name)) {
+            return new LocalCacheServiceCache(name, registry.getCache(name), allowNullValues);
+        }
+        return new LocalCacheServiceCache(name, cacheService, allowNullValues);
+    }
+}
@@ -0,0 +1,161 @@
+package com.wangguangwu.cachelocal.spring;
+
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 将 {@link LocalCacheService} 适配为 Spring 的 {@link org.springframework.cache.Cache}，
+ * 使 {@code @Cacheable} 等注解直接使用本项目的本地缓存引擎。
+ * <p>
+ * 同一个引擎可以被多个缓存名称共用，键包装为 {@link CacheKey} 按名称隔离，过期时间与容量由引擎统一配置。
+ * {@code @Cacheable(sync = true)} 对应引擎的 {@link LocalCacheService#get}，同一个键的并发未命中只加载一次；
+ * 异步方法对应 {@link LocalCacheService#getAsync}。
+ * </p>
+ * <p>
+ * clear 通过 scan 遍历引擎中属于本缓存的键并分批删除，耗时与引擎中的条目数成正比。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public class LocalCacheServiceCache extends AbstractValueAdaptingCache {
+
+    // clear 时每批删除的键数量
+    private static final int CLEAR_BATCH_SIZE = 1000;
+
+    private final String name;
+
+    private final LocalCacheService<Object, Object> cacheService;
+
+    /**
+     * LocalCacheServiceCache 构造方法。
+     *
+     * @param name            缓存名称
+     * @param cacheService    本地缓存引擎
+     * @param allowNullValues 是否缓存 null 值
+     */
+    public LocalCacheServiceCache(String name, LocalCacheService<Object, Object> cacheService, boolean allowNullValues) {
+        super(allowNullValues);
+        this.name = Objects.requireNonNull(name);
+        this.cacheService = Objects.requireNonNull(cacheService);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public LocalCacheService<Object, Object> getNativeCache() {
+        return cacheService;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        return cacheService.getIfPresent(cacheKey(key));
+    }
+
+    /**
+     * 获取缓存值，未命中时调用 valueLoader 加载，同一个键的并发未命中只加载一次。
+     *
+     * @param key         键
+     * @param valueLoader 加载函数
+     * @return 缓存值
+     * @throws ValueRetrievalException 如果加载失败
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        try {
+            return (T) fromStoreValue(cacheService.get(cacheKey(key), k -> load(key, valueLoader)));
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        Object value = lookup(key);
+        return value != null
+                ? CompletableFuture.completedFuture(isAllowNullValues() ? toValueWrapper(value) : fromStoreValue(value))
+                : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        return cacheService.getAsync(cacheKey(key), k -> valueLoader.get().thenApply(this::storeValueOrNull))
+                .thenApply(value -> (T) fromStoreValue(value));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        cacheService.put(cacheKey(key), toStoreValue(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        cacheService.invalidate(cacheKey(key));
+    }
+
+    /**
+     * 删除引擎中属于本缓存的所有键，其他缓存名称的键不受影响。
+     */
+    @Override
+    public void clear() {
+        try (Stream<Object> keys = cacheService.scan(null, CLEAR_BATCH_SIZE)) {
+            Iterator<Object> iterator = keys
+                    .filter(key -> key instanceof CacheKey cacheKey && cacheKey.cacheName().equals(name))
+                    .iterator();
+            List<Object> batch = new ArrayList<>(CLEAR_BATCH_SIZE);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == CLEAR_BATCH_SIZE || !iterator.hasNext()) {
+                    cacheService.invalidateAll(batch);
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private CacheKey cacheKey(Object key) {
+        return new CacheKey(name, key);
+    }
+
+    // 加载结果为 null 且不缓存 null 值时返回 null，引擎不会写入
+    private Object load(Object key, Callable<?> valueLoader) {
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        return storeValueOrNull(value);
+    }
+
+    private Object storeValueOrNull(Object value) {
+        if (value == null) {
+            return isAllowNullValues() ? NullValue.INSTANCE : null;
+        }
+        return value;
+    }
+
+    // 引擎会把加载函数抛出的异常包装为 CacheException，这里还原为 Spring 约定的 ValueRetrievalException
+    private static RuntimeException unwrap(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ValueRetrievalException valueRetrievalException) {
+                return valueRetrievalException;
+            }
+        }
+        return e;
+    }
+}
@@ -0,0 +1,42 @@
+package com.wangguangwu.cachelocal.stats;
+
+/**
+ * 记录耗时分布的缓存操作。
+ * <p>
+ * 带加载函数的操作（get、getAll）的耗时包含加载时间，单独的加载耗时见 {@link CacheStats#getLoadLatency()}。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public enum CacheOperation {
+
+    /**
+     * getIfPresent
+     */
+    GET_IF_PRESENT,
+
+    /**
+     * 带加载函数的 get
+     */
+    GET,
+
+    /**
+     * 带加载函数的 getAll
+     */
+    GET_ALL,
+
+    /**
+     * put
+     */
+    PUT,
+
+    /**
+     * putAll
+     */
+    PUT_ALL,
+
+    /**
+     * invalidate
+     */
+    INVALIDATE
+}
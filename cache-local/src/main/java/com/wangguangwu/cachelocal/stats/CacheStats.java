@@ -0,0 +1,204 @@
+package com.wangguangwu.cachelocal.stats;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 缓存统计信息的不可变快照，由 {@link StatsCounter#snapshot()} 生成。
+ * <p>
+ * 命中与未命中按读取的 key 计数：getIfPresent、get、getAsync 各计一次，getAll 按 key 数量计数，containsKey 不计数。
+ * 加载次数包含未命中加载与后台刷新，加载函数抛出异常或返回 null 都视为加载失败。
+ * </p>
+ * <p>
+ * 启用负缓存时，读到负缓存占位值计为未命中，同时单独计入负缓存命中次数，见
+ * {@link com.wangguangwu.cachelocal.negative.NegativeCachingLocalCacheService}。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public final class CacheStats {
+
+    private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, LatencySnapshot.empty(),
+            new EnumMap<>(EvictionCause.class), new EnumMap<>(CacheOperation.class));
+
+    // 命中次数，不包含负缓存命中
+    private final long hitCount;
+
+    // 未命中次数，包含负缓存命中
+    private final long missCount;
+
+    // 负缓存命中次数
+    private final long negativeHitCount;
+
+    // 加载成功次数
+    private final long loadSuccessCount;
+
+    // 加载失败次数
+    private final long loadFailureCount;
+
+    // 加载耗时分布
+    private final LatencySnapshot loadLatency;
+
+    // 按原因统计的淘汰次数，包含所有原因
+    private final Map<EvictionCause, Long> evictionCounts;
+
+    // 按操作统计的耗时分布，包含所有操作
+    private final Map<CacheOperation, LatencySnapshot> operationLatencies;
+
+    CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+               LatencySnapshot loadLatency, Map<EvictionCause, Long> evictionCounts,
+               Map<CacheOperation, LatencySnapshot> operationLatencies) {
+        this(hitCount, missCount, 0, loadSuccessCount, loadFailureCount, loadLatency, evictionCounts, operationLatencies);
+    }
+
+    private CacheStats(long hitCount, long missCount, long negativeHitCount, long loadSuccessCount, long loadFailureCount,
+                       LatencySnapshot loadLatency, Map<EvictionCause, Long> evictionCounts,
+                       Map<CacheOperation, LatencySnapshot> operationLatencies) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.negativeHitCount = negativeHitCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.loadLatency = loadLatency;
+        EnumMap<EvictionCause, Long> evictions = new EnumMap<>(EvictionCause.class);
+        for (EvictionCause cause : EvictionCause.values()) {
+            evictions.put(cause, evictionCounts.getOrDefault(cause, 0L));
+        }
+        this.evictionCounts = Collections.unmodifiableMap(evictions);
+        EnumMap<CacheOperation, LatencySnapshot> latencies = new EnumMap<>(CacheOperation.class);
+        for (CacheOperation operation : CacheOperation.values()) {
+            latencies.put(operation, operationLatencies.getOrDefault(operation, LatencySnapshot.empty()));
+        }
+        this.operationLatencies = Collections.unmodifiableMap(latencies);
+    }
+
+    /**
+     * 所有计数都为 0 的快照，未开启统计的缓存返回该快照
+     *
+     * @return 空快照
+     */
+    public static CacheStats empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 将负缓存命中计入统计。被装饰的缓存把读到占位值计为命中，这里从命中次数中扣除并改为未命中，同时单独列出。
+     * 未开启统计的空快照原样返回。
+     *
+     * @param negativeHits 负缓存命中次数
+     * @return 新的快照
+     */
+    public CacheStats withNegativeHits(long negativeHits) {
+        if (this == EMPTY || negativeHits <= 0) {
+            return this;
+        }
+        long moved = Math.min(negativeHits, hitCount);
+        return new CacheStats(hitCount - moved, missCount + moved, negativeHitCount + negativeHits,
+                loadSuccessCount, loadFailureCount, loadLatency, evictionCounts, operationLatencies);
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getNegativeHitCount() {
+        return negativeHitCount;
+    }
+
+    /**
+     * 请求次数，即命中与未命中次数之和
+     *
+     * @return 请求次数
+     */
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * 命中率，没有请求时为 1.0
+     *
+     * @return 命中率
+     */
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * 未命中率，没有请求时为 0.0
+     *
+     * @return 未命中率
+     */
+    public double getMissRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 0.0 : (double) missCount / requestCount;
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * 加载次数，即加载成功与失败次数之和
+     *
+     * @return 加载次数
+     */
+    public long getLoadCount() {
+        return loadSuccessCount + loadFailureCount;
+    }
+
+    public LatencySnapshot getLoadLatency() {
+        return loadLatency;
+    }
+
+    /**
+     * 所有原因的淘汰次数之和
+     *
+     * @return 淘汰次数
+     */
+    public long getEvictionCount() {
+        long total = 0;
+        for (long count : evictionCounts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 按原因统计的淘汰次数，包含所有原因，没有发生过的为 0
+     *
+     * @return 只读的淘汰次数映射
+     */
+    public Map<EvictionCause, Long> getEvictionCounts() {
+        return evictionCounts;
+    }
+
+    /**
+     * 按操作统计的耗时分布，包含所有操作，没有记录过的为空快照
+     *
+     * @return 只读的耗时分布映射
+     */
+    public Map<CacheOperation, LatencySnapshot> getOperationLatencies() {
+        return operationLatencies;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount
+                + ", missCount=" + missCount
+                + ", negativeHitCount=" + negativeHitCount
+                + ", loadSuccessCount=" + loadSuccessCount
+                + ", loadFailureCount=" + loadFailureCount
+                + ", loadLatency=" + loadLatency
+                + ", evictionCounts=" + evictionCounts + "}";
+    }
+}
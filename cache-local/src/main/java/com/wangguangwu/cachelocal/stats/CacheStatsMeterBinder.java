@@ -0,0 +1,88 @@
+package com.wangguangwu.cachelocal.stats;
+
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 将 {@link LocalCacheService#stats()} 导出为 Micrometer 指标，所有指标带有 {@code cache} 标签。
+ * <p>
+ * 计数导出为 FunctionCounter，耗时分布导出为 FunctionTimer（次数与总耗时），条目数导出为 Gauge，
+ * 每次采集时读取一次统计快照，不在缓存的读写路径上增加开销。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public class CacheStatsMeterBinder implements MeterBinder {
+
+    private final LocalCacheService<?, ?> cache;
+
+    private final Tags tags;
+
+    /**
+     * CacheStatsMeterBinder 构造方法。
+     *
+     * @param cacheName 缓存名称，作为 {@code cache} 标签的值
+     * @param cache     要导出统计的缓存
+     */
+    public CacheStatsMeterBinder(String cacheName, LocalCacheService<?, ?> cache) {
+        this.cache = cache;
+        this.tags = Tags.of("cache", cacheName);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "cache.gets", "result", "hit", CacheStats::getHitCount);
+        counter(registry, "cache.gets", "result", "miss", CacheStats::getMissCount);
+        counter(registry, "cache.gets", "result", "negative", CacheStats::getNegativeHitCount);
+        counter(registry, "cache.loads", "result", "success", CacheStats::getLoadSuccessCount);
+        counter(registry, "cache.loads", "result", "failure", CacheStats::getLoadFailureCount);
+        for (EvictionCause cause : EvictionCause.values()) {
+            counter(registry, "cache.evictions", "cause", lowerCase(cause),
+                    stats -> stats.getEvictionCounts().get(cause));
+        }
+
+        timer(registry, "cache.load.duration", Tags.empty(), CacheStats::getLoadLatency);
+        for (CacheOperation operation : CacheOperation.values()) {
+            timer(registry, "cache.operation.duration", Tags.of("operation", lowerCase(operation)),
+                    stats -> stats.getOperationLatencies().get(operation));
+        }
+
+        Gauge.builder("cache.size", cache, LocalCacheService::size)
+                .tags(tags)
+                .description("缓存中的条目数")
+                .register(registry);
+    }
+
+    private void counter(MeterRegistry registry, String name, String tagKey, String tagValue,
+                         ToLongFunction<CacheStats> count) {
+        FunctionCounter.builder(name, cache, c -> count.applyAsLong(c.stats()))
+                .tags(tags)
+                .tag(tagKey, tagValue)
+                .register(registry);
+    }
+
+    private void timer(MeterRegistry registry, String name, Tags extraTags,
+                       Function<CacheStats, LatencySnapshot> latency) {
+        ToLongFunction<LocalCacheService<?, ?>> count = c -> latency.apply(c.stats()).getCount();
+        ToDoubleFunction<LocalCacheService<?, ?>> totalNanos = c -> latency.apply(c.stats()).getTotalNanos();
+        FunctionTimer.builder(name, cache, count, totalNanos, TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .tags(extraTags)
+                .register(registry);
+    }
+
+    private static String lowerCase(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,24 @@
+package com.wangguangwu.cachelocal.stats;
+
+/**
+ * 缓存项被淘汰的原因，不包含主动移除与覆盖写入。
+ *
+ * @author wangguangwu
+ */
+public enum EvictionCause {
+
+    /**
+     * 超出最大容量或最大权重
+     */
+    SIZE,
+
+    /**
+     * 超出写入后或访问后过期时间
+     */
+    EXPIRED,
+
+    /**
+     * 弱引用的键被垃圾回收
+     */
+    COLLECTED
+}
@@ -0,0 +1,108 @@
+package com.wangguangwu.cachelocal.stats;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并发记录耗时（纳秒）的直方图。
+ * <p>
+ * 按 2 的幂划分区间，每个区间再线性拆分为 8 个桶，相对误差不超过 12.5%；
+ * 每个桶是一个 {@link LongAdder}，多个线程记录同一个桶时写入不同的分片，记录操作不加锁。
+ * 超过约 36 分钟的耗时都记入最后一个桶。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public final class LatencyHistogram {
+
+    // 每个 2 的幂区间拆分的桶数为 2^SUB_BUCKET_BITS
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // 可区分的最大耗时为 2^MAX_EXPONENT 纳秒
+    private static final int MAX_EXPONENT = 41;
+
+    private static final long MAX_TRACKABLE = (1L << MAX_EXPONENT) - 1;
+
+    private static final int BUCKET_COUNT = indexOf(MAX_TRACKABLE) + 1;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒），负数按 0 记录
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[indexOf(Math.min(value, MAX_TRACKABLE))].increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * 返回当前的耗时分布快照。记录与快照可以并发进行，快照只保证近似一致。
+     *
+     * @return 耗时分布快照
+     */
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        long max = maxNanos.get();
+        return new LatencySnapshot(count, totalNanos.sum(), max,
+                percentile(counts, count, 0.5, max),
+                percentile(counts, count, 0.9, max),
+                percentile(counts, count, 0.99, max),
+                percentile(counts, count, 0.999, max));
+    }
+
+    // 返回排在 quantile 位置的样本所在桶的上界，不超过记录到的最大值
+    private static long percentile(long[] counts, long count, double quantile, long max) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    // 小于 8 的值各占一个桶，其余按最高位所在区间与其后 3 位确定桶的位置
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) | (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lower = (long) (SUB_BUCKET_COUNT | (index & (SUB_BUCKET_COUNT - 1))) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,93 @@
+package com.wangguangwu.cachelocal.stats;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 耗时分布的不可变快照，所有耗时的单位均为纳秒，分位数是所在桶的上界，相对误差不超过 12.5%。
+ *
+ * @author wangguangwu
+ */
+public final class LatencySnapshot {
+
+    private static final LatencySnapshot EMPTY = new LatencySnapshot(0, 0, 0, 0, 0, 0, 0);
+
+    // 样本数量
+    private final long count;
+
+    // 耗时总和
+    private final long totalNanos;
+
+    // 最大耗时
+    private final long maxNanos;
+
+    // 分位数
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+
+    LatencySnapshot(long count, long totalNanos, long maxNanos, long p50, long p90, long p99, long p999) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+    }
+
+    /**
+     * 没有任何样本的快照
+     *
+     * @return 空快照
+     */
+    public static LatencySnapshot empty() {
+        return EMPTY;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * 平均耗时，没有样本时为 0
+     *
+     * @return 平均耗时（纳秒）
+     */
+    public double getMeanNanos() {
+        return count == 0 ? 0.0 : (double) totalNanos / count;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySnapshot{count=" + count
+                + ", mean=" + TimeUnit.NANOSECONDS.toMicros((long) getMeanNanos()) + "us"
+                + ", p50=" + TimeUnit.NANOSECONDS.toMicros(p50) + "us"
+                + ", p99=" + TimeUnit.NANOSECONDS.toMicros(p99) + "us"
+                + ", max=" + TimeUnit.NANOSECONDS.toMicros(maxNanos) + "us}";
+    }
+}
@@ -0,0 +1,245 @@
+package com.wangguangwu.cachelocal.stats;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 缓存统计的记录器，各缓存实现在读写、加载与淘汰时调用，{@link #snapshot()} 生成不可变的 {@link CacheStats}。
+ * <p>
+ * 计数使用 {@link LongAdder}，耗时使用 {@link LatencyHistogram}，并发记录时写入不同的分片，不会在热点路径上争用同一个缓存行。
+ * 关闭统计时使用 {@link #disabled()}，所有记录方法直接返回，也不会读取系统时钟。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public final class StatsCounter {
+
+    private static final StatsCounter DISABLED = new StatsCounter(false);
+
+    private final boolean enabled;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder loadSuccessCount = new LongAdder();
+
+    private final LongAdder loadFailureCount = new LongAdder();
+
+    private final LatencyHistogram loadLatency;
+
+    // 按淘汰原因的下标存放计数
+    private final LongAdder[] evictionCounts;
+
+    // 按操作的下标存放耗时分布
+    private final LatencyHistogram[] operationLatencies;
+
+    /**
+     * 创建开启统计的记录器
+     */
+    public StatsCounter() {
+        this(true);
+    }
+
+    private StatsCounter(boolean enabled) {
+        this.enabled = enabled;
+        this.loadLatency = enabled ? new LatencyHistogram() : null;
+        this.evictionCounts = new LongAdder[enabled ? EvictionCause.values().length : 0];
+        for (int i = 0; i < evictionCounts.length; i++) {
+            evictionCounts[i] = new LongAdder();
+        }
+        this.operationLatencies = new LatencyHistogram[enabled ? CacheOperation.values().length : 0];
+        for (int i = 0; i < operationLatencies.length; i++) {
+            operationLatencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * 不记录任何统计的共享实例
+     *
+     * @return 关闭统计的记录器
+     */
+    public static StatsCounter disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * 是否开启统计
+     *
+     * @return 开启时返回 true
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 操作开始时调用，返回传给 {@link #recordOperation} 的开始时间，关闭统计时不读取时钟
+     *
+     * @return 开始时间（纳秒）
+     */
+    public long startTime() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 记录一次操作的耗时
+     *
+     * @param operation 操作
+     * @param startTime {@link #startTime()} 的返回值
+     */
+    public void recordOperation(CacheOperation operation, long startTime) {
+        if (enabled) {
+            operationLatencies[operation.ordinal()].record(System.nanoTime() - startTime);
+        }
+    }
+
+    public void recordHits(int count) {
+        if (enabled && count > 0) {
+            hitCount.add(count);
+        }
+    }
+
+    public void recordMisses(int count) {
+        if (enabled && count > 0) {
+            missCount.add(count);
+        }
+    }
+
+    public void recordLoadSuccess(long loadNanos) {
+        if (enabled) {
+            loadSuccessCount.increment();
+            loadLatency.record(loadNanos);
+        }
+    }
+
+    public void recordLoadFailure(long loadNanos) {
+        if (enabled) {
+            loadFailureCount.increment();
+            loadLatency.record(loadNanos);
+        }
+    }
+
+    public void recordEviction(EvictionCause cause) {
+        if (enabled) {
+            evictionCounts[cause.ordinal()].increment();
+        }
+    }
+
+    /**
+     * 包装加载函数，记录加载耗时与结果，返回 null 视为加载失败
+     *
+     * @param mappingFunction 加载函数
+     * @param <K>             键类型
+     * @param <V>             值类型
+     * @return 记录统计的加载函数，关闭统计时返回原函数
+     */
+    public <K, V> Function<K, V> recordingLoads(Function<? super K, ? extends V> mappingFunction) {
+        if (!enabled) {
+            return mappingFunction::apply;
+        }
+        return key -> {
+            long start = System.nanoTime();
+            V value;
+            try {
+                value = mappingFunction.apply(key);
+            } catch (RuntimeException | Error e) {
+                recordLoadFailure(System.nanoTime() - start);
+                throw e;
+            }
+            recordLoad(value != null, start);
+            return value;
+        };
+    }
+
+    /**
+     * 包装异步加载函数，在 future 结束时记录加载耗时与结果
+     *
+     * @param mappingFunction 异步加载函数
+     * @param <K>             键类型
+     * @param <V>             值类型
+     * @return 记录统计的异步加载函数，关闭统计时返回原函数
+     */
+    public <K, V> Function<K, CompletableFuture<? extends V>> recordingAsyncLoads(
+            Function<? super K, ? extends CompletableFuture<? extends V>> mappingFunction) {
+        if (!enabled) {
+            return mappingFunction::apply;
+        }
+        return key -> {
+            long start = System.nanoTime();
+            CompletableFuture<? extends V> future;
+            try {
+                future = mappingFunction.apply(key);
+            } catch (RuntimeException | Error e) {
+                recordLoadFailure(System.nanoTime() - start);
+                throw e;
+            }
+            if (future == null) {
+                recordLoadFailure(System.nanoTime() - start);
+                return null;
+            }
+            future.whenComplete((value, error) -> recordLoad(error == null && value != null, start));
+            return future;
+        };
+    }
+
+    /**
+     * 包装批量加载函数，一次批量加载计为一次加载，返回 null 视为加载失败
+     *
+     * @param mappingFunction 批量加载函数
+     * @param <K>             键类型
+     * @param <V>             值类型
+     * @return 记录统计的批量加载函数，关闭统计时返回原函数
+     */
+    public <K, V> Function<Set<? extends K>, Map<? extends K, ? extends V>> recordingBulkLoads(
+            Function<? super Set<? extends K>, ? extends Map<? extends K, ? extends V>> mappingFunction) {
+        if (!enabled) {
+            return mappingFunction::apply;
+        }
+        return keys -> {
+            long start = System.nanoTime();
+            Map<? extends K, ? extends V> loaded;
+            try {
+                loaded = mappingFunction.apply(keys);
+            } catch (RuntimeException | Error e) {
+                recordLoadFailure(System.nanoTime() - start);
+                throw e;
+            }
+            recordLoad(loaded != null, start);
+            return loaded;
+        };
+    }
+
+    /**
+     * 生成当前统计信息的快照，关闭统计时返回 {@link CacheStats#empty()}
+     *
+     * @return 统计信息快照
+     */
+    public CacheStats snapshot() {
+        if (!enabled) {
+            return CacheStats.empty();
+        }
+        Map<EvictionCause, Long> evictions = new EnumMap<>(EvictionCause.class);
+        for (EvictionCause cause : EvictionCause.values()) {
+            evictions.put(cause, evictionCounts[cause.ordinal()].sum());
+        }
+        Map<CacheOperation, LatencySnapshot> latencies = new EnumMap<>(CacheOperation.class);
+        for (CacheOperation operation : CacheOperation.values()) {
+            latencies.put(operation, operationLatencies[operation.ordinal()].snapshot());
+        }
+        return new CacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(),
+                loadLatency.snapshot(), evictions, latencies);
+    }
+
+    private void recordLoad(boolean success, long start) {
+        long elapsed = System.nanoTime() - start;
+        if (success) {
+            recordLoadSuccess(elapsed);
+        } else {
+            recordLoadFailure(elapsed);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.wangguangwu.cachelocal.support;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 粗粒度时间源。
+ * <p>
+ * 由一个守护线程按固定精度刷新 volatile 字段，读取时只是一次内存读，
+ * 缓存的读写热点路径不再需要每次访问系统时钟。代价是时间精度下降到刷新间隔，
+ * 对于秒级的过期时间来说可以忽略。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public final class CoarseTicker implements Ticker, AutoCloseable {
+
+    // 默认刷新精度
+    private static final Duration DEFAULT_RESOLUTION = Duration.ofMillis(1);
+
+    // 刷新间隔（纳秒）
+    private final long resolutionNanos;
+
+    // 最近一次刷新的时间
+    private volatile long nanos;
+
+    // 刷新线程是否继续运行
+    private volatile boolean running = true;
+
+    // 是否为共享实例，共享实例不允许关闭
+    private final boolean shared;
+
+    /**
+     * 构造方法，启动刷新线程。
+     *
+     * @param resolution 刷新精度，必须大于 0
+     */
+    public CoarseTicker(Duration resolution) {
+        this(resolution, false);
+    }
+
+    private CoarseTicker(Duration resolution, boolean shared) {
+        if (resolution.isNegative() || resolution.isZero()) {
+            throw new IllegalArgumentException("Resolution must be greater than 0");
+        }
+        this.resolutionNanos = resolution.toNanos();
+        this.nanos = System.nanoTime();
+        this.shared = shared;
+
+        Thread thread = new Thread(this::tick, "coarse-ticker");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 获取共享的粗粒度时间源，精度为 1 毫秒。
+     *
+     * @return 共享时间源
+     */
+    public static CoarseTicker shared() {
+        return Holder.SHARED;
+    }
+
+    @Override
+    public long read() {
+        return nanos;
+    }
+
+    /**
+     * 停止刷新线程，停止后读取到的时间不再变化。
+     *
+     * @throws UnsupportedOperationException 如果当前实例是共享时间源
+     */
+    @Override
+    public void close() {
+        if (shared) {
+            throw new UnsupportedOperationException("The shared ticker cannot be closed");
+        }
+        running = false;
+    }
+
+    private void tick() {
+        while (running) {
+            LockSupport.parkNanos(resolutionNanos);
+            nanos = System.nanoTime();
+        }
+    }
+
+    // 延迟初始化共享实例，只有使用时才启动刷新线程
+    private static final class Holder {
+        static final CoarseTicker SHARED = new CoarseTicker(DEFAULT_RESOLUTION, true);
+    }
+}
@@ -0,0 +1,125 @@
+package com.wangguangwu.cachelocal.support;
+
+/**
+ * 基于 Count-Min Sketch 的访问频率估算器，供 W-TinyLFU 淘汰策略判断候选缓存项与淘汰对象的热度。
+ * <p>
+ * 每个 long 中存放 16 个 4 bit 计数器，计数上限为 15；每个元素通过 4 个哈希函数映射到 4 个计数器，
+ * 取最小值作为频率估算。计数累计到采样上限后所有计数器减半（老化），使历史热点随时间逐渐冷却。
+ * </p>
+ * <p>
+ * 该类不是线程安全的，调用方需要在锁内访问。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public final class FrequencySketch {
+
+    // 哈希种子，来自 FarmHash 与 CityHash
+    private static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    // 计数器减半时清除每个计数器最高位溢出的掩码
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    // 每个计数器最低位的掩码，用于统计减半时被截断的奇数
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    // 计数器的最大值
+    private static final int MAX_FREQUENCY = 15;
+
+    private final long[] table;
+
+    private final int tableMask;
+
+    // 触发老化的采样上限
+    private final int sampleSize;
+
+    // 自上次老化以来的有效计数次数
+    private int size;
+
+    /**
+     * 构造方法
+     *
+     * @param maximumSize 缓存的最大容量，用于确定计数器数量与采样上限
+     */
+    public FrequencySketch(long maximumSize) {
+        int capacity = (int) Math.min(Math.max(maximumSize, 1), 1 << 30);
+        this.table = new long[ceilingPowerOfTwo(capacity)];
+        this.tableMask = table.length - 1;
+        this.sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 估算元素的访问频率
+     *
+     * @param e 元素
+     * @return 频率估算值，范围 0 ~ 15
+     */
+    public int frequency(Object e) {
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 记录一次访问，计数累计到采样上限时所有计数器减半
+     *
+     * @param e 元素
+     */
+    public void increment(Object e) {
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && (++size == sampleSize)) {
+            reset();
+        }
+    }
+
+    // 对指定 long 中的第 j 个计数器加一，计数器已达上限时返回 false
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = 0xfL << offset;
+        if ((table[i] & mask) != mask) {
+            table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    // 所有计数器减半，并按截断的奇数修正有效计数次数
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size - (count >>> 2)) >>> 1;
+    }
+
+    // 第 i 个哈希函数对应的计数器所在位置
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += hash >>> 32;
+        return ((int) hash) & tableMask;
+    }
+
+    // 对 hashCode 再散列，避免低质量的哈希函数导致计数器冲突
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << -Integer.numberOfLeadingZeros(x - 1);
+    }
+}
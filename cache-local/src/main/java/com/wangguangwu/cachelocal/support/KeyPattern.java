@@ -0,0 +1,133 @@
+package com.wangguangwu.cachelocal.support;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * 与 Redis SCAN MATCH 语义一致的 glob 匹配，作用于 key 的字符串形式。
+ * <p>
+ * 支持 {@code *} 匹配任意多个字符、{@code ?} 匹配单个字符、{@code [abc]} 与 {@code [a-z]} 字符集合、
+ * {@code [^abc]} 取反，以及 {@code \} 转义。null 与 {@code *} 匹配所有 key，不做字符串转换。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public final class KeyPattern implements Predicate<Object> {
+
+    private static final KeyPattern ALL = new KeyPattern("*", null);
+
+    private final String glob;
+
+    // 为 null 时匹配所有 key
+    private final Pattern regex;
+
+    private KeyPattern(String glob, Pattern regex) {
+        this.glob = glob;
+        this.regex = regex;
+    }
+
+    /**
+     * 编译 glob 表达式
+     *
+     * @param glob glob 表达式，null 表示匹配所有 key
+     * @return 匹配器
+     */
+    public static KeyPattern compile(String glob) {
+        if (glob == null || glob.equals("*")) {
+            return ALL;
+        }
+        return new KeyPattern(glob, Pattern.compile(toRegex(glob), Pattern.DOTALL));
+    }
+
+    /**
+     * 是否匹配所有 key
+     *
+     * @return 表达式为 null 或 {@code *} 时返回 true
+     */
+    public boolean matchesAll() {
+        return regex == null;
+    }
+
+    /**
+     * 判断 key 的字符串形式是否匹配
+     *
+     * @param key 键
+     * @return 匹配时返回 true
+     */
+    @Override
+    public boolean test(Object key) {
+        return regex == null || regex.matcher(String.valueOf(Objects.requireNonNull(key))).matches();
+    }
+
+    @Override
+    public String toString() {
+        return glob;
+    }
+
+    private static String toRegex(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 8);
+        int length = glob.length();
+        for (int i = 0; i < length; i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                case '\\' -> {
+                    // 末尾的反斜杠按字面量处理
+                    char escaped = i + 1 < length ? glob.charAt(++i) : '\\';
+                    regex.append(Pattern.quote(String.valueOf(escaped)));
+                }
+                case '[' -> {
+                    int end = classEnd(glob, i + 1);
+                    if (end < 0) {
+                        // 没有闭合的方括号按字面量处理
+                        regex.append("\\[");
+                    } else {
+                        appendClass(regex, glob, i + 1, end);
+                        i = end;
+                    }
+                }
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return regex.toString();
+    }
+
+    // 查找字符集合的结束位置，跳过转义字符，未闭合时返回 -1
+    private static int classEnd(String glob, int start) {
+        for (int i = start; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == ']' && i > start) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void appendClass(StringBuilder regex, String glob, int start, int end) {
+        regex.append('[');
+        int i = start;
+        if (glob.charAt(i) == '^') {
+            regex.append('^');
+            i++;
+        }
+        for (; i < end; i++) {
+            char c = glob.charAt(i);
+            if (c == '\\' && i + 1 < end) {
+                c = glob.charAt(++i);
+            } else if (c == '-' && i > start && i + 1 < end) {
+                regex.append('-');
+                continue;
+            }
+            // 字符集合内的特殊字符一律转义
+            if ("\\[]^-&".indexOf(c) >= 0) {
+                regex.append('\\');
+            }
+            regex.append(c);
+        }
+        regex.append(']');
+    }
+}
@@ -0,0 +1,59 @@
+package com.wangguangwu.cachelocal.support;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缓存异步加载使用的默认执行器。
+ * <p>
+ * 加载函数通常会访问数据库或远程服务，属于阻塞型任务。运行在支持虚拟线程的 JDK（21 及以上）时，
+ * 每个加载任务使用一个虚拟线程；否则退化为按需创建守护线程的线程池，避免阻塞 ForkJoinPool 公共池。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+public final class LoaderExecutors {
+
+    private LoaderExecutors() {
+    }
+
+    /**
+     * 获取共享的默认加载执行器
+     *
+     * @return 默认加载执行器
+     */
+    public static Executor defaultExecutor() {
+        return Holder.INSTANCE;
+    }
+
+    // 项目以 Java 17 为编译目标，通过反射使用虚拟线程
+    private static ExecutorService create() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(new LoaderThreadFactory());
+        }
+    }
+
+    private static final class Holder {
+
+        static final ExecutorService INSTANCE = create();
+    }
+
+    private static final class LoaderThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "cache-loader-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.wangguangwu.cachelocal.support;
+
+import com.wangguangwu.cachelocal.exception.CacheException;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 合并同一个 key 的并发加载请求（single-flight）。
+ * <p>
+ * 每个 key 同一时刻最多只有一个进行中的加载，期间到达的请求共享同一个结果，不再重复访问后端。
+ * 加载函数不在任何缓存锁内执行：异步加载提交到执行器，同步加载由第一个请求的线程执行。
+ * 加载成功后先通过回调写入缓存，再结束进行中的加载，之后到达的请求可以直接命中缓存。
+ * </p>
+ * <p>
+ * 调用方在进入加载前已经检查过缓存，检查与加载之间有极小的窗口，
+ * 恰好错过缓存写入和进行中加载的请求会再发起一次加载，结果仍然正确。
+ * </p>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author wangguangwu
+ */
+public final class SingleFlightLoader<K, V> {
+
+    // 进行中的加载
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    // 异步加载使用的执行器
+    private final Executor executor;
+
+    /**
+     * 构造方法
+     *
+     * @param executor 异步加载使用的执行器
+     */
+    public SingleFlightLoader(Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * 异步加载，加载函数提交到执行器运行
+     *
+     * @param key      键
+     * @param loader   异步加载函数
+     * @param onLoaded 加载成功且结果不为 null 时的回调，用于写入缓存
+     * @return 加载结果，每个调用方拿到独立的副本，取消操作不会影响其他调用方
+     */
+    public CompletableFuture<V> loadAsync(K key, Function<? super K, ? extends CompletableFuture<? extends V>> loader,
+                                          BiConsumer<? super K, ? super V> onLoaded) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing.copy();
+        }
+
+        try {
+            executor.execute(() -> {
+                CompletableFuture<? extends V> future;
+                try {
+                    future = Objects.requireNonNull(loader.apply(key), "Loader returned a null future");
+                } catch (Throwable e) {
+                    complete(key, created, null, e, onLoaded);
+                    return;
+                }
+                future.whenComplete((value, error) -> complete(key, created, value, error, onLoaded));
+            });
+        } catch (RejectedExecutionException e) {
+            complete(key, created, null, e, onLoaded);
+        }
+        return created.copy();
+    }
+
+    /**
+     * 同步加载，由第一个请求的线程执行加载函数，其余并发请求等待其结果
+     *
+     * @param key      键
+     * @param loader   加载函数
+     * @param onLoaded 加载成功且结果不为 null 时的回调，用于写入缓存
+     * @return 加载结果，可能为 null
+     */
+    public V load(K key, Function<? super K, ? extends V> loader, BiConsumer<? super K, ? super V> onLoaded) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return join(existing);
+        }
+
+        try {
+            complete(key, created, loader.apply(key), null, onLoaded);
+        } catch (Throwable e) {
+            complete(key, created, null, e, onLoaded);
+        }
+        // 与等待方保持一致，写入缓存失败时同样抛出异常
+        return join(created);
+    }
+
+    /**
+     * 获取进行中的加载数量
+     *
+     * @return 进行中的加载数量
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private void complete(K key, CompletableFuture<V> future, V value, Throwable error,
+                          BiConsumer<? super K, ? super V> onLoaded) {
+        try {
+            if (error == null && value != null) {
+                onLoaded.accept(key, value);
+            }
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+        if (error != null) {
+            future.completeExceptionally(unwrap(error));
+        } else {
+            future.complete(value);
+        }
+    }
+
+    // 等待其他线程的加载结果，运行时异常原样抛出，受检异常包装为 CacheException
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CacheException(cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,16 @@
+package com.wangguangwu.cachelocal.support;
+
+/**
+ * 基于 {@link System#nanoTime()} 的时间源，每次读取都会访问系统时钟。
+ *
+ * @author wangguangwu
+ */
+enum SystemTicker implements Ticker {
+
+    INSTANCE;
+
+    @Override
+    public long read() {
+        return System.nanoTime();
+    }
+}
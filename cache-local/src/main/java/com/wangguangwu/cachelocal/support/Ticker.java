@@ -0,0 +1,30 @@
+package com.wangguangwu.cachelocal.support;
+
+/**
+ * 时间源接口，返回单调递增的纳秒时间，用于计算缓存项的过期时间。
+ * <p>
+ * 通过替换时间源，可以使用 {@link CoarseTicker} 避免热点路径上频繁读取系统时钟，
+ * 或在测试中手动控制时间。
+ * </p>
+ *
+ * @author wangguangwu
+ */
+@FunctionalInterface
+public interface Ticker {
+
+    /**
+     * 读取当前时间
+     *
+     * @return 当前时间（纳秒），只用于计算时间差，与墙上时间无关
+     */
+    long read();
+
+    /**
+     * 获取基于 {@link System#nanoTime()} 的时间源
+     *
+     * @return 系统时间源
+     */
+    static Ticker systemTicker() {
+        return SystemTicker.INSTANCE;
+    }
+}
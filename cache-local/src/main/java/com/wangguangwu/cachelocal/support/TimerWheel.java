@@ -0,0 +1,241 @@
+package com.wangguangwu.cachelocal.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 分层时间轮，以均摊 O(1) 的代价调度和触发缓存项的过期。
+ * <p>
+ * 时间轮分为多层，每层的桶跨度依次增大，到期时间越远的条目放在越高的层级。
+ * 推进时间时只处理经过的桶：到期的条目交给回调移除，未到期的条目（例如被访问后延长了过期时间）
+ * 重新调度到与剩余时间相匹配的层级。
+ * </p>
+ * <p>
+ * 该类不是线程安全的，调用方需要在锁内访问。
+ * </p>
+ *
+ * @param <T> 条目类型
+ * @author wangguangwu
+ */
+public final class TimerWheel<T extends TimerWheel.Timer> {
+
+    // 每层的桶数量，均为 2 的幂
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+    // 每层单个桶的时间跨度（纳秒），取不小于 1 秒、1 分钟、1 小时、1 天的 2 的幂
+    private static final long[] SPANS = {
+            ceilingPowerOfTwo(TimeUnit.SECONDS.toNanos(1)),
+            ceilingPowerOfTwo(TimeUnit.MINUTES.toNanos(1)),
+            ceilingPowerOfTwo(TimeUnit.HOURS.toNanos(1)),
+            ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+            BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+            BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+    };
+
+    // 每层时间跨度对应的位移量
+    private static final long[] SHIFT = {
+            Long.numberOfTrailingZeros(SPANS[0]),
+            Long.numberOfTrailingZeros(SPANS[1]),
+            Long.numberOfTrailingZeros(SPANS[2]),
+            Long.numberOfTrailingZeros(SPANS[3]),
+            Long.numberOfTrailingZeros(SPANS[4]),
+    };
+
+    // 每个桶是一个带哨兵的双向循环链表
+    private final Timer[][] wheel;
+
+    // 时间轮当前推进到的时间
+    private long nanos;
+
+    /**
+     * 构造方法
+     *
+     * @param nanos 时间轮的初始时间，与 {@link Ticker#read()} 使用同一时间源
+     */
+    public TimerWheel(long nanos) {
+        this.nanos = nanos;
+        this.wheel = new Timer[BUCKETS.length][];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Timer[BUCKETS[i]];
+            for (int j = 0; j < wheel[i].length; j++) {
+                wheel[i][j] = new Sentinel();
+            }
+        }
+    }
+
+    /**
+     * 将时间轮推进到指定时间，处理经过的桶中的条目。
+     *
+     * @param currentTimeNanos 当前时间
+     * @param expirer          过期回调，返回 true 表示条目已被移除；返回 false 时条目会按最新的到期时间重新调度
+     */
+    public void advance(long currentTimeNanos, Predicate<? super T> expirer) {
+        long previousTimeNanos = nanos;
+        nanos = currentTimeNanos;
+
+        // nanoTime 从负数溢出到正数时，平移到同一符号区间内再计算刻度
+        if ((previousTimeNanos < 0) && (currentTimeNanos > 0)) {
+            previousTimeNanos += Long.MAX_VALUE;
+            currentTimeNanos += Long.MAX_VALUE;
+        }
+
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previousTimeNanos >>> SHIFT[i];
+            long currentTicks = currentTimeNanos >>> SHIFT[i];
+            long delta = currentTicks - previousTicks;
+            // 低层没有跨过一个刻度时，高层也一定没有
+            if (delta <= 0L) {
+                break;
+            }
+            expire(i, previousTicks, delta, expirer);
+        }
+    }
+
+    /**
+     * 获取时间轮当前推进到的时间
+     *
+     * @return 最近一次 {@link #advance} 传入的时间
+     */
+    public long currentTime() {
+        return nanos;
+    }
+
+    /**
+     * 按条目的到期时间将其加入时间轮
+     *
+     * @param timer 条目，调用前需设置好到期时间
+     */
+    public void schedule(T timer) {
+        link(findBucket(((Timer) timer).deadline), timer);
+    }
+
+    /**
+     * 条目到期时间变化后重新调度
+     *
+     * @param timer 条目
+     */
+    public void reschedule(T timer) {
+        if (((Timer) timer).nextInWheel != null) {
+            unlink(timer);
+        }
+        schedule(timer);
+    }
+
+    /**
+     * 将条目从时间轮中移除，条目不在时间轮中时不做任何处理
+     *
+     * @param timer 条目
+     */
+    public void deschedule(T timer) {
+        if (((Timer) timer).nextInWheel != null) {
+            unlink(timer);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expire(int index, long previousTicks, long delta, Predicate<? super T> expirer) {
+        Timer[] buckets = wheel[index];
+        int mask = buckets.length - 1;
+        // 经过的桶数超过一圈时，每个桶只需处理一次
+        int steps = (int) Math.min(1 + delta, buckets.length);
+        int start = (int) (previousTicks & mask);
+        int end = start + steps;
+
+        for (int i = start; i < end; i++) {
+            Timer sentinel = buckets[i & mask];
+            Timer timer = sentinel.nextInWheel;
+            // 先摘下整个桶，处理过程中重新调度的条目会进入其他桶或下一轮
+            sentinel.prevInWheel = sentinel;
+            sentinel.nextInWheel = sentinel;
+
+            while (timer != sentinel) {
+                Timer next = timer.nextInWheel;
+                timer.prevInWheel = null;
+                timer.nextInWheel = null;
+                if ((timer.deadline - nanos) > 0 || !expirer.test((T) timer)) {
+                    schedule((T) timer);
+                }
+                timer = next;
+            }
+        }
+    }
+
+    // 根据到期时间找到对应的桶，已经到期的条目放入当前刻度的桶，在下次推进时处理
+    private Timer findBucket(long time) {
+        long duration = time - nanos;
+        if (duration < 0) {
+            time = nanos;
+            duration = 0;
+        }
+        int length = wheel.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = time >>> SHIFT[i];
+                int index = (int) (ticks & (wheel[i].length - 1));
+                return wheel[i][index];
+            }
+        }
+        return wheel[length][0];
+    }
+
+    private static void link(Timer sentinel, Timer timer) {
+        timer.prevInWheel = sentinel.prevInWheel;
+        timer.nextInWheel = sentinel;
+        sentinel.prevInWheel.nextInWheel = timer;
+        sentinel.prevInWheel = timer;
+    }
+
+    private static void unlink(Timer timer) {
+        Timer next = timer.nextInWheel;
+        Timer prev = timer.prevInWheel;
+        next.prevInWheel = prev;
+        prev.nextInWheel = next;
+        timer.nextInWheel = null;
+        timer.prevInWheel = null;
+    }
+
+    private static long ceilingPowerOfTwo(long x) {
+        return 1L << -Long.numberOfLeadingZeros(x - 1);
+    }
+
+    /**
+     * 时间轮中的条目，记录到期时间以及所在桶的链表指针。
+     */
+    public abstract static class Timer {
+
+        // 到期时间（纳秒）
+        private long deadline;
+
+        // 所在桶的链表指针，不在时间轮中时为 null
+        private Timer prevInWheel;
+        private Timer nextInWheel;
+
+        /**
+         * 获取到期时间
+         *
+         * @return 到期时间（纳秒）
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * 设置到期时间，已在时间轮中的条目需要再调用 {@link TimerWheel#reschedule} 才会生效
+         *
+         * @param deadline 到期时间（纳秒）
+         */
+        public void setDeadline(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    // 桶的哨兵节点
+    private static final class Sentinel extends Timer {
+
+        Sentinel() {
+            Timer self = this;
+            self.prevInWheel = this;
+            self.nextInWheel = this;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.wangguangwu.cachelocal.weigher;
+
+/**
+ * 缓存权重计算接口，配置 maximumWeight 时用于计算每个缓存项的权重，缓存按权重总和限制容量。
+ * <p>
+ * 权重在写入时计算一次，缓存项存活期间不会重新计算，因此实现类不应依赖值写入后的变化。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+@FunctionalInterface
+public interface CacheWeigher<K, V> {
+
+    /**
+     * 计算缓存项的权重
+     *
+     * @param key   键
+     * @param value 值
+     * @return 权重，不能为负数
+     */
+    int weigh(K key, V value);
+}
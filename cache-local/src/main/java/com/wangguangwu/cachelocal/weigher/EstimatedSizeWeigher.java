@@ -0,0 +1,191 @@
+package com.wangguangwu.cachelocal.weigher;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按估算的堆内存占用（字节）计算权重的默认实现。
+ * <p>
+ * 按 64 位 JVM、开启压缩指针的内存布局估算键和值的保留大小：字符串、数组、装箱类型、集合与 Map 按已知结构计算，
+ * 其他对象通过反射遍历字段递归估算。JDK 内部类型无法反射访问时按固定大小计算。
+ * 为了控制写入开销，递归深度和遍历的对象数量都有上限，超出部分不再计入，结果只作为容量控制的近似值。
+ * </p>
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的值类型
+ * @author wangguangwu
+ */
+public class EstimatedSizeWeigher<K, V> implements CacheWeigher<K, V> {
+
+    // 对象头大小
+    private static final int OBJECT_HEADER = 12;
+
+    // 数组头大小（对象头加长度字段）
+    private static final int ARRAY_HEADER = 16;
+
+    // 压缩指针下的引用大小
+    private static final int REFERENCE = 4;
+
+    // 无法估算的对象按此大小计算
+    private static final int UNKNOWN_OBJECT = 24;
+
+    // 缓存项自身的固定开销：缓存内部节点与哈希表槽位
+    private static final int ENTRY_OVERHEAD = 64;
+
+    // 集合与 Map 中每个元素的额外开销：内部节点或数组槽位
+    private static final int ELEMENT_OVERHEAD = 32;
+
+    // 递归估算的最大深度
+    private static final int MAX_DEPTH = 8;
+
+    // 单次估算最多遍历的对象数量
+    private static final int MAX_OBJECTS = 10_000;
+
+    // 每个类需要估算的实例字段及浅层大小
+    private static final ClassValue<ClassLayout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected ClassLayout computeValue(Class<?> type) {
+            return ClassLayout.of(type);
+        }
+    };
+
+    @Override
+    public int weigh(K key, V value) {
+        Estimation estimation = new Estimation();
+        long size = ENTRY_OVERHEAD + estimation.sizeOf(key, 0) + estimation.sizeOf(value, 0);
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    // 单次估算的状态，记录已访问的对象，避免循环引用与共享对象被重复计算
+    private static final class Estimation {
+
+        private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        long sizeOf(Object object, int depth) {
+            if (object == null || depth > MAX_DEPTH || visited.size() >= MAX_OBJECTS || !visited.add(object)) {
+                return 0;
+            }
+            if (object instanceof String string) {
+                return align(OBJECT_HEADER + 12) + align(ARRAY_HEADER + (long) string.length() * bytesPerChar(string));
+            }
+            if (object instanceof Number || object instanceof Boolean || object instanceof Character) {
+                return 16;
+            }
+            Class<?> type = object.getClass();
+            if (type.isArray()) {
+                return arraySize(object, type.getComponentType(), depth);
+            }
+            if (object instanceof Collection<?> collection) {
+                long size = 48;
+                for (Object element : collection) {
+                    size += ELEMENT_OVERHEAD + sizeOf(element, depth + 1);
+                }
+                return size;
+            }
+            if (object instanceof Map<?, ?> map) {
+                long size = 48;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    size += ELEMENT_OVERHEAD + sizeOf(entry.getKey(), depth + 1) + sizeOf(entry.getValue(), depth + 1);
+                }
+                return size;
+            }
+
+            ClassLayout layout = LAYOUTS.get(type);
+            long size = layout.shallowSize;
+            for (Field field : layout.referenceFields) {
+                try {
+                    size += sizeOf(field.get(object), depth + 1);
+                } catch (IllegalAccessException e) {
+                    // 字段不可访问时只计入引用本身
+                }
+            }
+            return size;
+        }
+
+        private long arraySize(Object array, Class<?> componentType, int depth) {
+            int length = Array.getLength(array);
+            if (componentType.isPrimitive()) {
+                return align(ARRAY_HEADER + (long) length * primitiveSize(componentType));
+            }
+            long size = align(ARRAY_HEADER + (long) length * REFERENCE);
+            Object[] elements = (Object[]) array;
+            for (Object element : elements) {
+                size += sizeOf(element, depth + 1);
+            }
+            return size;
+        }
+
+        // 紧凑字符串中只包含 Latin-1 字符时每个字符占 1 字节，否则占 2 字节
+        private static int bytesPerChar(String string) {
+            for (int i = 0; i < string.length(); i++) {
+                if (string.charAt(i) > 0xFF) {
+                    return 2;
+                }
+            }
+            return 1;
+        }
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    // 类的内存布局：浅层大小与需要递归估算的引用字段
+    private static final class ClassLayout {
+
+        final long shallowSize;
+
+        final List<Field> referenceFields;
+
+        private ClassLayout(long shallowSize, List<Field> referenceFields) {
+            this.shallowSize = shallowSize;
+            this.referenceFields = referenceFields;
+        }
+
+        static ClassLayout of(Class<?> type) {
+            long size = OBJECT_HEADER;
+            List<Field> referenceFields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    if (field.getType().isPrimitive()) {
+                        size += primitiveSize(field.getType());
+                        continue;
+                    }
+                    size += REFERENCE;
+                    // JDK 内部类型受模块封装限制无法反射访问，只计入引用本身
+                    if (field.trySetAccessible()) {
+                        referenceFields.add(field);
+                    }
+                }
+            }
+            if (size == OBJECT_HEADER && type.getName().startsWith("java.")) {
+                return new ClassLayout(UNKNOWN_OBJECT, List.of());
+            }
+            return new ClassLayout(align(size), List.copyOf(referenceFields));
+        }
+    }
+}
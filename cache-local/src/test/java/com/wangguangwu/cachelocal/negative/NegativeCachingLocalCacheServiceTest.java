@@ -0,0 +1,124 @@
+package com.wangguangwu.cachelocal.negative;
+
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.CaffeineLocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.GuavaLocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.MapLocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.OffHeapLocalCacheService;
+import com.wangguangwu.cachelocal.stats.CacheStats;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NegativeCachingLocalCacheService 的单元测试类，对每种缓存引擎执行相同的断言
+ */
+class NegativeCachingLocalCacheServiceTest {
+
+    @Test
+    @DisplayName("测试加载结果为 null 时写入较短过期时间的占位值，之后的读取按未命中返回 null 且不再加载")
+    void testGetCachesAbsentValue() {
+        for (LocalCacheService<String, Object> engine : engines()) {
+            String name = engine.getClass().getSimpleName();
+            LocalCacheService<String, String> cacheService = new NegativeCachingLocalCacheService<>(engine, Duration.ofSeconds(2));
+            AtomicInteger loads = new AtomicInteger();
+
+            assertNull(cacheService.get("missing", k -> {
+                loads.incrementAndGet();
+                return null;
+            }), name);
+            assertNull(cacheService.get("missing", k -> {
+                loads.incrementAndGet();
+                return "loaded";
+            }), name);
+            assertNull(cacheService.getIfPresent("missing"), name);
+            assertEquals(1, loads.get(), name);
+            assertTrue(cacheService.containsKey("missing"), name);
+            Duration remaining = cacheService.getExpiration("missing");
+            assertTrue(remaining != null && remaining.compareTo(Duration.ofSeconds(2)) <= 0, name + ": " + remaining);
+
+            // 正常的值不受影响，写入后覆盖占位值
+            assertEquals("value", cacheService.get("present", k -> "value"), name);
+            cacheService.put("missing", "found");
+            assertEquals("found", cacheService.getIfPresent("missing"), name);
+
+            // 负缓存命中计为未命中并单独计数
+            CacheStats stats = cacheService.stats();
+            assertEquals(2, stats.getNegativeHitCount(), name);
+            assertEquals(1, stats.getHitCount(), name);
+            assertEquals(4, stats.getMissCount(), name);
+        }
+    }
+
+    @Test
+    @DisplayName("测试批量与异步加载中不存在的 key 写入占位值，遍历时跳过占位值")
+    void testGetAllAndGetAsync() throws Exception {
+        for (LocalCacheService<String, Object> engine : engines()) {
+            String name = engine.getClass().getSimpleName();
+            LocalCacheService<String, String> cacheService = new NegativeCachingLocalCacheService<>(engine, Duration.ofSeconds(2));
+            AtomicInteger bulkLoads = new AtomicInteger();
+
+            Map<String, String> first = cacheService.getAll(List.of("a", "b", "c"), misses -> {
+                bulkLoads.incrementAndGet();
+                Map<String, String> loaded = new HashMap<>();
+                loaded.put("a", "1");
+                loaded.put("b", null);
+                return loaded;
+            });
+            assertEquals(Map.of("a", "1"), first, name);
+            Map<String, String> second = cacheService.getAll(List.of("a", "b", "c"), misses -> {
+                bulkLoads.incrementAndGet();
+                return Map.of("b", "2", "c", "3");
+            });
+            assertEquals(Map.of("a", "1"), second, name);
+            assertEquals(1, bulkLoads.get(), name);
+
+            assertNull(cacheService.getAsync("async", k -> CompletableFuture.completedFuture(null)).get(5, TimeUnit.SECONDS), name);
+            assertNull(cacheService.getAsync("async", k -> CompletableFuture.completedFuture("loaded")).get(5, TimeUnit.SECONDS), name);
+
+            Set<String> visited = new HashSet<>();
+            cacheService.forEachEntry((key, value, remaining) -> visited.add(key));
+            assertEquals(Set.of("a"), visited, name);
+            assertEquals(Set.of("a", "b", "c", "async"), Set.copyOf(cacheService.keySet()), name);
+        }
+    }
+
+    @Test
+    @DisplayName("测试未启用负缓存时各引擎加载结果为 null 都不写入缓存并返回 null，negativeTtl 不大于 0 时不装饰")
+    void testWithoutNegativeCaching() {
+        for (LocalCacheService<String, Object> engine : engines()) {
+            String name = engine.getClass().getSimpleName();
+            assertNull(engine.get("missing", k -> null), name);
+            assertFalse(engine.containsKey("missing"), name);
+        }
+        LocalCacheProperties properties = new LocalCacheProperties();
+        LocalCacheService<String, Object> engine = new MapLocalCacheService<>(properties);
+        assertSame(engine, NegativeCachingLocalCacheService.decorate(engine, properties));
+        properties.setNegativeTtl(5);
+        assertInstanceOf(NegativeCachingLocalCacheService.class, NegativeCachingLocalCacheService.decorate(engine, properties));
+        assertThrows(IllegalArgumentException.class, () -> new NegativeCachingLocalCacheService<>(engine, Duration.ZERO));
+    }
+
+    private static List<LocalCacheService<String, Object>> engines() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(60);
+        properties.setExpireAfterAccess(60);
+        properties.setMaximumSize(100);
+        properties.getOffHeap().setMaximumBytes(1024 * 1024);
+        properties.getOffHeap().setSlabSize(64 * 1024);
+        return List.of(new GuavaLocalCacheService<>(properties), new CaffeineLocalCacheService<>(properties),
+                new MapLocalCacheService<>(properties), new OffHeapLocalCacheService<>(properties));
+    }
+}
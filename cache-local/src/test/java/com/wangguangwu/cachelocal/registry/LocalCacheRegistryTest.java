@@ -0,0 +1,96 @@
+package com.wangguangwu.cachelocal.registry;
+
+import com.wangguangwu.cachelocal.constants.CacheTypeConstants;
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.serializer.JdkCacheSerializer;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.CaffeineLocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.MapLocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.OffHeapLocalCacheService;
+import com.wangguangwu.cachelocal.weigher.EstimatedSizeWeigher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LocalCacheRegistry 的单元测试类
+ */
+class LocalCacheRegistryTest {
+
+    @Test
+    @DisplayName("测试按名称获取不同引擎的缓存，同一名称返回同一实例，未配置的参数沿用全局配置")
+    void testGetCache() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumSize(1000);
+        properties.getSpecs().put("users", spec(CacheTypeConstants.CAFFEINE));
+        LocalCacheProperties.Spec small = spec(CacheTypeConstants.MAP);
+        small.setMaximumSize(2);
+        small.setConcurrencyLevel(1);
+        properties.getSpecs().put("small", small);
+        properties.getSpecs().put("blobs", spec(CacheTypeConstants.OFF_HEAP));
+        LocalCacheRegistry registry = newRegistry(properties);
+
+        assertEquals(List.of("users", "small", "blobs"), List.copyOf(registry.getCacheNames()));
+        assertTrue(registry.contains("users"));
+        assertFalse(registry.contains("orders"));
+
+        LocalCacheService<String, String> users = registry.getCache("users");
+        assertInstanceOf(CaffeineLocalCacheService.class, users);
+        assertSame(users, registry.getCache("users"));
+        assertInstanceOf(OffHeapLocalCacheService.class, registry.getCache("blobs"));
+
+        // 命名缓存的容量单独限制，互不影响
+        LocalCacheService<String, String> smallCache = registry.getCache("small");
+        assertInstanceOf(MapLocalCacheService.class, smallCache);
+        for (int i = 0; i < 10; i++) {
+            smallCache.put("key" + i, "value" + i);
+            users.put("key" + i, "value" + i);
+        }
+        assertEquals(2, smallCache.size());
+        assertEquals("value0", users.getIfPresent("key0"));
+        assertNull(users.getIfPresent("key0-missing"));
+    }
+
+    @Test
+    @DisplayName("测试合并配置时命名缓存的参数覆盖全局配置，且不修改全局配置")
+    void testSpecOverridesDefaults() {
+        LocalCacheProperties defaults = new LocalCacheProperties();
+        defaults.setExpireAfterWrite(30);
+        defaults.setMaximumSize(100);
+        LocalCacheProperties.Spec spec = spec(CacheTypeConstants.GUAVA);
+        spec.setExpireAfterWrite(600);
+        spec.setRecordStats(false);
+
+        LocalCacheProperties merged = spec.toProperties(defaults);
+        assertEquals(600, merged.getExpireAfterWrite());
+        assertEquals(100, merged.getMaximumSize());
+        assertFalse(merged.isRecordStats());
+        assertEquals(30, defaults.getExpireAfterWrite());
+        assertTrue(defaults.isRecordStats());
+    }
+
+    @Test
+    @DisplayName("测试引擎类型不受支持时构造失败，获取未配置的缓存名称抛出异常")
+    void testInvalidSpecs() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.getSpecs().put("users", spec("redis"));
+        assertThrows(IllegalArgumentException.class, () -> newRegistry(properties));
+
+        LocalCacheRegistry empty = newRegistry(new LocalCacheProperties());
+        assertTrue(empty.getCacheNames().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> empty.getCache("users"));
+    }
+
+    private static LocalCacheProperties.Spec spec(String type) {
+        LocalCacheProperties.Spec spec = new LocalCacheProperties.Spec();
+        spec.setType(type);
+        return spec;
+    }
+
+    private static LocalCacheRegistry newRegistry(LocalCacheProperties properties) {
+        return new LocalCacheRegistry(properties, Runnable::run, new EstimatedSizeWeigher<>(), new JdkCacheSerializer<>());
+    }
+}
@@ -1,6 +1,7 @@
 package com.wangguangwu.cachelocal.service.impl;
 
 import com.wangguangwu.cachelocal.constants.CacheTypeConstants;
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
 import com.wangguangwu.cachelocal.service.LocalCacheService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,7 +12,14 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -92,4 +100,134 @@ class CaffeineLocalCacheServiceTest {
         localCacheService.invalidateAll();
         assertEquals(0, localCacheService.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("测试 Caffeine 缓存的批量获取与批量移除")
+    void testCacheGetAllAndInvalidateAll() {
+        localCacheService.put("bulk1", "value1");
+
+        Map<Object, Object> result = localCacheService.getAll(List.of("bulk1", "bulk2", "bulk3"), keys -> {
+            assertEquals(Set.of("bulk2", "bulk3"), Set.copyOf(keys));
+            return Map.of("bulk2", "value2", "bulk3", "value3");
+        });
+        assertEquals(Map.of("bulk1", "value1", "bulk2", "value2", "bulk3", "value3"), result);
+        assertEquals("value2", localCacheService.getIfPresent("bulk2"));
+
+        localCacheService.invalidateAll(List.of("bulk1", "bulk2"));
+        assertNull(localCacheService.getIfPresent("bulk1"));
+        assertNull(localCacheService.getIfPresent("bulk2"));
+        assertEquals("value3", localCacheService.getIfPresent("bulk3"));
+    }
+
+    @Test
+    @DisplayName("测试 Caffeine 缓存的异步加载")
+    void testCacheGetAsync() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<Object> backend = new CompletableFuture<>();
+        CompletableFuture<Object> first = localCacheService.getAsync("async", k -> {
+            loads.incrementAndGet();
+            return backend;
+        });
+        CompletableFuture<Object> second = localCacheService.getAsync("async", k -> {
+            loads.incrementAndGet();
+            return backend;
+        });
+
+        backend.complete("asyncValue");
+        assertEquals("asyncValue", first.get(5, TimeUnit.SECONDS));
+        assertEquals("asyncValue", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals("asyncValue", localCacheService.getIfPresent("async"));
+    }
+
+    @Test
+    @DisplayName("测试 Caffeine 缓存超过 refreshAfterWrite 后在后台刷新")
+    void testCacheRefreshAfterWrite() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setRefreshAfterWrite(2);
+        AtomicLong now = new AtomicLong();
+        CaffeineLocalCacheService<String, String> refreshCache = new CaffeineLocalCacheService<>(properties, now::get, Runnable::run);
+        refreshCache.put("key", "v1");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertEquals("v1", refreshCache.get("key", k -> "v2"));
+        assertEquals("v2", refreshCache.getIfPresent("key"));
+    }
+
+    @Test
+    @DisplayName("测试 Caffeine 缓存批量加载失败时返回旧值，加载成功但未返回的 key 视为不存在")
+    void testCacheGetAllStaleIfError() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(2);
+        properties.setStaleIfError(5);
+        AtomicLong now = new AtomicLong();
+        CaffeineLocalCacheService<String, String> staleCache = new CaffeineLocalCacheService<>(properties, now::get, Runnable::run);
+        staleCache.put("key1", "v1");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        staleCache.put("key2", "v2");
+        assertEquals(Map.of("key1", "v1", "key2", "v2"), staleCache.getAll(List.of("key1", "key2"), keys -> {
+            throw new IllegalStateException("backend down");
+        }));
+        assertEquals(Map.of("key2", "v2"), staleCache.getAll(List.of("key1", "key2"), keys -> Map.of()));
+    }
+
+    @Test
+    @DisplayName("测试 Caffeine 缓存配置 maximumWeight 后按权重淘汰")
+    void testCacheMaximumWeight() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumWeight(10);
+        CaffeineLocalCacheService<String, String> weightedCache = new CaffeineLocalCacheService<>(
+                properties, System::nanoTime, Runnable::run, (key, value) -> value.length());
+
+        for (int i = 0; i < 10; i++) {
+            weightedCache.put("key" + i, "1234");
+        }
+        assertTrue(weightedCache.size() <= 2);
+    }
+
+    @Test
+    @DisplayName("测试 Caffeine 缓存刷新与过期重新加载时沿用单独设置的过期时间")
+    void testCacheWriteBackKeepsTtl() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(60);
+        properties.setRefreshAfterWrite(2);
+        properties.setStaleIfError(5);
+        AtomicLong now = new AtomicLong();
+        CaffeineLocalCacheService<String, String> ttlCache = new CaffeineLocalCacheService<>(properties, now::get, Runnable::run);
+        ttlCache.put("key", "v1", Duration.ofSeconds(5));
+
+        // 后台刷新写回的值重新按 5 秒过期
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertEquals("v1", ttlCache.get("key", k -> "v2"));
+        assertEquals(Duration.ofSeconds(5), ttlCache.getExpiration("key"));
+
+        // 过期后在 stale 窗口内重新加载，写回的值同样按 5 秒过期
+        now.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        assertEquals("v3", ttlCache.get("key", k -> "v3"));
+        assertEquals(Duration.ofSeconds(5), ttlCache.getExpiration("key"));
+    }
+
+    @Test
+    @DisplayName("测试 Caffeine 缓存单独设置过期时间")
+    void testCachePutWithTtl() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(10);
+        AtomicLong now = new AtomicLong();
+        CaffeineLocalCacheService<String, String> ttlCache = new CaffeineLocalCacheService<>(properties, now::get, Runnable::run);
+        ttlCache.put("short", "value", Duration.ofSeconds(2));
+        ttlCache.put("long", "value", Duration.ofSeconds(30));
+        ttlCache.put("global", "value");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertNull(ttlCache.getIfPresent("short"));
+        assertTrue(ttlCache.setExpiration("global", Duration.ofSeconds(1)));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertNull(ttlCache.getIfPresent("global"));
+        assertEquals("value", ttlCache.getIfPresent("long"));
+        assertEquals(Duration.ofSeconds(17), ttlCache.getExpiration("long"));
+        assertNull(ttlCache.getExpiration("global"));
+        assertFalse(ttlCache.setExpiration("global", Duration.ofSeconds(1)));
+    }
+}
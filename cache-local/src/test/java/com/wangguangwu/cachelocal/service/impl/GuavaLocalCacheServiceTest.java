@@ -1,8 +1,12 @@
 package com.wangguangwu.cachelocal.service.impl;
 
 import com.wangguangwu.cachelocal.constants.CacheTypeConstants;
+import com.wangguangwu.cachelocal.exception.CacheException;
 import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
 import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.stats.CacheOperation;
+import com.wangguangwu.cachelocal.stats.CacheStats;
+import com.wangguangwu.cachelocal.stats.EvictionCause;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -13,13 +17,21 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 class GuavaLocalCacheServiceTest {
@@ -176,4 +188,179 @@ class GuavaLocalCacheServiceTest {
         Object value2 = localCacheService.get(key, k -> "newComputedValue");
         assertEquals("computedValue", value2);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("测试 Guava 缓存的批量获取与批量移除")
+    void testCacheGetAllAndInvalidateAll() {
+        localCacheService.put("bulk1", "value1");
+
+        Map<Object, Object> result = localCacheService.getAll(List.of("bulk1", "bulk2", "bulk3"), keys -> {
+            assertEquals(Set.of("bulk2", "bulk3"), Set.copyOf(keys));
+            return Map.of("bulk2", "value2", "bulk3", "value3");
+        });
+        assertEquals(Map.of("bulk1", "value1", "bulk2", "value2", "bulk3", "value3"), result);
+        assertEquals("value2", localCacheService.getIfPresent("bulk2"));
+
+        localCacheService.invalidateAll(List.of("bulk1", "bulk2"));
+        assertNull(localCacheService.getIfPresent("bulk1"));
+        assertNull(localCacheService.getIfPresent("bulk2"));
+        assertEquals("value3", localCacheService.getIfPresent("bulk3"));
+    }
+
+    @Test
+    @DisplayName("测试 Guava 缓存批量获取只遍历一次 keys，加载结果一次批量写入")
+    void testCacheGetAllOneShotIterable() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        GuavaLocalCacheService<String, String> bulkCache = new GuavaLocalCacheService<>(properties, Runnable::run);
+        bulkCache.put("a", "1");
+        Iterator<String> iterator = List.of("a", "b", "c").iterator();
+        Iterable<String> oneShot = () -> iterator;
+
+        Map<String, String> result = bulkCache.getAll(oneShot, misses -> Map.of("b", "2", "c", "3"));
+        assertEquals(Map.of("a", "1", "b", "2", "c", "3"), result);
+        assertEquals("3", bulkCache.getIfPresent("c"));
+        // 加载结果通过 putAll 写入，不计为单个 put
+        assertEquals(1, bulkCache.stats().getOperationLatencies().get(CacheOperation.PUT).getCount());
+    }
+
+    @Test
+    @DisplayName("测试 Guava 缓存过期后重新加载失败时在 staleIfError 窗口内返回旧值")
+    void testCacheStaleIfError() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(2);
+        properties.setStaleIfError(5);
+        AtomicLong now = new AtomicLong();
+        GuavaLocalCacheService<String, String> staleCache = new GuavaLocalCacheService<>(properties, now::get, Runnable::run);
+        staleCache.put("key", "v1");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertNull(staleCache.getIfPresent("key"));
+        assertEquals("v1", staleCache.get("key", k -> {
+            throw new IllegalStateException("backend down");
+        }));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertThrows(CacheException.class, () -> staleCache.get("key", k -> {
+            throw new IllegalStateException("backend down");
+        }));
+    }
+
+    @Test
+    @DisplayName("测试 Guava 缓存批量加载失败时在 staleIfError 窗口内返回旧值")
+    void testCacheGetAllStaleIfError() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(2);
+        properties.setStaleIfError(5);
+        AtomicLong now = new AtomicLong();
+        GuavaLocalCacheService<String, String> staleCache = new GuavaLocalCacheService<>(properties, now::get, Runnable::run);
+        staleCache.put("key1", "v1");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        staleCache.put("key3", "v3");
+        Map<String, String> result = staleCache.getAll(List.of("key1", "key2", "key3"), keys -> {
+            throw new IllegalStateException("backend down");
+        });
+        assertEquals(Map.of("key1", "v1", "key3", "v3"), result);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertThrows(CacheException.class, () -> staleCache.getAll(List.of("key1", "key2"), keys -> {
+            throw new IllegalStateException("backend down");
+        }));
+    }
+
+    @Test
+    @DisplayName("测试 Guava 缓存配置 maximumWeight 后按权重淘汰")
+    void testCacheMaximumWeight() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumWeight(10);
+        GuavaLocalCacheService<String, String> weightedCache = new GuavaLocalCacheService<>(
+                properties, System::nanoTime, Runnable::run, (key, value) -> value.length());
+
+        for (int i = 0; i < 10; i++) {
+            weightedCache.put("key" + i, "1234");
+        }
+        assertEquals(2, weightedCache.size());
+        assertEquals("1234", weightedCache.getIfPresent("key9"));
+    }
+
+    @Test
+    @DisplayName("测试 Guava 缓存的统计信息")
+    void testCacheStats() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumSize(1);
+        GuavaLocalCacheService<String, String> statsCache = new GuavaLocalCacheService<>(properties, Runnable::run);
+
+        statsCache.put("a", "1");
+        assertEquals("1", statsCache.getIfPresent("a"));
+        assertEquals("2", statsCache.get("b", k -> "2"));
+
+        CacheStats stats = statsCache.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getLoadSuccessCount());
+        assertEquals(1, stats.getEvictionCounts().get(EvictionCause.SIZE));
+    }
+
+    @Test
+    @DisplayName("测试 Guava 缓存刷新与过期重新加载时沿用单独设置的过期时间")
+    void testCacheWriteBackKeepsTtl() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(60);
+        properties.setRefreshAfterWrite(2);
+        properties.setStaleIfError(5);
+        AtomicLong now = new AtomicLong();
+        GuavaLocalCacheService<String, String> ttlCache = new GuavaLocalCacheService<>(properties, now::get, Runnable::run);
+        ttlCache.put("key", "v1", Duration.ofSeconds(5));
+
+        // 后台刷新写回的值重新按 5 秒过期
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertEquals("v1", ttlCache.get("key", k -> "v2"));
+        assertEquals(Duration.ofSeconds(5), ttlCache.getExpiration("key"));
+
+        // 过期后在 stale 窗口内重新加载，写回的值同样按 5 秒过期
+        now.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        assertEquals("v3", ttlCache.get("key", k -> "v3"));
+        assertEquals(Duration.ofSeconds(5), ttlCache.getExpiration("key"));
+    }
+
+    @Test
+    @DisplayName("测试 Guava 缓存单独设置的过期时间在全局过期时间内生效")
+    void testCachePutWithTtl() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(10);
+        AtomicLong now = new AtomicLong();
+        GuavaLocalCacheService<String, String> ttlCache = new GuavaLocalCacheService<>(properties, now::get, Runnable::run);
+        ttlCache.put("short", "value", Duration.ofSeconds(2));
+        ttlCache.put("global", "value");
+        assertEquals(Duration.ofSeconds(2), ttlCache.getExpiration("short"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertNull(ttlCache.getIfPresent("short"));
+        assertFalse(ttlCache.containsKey("short"));
+        assertEquals("value", ttlCache.getIfPresent("global"));
+        assertTrue(ttlCache.setExpiration("global", Duration.ofSeconds(1)));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNull(ttlCache.getIfPresent("global"));
+    }
+
+    @Test
+    @DisplayName("测试 Guava 缓存单独设置的过期时间超过全局过期时间时抛出异常，不会被静默截断")
+    void testCachePutWithTtlBeyondGlobalExpiry() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(60);
+        properties.setExpireAfterAccess(10);
+        AtomicLong now = new AtomicLong();
+        GuavaLocalCacheService<String, String> ttlCache = new GuavaLocalCacheService<>(properties, now::get, Runnable::run);
+
+        assertThrows(IllegalArgumentException.class, () -> ttlCache.put("long", "value", Duration.ofSeconds(30)));
+        assertNull(ttlCache.getIfPresent("long"));
+        ttlCache.put("key", "value", Duration.ofSeconds(10));
+        assertThrows(IllegalArgumentException.class, () -> ttlCache.setExpiration("key", Duration.ofSeconds(11)));
+        assertEquals(Duration.ofSeconds(10), ttlCache.getExpiration("key"));
+
+        properties.setNegativeTtl(30);
+        assertThrows(IllegalArgumentException.class,
+                () -> new GuavaLocalCacheService<String, String>(properties, now::get, Runnable::run));
+    }
+}
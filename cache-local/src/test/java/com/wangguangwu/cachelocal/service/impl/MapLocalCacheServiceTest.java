@@ -1,6 +1,10 @@
 package com.wangguangwu.cachelocal.service.impl;
 
+import com.wangguangwu.cachelocal.constants.EvictionPolicyType;
 import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.stats.CacheOperation;
+import com.wangguangwu.cachelocal.stats.CacheStats;
+import com.wangguangwu.cachelocal.stats.EvictionCause;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,11 +12,20 @@ import org.junit.jupiter.api.DisplayName;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * MapLocalCacheService 的单元测试类
@@ -240,4 +253,462 @@ class MapLocalCacheServiceTest {
             assertNull(cacheService.getIfPresent("key" + i), "Key should be expired: key" + i);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("测试分段后缓存总容量不超过 maximumSize")
+    void testSegmentedCapacity() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumSize(1000);
+        properties.setConcurrencyLevel(16);
+        MapLocalCacheService<Integer, Integer> segmentedCache = new MapLocalCacheService<>(properties);
+
+        for (int i = 0; i < 5000; i++) {
+            segmentedCache.put(i, i);
+        }
+        assertTrue(segmentedCache.size() <= 1000, "Size should not exceed maximumSize: " + segmentedCache.size());
+        // 最后写入的 key 一定仍在缓存中
+        assertEquals(4999, segmentedCache.getIfPresent(4999));
+    }
+
+    @Test
+    @DisplayName("测试并发读取时 LRU 顺序仍能保护热点 key")
+    void testConcurrentReadsKeepHotKeys() throws InterruptedException {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumSize(64);
+        properties.setConcurrencyLevel(1);
+        MapLocalCacheService<Integer, Integer> lruCache = new MapLocalCacheService<>(properties);
+        for (int i = 0; i < 64; i++) {
+            lruCache.put(i, i);
+        }
+
+        int threadCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        AtomicInteger misses = new AtomicInteger();
+        for (int t = 0; t < threadCount; t++) {
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < 10_000; j++) {
+                        if (lruCache.getIfPresent(j & 7) == null) {
+                            misses.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        assertEquals(0, misses.get());
+
+        // 写入新 key 触发淘汰，被频繁访问的 key 不应被淘汰
+        for (int i = 64; i < 100; i++) {
+            lruCache.put(i, i);
+        }
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i, lruCache.getIfPresent(i), "Hot key should survive eviction: " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("测试访问后过期：持续访问的 key 不会因 expireAfterAccess 过期")
+    void testExpireAfterAccess() {
+        AtomicLong now = new AtomicLong();
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(60);
+        properties.setExpireAfterAccess(2);
+        MapLocalCacheService<String, String> accessCache = new MapLocalCacheService<>(properties, now::get);
+
+        accessCache.put("hot", "value");
+        accessCache.put("cold", "value");
+        for (int i = 0; i < 5; i++) {
+            now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            assertEquals("value", accessCache.getIfPresent("hot"));
+        }
+        // cold 超过 2 秒未被访问，应已过期
+        assertNull(accessCache.getIfPresent("cold"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertNull(accessCache.getIfPresent("hot"));
+    }
+
+    @Test
+    @DisplayName("测试时间轮在写操作时主动清理过期缓存项")
+    void testExpiredEntriesRemovedByTimerWheel() {
+        AtomicLong now = new AtomicLong();
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumSize(1000);
+        properties.setExpireAfterWrite(3);
+        // 时间轮按分段维护，使用单个分段使一次写操作即可覆盖所有缓存项
+        properties.setConcurrencyLevel(1);
+        MapLocalCacheService<Integer, Integer> wheelCache = new MapLocalCacheService<>(properties, now::get);
+
+        for (int i = 0; i < 100; i++) {
+            wheelCache.put(i, i);
+        }
+        assertEquals(100, wheelCache.size());
+
+        // 时间推进到所有缓存项过期之后，一次写操作即可清理掉过期项
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        wheelCache.put(100, 100);
+        assertEquals(1, wheelCache.size());
+        assertEquals(100, wheelCache.getIfPresent(100));
+    }
+
+    @Test
+    @DisplayName("测试 W-TinyLFU 策略下一次性扫描不会冲刷热点数据")
+    void testTinyLfuResistsScan() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumSize(100);
+        properties.setConcurrencyLevel(1);
+        properties.setEvictionPolicy(EvictionPolicyType.TINY_LFU);
+        MapLocalCacheService<Integer, Integer> tinyLfuCache = new MapLocalCacheService<>(properties);
+
+        // 热点数据被反复访问
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                tinyLfuCache.get(i, k -> k);
+            }
+        }
+        // 大量只访问一次的 key 扫过缓存
+        for (int i = 1000; i < 5000; i++) {
+            tinyLfuCache.get(i, k -> k);
+        }
+
+        int hits = 0;
+        for (int i = 0; i < 50; i++) {
+            if (tinyLfuCache.getIfPresent(i) != null) {
+                hits++;
+            }
+        }
+        assertTrue(hits >= 45, "Hot keys should survive the scan, hits: " + hits);
+        assertTrue(tinyLfuCache.size() <= 100);
+    }
+
+    @Test
+    @DisplayName("测试批量获取时未命中的 key 只触发一次批量加载")
+    void testGetAllLoadsMissesOnce() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumSize(1000);
+        MapLocalCacheService<Integer, Integer> bulkCache = new MapLocalCacheService<>(properties);
+        bulkCache.put(1, 10);
+
+        AtomicInteger loads = new AtomicInteger();
+        List<Set<? extends Integer>> requested = new ArrayList<>();
+        Map<Integer, Integer> result = bulkCache.getAll(List.of(1, 2, 3, 4), keys -> {
+            loads.incrementAndGet();
+            requested.add(Set.copyOf(keys));
+            Map<Integer, Integer> loaded = new HashMap<>();
+            // key 4 没有对应的值，不应出现在结果中
+            keys.stream().filter(k -> k != 4).forEach(k -> loaded.put(k, k * 10));
+            return loaded;
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals(Set.of(2, 3, 4), requested.get(0));
+        assertEquals(List.of(1, 2, 3), new ArrayList<>(result.keySet()));
+        assertEquals(30, bulkCache.getIfPresent(3));
+        assertFalse(bulkCache.containsKey(4));
+
+        // 全部命中时不再调用加载函数
+        bulkCache.getAll(List.of(1, 2, 3), keys -> {
+            throw new AssertionError("should not load");
+        });
+    }
+
+    @Test
+    @DisplayName("测试批量写入与批量移除")
+    void testPutAllAndInvalidateAll() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumSize(1000);
+        MapLocalCacheService<Integer, Integer> bulkCache = new MapLocalCacheService<>(properties);
+
+        Map<Integer, Integer> entries = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            entries.put(i, i);
+        }
+        bulkCache.putAll(entries);
+        assertEquals(200, bulkCache.size());
+
+        List<Integer> evens = new ArrayList<>();
+        for (int i = 0; i < 200; i += 2) {
+            evens.add(i);
+        }
+        bulkCache.invalidateAll(evens);
+        assertEquals(100, bulkCache.size());
+        assertNull(bulkCache.getIfPresent(0));
+        assertEquals(1, bulkCache.getIfPresent(1));
+    }
+
+    @Test
+    @DisplayName("测试异步加载合并并发未命中且不阻塞其他 key 的写入")
+    void testGetAsyncCoalescesAndDoesNotBlockWriters() throws Exception {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumSize(1000);
+        properties.setConcurrencyLevel(1);
+        MapLocalCacheService<String, String> asyncCache = new MapLocalCacheService<>(properties);
+
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> backend = new CompletableFuture<>();
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(asyncCache.getAsync("hot", k -> {
+                loads.incrementAndGet();
+                return backend;
+            }));
+        }
+
+        // 加载尚未完成时，同一分段内其他 key 的写入不受影响
+        asyncCache.put("other", "value");
+        assertEquals("value", asyncCache.getIfPresent("other"));
+
+        backend.complete("loaded");
+        for (CompletableFuture<String> future : futures) {
+            assertEquals("loaded", future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals("loaded", asyncCache.getIfPresent("hot"));
+        // 命中时直接返回已完成的 future
+        assertTrue(asyncCache.getAsync("hot", k -> CompletableFuture.completedFuture("unused")).isDone());
+    }
+
+    @Test
+    @DisplayName("测试超过 refreshAfterWrite 后命中时返回旧值并在后台刷新")
+    void testRefreshAfterWrite() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setRefreshAfterWrite(2);
+        AtomicLong now = new AtomicLong();
+        // 使用调用线程执行加载，刷新在 get 返回前完成
+        MapLocalCacheService<String, String> refreshCache = new MapLocalCacheService<>(properties, now::get, Runnable::run);
+        refreshCache.put("key", "v1");
+
+        // 未到刷新时间，不触发加载
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals("v1", refreshCache.get("key", k -> "v2"));
+        assertEquals("v1", refreshCache.getIfPresent("key"));
+
+        // 到达刷新时间，本次读取返回旧值，刷新完成后读到新值
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals("v1", refreshCache.get("key", k -> "v2"));
+        assertEquals("v2", refreshCache.getIfPresent("key"));
+    }
+
+    @Test
+    @DisplayName("测试过期后重新加载失败时在 staleIfError 窗口内返回旧值")
+    void testStaleIfError() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(2);
+        properties.setStaleIfError(5);
+        AtomicLong now = new AtomicLong();
+        MapLocalCacheService<String, String> staleCache = new MapLocalCacheService<>(properties, now::get, Runnable::run);
+        staleCache.put("key", "v1");
+
+        // 正常过期后不再被普通读取命中，加载失败时返回旧值
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertNull(staleCache.getIfPresent("key"));
+        assertFalse(staleCache.containsKey("key"));
+        assertEquals("v1", staleCache.get("key", k -> {
+            throw new IllegalStateException("backend down");
+        }));
+
+        // 超出窗口后加载失败直接抛出异常
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertThrows(IllegalStateException.class, () -> staleCache.get("key", k -> {
+            throw new IllegalStateException("backend down");
+        }));
+
+        // 加载成功时写入新值
+        assertEquals("v2", staleCache.get("key", k -> "v2"));
+        assertEquals("v2", staleCache.getIfPresent("key"));
+    }
+
+    @Test
+    @DisplayName("测试批量加载失败时在 staleIfError 窗口内返回旧值")
+    void testGetAllStaleIfError() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(2);
+        properties.setStaleIfError(5);
+        AtomicLong now = new AtomicLong();
+        MapLocalCacheService<String, String> staleCache = new MapLocalCacheService<>(properties, now::get, Runnable::run);
+        staleCache.put("key1", "v1");
+
+        // 过期的 key1 返回旧值，没有旧值的 key2 不出现在结果中
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        staleCache.put("key3", "v3");
+        Map<String, String> result = staleCache.getAll(List.of("key1", "key2", "key3"), keys -> {
+            throw new IllegalStateException("backend down");
+        });
+        assertEquals(Map.of("key1", "v1", "key3", "v3"), result);
+
+        // 超出窗口后没有可用的旧值，抛出原异常
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertThrows(IllegalStateException.class, () -> staleCache.getAll(List.of("key1", "key2"), keys -> {
+            throw new IllegalStateException("backend down");
+        }));
+    }
+
+    @Test
+    @DisplayName("测试配置 maximumWeight 后按权重总和淘汰")
+    void testMaximumWeight() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumWeight(10);
+        properties.setConcurrencyLevel(1);
+        MapLocalCacheService<String, String> weightedCache =
+                new MapLocalCacheService<>(properties, System::nanoTime, Runnable::run, (key, value) -> value.length());
+
+        weightedCache.put("a", "1234");
+        weightedCache.put("b", "1234");
+        assertEquals(2, weightedCache.size());
+
+        // 权重总和超出 10，淘汰最久未访问的 a
+        weightedCache.put("c", "1234");
+        assertEquals(2, weightedCache.size());
+        assertNull(weightedCache.getIfPresent("a"));
+
+        // 覆盖后权重变大，同样按权重淘汰
+        weightedCache.put("c", "123456789");
+        assertEquals(1, weightedCache.size());
+        assertEquals("123456789", weightedCache.getIfPresent("c"));
+
+        // 单个缓存项超出额度时不会被保留
+        weightedCache.put("d", "12345678901");
+        assertNull(weightedCache.getIfPresent("d"));
+        assertTrue(weightedCache.size() <= 1);
+    }
+
+    @Test
+    @DisplayName("测试统计命中、加载、淘汰与操作耗时")
+    void testStats() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumSize(2);
+        properties.setConcurrencyLevel(1);
+        AtomicLong now = new AtomicLong();
+        MapLocalCacheService<String, String> statsCache = new MapLocalCacheService<>(properties, now::get, Runnable::run);
+
+        statsCache.put("a", "1");
+        statsCache.put("b", "2");
+        assertEquals("1", statsCache.getIfPresent("a"));
+        assertNull(statsCache.getIfPresent("missing"));
+        assertEquals("3", statsCache.get("c", k -> "3"));
+        assertThrows(IllegalStateException.class, () -> statsCache.get("d", k -> {
+            throw new IllegalStateException("backend down");
+        }));
+        // 超过写入后过期时间，读取时按过期淘汰
+        now.addAndGet(TimeUnit.SECONDS.toNanos(properties.getExpireAfterWrite()));
+        assertNull(statsCache.getIfPresent("c"));
+
+        CacheStats stats = statsCache.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(4, stats.getMissCount());
+        assertEquals(1, stats.getLoadSuccessCount());
+        assertEquals(1, stats.getLoadFailureCount());
+        assertEquals(1, stats.getEvictionCounts().get(EvictionCause.SIZE));
+        assertEquals(1, stats.getEvictionCounts().get(EvictionCause.EXPIRED));
+        assertEquals(3, stats.getOperationLatencies().get(CacheOperation.PUT).getCount());
+        assertEquals(3, stats.getOperationLatencies().get(CacheOperation.GET_IF_PRESENT).getCount());
+    }
+
+    @Test
+    @DisplayName("测试刷新与过期重新加载时沿用单独设置的过期时间")
+    void testWriteBackKeepsTtl() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(60);
+        properties.setRefreshAfterWrite(2);
+        properties.setStaleIfError(5);
+        AtomicLong now = new AtomicLong();
+        MapLocalCacheService<String, String> ttlCache = new MapLocalCacheService<>(properties, now::get, Runnable::run);
+        ttlCache.put("key", "v1", Duration.ofSeconds(5));
+
+        // 后台刷新写回的值重新按 5 秒过期
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertEquals("v1", ttlCache.get("key", k -> "v2"));
+        assertEquals(Duration.ofSeconds(5), ttlCache.getExpiration("key"));
+
+        // 过期后在 stale 窗口内重新加载，写回的值同样按 5 秒过期
+        now.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        assertEquals("v3", ttlCache.get("key", k -> "v3"));
+        assertEquals(Duration.ofSeconds(5), ttlCache.getExpiration("key"));
+    }
+
+    @Test
+    @DisplayName("测试单独设置过期时间：不受全局过期时间约束，覆盖写入后恢复全局策略")
+    void testPutWithTtl() {
+        AtomicLong now = new AtomicLong();
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(10);
+        properties.setConcurrencyLevel(1);
+        MapLocalCacheService<String, String> ttlCache = new MapLocalCacheService<>(properties, now::get);
+
+        ttlCache.put("short", "value", Duration.ofSeconds(2));
+        ttlCache.put("long", "value", Duration.ofSeconds(30));
+        ttlCache.put("global", "value");
+        assertEquals(Duration.ofSeconds(2), ttlCache.getExpiration("short"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertNull(ttlCache.getIfPresent("short"));
+        assertFalse(ttlCache.containsKey("short"));
+
+        // 超过全局的写入后过期时间，单独设置了更长过期时间的缓存项仍然存在
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertNull(ttlCache.getIfPresent("global"));
+        assertEquals("value", ttlCache.getIfPresent("long"));
+        assertEquals(Duration.ofSeconds(17), ttlCache.getExpiration("long"));
+
+        // 时间轮按单独设置的到期时间清理
+        now.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        ttlCache.put("trigger", "value");
+        assertEquals(1, ttlCache.size());
+
+        // 不带过期时间覆盖写入后按全局配置过期
+        ttlCache.put("trigger", "value", Duration.ofSeconds(60));
+        ttlCache.put("trigger", "value");
+        assertEquals(Duration.ofSeconds(10), ttlCache.getExpiration("trigger"));
+        assertThrows(IllegalArgumentException.class, () -> ttlCache.put("bad", "value", Duration.ZERO));
+    }
+
+    @Test
+    @DisplayName("测试为已有缓存项重新设置过期时间")
+    void testSetExpiration() {
+        AtomicLong now = new AtomicLong();
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(10);
+        MapLocalCacheService<String, String> ttlCache = new MapLocalCacheService<>(properties, now::get);
+
+        ttlCache.put("a", "1");
+        assertTrue(ttlCache.setExpiration("a", Duration.ofSeconds(1)));
+        assertFalse(ttlCache.setExpiration("missing", Duration.ofSeconds(1)));
+        assertNull(ttlCache.getExpiration("missing"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNull(ttlCache.getIfPresent("a"));
+        assertFalse(ttlCache.setExpiration("a", Duration.ofSeconds(1)));
+
+        ttlCache.put("b", "2");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertTrue(ttlCache.setExpiration("b", Duration.ofMinutes(1)));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals("2", ttlCache.getIfPresent("b"));
+        assertEquals(Duration.ofSeconds(30), ttlCache.getExpiration("b"));
+    }
+
+    @Test
+    @DisplayName("测试惰性遍历 key：按 pattern 过滤并跳过过期项，不计入统计")
+    void testScan() {
+        AtomicLong now = new AtomicLong();
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setExpireAfterWrite(10);
+        MapLocalCacheService<String, String> scanCache = new MapLocalCacheService<>(properties, now::get);
+
+        scanCache.put("user:1", "1");
+        scanCache.put("user:2", "2");
+        scanCache.put("order:1", "1");
+        scanCache.put("user:expired", "3", Duration.ofSeconds(1));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(Set.of("user:1", "user:2"), scanCache.scan("user:*", 100).collect(Collectors.toSet()));
+        assertEquals(Set.of("user:1", "order:1"), scanCache.scan("*:1", 100).collect(Collectors.toSet()));
+        assertEquals(3, scanCache.scan(null, 1).count());
+        assertEquals(0, scanCache.stats().getRequestCount());
+    }
+}
@@ -0,0 +1,211 @@
+package com.wangguangwu.cachelocal.service.impl;
+
+import com.wangguangwu.cachelocal.exception.CacheException;
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.serializer.StringCacheSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapLocalCacheService 的单元测试类
+ */
+class OffHeapLocalCacheServiceTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private OffHeapLocalCacheService<String, String> cacheService;
+
+    @BeforeEach
+    void beforeEach() {
+        LocalCacheProperties localCacheProperties = new LocalCacheProperties();
+        localCacheProperties.setExpireAfterWrite(3);
+        localCacheProperties.getOffHeap().setMaximumBytes(64 * 1024);
+        localCacheProperties.getOffHeap().setSlabSize(4 * 1024);
+        cacheService = new OffHeapLocalCacheService<>(localCacheProperties,
+                new StringCacheSerializer(), new StringCacheSerializer(), now::get);
+    }
+
+    @Test
+    @DisplayName("测试堆外缓存的存取与覆盖")
+    void testPutAndGetIfPresent() {
+        cacheService.put("key1", "value1");
+        cacheService.put("key2", "value2");
+        assertEquals("value1", cacheService.getIfPresent("key1"));
+        assertEquals("value2", cacheService.getIfPresent("key2"));
+
+        cacheService.put("key1", "newValue1");
+        assertEquals("newValue1", cacheService.getIfPresent("key1"));
+        assertEquals(2, cacheService.size());
+        assertNull(cacheService.getIfPresent("missing"));
+    }
+
+    @Test
+    @DisplayName("测试使用映射函数的 get 方法")
+    void testGetWithMappingFunction() {
+        assertEquals("computedValue", cacheService.get("key1", key -> "computedValue"));
+        assertEquals("computedValue", cacheService.get("key1", key -> "newValue"));
+    }
+
+    @Test
+    @DisplayName("测试移除单个缓存项与清空缓存")
+    void testInvalidate() {
+        cacheService.put("key1", "value1");
+        cacheService.put("key2", "value2");
+        cacheService.invalidate("key1");
+        assertNull(cacheService.getIfPresent("key1"));
+        assertFalse(cacheService.containsKey("key1"));
+        assertTrue(cacheService.containsKey("key2"));
+        assertEquals(1, cacheService.size());
+
+        cacheService.invalidateAll();
+        assertEquals(0, cacheService.size());
+        assertNull(cacheService.getIfPresent("key2"));
+    }
+
+    @Test
+    @DisplayName("测试写入时间过期")
+    void testExpiration() {
+        cacheService.put("key1", "value1");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(4));
+        assertNull(cacheService.getIfPresent("key1"));
+        assertEquals(0, cacheService.size());
+    }
+
+    @Test
+    @DisplayName("测试按字节数限制容量，写满后淘汰最早的 slab")
+    void testSlabEviction() {
+        String value = "x".repeat(100);
+        for (int i = 0; i < 5000; i++) {
+            cacheService.put("key" + i, value);
+        }
+        // 64KB 容量最多容纳约 550 条记录
+        assertTrue(cacheService.size() < 600, "Size should be bounded by bytes: " + cacheService.size());
+        assertNull(cacheService.getIfPresent("key0"));
+        assertEquals(value, cacheService.getIfPresent("key4999"));
+        assertEquals(cacheService.size(), cacheService.keySet().size());
+    }
+
+    @Test
+    @DisplayName("测试超过 slab 大小的缓存项被拒绝")
+    void testOversizedEntry() {
+        assertThrows(CacheException.class, () -> cacheService.put("big", "x".repeat(8 * 1024)));
+    }
+
+    @Test
+    @DisplayName("测试并发读写")
+    void testConcurrentPutAndGet() throws InterruptedException {
+        int threadCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        AtomicInteger mismatches = new AtomicInteger();
+        for (int t = 0; t < threadCount; t++) {
+            final int threadNum = t;
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < 1000; j++) {
+                        String key = "key" + (threadNum * 1000 + j);
+                        cacheService.put(key, key);
+                        String value = cacheService.getIfPresent(key);
+                        // 可能已被 slab 淘汰，但不能读到其他 key 的值
+                        if (value != null && !value.equals(key)) {
+                            mismatches.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        assertEquals(0, mismatches.get());
+    }
+
+    @Test
+    @DisplayName("测试批量获取、批量写入与批量移除")
+    void testBulkOperations() {
+        cacheService.putAll(Map.of("a", "1", "b", "2"));
+
+        AtomicInteger loads = new AtomicInteger();
+        Map<String, String> result = cacheService.getAll(List.of("a", "b", "c"), keys -> {
+            loads.incrementAndGet();
+            assertEquals(Set.of("c"), Set.copyOf(keys));
+            return Map.of("c", "3");
+        });
+        assertEquals(1, loads.get());
+        assertEquals(Map.of("a", "1", "b", "2", "c", "3"), result);
+        assertEquals("3", cacheService.getIfPresent("c"));
+
+        cacheService.invalidateAll(List.of("a", "c"));
+        assertNull(cacheService.getIfPresent("a"));
+        assertNull(cacheService.getIfPresent("c"));
+        assertEquals("2", cacheService.getIfPresent("b"));
+    }
+
+    @Test
+    @DisplayName("测试堆外缓存单独设置过期时间")
+    void testPutWithTtl() {
+        cacheService.put("short", "value", Duration.ofSeconds(1));
+        cacheService.put("long", "value", Duration.ofSeconds(10));
+        cacheService.put("global", "value");
+        assertEquals(Duration.ofSeconds(3), cacheService.getExpiration("global"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNull(cacheService.getIfPresent("short"));
+        assertTrue(cacheService.setExpiration("global", Duration.ofSeconds(5)));
+
+        // 超过全局的 3 秒写入后过期时间
+        now.addAndGet(TimeUnit.SECONDS.toNanos(4));
+        assertEquals("value", cacheService.getIfPresent("long"));
+        assertEquals("value", cacheService.getIfPresent("global"));
+        assertEquals(Duration.ofSeconds(5), cacheService.getExpiration("long"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNull(cacheService.getIfPresent("global"));
+        assertFalse(cacheService.setExpiration("global", Duration.ofSeconds(5)));
+    }
+
+    @Test
+    @DisplayName("测试分批遍历 key：按 pattern 过滤、跳过过期项，遍历期间删除其他 key 不会遗漏未修改的 key")
+    void testScan() {
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            cacheService.put("user:" + i, "v");
+            cacheService.put("order:" + i, "v");
+            expected.add("user:" + i);
+        }
+        cacheService.put("user:expired", "v", Duration.ofSeconds(1));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(600, cacheService.scan(null, 32).count());
+
+        // 删除会把后续槽位向前搬移，遍历中途删除所有 order key
+        Iterator<String> iterator = cacheService.scan("user:*", 16).iterator();
+        Set<String> scanned = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            scanned.add(iterator.next());
+        }
+        for (int i = 0; i < 300; i++) {
+            cacheService.invalidate("order:" + i);
+        }
+        iterator.forEachRemaining(scanned::add);
+        assertEquals(expected, scanned);
+
+        assertThrows(IllegalArgumentException.class, () -> cacheService.scan(null, 0));
+    }
+}
@@ -0,0 +1,176 @@
+package com.wangguangwu.cachelocal.service.impl;
+
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OpenAddressingLongLocalCacheService 的单元测试类
+ */
+class OpenAddressingLongLocalCacheServiceTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private OpenAddressingLongLocalCacheService<String> newCache(int maximumSize) {
+        LocalCacheProperties localCacheProperties = new LocalCacheProperties();
+        localCacheProperties.setMaximumSize(maximumSize);
+        localCacheProperties.setExpireAfterWrite(3);
+        return new OpenAddressingLongLocalCacheService<>(localCacheProperties, now::get);
+    }
+
+    @Test
+    @DisplayName("测试 long 键缓存的存取、覆盖与移除")
+    void testPutGetAndInvalidate() {
+        OpenAddressingLongLocalCacheService<String> cache = newCache(100);
+        cache.put(1L, "value1");
+        cache.put(2L, "value2");
+        assertEquals("value1", cache.getIfPresent(1L));
+        assertEquals("value2", cache.getIfPresent(2L));
+
+        cache.put(1L, "newValue1");
+        assertEquals("newValue1", cache.getIfPresent(1L));
+        assertEquals(2, cache.size());
+
+        cache.invalidate(1L);
+        assertNull(cache.getIfPresent(1L));
+        assertFalse(cache.containsKey(1L));
+        assertArrayEquals(new long[]{2L}, cache.keys());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("测试使用映射函数的 get 方法")
+    void testGetWithMappingFunction() {
+        OpenAddressingLongLocalCacheService<String> cache = newCache(100);
+        assertEquals("computed7", cache.get(7L, key -> "computed" + key));
+        assertEquals("computed7", cache.get(7L, key -> "newValue"));
+    }
+
+    @Test
+    @DisplayName("测试加载在分段锁外进行：慢加载不阻塞同一分段的读写，并发加载合并为一次，加载函数内的写入不会重复插入")
+    void testLoadOutsideSegmentLock() throws Exception {
+        // 容量小于两倍的最小分段容量时只有一个分段
+        OpenAddressingLongLocalCacheService<String> cache = newCache(16);
+        cache.put(1L, "value1");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> cache.get(2L, key -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "loaded";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> cache.get(2L, key -> {
+            loads.incrementAndGet();
+            return "duplicate";
+        }));
+        // 加载进行中，同一分段的读写不被阻塞
+        assertEquals("value1", CompletableFuture.supplyAsync(() -> cache.getIfPresent(1L)).get(5, TimeUnit.SECONDS));
+        CompletableFuture.runAsync(() -> cache.put(3L, "value3")).get(5, TimeUnit.SECONDS);
+        release.countDown();
+        assertEquals("loaded", slow.get(5, TimeUnit.SECONDS));
+        assertEquals("loaded", waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+
+        // 加载函数写入同一个 key 时保留写入的值，只有一个缓存项
+        assertEquals("loaded", cache.get(4L, key -> {
+            cache.put(4L, "written");
+            return "loaded";
+        }));
+        assertEquals("written", cache.getIfPresent(4L));
+        assertEquals(4, cache.size());
+        assertEquals(4, cache.keys().length);
+    }
+
+    @Test
+    @DisplayName("测试超出最大容量时淘汰最久未访问的缓存项")
+    void testLruEviction() {
+        OpenAddressingLongLocalCacheService<String> cache = newCache(2);
+        cache.put(1L, "value1");
+        cache.put(2L, "value2");
+        // 访问 1 后，2 成为最久未访问的缓存项
+        assertEquals("value1", cache.getIfPresent(1L));
+        cache.put(3L, "value3");
+        assertNull(cache.getIfPresent(2L));
+        assertEquals("value1", cache.getIfPresent(1L));
+        assertEquals("value3", cache.getIfPresent(3L));
+    }
+
+    @Test
+    @DisplayName("测试写入时间过期")
+    void testExpiration() {
+        OpenAddressingLongLocalCacheService<String> cache = newCache(100);
+        cache.put(1L, "value1");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(4));
+        assertNull(cache.getIfPresent(1L));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("测试随机读写与删除后哈希表仍与 HashMap 一致")
+    void testRandomOperationsMatchHashMap() {
+        OpenAddressingLongLocalCacheService<String> cache = newCache(100_000);
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                cache.invalidate(key);
+                expected.remove(key);
+            } else {
+                cache.put(key, "value" + i);
+                expected.put(key, "value" + i);
+            }
+        }
+        assertEquals(expected.size(), cache.size());
+        expected.forEach((key, value) -> assertEquals(value, cache.getIfPresent(key)));
+    }
+
+    @Test
+    @DisplayName("测试命中时的查询不分配对象")
+    void testHitDoesNotAllocate() {
+        OpenAddressingLongLocalCacheService<String> cache = newCache(1024);
+        for (long i = 0; i < 1024; i++) {
+            cache.put(i, "value" + i);
+        }
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        // 预热，排除类加载等一次性分配
+        for (long i = 0; i < 100_000; i++) {
+            cache.getIfPresent(i & 1023);
+        }
+
+        // 取多轮中的最小值，排除 JIT 编译等偶发的一次性分配；每次查询都分配时每轮超过 1 MB
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (long i = 0; i < 100_000; i++) {
+                cache.getIfPresent(i & 1023);
+            }
+            allocated = Math.min(allocated, threadMXBean.getThreadAllocatedBytes(threadId) - before);
+        }
+        // 允许统计本身带来的少量分配
+        assertTrue(allocated < 1024, "Lookups should not allocate, allocated bytes: " + allocated);
+    }
+}
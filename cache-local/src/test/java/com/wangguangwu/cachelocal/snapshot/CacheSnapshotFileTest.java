@@ -0,0 +1,101 @@
+package com.wangguangwu.cachelocal.snapshot;
+
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.serializer.StringCacheSerializer;
+import com.wangguangwu.cachelocal.service.impl.MapLocalCacheService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CacheSnapshotFile 的单元测试类
+ */
+class CacheSnapshotFileTest {
+
+    private static final Instant SNAPSHOT_TIME = Instant.parse("2025-01-01T00:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("测试快照写入后并行加载，剩余存活时间扣除快照后经过的时间")
+    void testWriteAndLoad() {
+        Path path = tempDir.resolve("cache.snapshot");
+        MapLocalCacheService<String, String> source = newCache(new AtomicLong());
+        for (int i = 0; i < 10_000; i++) {
+            source.put("key" + i, "value" + i);
+        }
+        source.put("short", "value", Duration.ofSeconds(2));
+        assertEquals(10_001, snapshotFile(path, SNAPSHOT_TIME).write(source));
+
+        // 重启后 3 秒加载：short 已过期，其余缓存项剩余 57 秒
+        MapLocalCacheService<String, String> target = newCache(new AtomicLong());
+        SnapshotLoadResult result = snapshotFile(path, SNAPSHOT_TIME.plusSeconds(3)).load(target, 4);
+        assertEquals(10_000, result.getLoadedCount());
+        assertEquals(1, result.getExpiredCount());
+        assertEquals(0, result.getSkippedCount());
+        assertEquals("value42", target.getIfPresent("key42"));
+        assertNull(target.getIfPresent("short"));
+        assertEquals(Duration.ofSeconds(57), target.getExpiration("key42"));
+    }
+
+    @Test
+    @DisplayName("测试损坏的记录与不完整的文件末尾被跳过，版本不兼容的文件不加载")
+    void testSkipUnreadableEntries() throws IOException {
+        Path path = tempDir.resolve("cache.snapshot");
+        MapLocalCacheService<String, String> source = newCache(new AtomicLong());
+        source.put("a", "1");
+        source.put("b", "2");
+        snapshotFile(path, SNAPSHOT_TIME).write(source);
+
+        // 破坏第一条记录的最后一个字节，并在末尾追加半条记录
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, 16);
+            long lastByte = 16 + 8 + length.flip().getInt() - 1;
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0x7F}), lastByte);
+            channel.write(ByteBuffer.allocate(6).putInt(0, 100), channel.size());
+        }
+        MapLocalCacheService<String, String> target = newCache(new AtomicLong());
+        SnapshotLoadResult result = snapshotFile(path, SNAPSHOT_TIME).load(target, 1);
+        assertEquals(1, result.getLoadedCount());
+        assertEquals(2, result.getSkippedCount());
+        assertEquals(1, target.size());
+
+        // 修改文件头中的版本号
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).putInt(4, 99);
+        Files.write(path, bytes);
+        assertEquals(0, snapshotFile(path, SNAPSHOT_TIME).load(newCache(new AtomicLong()), 1).getLoadedCount());
+
+        // 快照文件不存在时不做任何处理
+        assertEquals(0, snapshotFile(tempDir.resolve("missing"), SNAPSHOT_TIME).load(target, 1).getLoadedCount());
+    }
+
+    private static MapLocalCacheService<String, String> newCache(AtomicLong now) {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setMaximumSize(20_000);
+        properties.setExpireAfterWrite(60);
+        properties.setExpireAfterAccess(60);
+        return new MapLocalCacheService<>(properties, now::get);
+    }
+
+    private static CacheSnapshotFile<String, String> snapshotFile(Path path, Instant now) {
+        return new CacheSnapshotFile<>(path, new StringCacheSerializer(), new StringCacheSerializer(),
+                Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,204 @@
+package com.wangguangwu.cachelocal.spring;
+
+import com.wangguangwu.cachelocal.constants.CacheTypeConstants;
+import com.wangguangwu.cachelocal.registry.LocalCacheRegistry;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.MapLocalCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LocalCacheManager 的单元测试类，通过 Spring 缓存注解使用 Caffeine 引擎，authors 缓存按 cache.specs 配置使用 Map 引擎
+ */
+@SpringBootTest
+class LocalCacheManagerTest {
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add(CacheTypeConstants.LOCAL_CACHE_TYPE, () -> CacheTypeConstants.CAFFEINE);
+        registry.add("cache.specs.authors.type", () -> CacheTypeConstants.MAP);
+        registry.add("cache.specs.authors.maximumSize", () -> "50");
+    }
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private LocalCacheService<Object, Object> localCacheService;
+
+    @Autowired
+    private LocalCacheRegistry localCacheRegistry;
+
+    @Autowired
+    private BookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        localCacheService.invalidateAll();
+        localCacheRegistry.getCache("authors").invalidateAll();
+        bookService.resetLoads();
+    }
+
+    @Test
+    @DisplayName("测试 @Cacheable 使用本地缓存引擎，不同缓存名称的相同键互不影响，清空只作用于单个缓存")
+    void testCacheableAndClear() {
+        assertInstanceOf(LocalCacheManager.class, cacheManager);
+        assertEquals("book-1", bookService.book(1));
+        assertEquals("book-1", bookService.book(1));
+        assertEquals("author-1", bookService.author(1));
+        assertEquals(2, bookService.loads());
+        assertEquals("book-1", localCacheService.getIfPresent(new CacheKey("books", 1)));
+
+        bookService.clearBooks();
+        assertNull(cacheManager.getCache("books").get(1));
+        assertEquals("author-1", bookService.author(1));
+        assertEquals(2, bookService.loads());
+
+        // null 同样被缓存
+        assertNull(bookService.missing(1));
+        assertNull(bookService.missing(1));
+        assertEquals(3, bookService.loads());
+    }
+
+    @Test
+    @DisplayName("测试配置了 cache.specs 的缓存名称使用注册表中的独立引擎，其余名称共用默认引擎")
+    void testNamedCacheSpec() {
+        assertEquals(Set.of("authors"), localCacheRegistry.getCacheNames());
+        assertSame(localCacheRegistry.getCache("authors"), cacheManager.getCache("authors").getNativeCache());
+        assertInstanceOf(MapLocalCacheService.class, cacheManager.getCache("authors").getNativeCache());
+        assertSame(localCacheService, cacheManager.getCache("books").getNativeCache());
+
+        assertEquals("author-2", bookService.author(2));
+        assertEquals("author-2", bookService.author(2));
+        assertEquals(1, bookService.loads());
+        assertEquals("author-2", localCacheRegistry.getCache("authors").getIfPresent(new CacheKey("authors", 2)));
+        assertNull(localCacheService.getIfPresent(new CacheKey("authors", 2)));
+    }
+
+    @Test
+    @DisplayName("测试 sync = true 时同一个键的并发未命中只加载一次，加载异常原样抛出")
+    void testSyncSingleFlight() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return bookService.slowBook(7);
+                }, executor));
+            }
+            start.countDown();
+            for (CompletableFuture<String> future : futures) {
+                assertEquals("slow-7", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, bookService.loads());
+        assertThrows(IllegalStateException.class, () -> bookService.failingBook(1));
+    }
+
+    @Test
+    @DisplayName("测试返回 CompletableFuture 的方法通过引擎的异步加载缓存结果")
+    void testAsyncCacheable() throws Exception {
+        assertEquals("async-3", bookService.asyncBook(3).get(5, TimeUnit.SECONDS));
+        assertEquals("async-3", bookService.asyncBook(3).get(5, TimeUnit.SECONDS));
+        assertEquals(1, bookService.loads());
+    }
+
+    @TestConfiguration
+    @EnableCaching
+    static class CachingConfiguration {
+
+        @Bean
+        BookService bookService() {
+            return new BookService();
+        }
+    }
+
+    static class BookService {
+
+        // 方法实际执行的次数，通过方法访问，字段在代理上不可见
+        private final AtomicInteger loads = new AtomicInteger();
+
+        public int loads() {
+            return loads.get();
+        }
+
+        public void resetLoads() {
+            loads.set(0);
+        }
+
+        @Cacheable("books")
+        public String book(int id) {
+            loads.incrementAndGet();
+            return "book-" + id;
+        }
+
+        @Cacheable("authors")
+        public String author(int id) {
+            loads.incrementAndGet();
+            return "author-" + id;
+        }
+
+        @Cacheable("missing")
+        public String missing(int id) {
+            loads.incrementAndGet();
+            return null;
+        }
+
+        @Cacheable(cacheNames = "slow", sync = true)
+        public String slowBook(int id) {
+            loads.incrementAndGet();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow-" + id;
+        }
+
+        @Cacheable(cacheNames = "failing", sync = true)
+        public String failingBook(int id) {
+            throw new IllegalStateException("load failed");
+        }
+
+        @Cacheable("async")
+        public CompletableFuture<String> asyncBook(int id) {
+            loads.incrementAndGet();
+            return CompletableFuture.supplyAsync(() -> "async-" + id);
+        }
+
+        @CacheEvict(cacheNames = "books", allEntries = true)
+        public void clearBooks() {
+        }
+    }
+}
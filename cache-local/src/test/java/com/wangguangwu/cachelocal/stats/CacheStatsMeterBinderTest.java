@@ -0,0 +1,75 @@
+package com.wangguangwu.cachelocal.stats;
+
+import com.wangguangwu.cachelocal.config.LocalCacheMetricsConfig;
+import com.wangguangwu.cachelocal.constants.CacheTypeConstants;
+import com.wangguangwu.cachelocal.properties.LocalCacheProperties;
+import com.wangguangwu.cachelocal.registry.LocalCacheRegistry;
+import com.wangguangwu.cachelocal.serializer.JdkCacheSerializer;
+import com.wangguangwu.cachelocal.service.LocalCacheService;
+import com.wangguangwu.cachelocal.service.impl.MapLocalCacheService;
+import com.wangguangwu.cachelocal.weigher.EstimatedSizeWeigher;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CacheStatsMeterBinder 的单元测试类
+ */
+class CacheStatsMeterBinderTest {
+
+    @Test
+    @DisplayName("测试缓存统计导出为 Micrometer 指标")
+    void testBindTo() {
+        MapLocalCacheService<String, String> cache = new MapLocalCacheService<>(new LocalCacheProperties(), System::nanoTime, Runnable::run);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new CacheStatsMeterBinder("users", cache).bindTo(registry);
+
+        cache.put("key", "value");
+        cache.getIfPresent("key");
+        cache.getIfPresent("missing");
+        cache.get("loaded", key -> "value");
+
+        assertEquals(1, registry.get("cache.gets").tag("cache", "users").tag("result", "hit").functionCounter().count());
+        assertEquals(2, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.loads").tag("result", "success").functionCounter().count());
+        assertEquals(0, registry.get("cache.evictions").tag("cause", "size").functionCounter().count());
+        assertEquals(2, registry.get("cache.size").gauge().value());
+        FunctionTimer getIfPresent = registry.get("cache.operation.duration")
+                .tag("operation", "get_if_present").functionTimer();
+        assertEquals(2, getIfPresent.count());
+        assertEquals(1, registry.get("cache.load.duration").functionTimer().count());
+    }
+
+    @Test
+    @DisplayName("测试绑定指标时不创建命名缓存，命名缓存首次获取时才导出指标")
+    void testNamedCachesBoundOnCreation() {
+        LocalCacheProperties properties = new LocalCacheProperties();
+        LocalCacheProperties.Spec spec = new LocalCacheProperties.Spec();
+        spec.setType(CacheTypeConstants.MAP);
+        properties.getSpecs().put("users", spec);
+        LocalCacheRegistry cacheRegistry = new LocalCacheRegistry(properties, Runnable::run,
+                new EstimatedSizeWeigher<>(), new JdkCacheSerializer<>());
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ObjectProvider<LocalCacheService<Object, Object>> noEngine =
+                (ObjectProvider) new StaticListableBeanFactory().getBeanProvider(LocalCacheService.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        new LocalCacheMetricsConfig().localCacheMeterBinder(noEngine, cacheRegistry).bindTo(registry);
+        List<String> created = new ArrayList<>();
+        cacheRegistry.addCreationListener((name, cache) -> created.add(name));
+        assertEquals(List.of(), created);
+        assertNull(registry.find("cache.size").tag("cache", "users").gauge());
+
+        cacheRegistry.<String, String>getCache("users").put("key", "value");
+        assertEquals(List.of("users"), created);
+        assertEquals(1, registry.get("cache.size").tag("cache", "users").gauge().value());
+    }
+}
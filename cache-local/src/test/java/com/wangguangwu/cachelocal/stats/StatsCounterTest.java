@@ -0,0 +1,76 @@
+package com.wangguangwu.cachelocal.stats;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StatsCounter 与 LatencyHistogram 的单元测试类
+ */
+class StatsCounterTest {
+
+    @Test
+    @DisplayName("测试耗时分布的分位数误差不超过一个桶")
+    void testLatencyPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1_000_000, snapshot.getMaxNanos());
+        assertEquals(500_500, snapshot.getMeanNanos(), 0.001);
+        assertTrue(snapshot.getP50() >= 500_000 && snapshot.getP50() <= 500_000 * 1.125);
+        assertTrue(snapshot.getP99() >= 990_000 && snapshot.getP99() <= 1_000_000);
+        assertTrue(snapshot.getP50() <= snapshot.getP90() && snapshot.getP90() <= snapshot.getP99());
+    }
+
+    @Test
+    @DisplayName("测试计数与加载统计")
+    void testCountsAndLoads() {
+        StatsCounter counter = new StatsCounter();
+        counter.recordHits(3);
+        counter.recordMisses(1);
+        counter.recordEviction(EvictionCause.SIZE);
+        counter.recordOperation(CacheOperation.GET, counter.startTime());
+
+        Function<String, String> loader = counter.recordingLoads(key -> key.isEmpty() ? null : key);
+        loader.apply("value");
+        loader.apply("");
+        Function<Set<? extends String>, Map<? extends String, ? extends String>> bulkLoader =
+                counter.recordingBulkLoads(keys -> {
+                    throw new IllegalStateException("backend down");
+                });
+        assertThrows(IllegalStateException.class, () -> bulkLoader.apply(Set.of("key")));
+
+        CacheStats stats = counter.snapshot();
+        assertEquals(3, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(0.75, stats.getHitRate(), 0.001);
+        assertEquals(1, stats.getLoadSuccessCount());
+        assertEquals(2, stats.getLoadFailureCount());
+        assertEquals(3, stats.getLoadLatency().getCount());
+        assertEquals(1, stats.getEvictionCounts().get(EvictionCause.SIZE));
+        assertEquals(0, stats.getEvictionCounts().get(EvictionCause.EXPIRED));
+        assertEquals(1, stats.getOperationLatencies().get(CacheOperation.GET).getCount());
+        assertEquals(0, stats.getOperationLatencies().get(CacheOperation.PUT).getCount());
+    }
+
+    @Test
+    @DisplayName("测试关闭统计时不记录任何数据")
+    void testDisabled() {
+        StatsCounter counter = StatsCounter.disabled();
+        counter.recordHits(1);
+        counter.recordEviction(EvictionCause.EXPIRED);
+        counter.recordOperation(CacheOperation.PUT, counter.startTime());
+
+        assertSame(CacheStats.empty(), counter.snapshot());
+        assertEquals(0, counter.snapshot().getRequestCount());
+    }
+}
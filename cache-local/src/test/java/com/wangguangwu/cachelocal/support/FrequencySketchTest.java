@@ -0,0 +1,43 @@
+package com.wangguangwu.cachelocal.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FrequencySketch 的单元测试类
+ */
+class FrequencySketchTest {
+
+    @Test
+    @DisplayName("测试频率估算随访问次数增加且不超过上限")
+    void testIncrementAndFrequency() {
+        FrequencySketch sketch = new FrequencySketch(512);
+        assertEquals(0, sketch.frequency("key"));
+
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("key");
+        }
+        assertEquals(5, sketch.frequency("key"));
+
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("key");
+        }
+        assertEquals(15, sketch.frequency("key"));
+    }
+
+    @Test
+    @DisplayName("测试计数达到采样上限后频率老化减半")
+    void testReset() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("hot");
+        }
+        // 写入足够多的不同元素触发老化
+        for (int i = 0; i < 640; i++) {
+            sketch.increment(i);
+        }
+        assertTrue(sketch.frequency("hot") <= 5, "Frequency should be halved after reset");
+    }
+}
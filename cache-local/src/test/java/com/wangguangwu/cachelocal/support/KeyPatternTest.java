@@ -0,0 +1,44 @@
+package com.wangguangwu.cachelocal.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KeyPattern 的单元测试类
+ */
+class KeyPatternTest {
+
+    @Test
+    @DisplayName("测试通配符、字符集合与转义按 Redis glob 语义匹配")
+    void testGlobSyntax() {
+        assertTrue(KeyPattern.compile(null).matchesAll());
+        assertTrue(KeyPattern.compile("*").test(42));
+
+        KeyPattern prefix = KeyPattern.compile("user:*");
+        assertTrue(prefix.test("user:1"));
+        assertTrue(prefix.test("user:"));
+        assertFalse(prefix.test("order:1"));
+
+        KeyPattern single = KeyPattern.compile("h?llo");
+        assertTrue(single.test("hello"));
+        assertFalse(single.test("hllo"));
+
+        KeyPattern range = KeyPattern.compile("item-[0-3]");
+        assertTrue(range.test("item-2"));
+        assertFalse(range.test("item-7"));
+
+        KeyPattern negated = KeyPattern.compile("h[^e]llo");
+        assertTrue(negated.test("hallo"));
+        assertFalse(negated.test("hello"));
+
+        // 正则中的特殊字符与转义的通配符按字面量匹配
+        KeyPattern literal = KeyPattern.compile("a.b\\*(c)");
+        assertTrue(literal.test("a.b*(c)"));
+        assertFalse(literal.test("axb*(c)"));
+        assertFalse(literal.test("a.bx(c)"));
+
+        assertTrue(KeyPattern.compile("[abc").test("[abc"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.wangguangwu.cachelocal.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SingleFlightLoader 的单元测试类
+ */
+class SingleFlightLoaderTest {
+
+    @Test
+    @DisplayName("测试同一个 key 的并发异步加载只调用一次加载函数")
+    void testConcurrentAsyncLoadsAreCoalesced() throws Exception {
+        SingleFlightLoader<String, String> loader = new SingleFlightLoader<>(LoaderExecutors.defaultExecutor());
+        Map<String, String> cache = new ConcurrentHashMap<>();
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> backend = new CompletableFuture<>();
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            futures.add(loader.loadAsync("hot", k -> {
+                loads.incrementAndGet();
+                return backend;
+            }, cache::put));
+        }
+        backend.complete("value");
+
+        for (CompletableFuture<String> future : futures) {
+            assertEquals("value", future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals("value", cache.get("hot"));
+        assertEquals(0, loader.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("测试加载失败时所有等待方收到异常且结果不写入缓存")
+    void testFailedLoadPropagatesToAllWaiters() {
+        SingleFlightLoader<String, String> loader = new SingleFlightLoader<>(LoaderExecutors.defaultExecutor());
+        Map<String, String> cache = new ConcurrentHashMap<>();
+        CompletableFuture<String> backend = new CompletableFuture<>();
+
+        CompletableFuture<String> first = loader.loadAsync("key", k -> backend, cache::put);
+        CompletableFuture<String> second = loader.loadAsync("key", k -> backend, cache::put);
+        backend.completeExceptionally(new IllegalStateException("backend down"));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertTrue(cache.isEmpty());
+
+        // 失败后不残留进行中的加载，下一次请求重新加载
+        assertEquals(0, loader.inFlightCount());
+        assertEquals("recovered", loader.load("key", k -> "recovered", cache::put));
+    }
+
+    @Test
+    @DisplayName("测试取消调用方拿到的 future 不影响其他调用方")
+    void testCancelDoesNotAffectOtherCallers() throws Exception {
+        SingleFlightLoader<String, String> loader = new SingleFlightLoader<>(LoaderExecutors.defaultExecutor());
+        CompletableFuture<String> backend = new CompletableFuture<>();
+
+        CompletableFuture<String> first = loader.loadAsync("key", k -> backend, (k, v) -> {
+        });
+        CompletableFuture<String> second = loader.loadAsync("key", k -> backend, (k, v) -> {
+        });
+        first.cancel(true);
+        backend.complete("value");
+
+        assertEquals("value", second.get(5, TimeUnit.SECONDS));
+    }
+}
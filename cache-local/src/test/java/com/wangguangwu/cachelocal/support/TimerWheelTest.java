@@ -0,0 +1,77 @@
+package com.wangguangwu.cachelocal.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TimerWheel 的单元测试类
+ */
+class TimerWheelTest {
+
+    private static final long START = TimeUnit.HOURS.toNanos(1);
+
+    @Test
+    @DisplayName("测试条目在到期后被触发，未到期的条目保留")
+    void testAdvanceExpiresDueTimers() {
+        TimerWheel<TestTimer> wheel = new TimerWheel<>(START);
+        TestTimer shortTimer = timer(START + TimeUnit.SECONDS.toNanos(2));
+        TestTimer longTimer = timer(START + TimeUnit.MINUTES.toNanos(10));
+        wheel.schedule(shortTimer);
+        wheel.schedule(longTimer);
+
+        List<TestTimer> expired = new ArrayList<>();
+        wheel.advance(START + TimeUnit.SECONDS.toNanos(5), expired::add);
+        assertEquals(List.of(shortTimer), expired);
+
+        wheel.advance(START + TimeUnit.MINUTES.toNanos(11), expired::add);
+        assertEquals(List.of(shortTimer, longTimer), expired);
+    }
+
+    @Test
+    @DisplayName("测试回调拒绝过期后条目按新的到期时间重新调度")
+    void testRescheduleWhenExpirerRejects() {
+        TimerWheel<TestTimer> wheel = new TimerWheel<>(START);
+        TestTimer timer = timer(START + TimeUnit.SECONDS.toNanos(1));
+        wheel.schedule(timer);
+
+        List<TestTimer> expired = new ArrayList<>();
+        // 第一次到期时延长 30 秒
+        wheel.advance(START + TimeUnit.SECONDS.toNanos(3), t -> {
+            t.setDeadline(START + TimeUnit.SECONDS.toNanos(33));
+            return false;
+        });
+        wheel.advance(START + TimeUnit.SECONDS.toNanos(20), expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(START + TimeUnit.SECONDS.toNanos(40), expired::add);
+        assertEquals(List.of(timer), expired);
+    }
+
+    @Test
+    @DisplayName("测试移除后的条目不会被触发")
+    void testDeschedule() {
+        TimerWheel<TestTimer> wheel = new TimerWheel<>(START);
+        TestTimer timer = timer(START + TimeUnit.SECONDS.toNanos(1));
+        wheel.schedule(timer);
+        wheel.deschedule(timer);
+
+        List<TestTimer> expired = new ArrayList<>();
+        wheel.advance(START + TimeUnit.DAYS.toNanos(1), expired::add);
+        assertTrue(expired.isEmpty());
+    }
+
+    private static TestTimer timer(long deadline) {
+        TestTimer timer = new TestTimer();
+        timer.setDeadline(deadline);
+        return timer;
+    }
+
+    private static final class TestTimer extends TimerWheel.Timer {
+    }
+}
@@ -0,0 +1,60 @@
+package com.wangguangwu.cachelocal.weigher;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EstimatedSizeWeigher 的单元测试类
+ */
+class EstimatedSizeWeigherTest {
+
+    private final EstimatedSizeWeigher<Object, Object> weigher = new EstimatedSizeWeigher<>();
+
+    @Test
+    @DisplayName("测试权重随值的大小增长")
+    void testWeightGrowsWithValueSize() {
+        int small = weigher.weigh("key", "v");
+        int large = weigher.weigh("key", "v".repeat(1000));
+        assertTrue(large - small >= 990);
+
+        int bytes = weigher.weigh("key", new byte[4096]);
+        assertTrue(bytes > 4096);
+
+        // 非 Latin-1 字符按每个字符 2 字节计算
+        assertTrue(weigher.weigh("key", "中".repeat(100)) > weigher.weigh("key", "a".repeat(100)));
+    }
+
+    @Test
+    @DisplayName("测试递归估算普通对象与集合，循环引用不会导致死循环")
+    void testObjectGraph() {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add("element" + i);
+        }
+        assertTrue(weigher.weigh("key", list) > weigher.weigh("key", new ArrayList<>()));
+
+        Node first = new Node("x".repeat(500));
+        Node second = new Node("y");
+        first.next = second;
+        second.next = first;
+        int weight = weigher.weigh("key", first);
+        assertTrue(weight > 500);
+        assertTrue(weight < 2000);
+    }
+
+    private static final class Node {
+
+        private final String payload;
+
+        private Node next;
+
+        private Node(String payload) {
+            this.payload = payload;
+        }
+    }
+}